@@ -1,5 +1,1089 @@
 package stark.dataworks.basic.collections;
 
-public class ConcurrentDictionary
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+import stark.dataworks.basic.IEqualityComparer;
+import stark.dataworks.basic.KeyNotFountException;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The {@link ConcurrentDictionary} class represents a thread-safe hash dictionary that can be accessed by multiple
+ * threads concurrently.
+ * <p>
+ * The elements are kept in a table of bins, and each bin is a chain of nodes. Reads never take a lock: they walk the
+ * chains through volatile references. An element is added to an empty bin by a CAS on the bin, while all other updates
+ * lock only the first node of the bin they touch, so writers to different bins never contend.
+ * <p>
+ * When the table becomes too full, one writer builds a table with twice the bins and moves the bins one by one. Every
+ * moved bin is replaced by a forwarding node, which sends readers and writers to the new table, so the resize never
+ * stops readers and only briefly holds each bin lock.
+ * <p>
+ * Neither keys nor values can be null. Iterators are weakly consistent: they never throw
+ * {@link stark.dataworks.basic.InvalidOperationException}, and may or may not reflect modifications made after they
+ * were created.
+ *
+ * @param <TKey>   Type of keys in this dictionary.
+ * @param <TValue> Type of values in this dictionary.
+ */
+public class ConcurrentDictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Serializable
 {
+    /**
+     * Hash of forwarding nodes.
+     */
+    private static final int MOVED = -1;
+
+    /**
+     * Hash of reservation nodes, which hold an empty bin while a value is being computed for it.
+     */
+    private static final int RESERVED = -2;
+
+    /**
+     * Mask of the usable bits of a node hash, so that the hashes of ordinary nodes are never negative.
+     */
+    private static final int HASH_BITS = 0x7fffffff;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_TABLE_LENGTH = 1 << 30;
+
+    private static class Node<TKey, TValue>
+    {
+        final int hash;
+        final TKey key;
+        volatile TValue value;
+        volatile Node<TKey, TValue> next;
+
+        Node(int hash, TKey key, TValue value, Node<TKey, TValue> next)
+        {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private static final class ForwardingNode<TKey, TValue> extends Node<TKey, TValue>
+    {
+        final AtomicReferenceArray<Node<TKey, TValue>> nextTable;
+
+        ForwardingNode(AtomicReferenceArray<Node<TKey, TValue>> nextTable)
+        {
+            super(MOVED, null, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Node<TKey, TValue>> table;
+    private volatile int resizeThreshold;
+    private final AtomicBoolean resizing;
+    private final LongAdder count;
+    private final IEqualityComparer<TKey> keyComparer;
+
+    public ConcurrentDictionary()
+    {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    public ConcurrentDictionary(int capacity)
+    {
+        this(capacity, null);
+    }
+
+    public ConcurrentDictionary(IEqualityComparer<TKey> keyComparer)
+    {
+        this(DEFAULT_CAPACITY, keyComparer);
+    }
+
+    /**
+     * Initializes an empty {@link ConcurrentDictionary} that can hold the specified number of elements without
+     * resizing.
+     *
+     * @param capacity    The expected number of elements.
+     * @param keyComparer The comparer used to hash and compare keys, or null to use the methods of the keys.
+     * @throws ArgumentOutOfRangeException The specified capacity is less than 0.
+     */
+    public ConcurrentDictionary(int capacity, IEqualityComparer<TKey> keyComparer)
+    {
+        if (capacity < 0)
+            throw new ArgumentOutOfRangeException("The parameter \"capacity\" must be greater than or equal to 0.");
+
+        int tableLength = 2;
+        while ((tableLength < MAX_TABLE_LENGTH) && (thresholdOf(tableLength) < capacity))
+            tableLength <<= 1;
+
+        table = new AtomicReferenceArray<>(tableLength);
+        resizeThreshold = thresholdOf(tableLength);
+        resizing = new AtomicBoolean(false);
+        count = new LongAdder();
+        this.keyComparer = keyComparer;
+    }
+
+    public IEqualityComparer<TKey> getKeyComparer()
+    {
+        return keyComparer;
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in the {@link IDictionary}.
+     */
+    @Override
+    public TValue get(TKey key)
+    {
+        validateKey(key);
+
+        Node<TKey, TValue> node = findNode(key);
+        if (node == null)
+            throw new KeyNotFountException("The specified key is not in the ConcurrentDictionary.");
+
+        return node.value;
+    }
+
+    /**
+     * Gets the element associated with the specified key, or the specified default value if the key is not in this
+     * dictionary.
+     *
+     * @param key          The key of the element to get.
+     * @param defaultValue The value to return if the key is not found.
+     * @return The value associated with the specified key, or {@code defaultValue}.
+     * @throws NullPointerException The specified key is null.
+     */
+    public TValue getOrDefault(TKey key, TValue defaultValue)
+    {
+        validateKey(key);
+
+        Node<TKey, TValue> node = findNode(key);
+        return (node == null) ? defaultValue : node.value;
+    }
+
+    /**
+     * Sets the element associated with the specified key.
+     *
+     * @param key   The key of the element to get.
+     * @param value The new value associated with the specified key.
+     * @throws NullPointerException The specified key or value is null.
+     * @throws KeyNotFountException The specified key is not in the {@link IDictionary}.
+     */
+    @Override
+    public void set(TKey key, TValue value)
+    {
+        validateKey(key);
+        validateValue(value);
+
+        if (computeValue(key, (k, current) -> (current == null) ? null : value) == null)
+            throw new KeyNotFountException("The specified key is not in the ConcurrentDictionary.");
+    }
+
+    /**
+     * Adds an element with the provided key and value, or replaces the value if the key already exists.
+     *
+     * @param key   The key of the element to add or replace.
+     * @param value The new value associated with the specified key.
+     * @return The previous value associated with the specified key, or null if there was no such element.
+     * @throws NullPointerException The specified key or value is null.
+     */
+    public TValue put(TKey key, TValue value)
+    {
+        validateKey(key);
+        validateValue(value);
+
+        return putValue(key, value, false);
+    }
+
+    /**
+     * Attempts to add the specified key and value to this dictionary.
+     *
+     * @param key   The key of the element to add.
+     * @param value The value of the element to add.
+     * @return {@code true} if the element is added; {@code false} if the key already exists.
+     * @throws NullPointerException The specified key or value is null.
+     */
+    public boolean tryAdd(TKey key, TValue value)
+    {
+        validateKey(key);
+        validateValue(value);
+
+        return putValue(key, value, true) == null;
+    }
+
+    /**
+     * Gets the value associated with the specified key, or adds the specified value if the key does not exist.
+     *
+     * @param key   The key of the element to get or add.
+     * @param value The value to add if the key does not exist.
+     * @return The value associated with the key after this call, i.e. the existing value if the key already exists;
+     * otherwise, {@code value}.
+     * @throws NullPointerException The specified key or value is null.
+     */
+    public TValue getOrAdd(TKey key, TValue value)
+    {
+        validateKey(key);
+        validateValue(value);
+
+        Node<TKey, TValue> node = findNode(key);
+        if (node != null)
+            return node.value;
+
+        TValue previous = putValue(key, value, true);
+        return (previous == null) ? value : previous;
+    }
+
+    /**
+     * Gets the value associated with the specified key, or adds a value generated by the specified factory if the key
+     * does not exist. The factory is called at most once, while the bin of the key is locked, so it should be short
+     * and must not modify this dictionary.
+     *
+     * @param key          The key of the element to get or add.
+     * @param valueFactory The function used to generate a value for the key.
+     * @return The value associated with the key after this call.
+     * @throws NullPointerException The specified key or factory is null, or the factory returns null.
+     */
+    public TValue getOrAdd(TKey key, Function<? super TKey, ? extends TValue> valueFactory)
+    {
+        validateKey(key);
+        Objects.requireNonNull(valueFactory, "Argument \"valueFactory\" cannot be null.");
+
+        Node<TKey, TValue> node = findNode(key);
+        if (node != null)
+            return node.value;
+
+        return computeValue(key, (k, current) ->
+                (current != null) ? current : Objects.requireNonNull(valueFactory.apply(k), "The value factory returned null."));
+    }
+
+    /**
+     * Adds the specified value if the key does not exist, or updates the existing value by the specified function.
+     * The function is called at most once, while the bin of the key is locked, so it should be short and must not
+     * modify this dictionary.
+     *
+     * @param key           The key of the element to add or update.
+     * @param addValue      The value to add if the key does not exist.
+     * @param updateFactory The function used to generate a new value from the key and the existing value.
+     * @return The value associated with the key after this call.
+     * @throws NullPointerException An argument is null, or the update factory returns null.
+     */
+    public TValue addOrUpdate(TKey key, TValue addValue, BiFunction<? super TKey, ? super TValue, ? extends TValue> updateFactory)
+    {
+        validateKey(key);
+        validateValue(addValue);
+        Objects.requireNonNull(updateFactory, "Argument \"updateFactory\" cannot be null.");
+
+        return computeValue(key, (k, current) ->
+                (current == null) ? addValue : Objects.requireNonNull(updateFactory.apply(k, current), "The update factory returned null."));
+    }
+
+    /**
+     * Adds a value generated by the specified add factory if the key does not exist, or updates the existing value by
+     * the specified update factory. Exactly one of the factories is called, while the bin of the key is locked.
+     *
+     * @param key           The key of the element to add or update.
+     * @param addFactory    The function used to generate a value for a missing key.
+     * @param updateFactory The function used to generate a new value from the key and the existing value.
+     * @return The value associated with the key after this call.
+     * @throws NullPointerException An argument is null, or a factory returns null.
+     */
+    public TValue addOrUpdate(TKey key, Function<? super TKey, ? extends TValue> addFactory,
+                              BiFunction<? super TKey, ? super TValue, ? extends TValue> updateFactory)
+    {
+        validateKey(key);
+        Objects.requireNonNull(addFactory, "Argument \"addFactory\" cannot be null.");
+        Objects.requireNonNull(updateFactory, "Argument \"updateFactory\" cannot be null.");
+
+        return computeValue(key, (k, current) -> Objects.requireNonNull(
+                (current == null) ? addFactory.apply(k) : updateFactory.apply(k, current),
+                "The value factory returned null."));
+    }
+
+    /**
+     * Updates the value associated with the specified key if the existing value equals the comparison value.
+     *
+     * @param key             The key of the element to update.
+     * @param newValue        The new value associated with the key.
+     * @param comparisonValue The value that is compared with the existing value.
+     * @return {@code true} if the value is replaced; otherwise, {@code false}.
+     * @throws NullPointerException An argument is null.
+     */
+    public boolean tryUpdate(TKey key, TValue newValue, TValue comparisonValue)
+    {
+        validateKey(key);
+        validateValue(newValue);
+        validateValue(comparisonValue);
+
+        boolean[] updated = new boolean[1];
+        computeValue(key, (k, current) ->
+        {
+            if ((current == null) || !current.equals(comparisonValue))
+                return current;
+
+            updated[0] = true;
+            return newValue;
+        });
+        return updated[0];
+    }
+
+    /**
+     * Attempts to remove the element with the specified key.
+     *
+     * @param key The key of the element to remove.
+     * @return The removed value, or null if the key does not exist.
+     * @throws NullPointerException The specified key is null.
+     */
+    public TValue tryRemove(TKey key)
+    {
+        validateKey(key);
+
+        Object[] removed = new Object[1];
+        computeValue(key, (k, current) ->
+        {
+            removed[0] = current;
+            return null;
+        });
+
+        @SuppressWarnings("unchecked")
+        TValue value = (TValue) removed[0];
+        return value;
+    }
+
+    /**
+     * Attempts to remove the element with the specified key and value.
+     *
+     * @param key   The key of the element to remove.
+     * @param value The value of the element to remove.
+     * @return {@code true} if the element is removed; otherwise, {@code false}.
+     * @throws NullPointerException The specified key is null.
+     */
+    public boolean tryRemove(TKey key, TValue value)
+    {
+        validateKey(key);
+        if (value == null)
+            return false;
+
+        boolean[] removed = new boolean[1];
+        computeValue(key, (k, current) ->
+        {
+            if ((current == null) || !current.equals(value))
+                return current;
+
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Atomically merges the specified value into the element with the specified key.
+     *
+     * @param key               The key of the element to merge.
+     * @param value             The value to add if the key does not exist.
+     * @param remappingFunction The function used to merge the existing value with {@code value}, which removes the
+     *                          element when it returns null.
+     * @return The value associated with the key after this call, or null if the element is removed.
+     */
+    @Override
+    public TValue merge(TKey key, TValue value, BiFunction<? super TValue, ? super TValue, ? extends TValue> remappingFunction)
+    {
+        validateKey(key);
+        validateValue(value);
+        Objects.requireNonNull(remappingFunction, "Argument \"remappingFunction\" cannot be null.");
+
+        return computeValue(key, (k, current) -> (current == null) ? value : remappingFunction.apply(current, value));
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the keys of the {@link IDictionary}.
+     *
+     * @return an {@link Iterable} containing all the keys of the {@link IDictionary}.
+     */
+    @Override
+    public Iterable<TKey> keys()
+    {
+        return KeyIterator::new;
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the values of the {@link IDictionary}.
+     *
+     * @return an {@link Iterable} containing all the values of the {@link IDictionary}.
+     */
+    @Override
+    public Iterable<TValue> values()
+    {
+        return ValueIterator::new;
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link IDictionary}.
+     *
+     * @param key   The object to use as the key of the element to add.
+     * @param value The object to use as the value of the element to add, which is associated with the key.
+     * @throws NullPointerException     The specified key or value is null.
+     * @throws IllegalArgumentException An element with the same key already exists in this {@link IDictionary}.
+     */
+    @Override
+    public void add(TKey key, TValue value)
+    {
+        if (!tryAdd(key, value))
+            throw new IllegalArgumentException("The specified key is already in the ConcurrentDictionary.");
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link IDictionary}.
+     *
+     * @param keyValuePair The object to add with the key and the value.
+     * @throws NullPointerException     The specified key value pair is null.
+     * @throws IllegalArgumentException An element with the same key already exists in this {@link IDictionary}.
+     */
+    @Override
+    public void add(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        add(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified key.
+     *
+     * @param key The key to locate in this {@link IDictionary}.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the key; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKey(TKey key)
+    {
+        validateKey(key);
+        return findNode(key) != null;
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified value. This method traverses
+     * the whole dictionary.
+     *
+     * @param value The value to locate in this {@link IDictionary}.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the value; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean containsValue(TValue value)
+    {
+        if (value == null)
+            return false;
+
+        for (TValue current : values())
+        {
+            if (value.equals(current))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified key and value.
+     *
+     * @param key   The key to locate in this {@link IDictionary}.
+     * @param value The value associated with the specified key.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the key and value; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKeyValue(TKey key, TValue value)
+    {
+        validateKey(key);
+
+        Node<TKey, TValue> node = findNode(key);
+        return (node != null) && Objects.equals(node.value, value);
+    }
+
+    /**
+     * Tries to remove a {@link KeyValuePair} with the specified key.
+     * Java's generic programming mechanism makes this method have a long name instead just "remove".
+     *
+     * @param key The key of the element to remove.
+     * @return <code>true</code> if the element is successfully removed; otherwise, <code>false</code>. This method
+     * also returns <code>false</code> if key was not found in the original {@link IDictionary}.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean removeByKey(TKey key)
+    {
+        return tryRemove(key) != null;
+    }
+
+    /**
+     * Removes all items from this {@link ICollection}. Elements added concurrently may survive.
+     */
+    @Override
+    public void clear()
+    {
+        AtomicReferenceArray<Node<TKey, TValue>> tab = table;
+        int i = 0;
+        while (i < tab.length())
+        {
+            Node<TKey, TValue> head = tab.get(i);
+            if (head == null)
+                i++;
+            else if (head.hash == MOVED)
+            {
+                tab = ((ForwardingNode<TKey, TValue>) head).nextTable;
+                i = 0;
+            }
+            else
+            {
+                synchronized (head)
+                {
+                    if (tab.get(i) == head)
+                    {
+                        int removed = 0;
+                        for (Node<TKey, TValue> e = head; e != null; e = e.next)
+                        {
+                            if (e.hash >= 0)
+                                removed++;
+                        }
+
+                        tab.set(i, null);
+                        count.add(-removed);
+                        i++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the first occurrence of a specific object from this {@link ICollection}.
+     *
+     * @param keyValuePair The object to remove from this {@link ICollection}.
+     * @return <code>true</code> if item was successfully removed from the {@link ICollection}; otherwise,
+     * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
+     * {@link ICollection}.
+     */
+    @Override
+    public boolean remove(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        return tryRemove(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements of this dictionary.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<KeyValuePair<TKey, TValue>> iterator()
+    {
+        return new DictionaryIterator();
+    }
+
+    /**
+     * Gets the number of elements contained in this {@link ICollection}. The result is only an estimate while other
+     * threads are modifying this dictionary.
+     *
+     * @return The number of elements contained in this {@link ICollection}.
+     */
+    @Override
+    public int count()
+    {
+        long n = count.sum();
+        if (n < 0)
+            return 0;
+        return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link ICollection} contains a specific value.
+     *
+     * @param keyValuePair The {@link KeyValuePair} to locate in this {@link ICollection}.
+     * @return <code>true</code> if the specified value is found in this {@link ICollection}; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean contains(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        return containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from this
+     *              {@link ICollection}. The array must have zero-based indexing.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the source {@link ICollection} is greater than the
+     *                                  available space from 0 to the end of the destination array, i.e. the capacity of the given array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at a particular array index. The elements
+     * are collected before copying, so the space is checked against the elements actually copied.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from this
+     *                   {@link ICollection}. The array must have zero-based indexing.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException Array index is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the source {@link ICollection} is greater than the
+     *                                        available space from <code>startIndex</code> to the end of the destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+
+        java.util.ArrayList<KeyValuePair<TKey, TValue>> elements = new java.util.ArrayList<>(count());
+        for (KeyValuePair<TKey, TValue> kvp : this)
+            elements.add(kvp);
+
+        if (array.length < startIndex + elements.size())
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        for (KeyValuePair<TKey, TValue> kvp : elements)
+            array[startIndex++] = kvp;
+    }
+
+    private int hashOf(TKey key)
+    {
+        int h = (keyComparer != null) ? keyComparer.getHashCode(key) : key.hashCode();
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    private boolean keyEquals(TKey x, TKey y)
+    {
+        if (x == y)
+            return true;
+
+        if (keyComparer != null)
+            return keyComparer.equals(x, y);
+        return x.equals(y);
+    }
+
+    private static int thresholdOf(int tableLength)
+    {
+        return tableLength - (tableLength >>> 2);
+    }
+
+    /**
+     * Finds the node with the specified key without locking.
+     *
+     * @param key The key to locate.
+     * @return The node with the specified key, or null if there is no such node.
+     */
+    private Node<TKey, TValue> findNode(TKey key)
+    {
+        int hash = hashOf(key);
+        AtomicReferenceArray<Node<TKey, TValue>> tab = table;
+        while (true)
+        {
+            Node<TKey, TValue> e = tab.get(hash & (tab.length() - 1));
+            if ((e != null) && (e.hash == MOVED))
+            {
+                tab = ((ForwardingNode<TKey, TValue>) e).nextTable;
+                continue;
+            }
+
+            for (; e != null; e = e.next)
+            {
+                if ((e.hash == hash) && keyEquals(e.key, key))
+                    return e;
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Adds or replaces the element with the specified key.
+     *
+     * @param key          The key of the element.
+     * @param value        The value of the element.
+     * @param onlyIfAbsent {@code true} to keep the existing value if the key already exists.
+     * @return The previous value associated with the key, or null if the element is added.
+     */
+    private TValue putValue(TKey key, TValue value, boolean onlyIfAbsent)
+    {
+        int hash = hashOf(key);
+        AtomicReferenceArray<Node<TKey, TValue>> tab = table;
+        while (true)
+        {
+            int i = hash & (tab.length() - 1);
+            Node<TKey, TValue> head = tab.get(i);
+            if (head == null)
+            {
+                if (tab.compareAndSet(i, null, new Node<>(hash, key, value, null)))
+                {
+                    onElementAdded(tab, 0);
+                    return null;
+                }
+            }
+            else if (head.hash == MOVED)
+                tab = ((ForwardingNode<TKey, TValue>) head).nextTable;
+            else
+            {
+                TValue previous = null;
+                int binCount = 0;
+                synchronized (head)
+                {
+                    if (tab.get(i) != head)
+                        continue;
+
+                    for (Node<TKey, TValue> e = head; ; e = e.next)
+                    {
+                        binCount++;
+                        if ((e.hash == hash) && keyEquals(e.key, key))
+                        {
+                            previous = e.value;
+                            if (!onlyIfAbsent)
+                                e.value = value;
+                            break;
+                        }
+
+                        if (e.next == null)
+                        {
+                            e.next = new Node<>(hash, key, value, null);
+                            break;
+                        }
+                    }
+                }
+
+                if (previous == null)
+                    onElementAdded(tab, binCount);
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Atomically computes the new value of the element with the specified key. The remapping function is called
+     * exactly once with the key and the current value (null if the key does not exist) while the bin of the key is
+     * locked. Returning null removes the element, or adds nothing if the key does not exist.
+     *
+     * @param key               The key of the element.
+     * @param remappingFunction The function used to compute the new value.
+     * @return The new value associated with the key, or null if there is no element with the key after this call.
+     */
+    private TValue computeValue(TKey key, BiFunction<? super TKey, ? super TValue, ? extends TValue> remappingFunction)
+    {
+        int hash = hashOf(key);
+        AtomicReferenceArray<Node<TKey, TValue>> tab = table;
+        while (true)
+        {
+            int i = hash & (tab.length() - 1);
+            Node<TKey, TValue> head = tab.get(i);
+            if (head == null)
+            {
+                // Hold the empty bin with a locked reservation node while the value is being computed.
+                Node<TKey, TValue> reservation = new Node<>(RESERVED, null, null, null);
+                synchronized (reservation)
+                {
+                    if (tab.compareAndSet(i, null, reservation))
+                    {
+                        TValue value;
+                        Node<TKey, TValue> node = null;
+                        try
+                        {
+                            value = remappingFunction.apply(key, null);
+                            if (value != null)
+                                node = new Node<>(hash, key, value, null);
+                        }
+                        finally
+                        {
+                            tab.set(i, node);
+                        }
+
+                        if (node != null)
+                            onElementAdded(tab, 0);
+                        return value;
+                    }
+                }
+            }
+            else if (head.hash == MOVED)
+                tab = ((ForwardingNode<TKey, TValue>) head).nextTable;
+            else
+            {
+                TValue value;
+                int delta = 0;
+                int binCount = 0;
+                synchronized (head)
+                {
+                    if (tab.get(i) != head)
+                        continue;
+
+                    Node<TKey, TValue> precursor = null;
+                    for (Node<TKey, TValue> e = head; ; )
+                    {
+                        binCount++;
+                        if ((e.hash == hash) && keyEquals(e.key, key))
+                        {
+                            value = remappingFunction.apply(key, e.value);
+                            if (value != null)
+                                e.value = value;
+                            else
+                            {
+                                delta = -1;
+                                if (precursor == null)
+                                    tab.set(i, e.next);
+                                else
+                                    precursor.next = e.next;
+                            }
+                            break;
+                        }
+
+                        precursor = e;
+                        e = e.next;
+                        if (e == null)
+                        {
+                            value = remappingFunction.apply(key, null);
+                            if (value != null)
+                            {
+                                delta = 1;
+                                precursor.next = new Node<>(hash, key, value, null);
+                            }
+                            break;
+                        }
+                    }
+                }
+
+                if (delta > 0)
+                    onElementAdded(tab, binCount);
+                else if (delta < 0)
+                    count.decrement();
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Updates the counter after a new element is added, and expands the table if it is too full. The sum of the
+     * counter is only checked when the new element collides with existing ones, which keeps the common path cheap.
+     *
+     * @param tab      The table the element was added to.
+     * @param binCount Number of nodes that were already in the bin.
+     */
+    private void onElementAdded(AtomicReferenceArray<Node<TKey, TValue>> tab, int binCount)
+    {
+        count.increment();
+        if ((binCount > 0) && !resizing.get() && (count.sum() > resizeThreshold))
+            resize(tab);
+    }
+
+    /**
+     * Moves all bins of the specified table to a table with twice the bins. Only one thread resizes at a time, while
+     * other threads keep reading and writing: each bin is locked only while it is copied, then replaced by a
+     * {@link ForwardingNode}. The nodes are copied instead of relinked, so readers still traversing an old chain are
+     * not affected.
+     *
+     * @param tab The table that is too full.
+     */
+    private void resize(AtomicReferenceArray<Node<TKey, TValue>> tab)
+    {
+        int n = tab.length();
+        if ((n >= MAX_TABLE_LENGTH) || !resizing.compareAndSet(false, true))
+            return;
+
+        try
+        {
+            // Another thread may have finished a resize since the caller read the table.
+            if (tab != table)
+                return;
+
+            AtomicReferenceArray<Node<TKey, TValue>> nextTable = new AtomicReferenceArray<>(n << 1);
+            ForwardingNode<TKey, TValue> forwardingNode = new ForwardingNode<>(nextTable);
+            for (int i = n - 1; i >= 0; )
+            {
+                Node<TKey, TValue> head = tab.get(i);
+                if (head == null)
+                {
+                    if (tab.compareAndSet(i, null, forwardingNode))
+                        i--;
+                    continue;
+                }
+
+                synchronized (head)
+                {
+                    if (tab.get(i) != head)
+                        continue;
+
+                    // The nodes of bin i go to bin i or bin (i + n) of the new table.
+                    Node<TKey, TValue> low = null;
+                    Node<TKey, TValue> high = null;
+                    for (Node<TKey, TValue> e = head; e != null; e = e.next)
+                    {
+                        if ((e.hash & n) == 0)
+                            low = new Node<>(e.hash, e.key, e.value, low);
+                        else
+                            high = new Node<>(e.hash, e.key, e.value, high);
+                    }
+
+                    nextTable.set(i, low);
+                    nextTable.set(i + n, high);
+                    tab.set(i, forwardingNode);
+                    i--;
+                }
+            }
+
+            table = nextTable;
+            resizeThreshold = thresholdOf(nextTable.length());
+        }
+        finally
+        {
+            resizing.set(false);
+        }
+    }
+
+    /**
+     * Adds the ordinary nodes of the specified bin to a list, following forwarding nodes to the new table.
+     */
+    private static <TKey, TValue> void collectBin(AtomicReferenceArray<Node<TKey, TValue>> tab, int i, java.util.ArrayList<Node<TKey, TValue>> nodes)
+    {
+        Node<TKey, TValue> e = tab.get(i);
+        if ((e != null) && (e.hash == MOVED))
+        {
+            AtomicReferenceArray<Node<TKey, TValue>> nextTable = ((ForwardingNode<TKey, TValue>) e).nextTable;
+            collectBin(nextTable, i, nodes);
+            collectBin(nextTable, i + tab.length(), nodes);
+            return;
+        }
+
+        for (; e != null; e = e.next)
+        {
+            if (e.hash >= 0)
+                nodes.add(e);
+        }
+    }
+
+    private void validateKey(TKey key)
+    {
+        if (key == null)
+            throw new NullPointerException("Argument \"key\" cannot be null.");
+    }
+
+    private void validateValue(TValue value)
+    {
+        if (value == null)
+            throw new NullPointerException("Argument \"value\" cannot be null.");
+    }
+
+    private void validateKeyValuePair(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+    }
+
+    /**
+     * Walks the table bin by bin. The nodes of one bin are collected when the iterator reaches the bin, so each
+     * element is returned at most once even if the bin is moved by a resize meanwhile.
+     */
+    private abstract class BinIterator<T> implements Iterator<T>
+    {
+        private final AtomicReferenceArray<Node<TKey, TValue>> table;
+        private final java.util.ArrayList<Node<TKey, TValue>> pending;
+        private int binIndex;
+        private int pendingIndex;
+
+        protected abstract T getItem(TKey key, TValue value);
+
+        private BinIterator()
+        {
+            table = ConcurrentDictionary.this.table;
+            pending = new java.util.ArrayList<>();
+            binIndex = 0;
+            pendingIndex = 0;
+        }
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext()
+        {
+            while ((pendingIndex >= pending.size()) && (binIndex < table.length()))
+            {
+                pending.clear();
+                pendingIndex = 0;
+                collectBin(table, binIndex++, pending);
+            }
+
+            return pendingIndex < pending.size();
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            Node<TKey, TValue> node = pending.get(pendingIndex++);
+            return getItem(node.key, node.value);
+        }
+    }
+
+    private class DictionaryIterator extends BinIterator<KeyValuePair<TKey, TValue>>
+    {
+        @Override
+        protected KeyValuePair<TKey, TValue> getItem(TKey key, TValue value)
+        {
+            return new KeyValuePair<>(key, value);
+        }
+    }
+
+    private class KeyIterator extends BinIterator<TKey>
+    {
+        @Override
+        protected TKey getItem(TKey key, TValue value)
+        {
+            return key;
+        }
+    }
+
+    private class ValueIterator extends BinIterator<TValue>
+    {
+        @Override
+        protected TValue getItem(TKey key, TValue value)
+        {
+            return value;
+        }
+    }
 }
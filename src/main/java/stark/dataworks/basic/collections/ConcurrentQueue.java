@@ -1,5 +1,384 @@
 package stark.dataworks.basic.collections;
 
-public class ConcurrentQueue
+import stark.dataworks.basic.InvalidOperationException;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * The {@link ConcurrentQueue} class represents a lock-free, thread-safe first-in-first-out collection, based on the
+ * Michael-Scott queue.
+ * <p>
+ * The queue is a singly linked list with a dummy first node. Producers link new nodes after the last node by a CAS on
+ * its next reference, and consumers advance the head by a CAS, so no thread ever blocks another. The tail reference
+ * may lag behind the last node, and any thread that notices this helps advancing it.
+ * <p>
+ * An element is owned by the thread that clears the value of its node by a CAS, which allows {@link #remove(Object)}
+ * to delete elements in the middle of the queue: the node stays in the list with a null value and is skipped by
+ * consumers. Null elements are not allowed.
+ *
+ * @param <T> Type of elements in this queue.
+ */
+public class ConcurrentQueue<T> implements ICollection<T>, Serializable
 {
+    private static final class Node<T>
+    {
+        volatile T value;
+        volatile Node<T> next;
+
+        Node(T value)
+        {
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Object> VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "value");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentQueue, Node> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentQueue.class, Node.class, "head");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentQueue, Node> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentQueue.class, Node.class, "tail");
+
+    private volatile Node<T> head;
+    private volatile Node<T> tail;
+
+    public ConcurrentQueue()
+    {
+        head = new Node<>(null);
+        tail = head;
+    }
+
+    public ConcurrentQueue(Iterable<T> collection)
+    {
+        this();
+        enqueueRange(collection);
+    }
+
+    /**
+     * Adds an element to the end of this queue.
+     *
+     * @param value The element to add.
+     * @throws NullPointerException The specified element is null.
+     */
+    public void enqueue(T value)
+    {
+        validateValue(value);
+
+        Node<T> node = new Node<>(value);
+        linkLast(node, node);
+    }
+
+    /**
+     * Adds all elements of the specified collection to the end of this queue. The elements are linked privately first
+     * and then published by a single CAS, so they stay contiguous and in order, and the shared tail is contended only
+     * once for the whole batch.
+     *
+     * @param collection The elements to add.
+     * @throws NullPointerException The specified collection or one of its elements is null.
+     */
+    public void enqueueRange(Iterable<T> collection)
+    {
+        Objects.requireNonNull(collection, "Argument \"collection\" cannot be null.");
+
+        Node<T> first = null;
+        Node<T> last = null;
+        for (T value : collection)
+        {
+            validateValue(value);
+
+            Node<T> node = new Node<>(value);
+            if (first == null)
+                first = node;
+            else
+                last.next = node;
+            last = node;
+        }
+
+        if (first != null)
+            linkLast(first, last);
+    }
+
+    /**
+     * Removes and returns the element at the beginning of this queue.
+     *
+     * @return The element at the beginning of this queue.
+     * @throws InvalidOperationException This queue is empty.
+     */
+    public T dequeue()
+    {
+        T value = tryDequeue();
+        if (value == null)
+            throw new InvalidOperationException("This method shouldn't be called on empty ConcurrentQueue.");
+
+        return value;
+    }
+
+    /**
+     * Tries to remove and return the element at the beginning of this queue.
+     *
+     * @return The element at the beginning of this queue, or null if this queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T tryDequeue()
+    {
+        while (true)
+        {
+            Node<T> h = head;
+            Node<T> t = tail;
+            Node<T> first = h.next;
+            if (h != head)
+                continue;
+
+            if (first == null)
+                return null;
+
+            // Never let the head pass the tail.
+            if (h == t)
+            {
+                TAIL.compareAndSet(this, t, first);
+                continue;
+            }
+
+            // The first node becomes the new dummy node. Its value is taken unless remove() cleared it before.
+            if (HEAD.compareAndSet(this, h, first))
+            {
+                T value = (T) VALUE.getAndSet(first, null);
+                if (value != null)
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * Tries to return the element at the beginning of this queue without removing it.
+     *
+     * @return The element at the beginning of this queue, or null if this queue is empty.
+     */
+    public T tryPeek()
+    {
+        for (Node<T> current = head.next; current != null; current = current.next)
+        {
+            T value = current.value;
+            if (value != null)
+                return value;
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines whether this queue is empty.
+     *
+     * @return {@code true} if this queue is empty; otherwise, {@code false}.
+     */
+    public boolean isEmpty()
+    {
+        return tryPeek() == null;
+    }
+
+    /**
+     * Copies the elements of this queue to a new array, in first-in-first-out order.
+     *
+     * @return A weakly consistent snapshot of the elements of this queue.
+     */
+    public Object[] toArray()
+    {
+        return snapshot().toArray();
+    }
+
+    /**
+     * Gets the number of elements contained in this {@link ICollection}. This method traverses the queue, and the
+     * result is only an estimate while other threads are modifying it.
+     *
+     * @return The number of elements contained in this {@link ICollection}.
+     */
+    @Override
+    public int count()
+    {
+        int count = 0;
+        for (Node<T> current = head.next; current != null; current = current.next)
+        {
+            if ((current.value != null) && (++count == Integer.MAX_VALUE))
+                break;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Removes all items from this {@link ICollection}. Elements enqueued concurrently may survive.
+     */
+    @Override
+    public void clear()
+    {
+        while (tryDequeue() != null)
+        {
+        }
+    }
+
+    /**
+     * Removes the first occurrence of a specific object from this {@link ICollection}.
+     *
+     * @param value The object to remove from this {@link ICollection}.
+     * @return <code>true</code> if item was successfully removed from the {@link ICollection}; otherwise,
+     * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
+     * {@link ICollection}.
+     */
+    @Override
+    public boolean remove(T value)
+    {
+        if (value == null)
+            return false;
+
+        for (Node<T> current = head.next; current != null; current = current.next)
+        {
+            T item = current.value;
+            if ((item != null) && item.equals(value) && VALUE.compareAndSet(current, item, null))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link ICollection} contains a specific value.
+     *
+     * @param value The value to locate in this {@link ICollection}.
+     * @return <code>true</code> if the specified value is found in this {@link ICollection}; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean contains(T value)
+    {
+        if (value == null)
+            return false;
+
+        for (Node<T> current = head.next; current != null; current = current.next)
+        {
+            if (value.equals(current.value))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from this
+     *              {@link ICollection}. The array must have zero-based indexing.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the source {@link ICollection} is greater than the
+     *                                  available space from 0 to the end of the destination array, i.e. the capacity of the given array.
+     */
+    @Override
+    public void copyTo(T[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at a particular array index.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from this
+     *                   {@link ICollection}. The array must have zero-based indexing.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException Array index is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the source {@link ICollection} is greater than the
+     *                                        available space from <code>startIndex</code> to the end of the destination array.
+     */
+    @Override
+    public void copyTo(T[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+
+        java.util.ArrayList<T> elements = snapshot();
+        if (array.length < startIndex + elements.size())
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        for (T value : elements)
+            array[startIndex++] = value;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements taken by one traversal of this queue, which never throws
+     * {@link InvalidOperationException} and is not affected by later modifications.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<T> iterator()
+    {
+        return snapshot().iterator();
+    }
+
+    /**
+     * Links a chain of nodes after the last node of this queue.
+     *
+     * @param first The first node of the chain.
+     * @param last  The last node of the chain.
+     */
+    private void linkLast(Node<T> first, Node<T> last)
+    {
+        while (true)
+        {
+            Node<T> t = tail;
+            Node<T> next = t.next;
+            if (t != tail)
+                continue;
+
+            if (next == null)
+            {
+                if (NEXT.compareAndSet(t, null, first))
+                {
+                    TAIL.compareAndSet(this, t, last);
+                    return;
+                }
+            }
+            else
+                TAIL.compareAndSet(this, t, next);
+        }
+    }
+
+    private java.util.ArrayList<T> snapshot()
+    {
+        java.util.ArrayList<T> elements = new java.util.ArrayList<>();
+        for (Node<T> current = head.next; current != null; current = current.next)
+        {
+            T value = current.value;
+            if (value != null)
+                elements.add(value);
+        }
+
+        return elements;
+    }
+
+    private void validateValue(T value)
+    {
+        if (value == null)
+            throw new NullPointerException("Argument \"value\" cannot be null.");
+    }
 }
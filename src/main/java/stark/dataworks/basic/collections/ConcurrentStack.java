@@ -1,5 +1,405 @@
 package stark.dataworks.basic.collections;
 
-public class ConcurrentStack
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+import stark.dataworks.basic.InvalidOperationException;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * The {@link ConcurrentStack} class represents a lock-free, thread-safe last-in-first-out collection, based on the
+ * Treiber stack.
+ * <p>
+ * The stack is a singly linked list whose top is replaced by a CAS. The next reference of a node never changes after
+ * the node is pushed, so a traversal from any top reference sees a consistent chain.
+ * <p>
+ * An element is owned by the thread that clears the value of its node by a CAS, which allows {@link #remove(Object)}
+ * to delete elements below the top: the node stays in the list with a null value and is skipped when it is popped.
+ * Null elements are not allowed.
+ *
+ * @param <T> Type of elements in this stack.
+ */
+public class ConcurrentStack<T> implements ICollection<T>, Serializable
 {
+    private static final class Node<T>
+    {
+        volatile T value;
+        final Node<T> next;
+
+        Node(T value, Node<T> next)
+        {
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Object> VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "value");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentStack, Node> TOP =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentStack.class, Node.class, "top");
+
+    private volatile Node<T> top;
+
+    public ConcurrentStack()
+    {
+        top = null;
+    }
+
+    public ConcurrentStack(Iterable<T> collection)
+    {
+        this();
+
+        Objects.requireNonNull(collection, "Argument \"collection\" cannot be null.");
+        for (T value : collection)
+            push(value);
+    }
+
+    /**
+     * Inserts an element at the top of this stack.
+     *
+     * @param value The element to push.
+     * @throws NullPointerException The specified element is null.
+     */
+    public void push(T value)
+    {
+        validateValue(value);
+
+        while (true)
+        {
+            Node<T> oldTop = top;
+            if (TOP.compareAndSet(this, oldTop, new Node<>(value, oldTop)))
+                return;
+        }
+    }
+
+    /**
+     * Inserts the specified elements at the top of this stack atomically, so that {@code values[startIndex + count - 1]}
+     * ends on the top. The chain is built privately and published by a single CAS.
+     *
+     * @param values     The elements to push.
+     * @param startIndex The index of the first element to push.
+     * @param count      Number of elements to push.
+     * @throws NullPointerException         The specified array or one of the pushed elements is null.
+     * @throws ArgumentOutOfRangeException The range is outside the array.
+     */
+    public void pushRange(T[] values, int startIndex, int count)
+    {
+        validateRange(values, startIndex, count);
+        for (int i = startIndex; i < startIndex + count; i++)
+            validateValue(values[i]);
+
+        if (count == 0)
+            return;
+
+        while (true)
+        {
+            Node<T> oldTop = top;
+            Node<T> newTop = oldTop;
+            for (int i = startIndex; i < startIndex + count; i++)
+                newTop = new Node<>(values[i], newTop);
+
+            if (TOP.compareAndSet(this, oldTop, newTop))
+                return;
+        }
+    }
+
+    public void pushRange(T[] values)
+    {
+        Objects.requireNonNull(values, "Argument \"values\" cannot be null.");
+        pushRange(values, 0, values.length);
+    }
+
+    /**
+     * Removes and returns the element at the top of this stack.
+     *
+     * @return The element at the top of this stack.
+     * @throws InvalidOperationException This stack is empty.
+     */
+    public T pop()
+    {
+        T value = tryPop();
+        if (value == null)
+            throw new InvalidOperationException("This method shouldn't be called on empty ConcurrentStack.");
+
+        return value;
+    }
+
+    /**
+     * Tries to remove and return the element at the top of this stack.
+     *
+     * @return The element at the top of this stack, or null if this stack is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T tryPop()
+    {
+        while (true)
+        {
+            Node<T> oldTop = top;
+            if (oldTop == null)
+                return null;
+
+            // The node is unlinked first. Its value is taken unless remove() cleared it before.
+            if (TOP.compareAndSet(this, oldTop, oldTop.next))
+            {
+                T value = (T) VALUE.getAndSet(oldTop, null);
+                if (value != null)
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * Tries to pop up to {@code count} elements atomically. The elements are stored in pop order, i.e. the top element
+     * goes to {@code values[startIndex]}.
+     *
+     * @param values     The array to store the popped elements.
+     * @param startIndex The index to store the first popped element.
+     * @param count      Maximum number of elements to pop.
+     * @return Number of elements popped.
+     * @throws NullPointerException         The specified array is null.
+     * @throws ArgumentOutOfRangeException The range is outside the array.
+     */
+    @SuppressWarnings("unchecked")
+    public int tryPopRange(T[] values, int startIndex, int count)
+    {
+        validateRange(values, startIndex, count);
+
+        int popped = 0;
+        while (popped < count)
+        {
+            Node<T> oldTop = top;
+            if (oldTop == null)
+                break;
+
+            // Unlink up to (count - popped) nodes by one CAS.
+            Node<T> newTop = oldTop;
+            for (int i = popped; (i < count) && (newTop != null); i++)
+                newTop = newTop.next;
+
+            if (!TOP.compareAndSet(this, oldTop, newTop))
+                continue;
+
+            for (Node<T> current = oldTop; current != newTop; current = current.next)
+            {
+                T value = (T) VALUE.getAndSet(current, null);
+                if (value != null)
+                    values[startIndex + popped++] = value;
+            }
+        }
+
+        return popped;
+    }
+
+    public int tryPopRange(T[] values)
+    {
+        Objects.requireNonNull(values, "Argument \"values\" cannot be null.");
+        return tryPopRange(values, 0, values.length);
+    }
+
+    /**
+     * Tries to return the element at the top of this stack without removing it.
+     *
+     * @return The element at the top of this stack, or null if this stack is empty.
+     */
+    public T tryPeek()
+    {
+        for (Node<T> current = top; current != null; current = current.next)
+        {
+            T value = current.value;
+            if (value != null)
+                return value;
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines whether this stack is empty.
+     *
+     * @return {@code true} if this stack is empty; otherwise, {@code false}.
+     */
+    public boolean isEmpty()
+    {
+        return tryPeek() == null;
+    }
+
+    /**
+     * Copies the elements of this stack to a new array, from the top to the bottom.
+     *
+     * @return A snapshot of the elements of this stack.
+     */
+    public Object[] toArray()
+    {
+        return snapshot().toArray();
+    }
+
+    /**
+     * Gets the number of elements contained in this {@link ICollection}. This method traverses the stack, and the
+     * result is only an estimate while other threads are modifying it.
+     *
+     * @return The number of elements contained in this {@link ICollection}.
+     */
+    @Override
+    public int count()
+    {
+        int count = 0;
+        for (Node<T> current = top; current != null; current = current.next)
+        {
+            if ((current.value != null) && (++count == Integer.MAX_VALUE))
+                break;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Removes all items from this {@link ICollection} atomically.
+     */
+    @Override
+    public void clear()
+    {
+        top = null;
+    }
+
+    /**
+     * Removes the first occurrence of a specific object from this {@link ICollection}, searching from the top.
+     *
+     * @param value The object to remove from this {@link ICollection}.
+     * @return <code>true</code> if item was successfully removed from the {@link ICollection}; otherwise,
+     * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
+     * {@link ICollection}.
+     */
+    @Override
+    public boolean remove(T value)
+    {
+        if (value == null)
+            return false;
+
+        for (Node<T> current = top; current != null; current = current.next)
+        {
+            T item = current.value;
+            if ((item != null) && item.equals(value) && VALUE.compareAndSet(current, item, null))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link ICollection} contains a specific value.
+     *
+     * @param value The value to locate in this {@link ICollection}.
+     * @return <code>true</code> if the specified value is found in this {@link ICollection}; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean contains(T value)
+    {
+        if (value == null)
+            return false;
+
+        for (Node<T> current = top; current != null; current = current.next)
+        {
+            if (value.equals(current.value))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from this
+     *              {@link ICollection}. The array must have zero-based indexing.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the source {@link ICollection} is greater than the
+     *                                  available space from 0 to the end of the destination array, i.e. the capacity of the given array.
+     */
+    @Override
+    public void copyTo(T[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at a particular array index.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from this
+     *                   {@link ICollection}. The array must have zero-based indexing.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException Array index is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the source {@link ICollection} is greater than the
+     *                                        available space from <code>startIndex</code> to the end of the destination array.
+     */
+    @Override
+    public void copyTo(T[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+
+        java.util.ArrayList<T> elements = snapshot();
+        if (array.length < startIndex + elements.size())
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        for (T value : elements)
+            array[startIndex++] = value;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements taken by one traversal of this stack from the top, which
+     * never throws {@link InvalidOperationException} and is not affected by later modifications.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<T> iterator()
+    {
+        return snapshot().iterator();
+    }
+
+    private java.util.ArrayList<T> snapshot()
+    {
+        java.util.ArrayList<T> elements = new java.util.ArrayList<>();
+        for (Node<T> current = top; current != null; current = current.next)
+        {
+            T value = current.value;
+            if (value != null)
+                elements.add(value);
+        }
+
+        return elements;
+    }
+
+    private void validateValue(T value)
+    {
+        if (value == null)
+            throw new NullPointerException("Argument \"value\" cannot be null.");
+    }
+
+    private void validateRange(T[] values, int startIndex, int count)
+    {
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+        if ((startIndex < 0) || (count < 0) || (startIndex > values.length - count))
+            throw new ArgumentOutOfRangeException("The range [startIndex, startIndex + count) is outside the array.");
+    }
 }
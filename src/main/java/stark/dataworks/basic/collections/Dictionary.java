@@ -8,13 +8,37 @@ import java.io.Serializable;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+/**
+ * The {@link Dictionary} class represents a dictionary that keeps its elements in a linked list, with the most
+ * recently added element first.
+ * <p>
+ * Small dictionaries are searched by scanning the list, which is the cheapest representation for a few elements. Once
+ * the number of elements exceeds the index threshold, a hash index over the same nodes is built, so that lookups,
+ * insertions and removals take constant time on average while the iteration order stays unchanged. Keys are hashed by
+ * {@link IEqualityComparer#getHashCode(Object)} and compared by {@link IEqualityComparer#compare(Object, Object)}.
+ *
+ * @param <TKey>   Type of keys in this dictionary.
+ * @param <TValue> Type of values in this dictionary.
+ */
 public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Serializable
 {
+    /**
+     * Default maximum number of elements that a {@link Dictionary} keeps without a hash index.
+     */
+    public static final int DEFAULT_INDEX_THRESHOLD = 8;
+
     private class Node
     {
         public TKey key;
         public TValue value;
         public Node next;
+        public Node previous;
+
+        /**
+         * The next node in the same bucket of the hash index.
+         */
+        public Node nextInBucket;
+        public int hash;
 
         public Node(TKey key, TValue value, Node next)
         {
@@ -28,12 +52,16 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
             this.key = null;
             this.value = null;
             this.next = null;
+            this.previous = null;
+            this.nextInBucket = null;
         }
     }
 
     private int count;
     private Node first;
     private Node last;
+    private Node[] buckets;
+    private final int indexThreshold;
     private final IEqualityComparer<TKey> keyComparer;
     private final IComparer<TValue> valueComparer;
     private int version;
@@ -45,9 +73,30 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
 
     public Dictionary(IEqualityComparer<TKey> keyComparer)
     {
+        this(keyComparer, DEFAULT_INDEX_THRESHOLD);
+    }
+
+    /**
+     * Initializes an empty {@link Dictionary} with the specified key comparer and index threshold.
+     *
+     * @param keyComparer    The comparer used to hash and compare keys.
+     * @param indexThreshold The maximum number of elements kept without a hash index. Use 0 to always index the
+     *                       elements.
+     * @throws NullPointerException         The specified key comparer is null.
+     * @throws ArgumentOutOfRangeException The specified index threshold is less than 0.
+     */
+    public Dictionary(IEqualityComparer<TKey> keyComparer, int indexThreshold)
+    {
+        if (keyComparer == null)
+            throw new NullPointerException("Argument \"keyComparer\" cannot be null.");
+        if (indexThreshold < 0)
+            throw new ArgumentOutOfRangeException("The parameter \"indexThreshold\" must be greater than or equal to 0.");
+
         count = 0;
         first = null;
         last = null;
+        buckets = null;
+        this.indexThreshold = indexThreshold;
         this.keyComparer = keyComparer;
         valueComparer = new DefaultComparer<>();
         version = 0;
@@ -60,12 +109,7 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
 
     public Dictionary(IDictionary<TKey, TValue> dictionary, IEqualityComparer<TKey> keyComparer)
     {
-        count = 0;
-        first = null;
-        last = null;
-        this.keyComparer = keyComparer;
-        valueComparer = new DefaultComparer<>();
-        version = 0;
+        this(keyComparer);
 
         for (KeyValuePair<TKey, TValue> kvp : dictionary)
             add(kvp.getKey(), kvp.getValue());
@@ -83,13 +127,10 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
     @Override
     public TValue get(TKey key)
     {
-        for (Node current = first; current != null; current = current.next)
-        {
-            if (keyComparer.compare(current.key, key) == 0)
-                return current.value;
-        }
+        validateKey(key);
 
-        return null;
+        Node node = findNode(key);
+        return (node == null) ? null : node.value;
     }
 
     /**
@@ -104,14 +145,13 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
     @Override
     public void set(TKey key, TValue value)
     {
-        for (Node current = first; current != null; current = current.next)
+        validateKey(key);
+
+        Node node = findNode(key);
+        if (node != null)
         {
-            if (keyComparer.compare(current.key, key) == 0)
-            {
-                current.value = value;
-                version++;
-                return;
-            }
+            node.value = value;
+            version++;
         }
     }
 
@@ -155,21 +195,38 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
         validateKey(key);
 
         // Search for key. Update value if found; grow table if new.
-        for (Node current = first; current != null; current = current.next)
+        Node node = findNode(key);
+        if (node != null)
         {
             // Search hit: update value.
-            if (keyComparer.compare(current.key, key) == 0)
-                current.value = value;
+            node.value = value;
+            version++;
+            return;
         }
 
         // Search miss: add new node, and update the node counter.
-        first = new Node(key, value, first);
+        node = new Node(key, value, first);
+        if (first != null)
+            first.previous = node;
+        first = node;
         count++;
         version++;
 
         // Save the reference of the last node.
         if (last == null)
             last = first;
+
+        // Index the new node, or build the index once the list becomes too long to scan.
+        if (buckets != null)
+        {
+            node.hash = hashOf(key);
+            if (count > buckets.length - (buckets.length >>> 2))
+                rebuildIndex(buckets.length << 1);
+            else
+                addToBucket(node);
+        }
+        else if (count > indexThreshold)
+            rebuildIndex(PrimitiveHashHelpers.tableLengthFor(count, PrimitiveHashHelpers.DEFAULT_LOAD_FACTOR));
     }
 
     /**
@@ -198,13 +255,7 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
     {
         validateKey(key);
 
-        for (Node current = first; current != null; current = current.next)
-        {
-            if (keyComparer.compare(current.key, key) == 0)
-                return true;
-        }
-
-        return false;
+        return findNode(key) != null;
     }
 
     public boolean containsValue(TValue value)
@@ -222,14 +273,8 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
     {
         validateKey(key);
 
-        for (Node current = first; current != null; current = current.next)
-        {
-            if (keyComparer.compare(current.key, key) == 0 &&
-                    valueComparer.compare(current.value, value) == 0)
-                return true;
-        }
-
-        return false;
+        Node node = findNode(key);
+        return (node != null) && (valueComparer.compare(node.value, value) == 0);
     }
 
     /**
@@ -247,33 +292,12 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
     {
         validateKey(key);
 
-        // Do nothing if the symbol table is empty.
-        if (count == 0 || first == null)
+        Node node = findNode(key);
+        if (node == null)
             return false;
 
-        // If the first node contains the item, make first point to first.next and decrease the count by 1.
-        if (keyComparer.compare(first.key, key) == 0)
-        {
-            first = first.next;
-            count--;
-            version++;
-            return true;
-        }
-
-        // If the first node doesn't contains the item, then find the node whose next contains the item and modify the next and Size.
-        for (Node precursor = first; precursor.next != null; precursor = precursor.next)
-        {
-            if (keyComparer.compare(precursor.next.key, key) == 0)
-            {
-                precursor.next = precursor.next.next;
-                count--;
-                version++;
-                return true;
-            }
-        }
-
-        // If the process reaches here, the symbol table doesn't contain the key-value pair.
-        return false;
+        unlink(node);
+        return true;
     }
 
     /**
@@ -312,6 +336,8 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
             temp.invalidate();
         }
         first = null;
+        last = null;
+        buckets = null;
         count = 0;
         version++;
     }
@@ -385,35 +411,108 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
     {
         validateKey(keyValuePair.getKey());
 
-        // Do nothing if the symbol table is empty.
-        if (count == 0 || first == null)
+        Node node = findNode(keyValuePair.getKey());
+        if ((node == null) || (valueComparer.compare(node.value, keyValuePair.getValue()) != 0))
             return false;
 
-        // If the first node contains the item, make first point to first.next and decrease the count by 1.
-        if ((keyComparer.compare(first.key, keyValuePair.getKey()) == 0) &&
-                (valueComparer.compare(first.value, keyValuePair.getValue()) == 0))
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Finds the node with the specified key, by scanning the list if there is no hash index yet.
+     *
+     * @param key The key to locate.
+     * @return The node with the specified key, or null if there is no such node.
+     */
+    private Node findNode(TKey key)
+    {
+        if (buckets == null)
         {
-            first = first.next;
-            count--;
-            version++;
-            return true;
+            for (Node current = first; current != null; current = current.next)
+            {
+                if (keyComparer.compare(current.key, key) == 0)
+                    return current;
+            }
+
+            return null;
         }
 
-        // If the first node doesn't contains the item, then find the node whose next contains the item and modify the next and count.
-        for (Node precursor = first; precursor.next != null; precursor = precursor.next)
+        int hash = hashOf(key);
+        for (Node current = buckets[hash & (buckets.length - 1)]; current != null; current = current.nextInBucket)
         {
-            if ((keyComparer.compare(precursor.next.key, keyValuePair.getKey()) == 0) &&
-                    (valueComparer.compare(precursor.next.value, keyValuePair.getValue()) == 0))
+            if ((current.hash == hash) && (keyComparer.compare(current.key, key) == 0))
+                return current;
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes the specified node from the list and from the hash index.
+     *
+     * @param node The node to remove.
+     */
+    private void unlink(Node node)
+    {
+        if (buckets != null)
+        {
+            int bucket = node.hash & (buckets.length - 1);
+            if (buckets[bucket] == node)
+                buckets[bucket] = node.nextInBucket;
+            else
             {
-                precursor.next = precursor.next.next;
-                count--;
-                version++;
-                return true;
+                Node precursor = buckets[bucket];
+                while (precursor.nextInBucket != node)
+                    precursor = precursor.nextInBucket;
+                precursor.nextInBucket = node.nextInBucket;
             }
         }
 
-        // If the process reaches here, the symbol table doesn't contain the key-value pair.
-        return false;
+        if (node.previous == null)
+            first = node.next;
+        else
+            node.previous.next = node.next;
+
+        if (node.next == null)
+            last = node.previous;
+        else
+            node.next.previous = node.previous;
+
+        node.invalidate();
+        count--;
+        version++;
+    }
+
+    private int hashOf(TKey key)
+    {
+        return PrimitiveHashHelpers.mix(keyComparer.getHashCode(key));
+    }
+
+    private void addToBucket(Node node)
+    {
+        int bucket = node.hash & (buckets.length - 1);
+        node.nextInBucket = buckets[bucket];
+        buckets[bucket] = node;
+    }
+
+    /**
+     * Rebuilds the hash index with the specified number of buckets. Hash codes are computed only when the index is
+     * first built, and reused when it grows.
+     *
+     * @param bucketCount Number of buckets, which must be a power of 2.
+     */
+    @SuppressWarnings("unchecked")
+    private void rebuildIndex(int bucketCount)
+    {
+        boolean hashed = (buckets != null);
+        buckets = (Node[]) new Dictionary.Node[bucketCount];
+        for (Node current = first; current != null; current = current.next)
+        {
+            if (!hashed)
+                current.hash = hashOf(current.key);
+            addToBucket(current);
+        }
     }
 
     private abstract class CollectionIterator<T> implements Iterator<T>
@@ -424,17 +523,13 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
 
         protected abstract T getItem(Node node);
 
-        private Iterator<T> iterator;
+        private Node current;
 
         private CollectionIterator(Dictionary<TKey, TValue> dictionary)
         {
             this.version = dictionary.version;
             this.dictionary = dictionary;
-            LinkedList<T> collection = new LinkedList<>();
-            for (Node current = first; current != null; current = current.next)
-                collection.addLast(getItem(current));
-
-            iterator = collection.iterator();
+            current = dictionary.first;
         }
 
         /**
@@ -447,7 +542,7 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
         @Override
         public boolean hasNext()
         {
-            return iterator.hasNext();
+            return current != null;
         }
 
         /**
@@ -461,8 +556,12 @@ public class Dictionary<TKey, TValue> implements IDictionary<TKey, TValue>, Seri
         {
             if (version != dictionary.version)
                 throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+            if (current == null)
+                throw new NoSuchElementException();
 
-            return iterator.next();
+            T item = getItem(current);
+            current = current.next;
+            return item;
         }
     }
 
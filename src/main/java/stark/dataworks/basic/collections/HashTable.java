@@ -2,10 +2,13 @@ package stark.dataworks.basic.collections;
 
 import stark.dataworks.basic.ArgumentOutOfRangeException;
 import stark.dataworks.basic.IEqualityComparer;
+import stark.dataworks.basic.InvalidOperationException;
 import stark.dataworks.basic.params.OutValue;
 
 import java.io.Serializable;
+import java.lang.invoke.VarHandle;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * The {@link HashTable} class represents a dictionary of associated keys and values with constant lookup time.
@@ -32,6 +35,11 @@ import java.util.Iterator;
  * Each object provides their own hash function, accessed by calling {@link Object#hashCode()}. However, one can write
  * their own object implementing {@link IEqualityComparer} and pass it to a constructor on the hash table. That hash
  * function (and the equals() method on the {@link IEqualityComparer} would be used for all objects in the hash table).
+ * <p>
+ * A {@link HashTable} supports one writer and any number of concurrent readers without locks. A writer raises
+ * {@code isWriterInProgress} before it modifies a bucket and increments {@code version} when it is done, and a reader
+ * retries reading a bucket until it has read it while no write was in progress and the version did not change. Use
+ * {@link #synchronize(HashTable)} to serialize multiple writers.
  */
 public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Serializable
 {
@@ -94,6 +102,11 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
     private static final String VALUES_NAME = "Values";
     private static final String KEY_COMPARATOR_NAME = "KeyComparator";
 
+    /**
+     * Returned by lookup() when the key is not found, since null is a valid value.
+     */
+    private static final Object NOT_FOUND = new Object();
+
     // Deleted entries have their key set to buckets.
 
     // The hash table data.
@@ -109,7 +122,10 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
         public int hashCollision;
     }
 
-    private Bucket[] buckets;
+    /**
+     * Volatile, so that a reader which sees a rehashed array also sees its contents.
+     */
+    private volatile Bucket[] buckets;
 
     /**
      * The total number of entries in the hash table.
@@ -207,7 +223,7 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
             throw new IllegalArgumentException("Capacity overflow.");
 
         int hashSize = (rawSize > INITIAL_SIZE) ? HashHelpers.getPrime((int) rawSize) : INITIAL_SIZE;
-        buckets = (Bucket[]) new Object[hashSize];
+        buckets = newBuckets(hashSize);
 
         loadSize = (int) (this.loadFactor * hashSize);
         isWriterInProgress = false;
@@ -260,6 +276,21 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
     }
     */
 
+    /**
+     * Returns a synchronized (thread-safe) wrapper of the given {@link HashTable}. Writes through the wrapper are
+     * serialized by one lock, while reads never lock.
+     *
+     * @param table The {@link HashTable} to wrap.
+     * @return A synchronized wrapper of the given {@link HashTable}.
+     */
+    public static HashTable synchronize(HashTable table)
+    {
+        if (table == null)
+            throw new NullPointerException("Argument \"table\" cannot be null.");
+
+        return new SyncHashTable(table);
+    }
+
     /**
      * Internal method to get the hash code for an {@link Object}. This will call {@link Object#hashCode()} on each
      * object if you haven't provided an {@link IEqualityComparer} instance. Otherwise, it calls
@@ -311,19 +342,56 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
 
         // Restriction: increment MUST be between 1 and hashSize - 1, inclusive for the modular arithmetic to work
         // correctly. This guarantees you will visit every bucket in the table exactly once within hashSize iterations.
-        // Violate this and it will cause obscure bugs forever. If you change this calculation for h2(key), update
-        // putEntry() too!
-        increment.setValue(1 + ((seed.getValue() * HASH_PRIME) % (hashSize - 1)));
+        // Violate this and it will cause obscure bugs forever.
+        increment.setValue(incrementOf(hashCode, hashSize));
         return hashCode;
     }
 
+    /**
+     * Computes h2(key, hashSize) for the double hashing. The product is computed in long, so that it never overflows
+     * to a negative increment. All probe sequences, including the one in putEntry(), must use this method.
+     *
+     * @param hashCode The non-negative hash code of the key.
+     * @param hashSize Number of buckets.
+     * @return The probe increment, in range [1, hashSize - 1].
+     */
+    private static int incrementOf(int hashCode, int hashSize)
+    {
+        return (int) (1 + (((long) hashCode * HASH_PRIME) % (hashSize - 1)));
+    }
+
+    private Bucket[] newBuckets(int hashSize)
+    {
+        Bucket[] newBuckets = new Bucket[hashSize];
+        for (int i = 0; i < hashSize; i++)
+            newBuckets[i] = new Bucket();
+
+        return newBuckets;
+    }
+
+    /**
+     * Marks the beginning of a modification. The fence keeps the following writes of bucket fields from becoming
+     * visible before the flag.
+     */
+    private void beginWrite()
+    {
+        isWriterInProgress = true;
+        VarHandle.storeStoreFence();
+    }
+
+    private void endWrite()
+    {
+        version++;
+        isWriterInProgress = false;
+    }
+
     private void putEntry(Bucket[] newBuckets, Object key, Object newValue, int hashCode)
     {
         // Make sure collision bit (sign bit) wasn't set.
         assert hashCode >= 0;
 
         int seed = hashCode;
-        int increment = (1 + ((seed % HASH_PRIME) % (newBuckets.length - 1)));
+        int increment = incrementOf(seed, newBuckets.length);
         int bucketNumber = seed % newBuckets.length;
         for (; ; )
         {
@@ -354,7 +422,7 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
         // Don't replace any internal state until we have finished adding to the new Bucket[]. This serves 2 purposes:
         //   1) Allow concurrent readers to see valid hash table contents at all times.
         //   2) Protect against an VMOutOfMemoryException while allocating this new Bucket[].
-        Bucket[] newBuckets = (Bucket[]) new Object[newSize];
+        Bucket[] newBuckets = newBuckets(newSize);
 
         // Rehash table into new buckets.
         int nb;
@@ -367,6 +435,23 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
                 putEntry(newBuckets, oldBucket.key, oldBucket.value, hashCode);
             }
         }
+
+        // New bucket[] is good to go - replace buckets and other internal state.
+        beginWrite();
+        buckets = newBuckets;
+        loadSize = (int) (loadFactor * newSize);
+        endWrite();
+
+        // Minimum size of hash table is 3 now and maximum load factor is 0.72 now.
+        assert (loadSize < newSize);
+    }
+
+    /**
+     * Rehashes the table with the same number of buckets, which removes the collision bits of deleted entries.
+     */
+    private void rehash()
+    {
+        rehash(buckets.length, false);
     }
 
     private void expand()
@@ -388,8 +473,196 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
         if (key == null)
             throw new NullPointerException("The argument \"key\" cannot be null.");
 
-        if (count > loadSize)
+        if (count >= loadSize)
             expand();
+        else if ((occupancy > loadSize) && (count > 100))
+            rehash();
+
+        OutValue<Integer> seed = new OutValue<>(0);
+        OutValue<Integer> increment = new OutValue<>(0);
+        int hashCode = initHash(key, buckets.length, seed, increment);
+        int ntry = 0;
+
+        // The deleted bucket with the collision bit set that can be reused, which is found on the way.
+        int emptySlotNumber = -1;
+
+        int bucketNumber = seed.getValue() % buckets.length;
+        do
+        {
+            Bucket b = buckets[bucketNumber];
+
+            // Remember the first reusable slot, but keep searching since the key may be in a later bucket.
+            if ((emptySlotNumber == -1) && (b.key == buckets) && (b.hashCollision < 0))
+                emptySlotNumber = bucketNumber;
+
+            // Insert the key at a bucket that was never used or a deleted one without collisions. In both cases the
+            // probe sequence of the key ends here, so the key is not in this table.
+            if ((b.key == null) || ((b.key == buckets) && ((b.hashCollision & 0x80000000) == 0)))
+            {
+                if (emptySlotNumber != -1)
+                    bucketNumber = emptySlotNumber;
+
+                putAt(bucketNumber, key, value, hashCode);
+                return;
+            }
+
+            if (((b.hashCollision & 0x7FFFFFFF) == hashCode) && keyEquals(b.key, key))
+            {
+                if (add)
+                    throw new IllegalArgumentException("An item with the same key has already been added.");
+
+                beginWrite();
+                b.value = value;
+                endWrite();
+                return;
+            }
+
+            // The key will be placed after this bucket, so this bucket now has a collision.
+            if ((emptySlotNumber == -1) && (b.hashCollision >= 0))
+            {
+                b.hashCollision |= 0x80000000;
+                occupancy++;
+            }
+
+            bucketNumber = (int) (((long) bucketNumber + increment.getValue()) % buckets.length);
+        }
+        while (++ntry < buckets.length);
+
+        // Every bucket has been probed. The key can only be inserted into a reusable deleted bucket.
+        if (emptySlotNumber != -1)
+        {
+            putAt(emptySlotNumber, key, value, hashCode);
+            return;
+        }
+
+        throw new InvalidOperationException("Failed to insert into the HashTable because the load factor is too high.");
+    }
+
+    private void putAt(int bucketNumber, Object key, Object value, int hashCode)
+    {
+        Bucket b = buckets[bucketNumber];
+        beginWrite();
+        b.value = value;
+        b.key = key;
+        b.hashCollision |= hashCode;
+        count++;
+        endWrite();
+    }
+
+    /**
+     * Looks up the value of the given key without locking. Each bucket is read optimistically: the read is retried
+     * until no writer was in progress and the version did not change while the bucket was being read.
+     *
+     * @param key The key to look up.
+     * @return The value associated with the key, or {@link #NOT_FOUND}.
+     */
+    private Object lookup(Object key)
+    {
+        if (key == null)
+            throw new NullPointerException("Argument \"key\" cannot be null.");
+
+        // Take a snapshot of buckets, in case another thread resizes this HashTable. The hash is computed inline to
+        // avoid allocations on the read path.
+        Bucket[] bucketsCopy = buckets;
+        int hashCode = getHash(key) & 0x7FFFFFFF;
+        int increment = incrementOf(hashCode, bucketsCopy.length);
+        int ntry = 0;
+
+        int bucketNumber = hashCode % bucketsCopy.length;
+        int hashCollision;
+        do
+        {
+            Object bucketKey;
+            Object bucketValue;
+            int spinCount = 0;
+            while (true)
+            {
+                int currentVersion = version;
+                Bucket b = bucketsCopy[bucketNumber];
+                bucketKey = b.key;
+                bucketValue = b.value;
+                hashCollision = b.hashCollision;
+
+                // Keep the reads above from being reordered after the validation below.
+                VarHandle.acquireFence();
+                if (!isWriterInProgress && (currentVersion == version))
+                    break;
+
+                if ((++spinCount & 7) == 0)
+                    Thread.yield();
+                else
+                    Thread.onSpinWait();
+            }
+
+            if (bucketKey == null)
+                return NOT_FOUND;
+            if (((hashCollision & 0x7FFFFFFF) == hashCode) && (bucketKey != bucketsCopy) && keyEquals(bucketKey, key))
+                return bucketValue;
+
+            bucketNumber = (int) (((long) bucketNumber + increment) % bucketsCopy.length);
+        }
+        while ((hashCollision < 0) && (++ntry < bucketsCopy.length));
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * Gets the value associated with the given key. This method never locks, and can be called while another thread
+     * is modifying this {@link HashTable}.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the given key, or null if the key is not in this {@link HashTable}.
+     * @throws NullPointerException The specified key is null.
+     */
+    public Object get(Object key)
+    {
+        Object value = lookup(key);
+        return (value == NOT_FOUND) ? null : value;
+    }
+
+    /**
+     * Removes the entry with the given key from this {@link HashTable}. If the key is not present, this method does
+     * nothing.
+     *
+     * @param key The key of the entry to remove.
+     * @return {@code true} if the entry is removed; otherwise, {@code false}.
+     * @throws NullPointerException The specified key is null.
+     */
+    public boolean removeByKey(Object key)
+    {
+        if (key == null)
+            throw new NullPointerException("Argument \"key\" cannot be null.");
+
+        assert !isWriterInProgress;
+
+        OutValue<Integer> seed = new OutValue<>(0);
+        OutValue<Integer> increment = new OutValue<>(0);
+        int hashCode = initHash(key, buckets.length, seed, increment);
+        int ntry = 0;
+
+        Bucket b;
+        int bucketNumber = seed.getValue() % buckets.length;
+        do
+        {
+            b = buckets[bucketNumber];
+            if (((b.hashCollision & 0x7FFFFFFF) == hashCode) && keyEquals(b.key, key))
+            {
+                beginWrite();
+
+                // Clear hash code but keep the collision bit, so that probe sequences through this bucket still work.
+                b.hashCollision &= 0x80000000;
+                b.key = (b.hashCollision != 0) ? buckets : null;
+                b.value = null;
+                count--;
+                endWrite();
+                return true;
+            }
+
+            bucketNumber = (int) (((long) bucketNumber + increment.getValue()) % buckets.length);
+        }
+        while ((b.hashCollision < 0) && (++ntry < buckets.length));
+
+        return false;
     }
 
     /**
@@ -422,8 +695,7 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
         if ((count == 0) && (occupancy == 0))
             return;
 
-        // Thread.beginCriticalRegion();
-        isWriterInProgress = true;
+        beginWrite();
         for (int i = 0; i < buckets.length; i++)
         {
             buckets[i].hashCollision = 0;
@@ -433,9 +705,7 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
 
         count = 0;
         occupancy = 0;
-        version++;
-        isWriterInProgress = false;
-        // Thread.endCriticalRegion();
+        endWrite();
     }
 
     /**
@@ -452,7 +722,6 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
         HashTable ht = new HashTable(count, keyComparer);
         ht.version = version;
         ht.loadFactor = loadFactor;
-        ht.count = count; // It seems to be a bug in ReferenceSource.
         int bucketLength = bucketsCopy.length;
         while (bucketLength > 0)
         {
@@ -496,31 +765,7 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
      */
     public boolean containsKey(Object key)
     {
-        if (key == null)
-            throw new NullPointerException("Argument \"key\" cannot be null.");
-
-        OutValue<Integer> seed = new OutValue<>(0);
-        OutValue<Integer> increment = new OutValue<>(0);
-
-        // Take a snapshot of buckets, in case another thread resizes this HashTable.
-        Bucket[] bucketsCopy = buckets;
-        int hashCode = initHash(key, bucketsCopy.length, seed, increment);
-        int ntry = 0;
-
-        Bucket b;
-        int bucketNumber = seed.getValue() % bucketsCopy.length;
-        do
-        {
-            b = bucketsCopy[bucketNumber];
-            if (b.key == null)
-                return false;
-            if (((b.hashCollision & 0x7FFFFFFF) == hashCode) && keyEquals(b.key, key))
-                return true;
-            bucketNumber = (bucketNumber + increment.getValue()) % bucketsCopy.length;
-        }
-        while ((b.hashCollision) < 0 && (++ntry < bucketsCopy.length));
-
-        return false;
+        return lookup(key) != NOT_FOUND;
     }
 
     /**
@@ -576,8 +821,8 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
         for (int i = bucketsCopy.length; --i >= 0;)
         {
             Object key = bucketsCopy[i].key;
-            if ((key != null) && (key != buckets))
-                keys[startIndex + i] = key;
+            if ((key != null) && (key != bucketsCopy))
+                keys[startIndex++] = key;
         }
     }
 
@@ -592,7 +837,13 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
     @Override
     public boolean remove(KeyValuePair<Object, Object> value)
     {
-        return false;
+        if (value == null)
+            throw new NullPointerException("Argument \"value\" cannot be null.");
+
+        if (!contains(value))
+            return false;
+
+        return removeByKey(value.getKey());
     }
 
     /**
@@ -603,7 +854,7 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
     @Override
     public Iterator<KeyValuePair<Object, Object>> iterator()
     {
-        return null;
+        return new HashTableIterator();
     }
 
     /**
@@ -638,7 +889,14 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
     @Override
     public boolean contains(KeyValuePair<Object, Object> value)
     {
-        return false;
+        if (value == null)
+            throw new NullPointerException("Argument \"value\" cannot be null.");
+
+        Object entryValue = lookup(value.getKey());
+        if (entryValue == NOT_FOUND)
+            return false;
+
+        return (entryValue == null) ? (value.getValue() == null) : entryValue.equals(value.getValue());
     }
 
     /**
@@ -654,7 +912,7 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
     @Override
     public void copyTo(KeyValuePair<Object, Object>[] array)
     {
-
+        copyTo(array, 0);
     }
 
     /**
@@ -672,7 +930,82 @@ public class HashTable implements ICollection<KeyValuePair<Object, Object>>, Ser
     @Override
     public void copyTo(KeyValuePair<Object, Object>[] array, int startIndex)
     {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+        if (array.length - startIndex < count)
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
 
+        Bucket[] bucketsCopy = buckets;
+        for (int i = bucketsCopy.length; --i >= 0; )
+        {
+            Object key = bucketsCopy[i].key;
+            if ((key != null) && (key != bucketsCopy))
+                array[startIndex++] = new KeyValuePair<>(key, bucketsCopy[i].value);
+        }
+    }
+
+    /**
+     * Iterates over the buckets from the last one to the first one. The iterator fails if this {@link HashTable} is
+     * modified during iterating.
+     */
+    private class HashTableIterator implements Iterator<KeyValuePair<Object, Object>>
+    {
+        private final Bucket[] bucketsCopy;
+        private final int version;
+        private int bucket;
+
+        private HashTableIterator()
+        {
+            bucketsCopy = buckets;
+            version = HashTable.this.version;
+            bucket = bucketsCopy.length;
+            advance();
+        }
+
+        private void advance()
+        {
+            while (--bucket >= 0)
+            {
+                Object key = bucketsCopy[bucket].key;
+                if ((key != null) && (key != bucketsCopy))
+                    return;
+            }
+        }
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext()
+        {
+            return bucket >= 0;
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public KeyValuePair<Object, Object> next()
+        {
+            if (version != HashTable.this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+            if (bucket < 0)
+                throw new NoSuchElementException();
+
+            Bucket b = bucketsCopy[bucket];
+            KeyValuePair<Object, Object> kvp = new KeyValuePair<>(b.key, b.value);
+            advance();
+            return kvp;
+        }
     }
 
     public static class HashHelpers
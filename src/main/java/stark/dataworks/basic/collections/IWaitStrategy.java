@@ -0,0 +1,65 @@
+package stark.dataworks.basic.collections;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides what a thread does while it waits for a concurrent collection, e.g. a producer waiting for a free slot of
+ * a full {@link RingBuffer}, or a consumer waiting for an element of an empty one.
+ * <p>
+ * The waiting thread calls {@link #idle(int)} repeatedly with an increasing counter until the condition it waits for
+ * holds, so an implementation can back off gradually.
+ */
+public interface IWaitStrategy
+{
+    /**
+     * Busy spins. Gives the lowest latency, but burns a whole core per waiting thread.
+     */
+    IWaitStrategy BUSY_SPIN = counter -> Thread.onSpinWait();
+
+    /**
+     * Spins for a while, then yields the processor to other threads on every call.
+     */
+    IWaitStrategy YIELDING = counter ->
+    {
+        if (counter < 100)
+            Thread.onSpinWait();
+        else
+            Thread.yield();
+    };
+
+    /**
+     * Spins, then yields, then parks for 100 microseconds on every call. Uses little CPU when idle, at the cost of
+     * latency.
+     */
+    IWaitStrategy PARKING = parking(100_000);
+
+    /**
+     * Creates a strategy that spins, then yields, then parks for the specified time on every call.
+     *
+     * @param parkNanos Time to park for, in nanoseconds.
+     * @return The created strategy.
+     * @throws IllegalArgumentException {@code parkNanos} is not positive.
+     */
+    static IWaitStrategy parking(long parkNanos)
+    {
+        if (parkNanos <= 0)
+            throw new IllegalArgumentException("Argument \"parkNanos\" must be greater than 0.");
+
+        return counter ->
+        {
+            if (counter < 100)
+                Thread.onSpinWait();
+            else if (counter < 200)
+                Thread.yield();
+            else
+                LockSupport.parkNanos(parkNanos);
+        };
+    }
+
+    /**
+     * Waits once.
+     *
+     * @param counter Number of times this method has been called during the current wait, starting from 0.
+     */
+    void idle(int counter);
+}
@@ -560,7 +560,7 @@ public class LinkedList<T> implements ICollection<T>, Serializable
         public boolean hasNext()
         {
             if (!started)
-                return true;
+                return current != null;
             return current != first;
         }
 
@@ -607,7 +607,7 @@ public class LinkedList<T> implements ICollection<T>, Serializable
         public ReverseListIterator(LinkedList<T> list)
         {
             this.started = false;
-            this.current = list.first.previous;
+            this.current = list.first == null ? null : list.first.previous;
             this.list = list;
             this.version = list.version;
         }
@@ -622,7 +622,9 @@ public class LinkedList<T> implements ICollection<T>, Serializable
         @Override
         public boolean hasNext()
         {
-            return (!started) || current != list.first.previous;
+            if (!started)
+                return current != null;
+            return current != list.first.previous;
         }
 
         /**
@@ -0,0 +1,780 @@
+package stark.dataworks.basic.collections;
+
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.KeyNotFountException;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * The {@link LongObjectHashDictionary} class represents a hash dictionary whose keys are primitive {@code long} values.
+ * <p>
+ * Keys and values are stored in 2 flat parallel arrays and collisions are resolved by linear probing, thus adding an
+ * element neither allocates an entry object nor boxes the key. Removing an element uses backward shift deletion instead
+ * of tombstones, which keeps probe sequences short under mixed add/remove workloads. The key 0 marks free slots in the
+ * key array, so the element with key 0 (if any) is stored outside the arrays.
+ * <p>
+ * Methods inherited from {@link IDictionary} box their keys. Prefer the overloads with primitive keys on hot paths.
+ *
+ * @param <TValue> Type of values in this dictionary.
+ */
+public class LongObjectHashDictionary<TValue> implements IDictionary<Long, TValue>, Serializable
+{
+    /**
+     * The visitor interface used by {@link #forEach(IEntryVisitor)} to visit elements without boxing keys.
+     *
+     * @param <TValue> Type of values in the dictionary.
+     */
+    public interface IEntryVisitor<TValue>
+    {
+        void visit(long key, TValue value);
+    }
+
+    private static final long FREE_KEY = 0;
+
+    private long[] keys;
+    private Object[] values;
+    private boolean containsFreeKey;
+    private TValue freeKeyValue;
+    private int count;
+    private int mask;
+    private int resizeThreshold;
+    private final double loadFactor;
+    private int version;
+
+    public LongObjectHashDictionary()
+    {
+        this(PrimitiveHashHelpers.DEFAULT_CAPACITY, PrimitiveHashHelpers.DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectHashDictionary(int capacity)
+    {
+        this(capacity, PrimitiveHashHelpers.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Initializes an empty {@link LongObjectHashDictionary} that can hold the specified number of elements without
+     * resizing.
+     *
+     * @param capacity   The expected number of elements.
+     * @param loadFactor The maximum ratio of elements to slots, in range [0.1, 1.0).
+     */
+    public LongObjectHashDictionary(int capacity, double loadFactor)
+    {
+        PrimitiveHashHelpers.validateCapacity(capacity);
+        PrimitiveHashHelpers.validateLoadFactor(loadFactor);
+
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHashHelpers.tableLengthFor(capacity, loadFactor));
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws KeyNotFountException The specified key is not in this dictionary.
+     */
+    public TValue get(long key)
+    {
+        if (key == FREE_KEY)
+        {
+            if (containsFreeKey)
+                return freeKeyValue;
+        }
+        else
+        {
+            int slot = findSlot(key);
+            if (slot >= 0)
+                return valueAt(slot);
+        }
+
+        throw new KeyNotFountException("The specified key is not in the LongObjectHashDictionary.");
+    }
+
+    /**
+     * Gets the element associated with the specified key, or the specified default value if the key is not in this
+     * dictionary.
+     *
+     * @param key          The key of the element to get.
+     * @param defaultValue The value to return if the key is not found.
+     * @return The value associated with the specified key, or {@code defaultValue}.
+     */
+    public TValue getOrDefault(long key, TValue defaultValue)
+    {
+        if (key == FREE_KEY)
+            return containsFreeKey ? freeKeyValue : defaultValue;
+
+        int slot = findSlot(key);
+        return (slot >= 0) ? valueAt(slot) : defaultValue;
+    }
+
+    /**
+     * Sets the element associated with the specified key.
+     *
+     * @param key   The key of the element to set.
+     * @param value The new value associated with the specified key.
+     * @throws KeyNotFountException The specified key is not in this dictionary.
+     */
+    public void set(long key, TValue value)
+    {
+        if (key == FREE_KEY)
+        {
+            if (!containsFreeKey)
+                throw new KeyNotFountException("The specified key is not in the LongObjectHashDictionary.");
+            freeKeyValue = value;
+        }
+        else
+        {
+            int slot = findSlot(key);
+            if (slot < 0)
+                throw new KeyNotFountException("The specified key is not in the LongObjectHashDictionary.");
+            values[slot] = value;
+        }
+
+        version++;
+    }
+
+    /**
+     * Adds an element with the provided key and value to this dictionary.
+     *
+     * @param key   The key of the element to add.
+     * @param value The value of the element to add.
+     * @throws IllegalArgumentException An element with the same key already exists in this dictionary.
+     */
+    public void add(long key, TValue value)
+    {
+        if (key == FREE_KEY)
+        {
+            if (containsFreeKey)
+                throw new IllegalArgumentException("The specified key is already in the LongObjectHashDictionary.");
+
+            containsFreeKey = true;
+            freeKeyValue = value;
+        }
+        else
+        {
+            int slot = findSlot(key);
+            if (slot >= 0)
+                throw new IllegalArgumentException("The specified key is already in the LongObjectHashDictionary.");
+
+            slot = ~slot;
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        onElementAdded();
+    }
+
+    /**
+     * Adds an element with the provided key and value, or replaces the value if the key already exists.
+     *
+     * @param key   The key of the element to add or replace.
+     * @param value The new value associated with the specified key.
+     * @return The previous value associated with the specified key, or null if there was no such element.
+     */
+    public TValue put(long key, TValue value)
+    {
+        TValue previous;
+        if (key == FREE_KEY)
+        {
+            if (containsFreeKey)
+            {
+                previous = freeKeyValue;
+                freeKeyValue = value;
+                version++;
+                return previous;
+            }
+
+            containsFreeKey = true;
+            freeKeyValue = value;
+        }
+        else
+        {
+            int slot = findSlot(key);
+            if (slot >= 0)
+            {
+                previous = valueAt(slot);
+                values[slot] = value;
+                version++;
+                return previous;
+            }
+
+            slot = ~slot;
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        onElementAdded();
+        return null;
+    }
+
+    /**
+     * Determines whether this dictionary contains an element with the specified key.
+     *
+     * @param key The key to locate.
+     * @return {@code true} if this dictionary contains an element with the key; otherwise, {@code false}.
+     */
+    public boolean containsKey(long key)
+    {
+        if (key == FREE_KEY)
+            return containsFreeKey;
+
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Tries to remove the element with the specified key.
+     *
+     * @param key The key of the element to remove.
+     * @return {@code true} if the element is successfully removed; otherwise, {@code false}.
+     */
+    public boolean removeByKey(long key)
+    {
+        if (key == FREE_KEY)
+        {
+            if (!containsFreeKey)
+                return false;
+
+            containsFreeKey = false;
+            freeKeyValue = null;
+        }
+        else
+        {
+            int slot = findSlot(key);
+            if (slot < 0)
+                return false;
+
+            shiftKeys(slot);
+        }
+
+        count--;
+        version++;
+        return true;
+    }
+
+    /**
+     * Visits all elements of this dictionary without boxing their keys. The order of visits is unspecified.
+     *
+     * @param visitor The visitor to call for each element.
+     */
+    public void forEach(IEntryVisitor<TValue> visitor)
+    {
+        Objects.requireNonNull(visitor, "Argument \"visitor\" cannot be null.");
+
+        int version = this.version;
+        if (containsFreeKey)
+            visitor.visit(FREE_KEY, freeKeyValue);
+
+        long[] keys = this.keys;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != FREE_KEY)
+                visitor.visit(keys[i], valueAt(i));
+        }
+
+        if (version != this.version)
+            throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+    }
+
+    /**
+     * Returns all keys of this dictionary in a new array.
+     *
+     * @return An array that contains all keys of this dictionary.
+     */
+    public long[] keysToArray()
+    {
+        long[] result = new long[count];
+        int i = 0;
+        if (containsFreeKey)
+            result[i++] = FREE_KEY;
+
+        for (long key : keys)
+        {
+            if (key != FREE_KEY)
+                result[i++] = key;
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in the {@link IDictionary}.
+     */
+    @Override
+    public TValue get(Long key)
+    {
+        validateKey(key);
+        return get(key.longValue());
+    }
+
+    /**
+     * Sets the element associated with the specified key.
+     *
+     * @param key   The key of the element to get.
+     * @param value The new value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in the {@link IDictionary}.
+     */
+    @Override
+    public void set(Long key, TValue value)
+    {
+        validateKey(key);
+        set(key.longValue(), value);
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the keys of the {@link IDictionary}.
+     *
+     * @return an {@link Iterable} containing all the keys of the {@link IDictionary}.
+     */
+    @Override
+    public Iterable<Long> keys()
+    {
+        return KeyIterator::new;
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the values of the {@link IDictionary}.
+     *
+     * @return an {@link Iterable} containing all the values of the {@link IDictionary}.
+     */
+    @Override
+    public Iterable<TValue> values()
+    {
+        return ValueIterator::new;
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link IDictionary}.
+     *
+     * @param key   The object to use as the key of the element to add.
+     * @param value The object to use as the value of the element to add, which is associated with the key.
+     * @throws NullPointerException     The specified key is null.
+     * @throws IllegalArgumentException An element with the same key already exists in this {@link IDictionary}.
+     */
+    @Override
+    public void add(Long key, TValue value)
+    {
+        validateKey(key);
+        add(key.longValue(), value);
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link IDictionary}.
+     *
+     * @param keyValuePair The object to add with the key and the value.
+     * @throws NullPointerException     The specified key value pair is null.
+     * @throws IllegalArgumentException An element with the same key already exists in this {@link IDictionary}.
+     */
+    @Override
+    public void add(KeyValuePair<Long, TValue> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        add(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified key.
+     *
+     * @param key The key to locate in this {@link IDictionary}.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the key; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKey(Long key)
+    {
+        validateKey(key);
+        return containsKey(key.longValue());
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified value.
+     *
+     * @param value The value to locate in this {@link IDictionary}.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the value; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean containsValue(TValue value)
+    {
+        if (containsFreeKey && Objects.equals(freeKeyValue, value))
+            return true;
+
+        for (int i = 0; i < keys.length; i++)
+        {
+            if ((keys[i] != FREE_KEY) && Objects.equals(values[i], value))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified key and value.
+     *
+     * @param key   The key to locate in this {@link IDictionary}.
+     * @param value The value associated with the specified key.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the key and value; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKeyValue(Long key, TValue value)
+    {
+        validateKey(key);
+
+        long k = key;
+        if (k == FREE_KEY)
+            return containsFreeKey && Objects.equals(freeKeyValue, value);
+
+        int slot = findSlot(k);
+        return (slot >= 0) && Objects.equals(values[slot], value);
+    }
+
+    /**
+     * Tries to remove a {@link KeyValuePair} with the specified key.
+     * Java's generic programming mechanism makes this method have a long name instead just "remove".
+     *
+     * @param key The key of the element to remove.
+     * @return <code>true</code> if the element is successfully removed; otherwise, <code>false</code>. This method
+     * also returns <code>false</code> if key was not found in the original {@link IDictionary}.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean removeByKey(Long key)
+    {
+        validateKey(key);
+        return removeByKey(key.longValue());
+    }
+
+    /**
+     * Removes all items from this {@link ICollection}.
+     */
+    @Override
+    public void clear()
+    {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, null);
+        containsFreeKey = false;
+        freeKeyValue = null;
+        count = 0;
+        version++;
+    }
+
+    /**
+     * Removes the first occurrence of a specific object from this {@link ICollection}.
+     *
+     * @param keyValuePair The object to remove from this {@link ICollection}.
+     * @return <code>true</code> if item was successfully removed from the {@link ICollection}; otherwise,
+     * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
+     * {@link ICollection}.
+     */
+    @Override
+    public boolean remove(KeyValuePair<Long, TValue> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        if (!containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue()))
+            return false;
+
+        return removeByKey(keyValuePair.getKey());
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code T}.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<KeyValuePair<Long, TValue>> iterator()
+    {
+        return new DictionaryIterator();
+    }
+
+    /**
+     * Gets the number of elements contained in this {@link ICollection}.
+     *
+     * @return The number of elements contained in this {@link ICollection}.
+     */
+    @Override
+    public int count()
+    {
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link ICollection} contains a specific value.
+     *
+     * @param keyValuePair The {@link KeyValuePair} to locate in this {@link ICollection}.
+     * @return <code>true</code> if the specified value is found in this {@link ICollection}; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean contains(KeyValuePair<Long, TValue> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        return containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from this
+     *              {@link ICollection}. The array must have zero-based indexing.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the source {@link ICollection} is greater than the
+     *                                  available space from 0 to the end of the destination array, i.e. the capacity of the given array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<Long, TValue>[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at a particular array index.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from this
+     *                   {@link ICollection}. The array must have zero-based indexing.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException Array index is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the source {@link ICollection} is greater than the
+     *                                        available space from <code>startIndex</code> to the end of the destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<Long, TValue>[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+        if (array.length < startIndex + count)
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        int i = startIndex;
+        for (KeyValuePair<Long, TValue> kvp : this)
+            array[i++] = kvp;
+    }
+
+    /**
+     * Finds the slot that contains the specified key, which must not be {@link #FREE_KEY}.
+     *
+     * @param key The key to locate.
+     * @return Index of the slot that contains the key if found; otherwise, the bitwise complement of the free slot
+     * where the key should be inserted.
+     */
+    private int findSlot(long key)
+    {
+        long[] keys = this.keys;
+        int slot = PrimitiveHashHelpers.mix(key) & mask;
+        for (long current; (current = keys[slot]) != FREE_KEY; slot = (slot + 1) & mask)
+        {
+            if (current == key)
+                return slot;
+        }
+
+        return ~slot;
+    }
+
+    /**
+     * Updates the counters after a new element is added, and expands the table if it is too full.
+     */
+    private void onElementAdded()
+    {
+        if (++count > resizeThreshold)
+            rehash(PrimitiveHashHelpers.expandedLengthOf(keys.length));
+
+        version++;
+    }
+
+    /**
+     * Removes the element in the specified slot by shifting the following elements of the same cluster backward, so
+     * that no tombstone is needed.
+     *
+     * @param gap The slot of the element to remove.
+     */
+    private void shiftKeys(int gap)
+    {
+        long[] keys = this.keys;
+        Object[] values = this.values;
+        int slot = gap;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == FREE_KEY)
+                break;
+
+            int idealSlot = PrimitiveHashHelpers.mix(key) & mask;
+            if (PrimitiveHashHelpers.shouldShift(gap, slot, idealSlot))
+            {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+
+        keys[gap] = FREE_KEY;
+        values[gap] = null;
+    }
+
+    private void allocate(int tableLength)
+    {
+        keys = new long[tableLength];
+        values = new Object[tableLength];
+        mask = tableLength - 1;
+        resizeThreshold = PrimitiveHashHelpers.resizeThresholdOf(tableLength, loadFactor);
+    }
+
+    private void rehash(int newLength)
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newLength);
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            long key = oldKeys[i];
+            if (key == FREE_KEY)
+                continue;
+
+            int slot = PrimitiveHashHelpers.mix(key) & mask;
+            while (keys[slot] != FREE_KEY)
+                slot = (slot + 1) & mask;
+
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TValue valueAt(int slot)
+    {
+        return (TValue) values[slot];
+    }
+
+    private void validateKey(Long key)
+    {
+        if (key == null)
+            throw new NullPointerException("Argument \"key\" cannot be null.");
+    }
+
+    private void validateKeyValuePair(KeyValuePair<Long, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+    }
+
+    /**
+     * Iterates over the element with the free key first (if any), then over the slots of the table.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T>
+    {
+        private final int version;
+        private boolean freeKeyPending;
+        private int slot;
+
+        protected abstract T getItem(long key, TValue value);
+
+        private SlotIterator()
+        {
+            version = LongObjectHashDictionary.this.version;
+            freeKeyPending = containsFreeKey;
+            slot = nextOccupied(0);
+        }
+
+        private int nextOccupied(int from)
+        {
+            long[] keys = LongObjectHashDictionary.this.keys;
+            while ((from < keys.length) && (keys[from] == FREE_KEY))
+                from++;
+            return from;
+        }
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext()
+        {
+            return freeKeyPending || (slot < keys.length);
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (version != LongObjectHashDictionary.this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            if (freeKeyPending)
+            {
+                freeKeyPending = false;
+                return getItem(FREE_KEY, freeKeyValue);
+            }
+
+            T item = getItem(keys[slot], valueAt(slot));
+            slot = nextOccupied(slot + 1);
+            return item;
+        }
+    }
+
+    private class DictionaryIterator extends SlotIterator<KeyValuePair<Long, TValue>>
+    {
+        @Override
+        protected KeyValuePair<Long, TValue> getItem(long key, TValue value)
+        {
+            return new KeyValuePair<>(key, value);
+        }
+    }
+
+    private class KeyIterator extends SlotIterator<Long>
+    {
+        @Override
+        protected Long getItem(long key, TValue value)
+        {
+            return key;
+        }
+    }
+
+    private class ValueIterator extends SlotIterator<TValue>
+    {
+        @Override
+        protected TValue getItem(long key, TValue value)
+        {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,734 @@
+package stark.dataworks.basic.collections;
+
+import stark.dataworks.basic.IEqualityComparer;
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.KeyNotFountException;
+import stark.dataworks.basic.tests.DictionaryTest;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * The {@link ObjectIntHashDictionary} class represents a hash dictionary whose values are primitive {@code int} values,
+ * which is typically used to count occurrences of objects.
+ * <p>
+ * Keys and values are stored in 2 flat parallel arrays and collisions are resolved by linear probing, thus adding an
+ * element neither allocates an entry object nor boxes the value. A null reference in the key array marks a free slot,
+ * which is why null keys are not allowed.
+ * <p>
+ * Keys are hashed and compared by {@link Object#hashCode()} and {@link Object#equals(Object)} unless an
+ * {@link IEqualityComparer} is provided in the constructor. Methods inherited from {@link IDictionary} box their values.
+ * Prefer {@link #getInt(Object)}, {@link #add(Object, int)} and {@link #addTo(Object, int)} on hot paths.
+ *
+ * @param <TKey> Type of keys in this dictionary.
+ */
+public class ObjectIntHashDictionary<TKey> implements IDictionary<TKey, Integer>, Serializable
+{
+    /**
+     * The visitor interface used by {@link #forEach(IEntryVisitor)} to visit elements without boxing values.
+     *
+     * @param <TKey> Type of keys in the dictionary.
+     */
+    public interface IEntryVisitor<TKey>
+    {
+        void visit(TKey key, int value);
+    }
+
+    private Object[] keys;
+    private int[] values;
+    private int count;
+    private int mask;
+    private int resizeThreshold;
+    private final double loadFactor;
+    private final IEqualityComparer<TKey> keyComparer;
+    private int version;
+
+    public ObjectIntHashDictionary()
+    {
+        this(PrimitiveHashHelpers.DEFAULT_CAPACITY, PrimitiveHashHelpers.DEFAULT_LOAD_FACTOR, null);
+    }
+
+    public ObjectIntHashDictionary(IEqualityComparer<TKey> keyComparer)
+    {
+        this(PrimitiveHashHelpers.DEFAULT_CAPACITY, PrimitiveHashHelpers.DEFAULT_LOAD_FACTOR, keyComparer);
+    }
+
+    public ObjectIntHashDictionary(int capacity)
+    {
+        this(capacity, PrimitiveHashHelpers.DEFAULT_LOAD_FACTOR, null);
+    }
+
+    public ObjectIntHashDictionary(int capacity, double loadFactor)
+    {
+        this(capacity, loadFactor, null);
+    }
+
+    /**
+     * Initializes an empty {@link ObjectIntHashDictionary} that can hold the specified number of elements without
+     * resizing.
+     *
+     * @param capacity    The expected number of elements.
+     * @param loadFactor  The maximum ratio of elements to slots, in range [0.1, 1.0).
+     * @param keyComparer The comparer used to hash and compare keys, or null to use the methods of the keys.
+     */
+    public ObjectIntHashDictionary(int capacity, double loadFactor, IEqualityComparer<TKey> keyComparer)
+    {
+        PrimitiveHashHelpers.validateCapacity(capacity);
+        PrimitiveHashHelpers.validateLoadFactor(loadFactor);
+
+        this.loadFactor = loadFactor;
+        this.keyComparer = keyComparer;
+        allocate(PrimitiveHashHelpers.tableLengthFor(capacity, loadFactor));
+    }
+
+    public IEqualityComparer<TKey> getKeyComparer()
+    {
+        return keyComparer;
+    }
+
+    /**
+     * Gets the element associated with the specified key without boxing it.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in this dictionary.
+     */
+    public int getInt(TKey key)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        if (slot < 0)
+            throw new KeyNotFountException("The specified key is not in the ObjectIntHashDictionary.");
+
+        return values[slot];
+    }
+
+    /**
+     * Gets the element associated with the specified key, or the specified default value if the key is not in this
+     * dictionary.
+     *
+     * @param key          The key of the element to get.
+     * @param defaultValue The value to return if the key is not found.
+     * @return The value associated with the specified key, or {@code defaultValue}.
+     * @throws NullPointerException The specified key is null.
+     */
+    public int getOrDefault(TKey key, int defaultValue)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        return (slot >= 0) ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Sets the element associated with the specified key.
+     *
+     * @param key   The key of the element to set.
+     * @param value The new value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in this dictionary.
+     */
+    public void set(TKey key, int value)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        if (slot < 0)
+            throw new KeyNotFountException("The specified key is not in the ObjectIntHashDictionary.");
+
+        values[slot] = value;
+        version++;
+    }
+
+    /**
+     * Adds an element with the provided key and value to this dictionary.
+     *
+     * @param key   The key of the element to add.
+     * @param value The value of the element to add.
+     * @throws NullPointerException     The specified key is null.
+     * @throws IllegalArgumentException An element with the same key already exists in this dictionary.
+     */
+    public void add(TKey key, int value)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        if (slot >= 0)
+            throw new IllegalArgumentException("The specified key is already in the ObjectIntHashDictionary.");
+
+        insertAt(~slot, key, value);
+    }
+
+    /**
+     * Adds an element with the provided key and value, or replaces the value if the key already exists.
+     *
+     * @param key   The key of the element to add or replace.
+     * @param value The new value associated with the specified key.
+     * @return {@code true} if a new element is added; {@code false} if an existing value is replaced.
+     * @throws NullPointerException The specified key is null.
+     */
+    public boolean put(TKey key, int value)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        if (slot >= 0)
+        {
+            values[slot] = value;
+            version++;
+            return false;
+        }
+
+        insertAt(~slot, key, value);
+        return true;
+    }
+
+    /**
+     * Adds the specified increment to the value associated with the specified key. If the key is not in this
+     * dictionary, a new element with the increment as its value is added. This is the fastest way to count keys since
+     * it probes the table only once.
+     *
+     * @param key       The key of the element to update.
+     * @param increment The amount to add.
+     * @return The value associated with the specified key after the update.
+     * @throws NullPointerException The specified key is null.
+     */
+    public int addTo(TKey key, int increment)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        if (slot >= 0)
+        {
+            version++;
+            return values[slot] += increment;
+        }
+
+        insertAt(~slot, key, increment);
+        return increment;
+    }
+
+    /**
+     * Visits all elements of this dictionary without boxing their values. The order of visits is unspecified.
+     *
+     * @param visitor The visitor to call for each element.
+     */
+    public void forEach(IEntryVisitor<TKey> visitor)
+    {
+        Objects.requireNonNull(visitor, "Argument \"visitor\" cannot be null.");
+
+        int version = this.version;
+        Object[] keys = this.keys;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != null)
+                visitor.visit(keyAt(i), values[i]);
+        }
+
+        if (version != this.version)
+            throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in the {@link IDictionary}.
+     */
+    @Override
+    public Integer get(TKey key)
+    {
+        return getInt(key);
+    }
+
+    /**
+     * Sets the element associated with the specified key.
+     *
+     * @param key   The key of the element to get.
+     * @param value The new value associated with the specified key.
+     * @throws NullPointerException The specified key or value is null.
+     * @throws KeyNotFountException The specified key is not in the {@link IDictionary}.
+     */
+    @Override
+    public void set(TKey key, Integer value)
+    {
+        validateValue(value);
+        set(key, value.intValue());
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the keys of the {@link IDictionary}.
+     *
+     * @return an {@link Iterable} containing all the keys of the {@link IDictionary}.
+     */
+    @Override
+    public Iterable<TKey> keys()
+    {
+        return KeyIterator::new;
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the values of the {@link IDictionary}.
+     *
+     * @return an {@link Iterable} containing all the values of the {@link IDictionary}.
+     */
+    @Override
+    public Iterable<Integer> values()
+    {
+        return ValueIterator::new;
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link IDictionary}.
+     *
+     * @param key   The object to use as the key of the element to add.
+     * @param value The object to use as the value of the element to add, which is associated with the key.
+     * @throws NullPointerException     The specified key or value is null.
+     * @throws IllegalArgumentException An element with the same key already exists in this {@link IDictionary}.
+     */
+    @Override
+    public void add(TKey key, Integer value)
+    {
+        validateValue(value);
+        add(key, value.intValue());
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link IDictionary}.
+     *
+     * @param keyValuePair The object to add with the key and the value.
+     * @throws NullPointerException     The specified key value pair is null.
+     * @throws IllegalArgumentException An element with the same key already exists in this {@link IDictionary}.
+     */
+    @Override
+    public void add(KeyValuePair<TKey, Integer> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        add(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified key.
+     *
+     * @param key The key to locate in this {@link IDictionary}.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the key; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKey(TKey key)
+    {
+        validateKey(key);
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified value.
+     *
+     * @param value The value to locate in this {@link IDictionary}.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the value; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean containsValue(Integer value)
+    {
+        if (value == null)
+            return false;
+
+        int v = value;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if ((keys[i] != null) && (values[i] == v))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link IDictionary} contains an element with the specified key and value.
+     *
+     * @param key   The key to locate in this {@link IDictionary}.
+     * @param value The value associated with the specified key.
+     * @return <code>true</code> if this {@link IDictionary} contains an element with the key and value; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKeyValue(TKey key, Integer value)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        return (slot >= 0) && (value != null) && (values[slot] == value);
+    }
+
+    /**
+     * Tries to remove a {@link KeyValuePair} with the specified key.
+     * Java's generic programming mechanism makes this method have a long name instead just "remove".
+     *
+     * @param key The key of the element to remove.
+     * @return <code>true</code> if the element is successfully removed; otherwise, <code>false</code>. This method
+     * also returns <code>false</code> if key was not found in the original {@link IDictionary}.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean removeByKey(TKey key)
+    {
+        validateKey(key);
+
+        int slot = findSlot(key);
+        if (slot < 0)
+            return false;
+
+        shiftKeys(slot);
+        count--;
+        version++;
+        return true;
+    }
+
+    /**
+     * Removes all items from this {@link ICollection}.
+     */
+    @Override
+    public void clear()
+    {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, 0);
+        count = 0;
+        version++;
+    }
+
+    /**
+     * Removes the first occurrence of a specific object from this {@link ICollection}.
+     *
+     * @param keyValuePair The object to remove from this {@link ICollection}.
+     * @return <code>true</code> if item was successfully removed from the {@link ICollection}; otherwise,
+     * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
+     * {@link ICollection}.
+     */
+    @Override
+    public boolean remove(KeyValuePair<TKey, Integer> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        if (!containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue()))
+            return false;
+
+        return removeByKey(keyValuePair.getKey());
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code T}.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<KeyValuePair<TKey, Integer>> iterator()
+    {
+        return new DictionaryIterator();
+    }
+
+    /**
+     * Gets the number of elements contained in this {@link ICollection}.
+     *
+     * @return The number of elements contained in this {@link ICollection}.
+     */
+    @Override
+    public int count()
+    {
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link ICollection} contains a specific value.
+     *
+     * @param keyValuePair The {@link KeyValuePair} to locate in this {@link ICollection}.
+     * @return <code>true</code> if the specified value is found in this {@link ICollection}; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean contains(KeyValuePair<TKey, Integer> keyValuePair)
+    {
+        validateKeyValuePair(keyValuePair);
+        return containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from this
+     *              {@link ICollection}. The array must have zero-based indexing.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the source {@link ICollection} is greater than the
+     *                                  available space from 0 to the end of the destination array, i.e. the capacity of the given array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, Integer>[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of this {@link ICollection} to an array, starting at a particular array index.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from this
+     *                   {@link ICollection}. The array must have zero-based indexing.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException Array index is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the source {@link ICollection} is greater than the
+     *                                        available space from <code>startIndex</code> to the end of the destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, Integer>[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+        if (array.length < startIndex + count)
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        int i = startIndex;
+        for (KeyValuePair<TKey, Integer> kvp : this)
+            array[i++] = kvp;
+    }
+
+    private int hashOf(TKey key)
+    {
+        int hashCode = (keyComparer != null) ? keyComparer.getHashCode(key) : key.hashCode();
+        return PrimitiveHashHelpers.mix(hashCode);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean keyEquals(Object item, TKey key)
+    {
+        if (item == key)
+            return true;
+
+        if (keyComparer != null)
+            return keyComparer.equals((TKey) item, key);
+        return item.equals(key);
+    }
+
+    /**
+     * Finds the slot that contains the specified key.
+     *
+     * @param key The key to locate.
+     * @return Index of the slot that contains the key if found; otherwise, the bitwise complement of the free slot
+     * where the key should be inserted.
+     */
+    private int findSlot(TKey key)
+    {
+        Object[] keys = this.keys;
+        int slot = hashOf(key) & mask;
+        for (Object current; (current = keys[slot]) != null; slot = (slot + 1) & mask)
+        {
+            if (keyEquals(current, key))
+                return slot;
+        }
+
+        return ~slot;
+    }
+
+    private void insertAt(int slot, TKey key, int value)
+    {
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++count > resizeThreshold)
+            rehash(PrimitiveHashHelpers.expandedLengthOf(keys.length));
+
+        version++;
+    }
+
+    /**
+     * Removes the element in the specified slot by shifting the following elements of the same cluster backward, so
+     * that no tombstone is needed.
+     *
+     * @param gap The slot of the element to remove.
+     */
+    private void shiftKeys(int gap)
+    {
+        Object[] keys = this.keys;
+        int[] values = this.values;
+        int slot = gap;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            Object key = keys[slot];
+            if (key == null)
+                break;
+
+            int idealSlot = hashOf(keyAt(slot)) & mask;
+            if (PrimitiveHashHelpers.shouldShift(gap, slot, idealSlot))
+            {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+
+        keys[gap] = null;
+        values[gap] = 0;
+    }
+
+    private void allocate(int tableLength)
+    {
+        keys = new Object[tableLength];
+        values = new int[tableLength];
+        mask = tableLength - 1;
+        resizeThreshold = PrimitiveHashHelpers.resizeThresholdOf(tableLength, loadFactor);
+    }
+
+    private void rehash(int newLength)
+    {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newLength);
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] == null)
+                continue;
+
+            @SuppressWarnings("unchecked")
+            int slot = hashOf((TKey) oldKeys[i]) & mask;
+            while (keys[slot] != null)
+                slot = (slot + 1) & mask;
+
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TKey keyAt(int slot)
+    {
+        return (TKey) keys[slot];
+    }
+
+    private void validateKey(TKey key)
+    {
+        if (key == null)
+            throw new NullPointerException("Argument \"key\" cannot be null.");
+    }
+
+    private void validateValue(Integer value)
+    {
+        if (value == null)
+            throw new NullPointerException("Argument \"value\" cannot be null.");
+    }
+
+    private void validateKeyValuePair(KeyValuePair<TKey, Integer> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T>
+    {
+        private final int version;
+        private int slot;
+
+        protected abstract T getItem(TKey key, int value);
+
+        private SlotIterator()
+        {
+            version = ObjectIntHashDictionary.this.version;
+            slot = nextOccupied(0);
+        }
+
+        private int nextOccupied(int from)
+        {
+            Object[] keys = ObjectIntHashDictionary.this.keys;
+            while ((from < keys.length) && (keys[from] == null))
+                from++;
+            return from;
+        }
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext()
+        {
+            return slot < keys.length;
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (version != ObjectIntHashDictionary.this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            T item = getItem(keyAt(slot), values[slot]);
+            slot = nextOccupied(slot + 1);
+            return item;
+        }
+    }
+
+    private class DictionaryIterator extends SlotIterator<KeyValuePair<TKey, Integer>>
+    {
+        @Override
+        protected KeyValuePair<TKey, Integer> getItem(TKey key, int value)
+        {
+            return new KeyValuePair<>(key, value);
+        }
+    }
+
+    private class KeyIterator extends SlotIterator<TKey>
+    {
+        @Override
+        protected TKey getItem(TKey key, int value)
+        {
+            return key;
+        }
+    }
+
+    private class ValueIterator extends SlotIterator<Integer>
+    {
+        @Override
+        protected Integer getItem(TKey key, int value)
+        {
+            return value;
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        ObjectIntHashDictionary<String> dictionary = new ObjectIntHashDictionary<>();
+        DictionaryTest.runTest(dictionary);
+    }
+}
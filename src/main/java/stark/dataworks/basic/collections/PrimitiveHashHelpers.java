@@ -0,0 +1,145 @@
+package stark.dataworks.basic.collections;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+/**
+ * Helper methods shared by the open-addressing hash dictionaries with primitive keys or values, e.g.
+ * {@link IntObjectHashDictionary} and {@link LongLongHashDictionary}.
+ * <p>
+ * All these dictionaries use tables whose length is a power of 2, so that the slot of a key is computed by masking
+ * its mixed hash code instead of a modulo operation.
+ */
+final class PrimitiveHashHelpers
+{
+    /**
+     * Default number of elements a dictionary can hold before its first resize.
+     */
+    static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Default maximum ratio of elements to slots.
+     */
+    static final double DEFAULT_LOAD_FACTOR = 0.75;
+
+    /**
+     * Maximum length of the tables, which is the largest power of 2 that is a valid array length.
+     */
+    static final int MAX_TABLE_LENGTH = 1 << 30;
+
+    /**
+     * 2^32 / golden ratio, used by Fibonacci hashing to spread sequential keys over the table.
+     */
+    private static final int INT_PHI = 0x9E3779B9;
+
+    /**
+     * 2^64 / golden ratio, used by Fibonacci hashing to spread sequential keys over the table.
+     */
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    private PrimitiveHashHelpers()
+    {
+    }
+
+    /**
+     * Scrambles the bits of an {@code int} hash code so that keys which only differ in their high bits (or which are
+     * sequential) still fall into different slots after masking.
+     *
+     * @param hashCode The hash code to mix.
+     * @return The mixed hash code.
+     */
+    static int mix(int hashCode)
+    {
+        int h = hashCode * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Scrambles the bits of a {@code long} key and folds them to an {@code int} hash code.
+     *
+     * @param key The key to mix.
+     * @return The mixed hash code.
+     */
+    static int mix(long key)
+    {
+        long h = key * LONG_PHI;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * Returns the length of a table that can hold the specified number of elements without exceeding the load factor.
+     *
+     * @param capacity   The expected number of elements.
+     * @param loadFactor The maximum ratio of elements to slots.
+     * @return The smallest power of 2 that can hold {@code capacity} elements.
+     */
+    static int tableLengthFor(int capacity, double loadFactor)
+    {
+        long required = (long) Math.ceil(capacity / loadFactor);
+        if (required > MAX_TABLE_LENGTH)
+            throw new IllegalArgumentException("Capacity overflow.");
+
+        int length = 4;
+        while (length < required)
+            length <<= 1;
+
+        return length;
+    }
+
+    /**
+     * Returns the number of elements a table with the specified length can hold before it must be expanded. At least
+     * 1 slot is always kept free so that a probe sequence for a missing key terminates.
+     *
+     * @param tableLength Length of the table.
+     * @param loadFactor  The maximum ratio of elements to slots.
+     * @return The resize threshold of the table.
+     */
+    static int resizeThresholdOf(int tableLength, double loadFactor)
+    {
+        return Math.min(tableLength - 1, (int) (tableLength * loadFactor));
+    }
+
+    /**
+     * Returns the length of the table to use when the table with the specified length is full.
+     *
+     * @param tableLength Length of the full table.
+     * @return Length of the expanded table.
+     */
+    static int expandedLengthOf(int tableLength)
+    {
+        if (tableLength >= MAX_TABLE_LENGTH)
+            throw new IllegalStateException("The dictionary has reached its maximum capacity.");
+
+        return tableLength << 1;
+    }
+
+    static void validateCapacity(int capacity)
+    {
+        if (capacity < 0)
+            throw new ArgumentOutOfRangeException("The parameter \"capacity\" must be greater than or equal to 0.");
+    }
+
+    static void validateLoadFactor(double loadFactor)
+    {
+        if (!(loadFactor >= 0.1 && loadFactor < 1.0))
+            throw new ArgumentOutOfRangeException("The parameter \"loadFactor\" must between [0.1, 1.0).");
+    }
+
+    /**
+     * Determines whether the element in {@code slot} must be moved to {@code gap} during a backward shift deletion.
+     * The element may not be moved if its ideal slot lies cyclically in {@code (gap, slot]}, since then it would be
+     * placed before its ideal slot and could not be found anymore.
+     *
+     * @param gap       The slot that is currently free.
+     * @param slot      The slot of the element under inspection.
+     * @param idealSlot The slot the element would occupy without collisions.
+     * @return {@code true} if the element should be shifted into {@code gap}; otherwise, {@code false}.
+     */
+    static boolean shouldShift(int gap, int slot, int idealSlot)
+    {
+        if (gap <= slot)
+            return (gap >= idealSlot) || (idealSlot > slot);
+        else
+            return (gap >= idealSlot) && (idealSlot > slot);
+    }
+}
@@ -0,0 +1,354 @@
+package stark.dataworks.basic.collections;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The {@link RingBuffer} class represents a bounded, lock-free, multi-producer multi-consumer first-in-first-out
+ * queue over a preallocated array, based on the bounded MPMC queue of Dmitry Vyukov.
+ * <p>
+ * Every slot has a sequence number telling whose turn it is. A slot at position {@code pos} is free for the producer
+ * that claims {@code pos} when its sequence equals {@code pos}, and is filled for the consumer that claims {@code pos}
+ * when its sequence equals {@code pos + 1}. Producers and consumers claim positions by a CAS on two counters, which are
+ * padded to separate cache lines so that producers and consumers do not invalidate each other's cache lines. No node is
+ * allocated per element.
+ * <p>
+ * {@link #offer(Object)} and {@link #poll()} never block. {@link #put(Object)} and {@link #take()} apply backpressure
+ * by waiting with the {@link IWaitStrategy} of this buffer. {@link #drainTo(Collection, int)} claims a run of filled
+ * slots with one CAS, which lets a consumer process elements in batches. Null elements are not allowed.
+ *
+ * @param <T> Type of elements in this buffer.
+ */
+public class RingBuffer<T>
+{
+    /**
+     * Maximum capacity, which is the largest power of 2 that is a valid array length.
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Fields that keep {@link Sequence#value} away from the objects allocated before it.
+     */
+    @SuppressWarnings("unused")
+    private static class LeftPadding
+    {
+        protected long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    private static class SequenceValue extends LeftPadding
+    {
+        protected volatile long value;
+    }
+
+    /**
+     * A counter that occupies a cache line on its own. The superclasses put 7 longs before the value, and this class
+     * puts 7 longs after it, since the JVM lays out the fields of a superclass first.
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence extends SequenceValue
+    {
+        protected long p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    private static final AtomicLongFieldUpdater<SequenceValue> VALUE =
+            AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "value");
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final IWaitStrategy waitStrategy;
+
+    /**
+     * Next position to be claimed by a producer.
+     */
+    private final Sequence tail;
+
+    /**
+     * Next position to be claimed by a consumer.
+     */
+    private final Sequence head;
+
+    /**
+     * Initializes a new instance of the {@link RingBuffer} class that waits by {@link IWaitStrategy#YIELDING}.
+     *
+     * @param capacity Minimum number of elements the buffer can hold, which is rounded up to a power of 2.
+     * @throws ArgumentOutOfRangeException {@code capacity} is less than 1 or greater than {@link #MAX_CAPACITY}.
+     */
+    public RingBuffer(int capacity)
+    {
+        this(capacity, IWaitStrategy.YIELDING);
+    }
+
+    /**
+     * Initializes a new instance of the {@link RingBuffer} class.
+     *
+     * @param capacity     Minimum number of elements the buffer can hold, which is rounded up to a power of 2.
+     * @param waitStrategy Strategy of {@link #put(Object)} and {@link #take()} to wait for a slot or an element.
+     * @throws ArgumentOutOfRangeException {@code capacity} is less than 1 or greater than {@link #MAX_CAPACITY}.
+     * @throws NullPointerException        {@code waitStrategy} is null.
+     */
+    public RingBuffer(int capacity, IWaitStrategy waitStrategy)
+    {
+        if ((capacity < 1) || (capacity > MAX_CAPACITY))
+            throw new ArgumentOutOfRangeException("Argument \"capacity\" must be in range [1, " + MAX_CAPACITY + "].");
+        if (waitStrategy == null)
+            throw new NullPointerException("Argument \"waitStrategy\" cannot be null.");
+
+        int length = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[length];
+        sequences = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++)
+            sequences.set(i, i);
+
+        mask = length - 1;
+        this.waitStrategy = waitStrategy;
+        tail = new Sequence();
+        head = new Sequence();
+    }
+
+    /**
+     * Gets the number of elements this buffer can hold.
+     *
+     * @return The number of elements this buffer can hold.
+     */
+    public int capacity()
+    {
+        return buffer.length;
+    }
+
+    /**
+     * Gets the number of elements in this buffer. The result is only an estimate while other threads are using it.
+     *
+     * @return The number of elements in this buffer.
+     */
+    public int count()
+    {
+        // Read head first, so that the difference is never negative.
+        long h = head.value;
+        long t = tail.value;
+        return (int) Math.max(0, Math.min(t - h, buffer.length));
+    }
+
+    /**
+     * Determines whether this buffer is empty. The result is only an estimate while other threads are using it.
+     *
+     * @return {@code true} if this buffer is empty; otherwise, {@code false}.
+     */
+    public boolean isEmpty()
+    {
+        return count() == 0;
+    }
+
+    /**
+     * Tries to add an element to the end of this buffer without waiting.
+     *
+     * @param value The element to add.
+     * @return {@code true} if the element is added; {@code false} if this buffer is full.
+     * @throws NullPointerException The specified element is null.
+     */
+    public boolean offer(T value)
+    {
+        if (value == null)
+            throw new NullPointerException("Argument \"value\" cannot be null.");
+
+        long position = tail.value;
+        while (true)
+        {
+            int index = (int) position & mask;
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0)
+            {
+                if (VALUE.compareAndSet(tail, position, position + 1))
+                {
+                    buffer[index] = value;
+
+                    // Publish the element to the consumer of this position.
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+            }
+            else if (difference < 0)
+            {
+                // The slot still holds the element from the previous lap.
+                return false;
+            }
+
+            position = tail.value;
+        }
+    }
+
+    /**
+     * Adds an element to the end of this buffer, waiting for a free slot if this buffer is full.
+     *
+     * @param value The element to add.
+     * @throws NullPointerException The specified element is null.
+     * @throws InterruptedException The current thread is interrupted while waiting.
+     */
+    public void put(T value) throws InterruptedException
+    {
+        int counter = 0;
+        while (!offer(value))
+        {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            waitStrategy.idle(counter++);
+        }
+    }
+
+    /**
+     * Tries to remove and return the element at the beginning of this buffer without waiting.
+     *
+     * @return The element at the beginning of this buffer, or null if this buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T poll()
+    {
+        long position = head.value;
+        while (true)
+        {
+            int index = (int) position & mask;
+            long difference = sequences.getAcquire(index) - (position + 1);
+            if (difference == 0)
+            {
+                if (VALUE.compareAndSet(head, position, position + 1))
+                {
+                    T value = (T) buffer[index];
+                    buffer[index] = null;
+
+                    // Hand the slot over to the producer of the next lap.
+                    sequences.setRelease(index, position + buffer.length);
+                    return value;
+                }
+            }
+            else if (difference < 0)
+            {
+                // The producer of this position has not published yet.
+                return null;
+            }
+
+            position = head.value;
+        }
+    }
+
+    /**
+     * Removes and returns the element at the beginning of this buffer, waiting for an element if this buffer is empty.
+     *
+     * @return The element at the beginning of this buffer.
+     * @throws InterruptedException The current thread is interrupted while waiting.
+     */
+    public T take() throws InterruptedException
+    {
+        int counter = 0;
+        while (true)
+        {
+            T value = poll();
+            if (value != null)
+                return value;
+
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            waitStrategy.idle(counter++);
+        }
+    }
+
+    /**
+     * Removes up to {@code max} elements from the beginning of this buffer without waiting, and adds them to the
+     * specified collection in first-in-first-out order. All the removed elements are claimed by one CAS.
+     *
+     * @param batch The collection to add the elements to.
+     * @param max   Maximum number of elements to remove.
+     * @return Number of elements removed.
+     * @throws NullPointerException        {@code batch} is null.
+     * @throws ArgumentOutOfRangeException {@code max} is negative.
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> batch, int max)
+    {
+        if (batch == null)
+            throw new NullPointerException("Argument \"batch\" cannot be null.");
+        if (max < 0)
+            throw new ArgumentOutOfRangeException("Argument \"max\" must be greater than or equal to 0.");
+
+        return drain(max, (value, offset) -> batch.add((T) value));
+    }
+
+    /**
+     * Removes up to {@code max} elements from the beginning of this buffer without waiting, and stores them into the
+     * specified array from {@code startIndex} in first-in-first-out order. All the removed elements are claimed by one
+     * CAS.
+     *
+     * @param batch      The array to store the elements.
+     * @param startIndex The index in the array to store the first element.
+     * @param max        Maximum number of elements to remove.
+     * @return Number of elements removed.
+     * @throws NullPointerException        {@code batch} is null.
+     * @throws ArgumentOutOfRangeException The range [startIndex, startIndex + max) is outside the array.
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(T[] batch, int startIndex, int max)
+    {
+        if (batch == null)
+            throw new NullPointerException("Argument \"batch\" cannot be null.");
+        if ((startIndex < 0) || (max < 0) || (startIndex > batch.length - max))
+            throw new ArgumentOutOfRangeException("The range [startIndex, startIndex + max) is outside the array.");
+
+        return drain(max, (value, offset) -> batch[startIndex + offset] = (T) value);
+    }
+
+    /**
+     * Claims the longest run of filled slots from the head, up to {@code max}, and passes their elements to the sink.
+     *
+     * @param max  Maximum number of elements to remove.
+     * @param sink Receives every removed element and its offset in the run.
+     * @return Number of elements removed.
+     */
+    private int drain(int max, ObjIntConsumer<Object> sink)
+    {
+        while (true)
+        {
+            long position = head.value;
+            int ready = 0;
+            while ((ready < max) && (sequences.getAcquire((int) (position + ready) & mask) == position + ready + 1))
+                ready++;
+
+            if (ready == 0)
+                return 0;
+
+            // Filled slots stay filled until they are claimed, so the whole run is still ready if the CAS succeeds.
+            if (!VALUE.compareAndSet(head, position, position + ready))
+                continue;
+
+            int released = 0;
+            try
+            {
+                while (released < ready)
+                {
+                    int index = (int) (position + released) & mask;
+                    Object value = buffer[index];
+                    buffer[index] = null;
+                    sequences.setRelease(index, position + released + buffer.length);
+                    sink.accept(value, released++);
+                }
+            }
+            finally
+            {
+                // If the sink throws, still hand the rest of the claimed slots over to producers, or they would wait
+                // forever. Those elements are lost.
+                for (; released < ready; released++)
+                {
+                    int index = (int) (position + released) & mask;
+                    buffer[index] = null;
+                    sequences.setRelease(index, position + released + buffer.length);
+                }
+            }
+
+            return ready;
+        }
+    }
+}
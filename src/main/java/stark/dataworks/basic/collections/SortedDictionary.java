@@ -4,6 +4,7 @@ import stark.dataworks.basic.*;
 import stark.dataworks.basic.tests.DictionaryTest;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
@@ -324,6 +325,111 @@ public class SortedDictionary<TKey extends Comparable<TKey>, TValue> implements
         version++;
     }
 
+    /**
+     * Gets the number of keys strictly less than the specified key. This is an O(log n) operation.
+     *
+     * @param key The key to rank, which does not need to be in this {@link SortedDictionary}.
+     * @return The number of keys less than the specified key.
+     * @throws NullPointerException The specified key is null.
+     */
+    public int rank(TKey key)
+    {
+        validateKey(key);
+        return countBelow(key, false);
+    }
+
+    /**
+     * Gets the key with the specified rank, i.e. the key that has exactly {@code index} smaller keys in this
+     * {@link SortedDictionary}. This is an O(log n) operation.
+     *
+     * @param index The zero-based rank of the key.
+     * @return The key with the specified rank.
+     * @throws ArgumentOutOfRangeException {@code index} is less than 0, or greater than or equal to the count.
+     */
+    public TKey select(int index)
+    {
+        if ((index < 0) || (index >= count))
+            throw new ArgumentOutOfRangeException("Argument \"index\" must be in range [0, count).");
+
+        Node current = root;
+        while (true)
+        {
+            int leftSize = size(current.left);
+            if (index < leftSize)
+                current = current.left;
+            else if (index > leftSize)
+            {
+                index -= leftSize + 1;
+                current = current.right;
+            }
+            else
+                return current.key;
+        }
+    }
+
+    /**
+     * Gets the largest key less than or equal to the specified key.
+     *
+     * @param key The key to search for.
+     * @return The largest key less than or equal to the specified key, or null if there is no such key.
+     * @throws NullPointerException The specified key is null.
+     */
+    public TKey floor(TKey key)
+    {
+        validateKey(key);
+        Node node = floorNode(key);
+        return (node == null) ? null : node.key;
+    }
+
+    /**
+     * Gets the smallest key greater than or equal to the specified key.
+     *
+     * @param key The key to search for.
+     * @return The smallest key greater than or equal to the specified key, or null if there is no such key.
+     * @throws NullPointerException The specified key is null.
+     */
+    public TKey ceiling(TKey key)
+    {
+        validateKey(key);
+        Node node = ceilingNode(key);
+        return (node == null) ? null : node.key;
+    }
+
+    /**
+     * Gets the number of keys in the range [lowerKey, upperKey], without visiting the keys in the range. This is an
+     * O(log n) operation.
+     *
+     * @param lowerKey The lower bound of the range (inclusive).
+     * @param upperKey The upper bound of the range (inclusive).
+     * @return The number of keys in the range, or 0 if {@code lowerKey} is greater than {@code upperKey}.
+     * @throws NullPointerException {@code lowerKey} or {@code upperKey} is null.
+     */
+    public int rangeCount(TKey lowerKey, TKey upperKey)
+    {
+        validateKey(lowerKey);
+        validateKey(upperKey);
+        if (lowerKey.compareTo(upperKey) > 0)
+            return 0;
+
+        return countBelow(upperKey, true) - countBelow(lowerKey, false);
+    }
+
+    /**
+     * Gets an {@link Iterable} of the keys in the range [lowerKey, upperKey] in ascending order. The keys are visited
+     * lazily, so that iterating over the first k keys of the range takes O(log n + k) time.
+     *
+     * @param lowerKey The lower bound of the range (inclusive).
+     * @param upperKey The upper bound of the range (inclusive).
+     * @return An {@link Iterable} of the keys in the range.
+     * @throws NullPointerException {@code lowerKey} or {@code upperKey} is null.
+     */
+    public Iterable<TKey> keys(TKey lowerKey, TKey upperKey)
+    {
+        validateKey(lowerKey);
+        validateKey(upperKey);
+        return () -> new RangeKeyIterator(lowerKey, upperKey);
+    }
+
     public KeyValuePair<TKey, TValue> min()
     {
         if (root == null)
@@ -503,10 +609,8 @@ public class SortedDictionary<TKey extends Comparable<TKey>, TValue> implements
         if (!containsKeyValue(item.getKey(), item.getValue()))
             return false;
 
-        removeByKey(item.getKey());
-        count--;
-        version++;
-        return true;
+        // removeByKey() updates count and version.
+        return removeByKey(item.getKey());
     }
 
     /**
@@ -578,6 +682,79 @@ public class SortedDictionary<TKey extends Comparable<TKey>, TValue> implements
         return null;
     }
 
+    /**
+     * Finds the node with the largest key less than or equal to the specified key.
+     */
+    private Node floorNode(TKey key)
+    {
+        Node current = root;
+        Node floor = null;
+        while (current != null)
+        {
+            int compare = key.compareTo(current.key);
+            if (compare == 0)
+                return current;
+
+            if (compare < 0)
+                current = current.left;
+            else
+            {
+                floor = current;
+                current = current.right;
+            }
+        }
+
+        return floor;
+    }
+
+    /**
+     * Finds the node with the smallest key greater than or equal to the specified key.
+     */
+    private Node ceilingNode(TKey key)
+    {
+        Node current = root;
+        Node ceiling = null;
+        while (current != null)
+        {
+            int compare = key.compareTo(current.key);
+            if (compare == 0)
+                return current;
+
+            if (compare > 0)
+                current = current.right;
+            else
+            {
+                ceiling = current;
+                current = current.left;
+            }
+        }
+
+        return ceiling;
+    }
+
+    /**
+     * Counts the keys less than (or equal to, if {@code inclusive} is true) the specified key, by adding up the sizes
+     * of the left subtrees on the search path.
+     */
+    private int countBelow(TKey key, boolean inclusive)
+    {
+        Node current = root;
+        int below = 0;
+        while (current != null)
+        {
+            int compare = key.compareTo(current.key);
+            if ((compare < 0) || ((compare == 0) && !inclusive))
+                current = current.left;
+            else
+            {
+                below += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+
+        return below;
+    }
+
     /**
      * Inserts the key value pair in the subtree rooted at {@code current}.
      */
@@ -630,7 +807,7 @@ public class SortedDictionary<TKey extends Comparable<TKey>, TValue> implements
 
             if (key.compareTo(h.key) == 0)
             {
-                Node minRootedAtNode = minAt(h);
+                Node minRootedAtNode = minAt(h.right);
                 h.value = minRootedAtNode.value;
                 h.key = minRootedAtNode.key;
                 h.right = removeMin(h.right);
@@ -882,6 +1059,69 @@ public class SortedDictionary<TKey extends Comparable<TKey>, TValue> implements
         }
     }
 
+    /**
+     * Iterates over the keys in a range lazily, with a stack of the nodes whose left subtree is being visited.
+     * Subtrees below the lower bound are never pushed, and the iteration stops at the first key above the upper bound.
+     */
+    private class RangeKeyIterator implements Iterator<TKey>
+    {
+        private final TKey upperKey;
+        private final int version;
+        private final ArrayDeque<Node> stack = new ArrayDeque<>();
+
+        private RangeKeyIterator(TKey lowerKey, TKey upperKey)
+        {
+            this.upperKey = upperKey;
+            this.version = SortedDictionary.this.version;
+
+            Node node = root;
+            while (node != null)
+            {
+                if (node.key.compareTo(lowerKey) < 0)
+                    node = node.right;
+                else
+                {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+        }
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext()
+        {
+            return !stack.isEmpty() && (stack.peek().key.compareTo(upperKey) <= 0);
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public TKey next()
+        {
+            if (version != SortedDictionary.this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            Node current = stack.pop();
+            for (Node node = current.right; node != null; node = node.left)
+                stack.push(node);
+
+            return current.key;
+        }
+    }
+
     public static void main(String[] args) throws IOException
     {
         SortedDictionary<String, Integer> dictionary = new SortedDictionary<>();
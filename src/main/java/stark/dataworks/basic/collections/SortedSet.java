@@ -1,35 +1,164 @@
 package stark.dataworks.basic.collections;
 
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+import stark.dataworks.basic.InvalidOperationException;
+
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+/**
+ * A red-black tree based set, whose elements are kept in the order defined by its comparator.
+ * <p>
+ * The tree is a left-leaning red-black tree, the same as {@link SortedDictionary}, and every node stores the size of
+ * its subtree, so that the number of elements in a range can be counted in O(log n).
+ * <p>
+ * Set operations with another {@link SortedSet} of the same comparator merge both sorted sequences in linear time and
+ * rebuild the tree bottom-up, instead of inserting or removing the elements one by one, unless the other set is so small
+ * that updating the tree per element is cheaper. Any other collection is sorted and merged only if it is at least as
+ * large as this set; otherwise its elements are added or removed one by one, in O(m log n).
+ * <p>
+ * {@link #getViewBetween(Object, Object)} returns a live view that shares the tree of this set: changes to the set are
+ * visible through the view and vice versa.
+ *
+ * @param <T> The type of elements in the set.
+ */
 public class SortedSet<T> implements ISet<T>, Serializable
 {
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    private class Node implements Serializable
+    {
+        public T item;
+        public Node left;
+        public Node right;
+        public boolean color;
+        public int subtreeNodeCount;
+
+        public Node(T item, boolean color, int subtreeNodeCount)
+        {
+            this.item = item;
+            this.color = color;
+            this.subtreeNodeCount = subtreeNodeCount;
+        }
+    }
+
     private Comparator<T> comparator;
 
+    /**
+     * Root of the red-black tree. Only used by a set that is not a view.
+     */
+    private Node root;
+    private int count;
+    private int version;
+
+    /**
+     * The set that owns the tree, which is this set itself if this set is not a view.
+     */
+    private final SortedSet<T> underlying;
+
+    /**
+     * Bounds of a view, both inclusive; unused if this set is not a view.
+     */
+    private final T lowerValue;
+    private final T upperValue;
+
+    /**
+     * Initializes a new instance of the {@link SortedSet} class that orders its elements by their natural ordering.
+     */
+    public SortedSet()
+    {
+        this((Comparator<T>) null);
+    }
+
+    /**
+     * Initializes a new instance of the {@link SortedSet} class that uses the specified comparator.
+     *
+     * @param comparator The comparator to order the elements, or null to use their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    public SortedSet(Comparator<T> comparator)
+    {
+        this.comparator = (comparator != null) ? comparator : (Comparator<T>) Comparator.naturalOrder();
+        underlying = this;
+        lowerValue = null;
+        upperValue = null;
+    }
+
+    /**
+     * Initializes a new instance of the {@link SortedSet} class that contains the distinct elements of the specified
+     * collection, ordered by their natural ordering.
+     *
+     * @param collection The elements to add.
+     * @throws NullPointerException The collection or one of its elements is null.
+     */
+    public SortedSet(Iterable<T> collection)
+    {
+        this(collection, null);
+    }
+
+    /**
+     * Initializes a new instance of the {@link SortedSet} class that contains the distinct elements of the specified
+     * collection, ordered by the specified comparator. The tree is built in O(n) after sorting the elements.
+     *
+     * @param collection The elements to add.
+     * @param comparator The comparator to order the elements, or null to use their natural ordering.
+     * @throws NullPointerException The collection or one of its elements is null.
+     */
+    public SortedSet(Iterable<T> collection, Comparator<T> comparator)
+    {
+        this(comparator);
+
+        Object[] items = sortedDistinct(collection);
+        rebuild(items, items.length);
+    }
+
+    /**
+     * Initializes a view of the specified set.
+     */
+    private SortedSet(SortedSet<T> underlying, T lowerValue, T upperValue)
+    {
+        this.comparator = underlying.comparator;
+        this.underlying = underlying;
+        this.lowerValue = lowerValue;
+        this.upperValue = upperValue;
+    }
+
+    private boolean isView()
+    {
+        return underlying != this;
+    }
+
     /**
      * Gets the maximum value in the {@link SortedSet}, as defined by the comparator.
-     * @return The maximum value in the set.
-     * */
+     *
+     * @return The maximum value in the set, or null if the set is empty.
+     */
     public T max()
     {
-        return null;
+        Node node = isView() ? underlying.floorNode(upperValue) : maxAt(root);
+        return ((node != null) && inRange(node.item)) ? node.item : null;
     }
 
     /**
      * Gets the minimum value in the {@link SortedSet}, as defined by the comparator.
-     * @return The minimum value in the set.
-     * */
+     *
+     * @return The minimum value in the set, or null if the set is empty.
+     */
     public T min()
     {
-        return null;
+        Node node = isView() ? underlying.ceilingNode(lowerValue) : minAt(root);
+        return ((node != null) && inRange(node.item)) ? node.item : null;
     }
 
     /**
      * Gets the {@link Comparator} object that is used to order the values in the {@link SortedSet}.
+     *
      * @return The comparator that is used to order the values in the {@link SortedSet}.
-     * */
+     */
     public Comparator<T> getComparator()
     {
         return comparator;
@@ -40,24 +169,71 @@ public class SortedSet<T> implements ISet<T>, Serializable
      *
      * @param item The element to add to the set.
      * @return {@code true} if the element is added to the set; {@code false} if the element is already in the set.
+     * @throws NullPointerException        {@code item} is null.
+     * @throws ArgumentOutOfRangeException This set is a view, and {@code item} is outside its range.
      */
     @Override
     public boolean add(T item)
     {
-        return false;
+        validateItem(item);
+        if (!inRange(item))
+            throw new ArgumentOutOfRangeException("The item is outside the range of this view.");
+
+        SortedSet<T> tree = underlying;
+        if (tree.findNode(item) != null)
+            return false;
+
+        tree.root = tree.add(tree.root, item);
+        tree.root.color = BLACK;
+        tree.count++;
+        tree.version++;
+        return true;
     }
 
     /**
      * Modifies the current set so that it contains all elements that are present in the current set, in the specified
      * collection, or in both.
      *
-     * @param other The collection of items to remove from the set.
-     * @throws NullPointerException {@code other} is null.
+     * @param other The collection of items to add to the set.
+     * @throws NullPointerException        {@code other} is null.
+     * @throws ArgumentOutOfRangeException This set is a view, and an element of {@code other} is outside its range.
      */
     @Override
     public void unionWith(Iterable<T> other)
     {
+        if (!prefersMerge(other))
+        {
+            for (T item : other)
+                add(item);
+            return;
+        }
+
+        Object[] mine = toArray();
+        Object[] theirs = sortedDistinct(other);
+        Object[] result = new Object[mine.length + theirs.length];
 
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while ((i < mine.length) && (j < theirs.length))
+        {
+            int compare = compareItems(mine[i], theirs[j]);
+            if (compare < 0)
+                result[n++] = mine[i++];
+            else if (compare > 0)
+                result[n++] = theirs[j++];
+            else
+            {
+                result[n++] = mine[i++];
+                j++;
+            }
+        }
+        while (i < mine.length)
+            result[n++] = mine[i++];
+        while (j < theirs.length)
+            result[n++] = theirs[j++];
+
+        replaceContents(mine, result, n);
     }
 
     /**
@@ -69,7 +245,46 @@ public class SortedSet<T> implements ISet<T>, Serializable
     @Override
     public void intersectWith(Iterable<T> other)
     {
+        if (!prefersMerge(other))
+        {
+            // Only the elements of the other collection can remain, so the tree is rebuilt from those found in it.
+            Object[] theirs = sortedDistinct(other);
+            int n = 0;
+            for (Object item : theirs)
+            {
+                if (contains(castItem(item)))
+                    theirs[n++] = item;
+            }
+
+            if (isView())
+                replaceContents(toArray(), theirs, n);
+            else
+                rebuild(theirs, n);
+            return;
+        }
+
+        Object[] mine = toArray();
+        Object[] theirs = sortedDistinct(other);
+        Object[] result = new Object[Math.min(mine.length, theirs.length)];
+
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while ((i < mine.length) && (j < theirs.length))
+        {
+            int compare = compareItems(mine[i], theirs[j]);
+            if (compare < 0)
+                i++;
+            else if (compare > 0)
+                j++;
+            else
+            {
+                result[n++] = mine[i++];
+                j++;
+            }
+        }
 
+        replaceContents(mine, result, n);
     }
 
     /**
@@ -81,7 +296,37 @@ public class SortedSet<T> implements ISet<T>, Serializable
     @Override
     public void exceptWith(Iterable<T> other)
     {
+        if (!prefersMerge(other))
+        {
+            for (T item : other)
+                remove(item);
+            return;
+        }
 
+        Object[] mine = toArray();
+        Object[] theirs = sortedDistinct(other);
+        Object[] result = new Object[mine.length];
+
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while ((i < mine.length) && (j < theirs.length))
+        {
+            int compare = compareItems(mine[i], theirs[j]);
+            if (compare < 0)
+                result[n++] = mine[i++];
+            else if (compare > 0)
+                j++;
+            else
+            {
+                i++;
+                j++;
+            }
+        }
+        while (i < mine.length)
+            result[n++] = mine[i++];
+
+        replaceContents(mine, result, n);
     }
 
     /**
@@ -89,38 +334,77 @@ public class SortedSet<T> implements ISet<T>, Serializable
      * specified collection, but not both.
      *
      * @param other The collection to compare to the current set.
-     * @throws NullPointerException {@code other} is null.
+     * @throws NullPointerException        {@code other} is null.
+     * @throws ArgumentOutOfRangeException This set is a view, and an element to add is outside its range.
      */
     @Override
     public void symmetricExceptWith(Iterable<T> other)
     {
+        if (!prefersMerge(other))
+        {
+            // Duplicates of the other collection must be toggled once, so its distinct elements are used.
+            for (Object item : sortedDistinct(other))
+            {
+                if (!remove(castItem(item)))
+                    add(castItem(item));
+            }
+            return;
+        }
+
+        Object[] mine = toArray();
+        Object[] theirs = sortedDistinct(other);
+        Object[] result = new Object[mine.length + theirs.length];
 
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while ((i < mine.length) && (j < theirs.length))
+        {
+            int compare = compareItems(mine[i], theirs[j]);
+            if (compare < 0)
+                result[n++] = mine[i++];
+            else if (compare > 0)
+                result[n++] = theirs[j++];
+            else
+            {
+                i++;
+                j++;
+            }
+        }
+        while (i < mine.length)
+            result[n++] = mine[i++];
+        while (j < theirs.length)
+            result[n++] = theirs[j++];
+
+        replaceContents(mine, result, n);
     }
 
     /**
      * Determines whether a set is a subset of a specified collection.
      *
      * @param other The collection to compare to the current set.
-     * @return {@code true} if the current set is a proper subset of other; otherwise, {@code false}.
+     * @return {@code true} if the current set is a subset of other; otherwise, {@code false}.
      * @throws NullPointerException {@code other} is null.
      */
     @Override
     public boolean isSubsetOf(Iterable<T> other)
     {
-        return false;
+        Object[] mine = toArray();
+        return countCommon(mine, sortedDistinct(other)) == mine.length;
     }
 
     /**
      * Determines whether a set is a superset of a specified collection.
      *
      * @param other The collection to compare to the current set.
-     * @return {@code true} if the current set is a proper superset of other; otherwise, {@code false}.
+     * @return {@code true} if the current set is a superset of other; otherwise, {@code false}.
      * @throws NullPointerException {@code other} is null.
      */
     @Override
     public boolean isSupersetOf(Iterable<T> other)
     {
-        return false;
+        Object[] theirs = sortedDistinct(other);
+        return countCommon(toArray(), theirs) == theirs.length;
     }
 
     /**
@@ -133,7 +417,9 @@ public class SortedSet<T> implements ISet<T>, Serializable
     @Override
     public boolean isProperSupersetOf(Iterable<T> other)
     {
-        return false;
+        Object[] mine = toArray();
+        Object[] theirs = sortedDistinct(other);
+        return (mine.length > theirs.length) && (countCommon(mine, theirs) == theirs.length);
     }
 
     /**
@@ -146,7 +432,9 @@ public class SortedSet<T> implements ISet<T>, Serializable
     @Override
     public boolean isProperSubsetOf(Iterable<T> other)
     {
-        return false;
+        Object[] mine = toArray();
+        Object[] theirs = sortedDistinct(other);
+        return (mine.length < theirs.length) && (countCommon(mine, theirs) == mine.length);
     }
 
     /**
@@ -154,12 +442,27 @@ public class SortedSet<T> implements ISet<T>, Serializable
      *
      * @param other The collection to compare to the current set.
      * @return {@code true} if the current set and other share at least one common element; otherwise, {@code false}.
-     * @throws NullPointerException {@code other} is null.
+     * @throws NullPointerException {@code other} or one of its elements is null.
      */
     @Override
     public boolean overlaps(Iterable<T> other)
     {
-        return false;
+        if (other == null)
+            throw new NullPointerException("Argument \"other\" cannot be null.");
+
+        // Lookups are cheaper than sorting when the other collection is not sorted the same way.
+        if (!isSortedLikeThis(other))
+        {
+            for (T item : other)
+            {
+                if (contains(item))
+                    return true;
+            }
+
+            return false;
+        }
+
+        return countCommon(toArray(), sortedDistinct(other)) > 0;
     }
 
     /**
@@ -172,18 +475,23 @@ public class SortedSet<T> implements ISet<T>, Serializable
     @Override
     public boolean setEquals(Iterable<T> other)
     {
-        return false;
+        Object[] mine = toArray();
+        Object[] theirs = sortedDistinct(other);
+        return (mine.length == theirs.length) && (countCommon(mine, theirs) == mine.length);
     }
 
     /**
-     * Gets the number of elements contained in this {@link ICollection}.
+     * Gets the number of elements contained in this {@link ICollection}. This is an O(log n) operation for a view.
      *
      * @return The number of elements contained in this {@link ICollection}.
      */
     @Override
     public int count()
     {
-        return 0;
+        if (!isView())
+            return count;
+
+        return underlying.countBelow(upperValue, true) - underlying.countBelow(lowerValue, false);
     }
 
     /**
@@ -198,12 +506,21 @@ public class SortedSet<T> implements ISet<T>, Serializable
     }
 
     /**
-     * Removes all items from this {@link ICollection}.
+     * Removes all items from this {@link ICollection}. For a view, only the elements in its range are removed.
      */
     @Override
     public void clear()
     {
+        if (isView())
+        {
+            for (Object item : toArray())
+                underlying.removeFromTree(castItem(item));
+            return;
+        }
 
+        root = null;
+        count = 0;
+        version++;
     }
 
     /**
@@ -212,11 +529,13 @@ public class SortedSet<T> implements ISet<T>, Serializable
      * @param value The value to locate in this {@link ICollection}.
      * @return <code>true</code> if the specified value is found in this {@link ICollection}; otherwise,
      * <code>false</code>.
+     * @throws NullPointerException {@code value} is null.
      */
     @Override
     public boolean contains(T value)
     {
-        return false;
+        validateItem(value);
+        return inRange(value) && (underlying.findNode(value) != null);
     }
 
     /**
@@ -232,7 +551,7 @@ public class SortedSet<T> implements ISet<T>, Serializable
     @Override
     public void copyTo(T[] array)
     {
-
+        copyTo(array, 0);
     }
 
     /**
@@ -250,7 +569,30 @@ public class SortedSet<T> implements ISet<T>, Serializable
     @Override
     public void copyTo(T[] array, int startIndex)
     {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+        if (array.length - startIndex < count())
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
 
+        for (T item : this)
+            array[startIndex++] = item;
+    }
+
+    /**
+     * Copies the elements of this set to a new array, in ascending order.
+     *
+     * @return An array of the elements of this set.
+     */
+    public Object[] toArray()
+    {
+        Object[] items = new Object[count()];
+        int i = 0;
+        for (T item : this)
+            items[i++] = item;
+
+        return items;
     }
 
     /**
@@ -260,44 +602,643 @@ public class SortedSet<T> implements ISet<T>, Serializable
      * @return <code>true</code> if item was successfully removed from the {@link ICollection}; otherwise,
      * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
      * {@link ICollection}.
+     * @throws NullPointerException {@code value} is null.
      */
     @Override
     public boolean remove(T value)
     {
-        return false;
+        validateItem(value);
+        if (!inRange(value))
+            return false;
+
+        return underlying.removeFromTree(value);
     }
 
     /**
-     * Returns an iterator over elements of type {@code T}.
+     * Returns an iterator over the elements of this set in ascending order.
      *
      * @return an Iterator.
      */
-
     @Override
     public Iterator<T> iterator()
     {
-        return null;
+        return new SetIterator(false);
     }
 
     /**
      * Returns an {@link Iterable} that iterates over the {@link SortedSet} in reverse order.
+     *
      * @return An {@link Iterable} that iterates over the {@link SortedSet} in reverse order.
-     * */
+     */
     public Iterable<T> reverse()
     {
-        return null;
+        return () -> new SetIterator(true);
     }
 
     /**
-     * Returns a view of a subset in a {@link SortedSet}.
+     * Returns a view of a subset in a {@link SortedSet}. The view is backed by this set, so that it always reflects
+     * the current elements of this set in the range. Its count is computed in O(log n), and iterating over it only
+     * visits the elements in the range.
+     *
      * @param lowerValue The lowest desired value in the view (inclusive).
      * @param upperValue The highest desired value in the view (inclusive).
      * @return A subset view that contains only the values in the specified range.
-     * @exception IllegalArgumentException {@code lowerValue} is more than {@code upperValue} according to the comparator.
-     * @exception dataworks.ArgumentOutOfRangeException A tried operation on the view was outside the range specified by lowerValue and upperValue.
-     * */
+     * @throws NullPointerException        {@code lowerValue} or {@code upperValue} is null.
+     * @throws IllegalArgumentException    {@code lowerValue} is more than {@code upperValue} according to the comparator.
+     * @throws ArgumentOutOfRangeException This set is a view, and the range is outside its range.
+     */
     public SortedSet<T> getViewBetween(T lowerValue, T upperValue)
     {
+        validateItem(lowerValue);
+        validateItem(upperValue);
+        if (comparator.compare(lowerValue, upperValue) > 0)
+            throw new IllegalArgumentException("Argument \"lowerValue\" cannot be greater than \"upperValue\".");
+        if (!inRange(lowerValue) || !inRange(upperValue))
+            throw new ArgumentOutOfRangeException("The range is outside the range of this view.");
+
+        return new SortedSet<>(underlying, lowerValue, upperValue);
+    }
+
+    /* Helper methods of set operations. */
+
+    private boolean inRange(T item)
+    {
+        if (!isView())
+            return true;
+
+        return (comparator.compare(lowerValue, item) <= 0) && (comparator.compare(item, upperValue) <= 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T castItem(Object item)
+    {
+        return (T) item;
+    }
+
+    private int compareItems(Object x, Object y)
+    {
+        return comparator.compare(castItem(x), castItem(y));
+    }
+
+    private boolean isSortedLikeThis(Iterable<T> other)
+    {
+        return (other instanceof SortedSet) && comparator.equals(((SortedSet<T>) other).comparator);
+    }
+
+    /**
+     * Determines whether a set operation with the specified collection should merge both sorted sequences and rebuild
+     * the tree in O(n + m), rather than add or remove the m elements of the collection one by one in O(m log n). A
+     * collection that is not sorted like this set costs O(m log m) to sort first, so it is only merged if it is at
+     * least as large as this set. A collection that shares the tree of this set is always merged, since it cannot be
+     * iterated while the tree changes.
+     */
+    private boolean prefersMerge(Iterable<T> other)
+    {
+        if (other == null)
+            throw new NullPointerException("Argument \"other\" cannot be null.");
+
+        if ((other instanceof SortedSet) && (((SortedSet<T>) other).underlying == underlying))
+            return true;
+
+        int m;
+        if (other instanceof ICollection)
+            m = ((ICollection<T>) other).count();
+        else if (other instanceof java.util.Collection)
+            m = ((java.util.Collection<T>) other).size();
+        else
+            return false;
+
+        int n = count();
+        if (!isSortedLikeThis(other))
+            return m >= n;
+
+        return (long) m * (32 - Integer.numberOfLeadingZeros(n)) >= n;
+    }
+
+    /**
+     * Gets the distinct elements of the specified collection in the order of this set. If the collection is a
+     * {@link SortedSet} with the same comparator, its elements are already sorted and are copied in O(n).
+     */
+    private Object[] sortedDistinct(Iterable<T> collection)
+    {
+        if (collection == null)
+            throw new NullPointerException("Argument \"other\" cannot be null.");
+
+        if (isSortedLikeThis(collection))
+            return ((SortedSet<T>) collection).toArray();
+
+        java.util.ArrayList<T> items = new java.util.ArrayList<>();
+        for (T item : collection)
+        {
+            validateItem(item);
+            items.add(item);
+        }
+
+        items.sort(comparator);
+        int n = 0;
+        for (int i = 0; i < items.size(); i++)
+        {
+            if ((n == 0) || (comparator.compare(items.get(n - 1), items.get(i)) != 0))
+                items.set(n++, items.get(i));
+        }
+
+        return items.subList(0, n).toArray();
+    }
+
+    /**
+     * Counts the elements that are in both sorted arrays.
+     */
+    private int countCommon(Object[] mine, Object[] theirs)
+    {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while ((i < mine.length) && (j < theirs.length))
+        {
+            int compare = compareItems(mine[i], theirs[j]);
+            if (compare < 0)
+                i++;
+            else if (compare > 0)
+                j++;
+            else
+            {
+                common++;
+                i++;
+                j++;
+            }
+        }
+
+        return common;
+    }
+
+    /**
+     * Replaces the elements of this set, which are {@code mine}, by the first {@code n} elements of {@code result}.
+     * A set that is not a view rebuilds its tree in O(n); a view adds and removes the elements that changed, since it
+     * cannot rebuild the elements of the underlying set outside its range.
+     */
+    private void replaceContents(Object[] mine, Object[] result, int n)
+    {
+        if (!isView())
+        {
+            rebuild(result, n);
+            return;
+        }
+
+        int i = 0;
+        int j = 0;
+        while ((i < mine.length) || (j < n))
+        {
+            int compare = (i == mine.length) ? 1 : (j == n) ? -1 : compareItems(mine[i], result[j]);
+            if (compare < 0)
+                underlying.removeFromTree(castItem(mine[i++]));
+            else if (compare > 0)
+                add(castItem(result[j++]));
+            else
+            {
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Replaces the tree by a balanced tree of the first {@code n} elements of the specified sorted array.
+     */
+    private void rebuild(Object[] sortedItems, int n)
+    {
+        root = build(sortedItems, 0, n, blackHeightFor(n));
+        if (root != null)
+            root.color = BLACK;
+        count = n;
+        version++;
+    }
+
+    /**
+     * Gets the black height of a tree built from {@code n} elements, which is floor(log2(n + 1)).
+     */
+    private static int blackHeightFor(int n)
+    {
+        return 31 - Integer.numberOfLeadingZeros(n + 1);
+    }
+
+    /**
+     * Gets the maximum number of elements in a 2-3 tree of the specified height, which is 3^height - 1.
+     */
+    private static long maxSizeOf(int height)
+    {
+        long size = 1;
+        for (int i = 0; i < height; i++)
+            size *= 3;
+
+        return size - 1;
+    }
+
+    /**
+     * Builds a left-leaning red-black tree from {@code sortedItems[start, end)}, as a 2-3 tree of exactly
+     * {@code height} levels in which every 3-node is a black node with a red left child. Any number of elements in
+     * [2^height - 1, 3^height - 1] fits, so the elements are split as evenly as possible between 2 children, or between
+     * 3 children if 2 children of height - 1 cannot hold them.
+     */
+    private Node build(Object[] sortedItems, int start, int end, int height)
+    {
+        int n = end - start;
+        if (height == 0)
+        {
+            assert n == 0;
+            return null;
+        }
+
+        if (n - 1 <= 2 * maxSizeOf(height - 1))
+        {
+            int middle = start + (n - 1) / 2;
+            Node node = new Node(castItem(sortedItems[middle]), BLACK, n);
+            node.left = build(sortedItems, start, middle, height - 1);
+            node.right = build(sortedItems, middle + 1, end, height - 1);
+            return node;
+        }
+
+        // Spread the remainder, so that no child gets more than ceil((n - 2) / 3) elements.
+        int childSize = (n - 2) / 3;
+        int remainder = (n - 2) % 3;
+        int first = start + childSize + ((remainder > 0) ? 1 : 0);
+        int second = first + 1 + childSize + ((remainder > 1) ? 1 : 0);
+        Node red = new Node(castItem(sortedItems[first]), RED, second - start);
+        red.left = build(sortedItems, start, first, height - 1);
+        red.right = build(sortedItems, first + 1, second, height - 1);
+
+        Node node = new Node(castItem(sortedItems[second]), BLACK, n);
+        node.left = red;
+        node.right = build(sortedItems, second + 1, end, height - 1);
+        return node;
+    }
+
+    /* Tree methods, only called on the set that owns the tree. */
+
+    private boolean isRed(Node node)
+    {
+        if (node == null)
+            return false;
+        return node.color == RED;
+    }
+
+    private int size(Node node)
+    {
+        if (node == null)
+            return 0;
+        return node.subtreeNodeCount;
+    }
+
+    private Node findNode(T item)
+    {
+        Node current = root;
+        while (current != null)
+        {
+            int compare = comparator.compare(item, current.item);
+            if (compare == 0)
+                return current;
+            else
+                current = (compare < 0) ? current.left : current.right;
+        }
+
         return null;
     }
+
+    /**
+     * Finds the node with the largest item less than or equal to the specified item.
+     */
+    private Node floorNode(T item)
+    {
+        Node current = root;
+        Node floor = null;
+        while (current != null)
+        {
+            int compare = comparator.compare(item, current.item);
+            if (compare == 0)
+                return current;
+
+            if (compare < 0)
+                current = current.left;
+            else
+            {
+                floor = current;
+                current = current.right;
+            }
+        }
+
+        return floor;
+    }
+
+    /**
+     * Finds the node with the smallest item greater than or equal to the specified item.
+     */
+    private Node ceilingNode(T item)
+    {
+        Node current = root;
+        Node ceiling = null;
+        while (current != null)
+        {
+            int compare = comparator.compare(item, current.item);
+            if (compare == 0)
+                return current;
+
+            if (compare > 0)
+                current = current.right;
+            else
+            {
+                ceiling = current;
+                current = current.left;
+            }
+        }
+
+        return ceiling;
+    }
+
+    /**
+     * Counts the items less than (or equal to, if {@code inclusive} is true) the specified item.
+     */
+    private int countBelow(T item, boolean inclusive)
+    {
+        Node current = root;
+        int below = 0;
+        while (current != null)
+        {
+            int compare = comparator.compare(item, current.item);
+            if ((compare < 0) || ((compare == 0) && !inclusive))
+                current = current.left;
+            else
+            {
+                below += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+
+        return below;
+    }
+
+    private boolean removeFromTree(T item)
+    {
+        if (findNode(item) == null)
+            return false;
+
+        // If both children of root are black, set root to red.
+        if (!isRed(root.left) && !isRed(root.right))
+            root.color = RED;
+
+        root = remove(root, item);
+        if (root != null)
+            root.color = BLACK;
+
+        count--;
+        version++;
+        return true;
+    }
+
+    /**
+     * Inserts the item in the subtree rooted at {@code h}, which must not contain it.
+     */
+    private Node add(Node h, T item)
+    {
+        if (h == null)
+            return new Node(item, RED, 1);
+
+        int compare = comparator.compare(item, h.item);
+        if (compare < 0)
+            h.left = add(h.left, item);
+        else
+            h.right = add(h.right, item);
+
+        // Fix-up any right-leaning links.
+        if (isRed(h.right) && !isRed(h.left))
+            h = rotateLeft(h);
+        if (isRed(h.left) && isRed(h.left.left))
+            h = rotateRight(h);
+        if (isRed(h.left) && isRed(h.right))
+            flipColors(h);
+        h.subtreeNodeCount = size(h.left) + size(h.right) + 1;
+
+        return h;
+    }
+
+    /**
+     * Removes the item from the subtree rooted at {@code h}, which must contain it.
+     */
+    private Node remove(Node h, T item)
+    {
+        if (comparator.compare(item, h.item) < 0)
+        {
+            if (!isRed(h.left) && !isRed(h.left.left))
+                h = moveRedLeft(h);
+            h.left = remove(h.left, item);
+        }
+        else
+        {
+            if (isRed(h.left))
+                h = rotateRight(h);
+
+            if ((comparator.compare(item, h.item) == 0) && (h.right == null))
+                return null;
+
+            if (!isRed(h.right) && !isRed(h.right.left))
+                h = moveRedRight(h);
+
+            if (comparator.compare(item, h.item) == 0)
+            {
+                h.item = minAt(h.right).item;
+                h.right = removeMin(h.right);
+            }
+            else
+                h.right = remove(h.right, item);
+        }
+
+        return balance(h);
+    }
+
+    private Node removeMin(Node h)
+    {
+        if (h.left == null)
+            return null;
+
+        if (!isRed(h.left) && !isRed(h.left.left))
+            h = moveRedLeft(h);
+
+        h.left = removeMin(h.left);
+        return balance(h);
+    }
+
+    private Node rotateLeft(Node h)
+    {
+        Node x = h.right;
+        h.right = x.left;
+        x.left = h;
+        x.color = x.left.color;
+        x.left.color = RED;
+        x.subtreeNodeCount = h.subtreeNodeCount;
+        h.subtreeNodeCount = size(h.left) + size(h.right) + 1;
+        return x;
+    }
+
+    private Node rotateRight(Node h)
+    {
+        Node x = h.left;
+        h.left = x.right;
+        x.right = h;
+        x.color = x.right.color;
+        x.right.color = RED;
+        x.subtreeNodeCount = h.subtreeNodeCount;
+        h.subtreeNodeCount = size(h.left) + size(h.right) + 1;
+        return x;
+    }
+
+    private void flipColors(Node parent)
+    {
+        parent.color = !parent.color;
+        parent.left.color = !parent.left.color;
+        parent.right.color = !parent.right.color;
+    }
+
+    private Node moveRedLeft(Node h)
+    {
+        flipColors(h);
+        if (isRed(h.right.left))
+        {
+            h.right = rotateRight(h.right);
+            h = rotateLeft(h);
+        }
+
+        return h;
+    }
+
+    private Node moveRedRight(Node h)
+    {
+        flipColors(h);
+        if (isRed(h.left.left))
+            h = rotateRight(h);
+
+        return h;
+    }
+
+    private Node balance(Node node)
+    {
+        if (isRed(node.right))
+            node = rotateLeft(node);
+        if (isRed(node.left) && isRed(node.left.left))
+            node = rotateRight(node);
+        if (isRed(node.left) && isRed(node.right))
+            flipColors(node);
+
+        node.subtreeNodeCount = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private Node minAt(Node root)
+    {
+        if (root == null)
+            return null;
+
+        Node min = root;
+        while (min.left != null)
+            min = min.left;
+
+        return min;
+    }
+
+    private Node maxAt(Node root)
+    {
+        if (root == null)
+            return null;
+
+        Node max = root;
+        while (max.right != null)
+            max = max.right;
+
+        return max;
+    }
+
+    private void validateItem(T item)
+    {
+        if (item == null)
+            throw new NullPointerException("Argument \"item\" cannot be null.");
+    }
+
+    /**
+     * Iterates over the items in the range of the set lazily, with a stack of the nodes whose left (or right, in
+     * reverse) subtree is being visited. Subtrees outside the range are never pushed.
+     */
+    private class SetIterator implements Iterator<T>
+    {
+        private final ArrayDeque<Node> stack = new ArrayDeque<>();
+        private final boolean reverse;
+        private final int version;
+
+        private SetIterator(boolean reverse)
+        {
+            this.reverse = reverse;
+            this.version = underlying.version;
+            pushSpine(underlying.root);
+        }
+
+        /**
+         * Pushes the nodes from {@code node} to the first item in iterating order, skipping the nodes before the
+         * start of the range.
+         */
+        private void pushSpine(Node node)
+        {
+            while (node != null)
+            {
+                if (reverse ? isAfterRange(node.item) : isBeforeRange(node.item))
+                    node = reverse ? node.left : node.right;
+                else
+                {
+                    stack.push(node);
+                    node = reverse ? node.right : node.left;
+                }
+            }
+        }
+
+        private boolean isBeforeRange(T item)
+        {
+            return isView() && (comparator.compare(item, lowerValue) < 0);
+        }
+
+        private boolean isAfterRange(T item)
+        {
+            return isView() && (comparator.compare(item, upperValue) > 0);
+        }
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext()
+        {
+            if (stack.isEmpty())
+                return false;
+
+            T item = stack.peek().item;
+            return reverse ? !isBeforeRange(item) : !isAfterRange(item);
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (version != underlying.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            Node node = stack.pop();
+            pushSpine(reverse ? node.left : node.right);
+            return node.item;
+        }
+    }
 }
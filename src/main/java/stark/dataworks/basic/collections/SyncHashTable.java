@@ -1,5 +1,176 @@
 package stark.dataworks.basic.collections;
 
-public class SyncHashTable
+import stark.dataworks.basic.IEqualityComparer;
+
+import java.util.Iterator;
+
+/**
+ * The {@link SyncHashTable} class is a synchronized wrapper of a {@link HashTable}, which is created by
+ * {@link HashTable#synchronize(HashTable)}.
+ * <p>
+ * All modifications are serialized by one writer lock, which is the wrapped {@link HashTable} itself, so that the
+ * wrapped table never sees more than one writer. Lookups are not locked at all: they are delegated to the wrapped
+ * {@link HashTable}, whose readers validate every bucket they read against its version and retry if a write overlapped
+ * with the read. Therefore, readers never block each other or the writer, which suits read-mostly workloads.
+ * <p>
+ * Methods that scan the whole table, such as {@link #containsValue(Object)} and {@link #copyTo(KeyValuePair[], int)},
+ * take the writer lock to see a consistent table. The iterator is not synchronized and fails if the table is modified
+ * during iterating.
+ */
+public class SyncHashTable extends HashTable
 {
+    protected final HashTable table;
+
+    SyncHashTable(HashTable table)
+    {
+        super(false);
+        this.table = table;
+    }
+
+    @Override
+    public IEqualityComparer getKeyComparer()
+    {
+        return table.getKeyComparer();
+    }
+
+    @Override
+    protected IEqualityComparer getEqualityComparer()
+    {
+        return table.getEqualityComparer();
+    }
+
+    @Override
+    protected int getHash(Object key)
+    {
+        return table.getHash(key);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        return table.get(key);
+    }
+
+    @Override
+    public void set(Object key, Object value)
+    {
+        synchronized (table)
+        {
+            table.set(key, value);
+        }
+    }
+
+    @Override
+    public void add(Object key, Object value)
+    {
+        synchronized (table)
+        {
+            table.add(key, value);
+        }
+    }
+
+    @Override
+    public boolean removeByKey(Object key)
+    {
+        synchronized (table)
+        {
+            return table.removeByKey(key);
+        }
+    }
+
+    @Override
+    public boolean remove(KeyValuePair<Object, Object> value)
+    {
+        synchronized (table)
+        {
+            return table.remove(value);
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        synchronized (table)
+        {
+            table.clear();
+        }
+    }
+
+    @Override
+    protected Object clone() throws CloneNotSupportedException
+    {
+        synchronized (table)
+        {
+            return HashTable.synchronize((HashTable) table.clone());
+        }
+    }
+
+    @Override
+    public boolean keyEquals(Object item, Object key)
+    {
+        return table.keyEquals(item, key);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return table.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        synchronized (table)
+        {
+            return table.containsValue(value);
+        }
+    }
+
+    @Override
+    public void copyKeys(Object[] keys, int startIndex)
+    {
+        synchronized (table)
+        {
+            table.copyKeys(keys, startIndex);
+        }
+    }
+
+    @Override
+    public Iterator<KeyValuePair<Object, Object>> iterator()
+    {
+        return table.iterator();
+    }
+
+    @Override
+    public int count()
+    {
+        return table.count();
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return table.isReadOnly();
+    }
+
+    @Override
+    public boolean contains(KeyValuePair<Object, Object> value)
+    {
+        return table.contains(value);
+    }
+
+    @Override
+    public void copyTo(KeyValuePair<Object, Object>[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    @Override
+    public void copyTo(KeyValuePair<Object, Object>[] array, int startIndex)
+    {
+        synchronized (table)
+        {
+            table.copyTo(array, startIndex);
+        }
+    }
 }
@@ -0,0 +1,210 @@
+package stark.dataworks.basic.geographical;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+import stark.dataworks.basic.mathematics.geometry.BoundingBox;
+import stark.dataworks.basic.mathematics.geometry.Point;
+
+/**
+ * The {@link GeoHash} class provides methods to encode geographic coordinates as geohashes, and to decode geohashes
+ * back to the cells they represent.
+ * <p>
+ * A geohash bisects the longitude and the latitude alternately, starting with the longitude, and each bisection
+ * appends one bit. The bits are kept as a {@code long} by {@link #encodeBits(double, double, int)}, or written 5 bits
+ * per character in base 32 by {@link #encode(double, double, int)}. Geohashes that share a prefix lie in the cell of the prefix, so the bits are a
+ * Z-order key of the cell.
+ * <p>
+ * For {@link Point} and its subclasses such as
+ * {@link stark.dataworks.basic.geographical.trajectories.SamplePoint}, x is the longitude and y is the latitude.
+ */
+public final class GeoHash
+{
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * Maximum number of characters of a geohash, which is 60 bits.
+     */
+    public static final int MAX_PRECISION = 12;
+
+    /**
+     * Maximum number of bits of a geohash.
+     */
+    public static final int MAX_BITS = 62;
+
+    private GeoHash(){}
+
+    /**
+     * Gets the geohash of a point, whose x is the longitude and y is the latitude.
+     *
+     * @param point     The point.
+     * @param precision Number of characters of the geohash, in range [1, 12].
+     * @return The geohash of the point.
+     * @throws NullPointerException        {@code point} is null.
+     * @throws ArgumentOutOfRangeException A coordinate or {@code precision} is out of range.
+     */
+    public static String encode(Point point, int precision)
+    {
+        if (point == null)
+            throw new NullPointerException("Argument \"point\" cannot be null.");
+
+        return encode(point.getY(), point.getX(), precision);
+    }
+
+    /**
+     * Gets the geohash of a location.
+     *
+     * @param latitude  The latitude, in range [-90, 90].
+     * @param longitude The longitude, in range [-180, 180].
+     * @param precision Number of characters of the geohash, in range [1, 12].
+     * @return The geohash of the location.
+     * @throws ArgumentOutOfRangeException A coordinate or {@code precision} is out of range.
+     */
+    public static String encode(double latitude, double longitude, int precision)
+    {
+        if ((precision < 1) || (precision > MAX_PRECISION))
+            throw new ArgumentOutOfRangeException("Argument \"precision\" must be in range [1, " + MAX_PRECISION + "].");
+
+        long bits = encodeBits(latitude, longitude, precision * 5);
+        char[] chars = new char[precision];
+        for (int i = precision - 1; i >= 0; i--)
+        {
+            chars[i] = BASE32[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Gets the bits of the geohash of a location, where the first bisection is the most significant bit.
+     *
+     * @param latitude  The latitude, in range [-90, 90].
+     * @param longitude The longitude, in range [-180, 180].
+     * @param bitCount  Number of bits, in range [1, 62].
+     * @return The bits of the geohash.
+     * @throws ArgumentOutOfRangeException A coordinate or {@code bitCount} is out of range.
+     */
+    public static long encodeBits(double latitude, double longitude, int bitCount)
+    {
+        if (!((latitude >= -90) && (latitude <= 90)))
+            throw new ArgumentOutOfRangeException("Argument \"latitude\" must be in range [-90, 90].");
+        if (!((longitude >= -180) && (longitude <= 180)))
+            throw new ArgumentOutOfRangeException("Argument \"longitude\" must be in range [-180, 180].");
+        if ((bitCount < 1) || (bitCount > MAX_BITS))
+            throw new ArgumentOutOfRangeException("Argument \"bitCount\" must be in range [1, " + MAX_BITS + "].");
+
+        double minLatitude = -90;
+        double maxLatitude = 90;
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        long bits = 0;
+        for (int i = 0; i < bitCount; i++)
+        {
+            bits <<= 1;
+            if ((i & 1) == 0)
+            {
+                double middle = (minLongitude + maxLongitude) / 2;
+                if (longitude >= middle)
+                {
+                    bits |= 1;
+                    minLongitude = middle;
+                }
+                else
+                    maxLongitude = middle;
+            }
+            else
+            {
+                double middle = (minLatitude + maxLatitude) / 2;
+                if (latitude >= middle)
+                {
+                    bits |= 1;
+                    minLatitude = middle;
+                }
+                else
+                    maxLatitude = middle;
+            }
+        }
+
+        return bits;
+    }
+
+    /**
+     * Gets the cell of a geohash, where x is the longitude and y is the latitude.
+     *
+     * @param geoHash The geohash.
+     * @return The cell of the geohash.
+     * @throws NullPointerException     {@code geoHash} is null.
+     * @throws IllegalArgumentException {@code geoHash} is empty, longer than 12 characters, or has a character out of
+     *                                  the base 32 alphabet of geohashes.
+     */
+    public static BoundingBox decode(String geoHash)
+    {
+        if (geoHash == null)
+            throw new NullPointerException("Argument \"geoHash\" cannot be null.");
+        if (geoHash.isEmpty() || (geoHash.length() > MAX_PRECISION))
+            throw new IllegalArgumentException("Argument \"geoHash\" must have 1 to " + MAX_PRECISION + " characters.");
+
+        long bits = 0;
+        for (int i = 0; i < geoHash.length(); i++)
+        {
+            int value = indexOf(geoHash.charAt(i));
+            if (value < 0)
+                throw new IllegalArgumentException("Argument \"geoHash\" has an invalid character '" + geoHash.charAt(i) + "'.");
+
+            bits = (bits << 5) | value;
+        }
+
+        return decodeBits(bits, geoHash.length() * 5);
+    }
+
+    /**
+     * Gets the cell of the bits of a geohash, where x is the longitude and y is the latitude.
+     *
+     * @param bits     The bits of the geohash.
+     * @param bitCount Number of bits, in range [1, 62].
+     * @return The cell of the geohash.
+     * @throws ArgumentOutOfRangeException {@code bitCount} is out of range.
+     */
+    public static BoundingBox decodeBits(long bits, int bitCount)
+    {
+        if ((bitCount < 1) || (bitCount > MAX_BITS))
+            throw new ArgumentOutOfRangeException("Argument \"bitCount\" must be in range [1, " + MAX_BITS + "].");
+
+        double minLatitude = -90;
+        double maxLatitude = 90;
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        for (int i = 0; i < bitCount; i++)
+        {
+            boolean bit = ((bits >>> (bitCount - 1 - i)) & 1) != 0;
+            if ((i & 1) == 0)
+            {
+                double middle = (minLongitude + maxLongitude) / 2;
+                if (bit)
+                    minLongitude = middle;
+                else
+                    maxLongitude = middle;
+            }
+            else
+            {
+                double middle = (minLatitude + maxLatitude) / 2;
+                if (bit)
+                    minLatitude = middle;
+                else
+                    maxLatitude = middle;
+            }
+        }
+
+        return new BoundingBox(minLongitude, minLatitude, maxLongitude, maxLatitude);
+    }
+
+    private static int indexOf(char c)
+    {
+        for (int i = 0; i < BASE32.length; i++)
+        {
+            if (BASE32[i] == c)
+                return i;
+        }
+
+        return -1;
+    }
+}
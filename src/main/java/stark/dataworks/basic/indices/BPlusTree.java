@@ -1,5 +1,1006 @@
 package stark.dataworks.basic.indices;
 
-public class BPlusTree
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.KeyNotFountException;
+import stark.dataworks.basic.collections.IDictionary;
+import stark.dataworks.basic.collections.KeyValuePair;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The {@link BPlusTree} class represents an ordered dictionary of generic key-value pairs, stored in a B+ tree.
+ * <p>
+ * Unlike {@link BTree}, internal nodes only hold separator keys and references to their children, and all key-value
+ * pairs are stored in the leaves. Every leaf is linked to its siblings, so a range scan seeks its first key once and
+ * then walks the leaves from left to right without climbing back up the tree. Keys and values of a node are stored in
+ * arrays instead of entry objects, and a node is searched by binary search.
+ * <p>
+ * {@link #bulkLoad(int, Iterable)} builds a tree from key-value pairs sorted by key in O(n). It fills the leaves from
+ * left to right, and then builds every level of internal nodes from the level below it, instead of inserting the
+ * pairs one by one.
+ * <p>
+ * Like {@link BTree}, nodes are not rebalanced on removal. A node is only removed when it becomes empty.
+ *
+ * @param <TKey>   The type of keys in the BPlusTree.
+ * @param <TValue> The type of values in the BPlusTree.
+ */
+public class BPlusTree<TKey extends Comparable<TKey>, TValue> implements IDictionary<TKey, TValue>
 {
+    /**
+     * Default maximum number of children of an internal node, and maximum number of key-value pairs in a leaf.
+     */
+    public static final int DEFAULT_FANOUT = 64;
+
+    /**
+     * The {@link Node} class is the base class of leaves and internal nodes of a {@link BPlusTree}.
+     */
+    private abstract class Node
+    {
+        /**
+         * Number of keys in the {@link Node}.
+         */
+        protected int keyCount;
+
+        /**
+         * Keys of the {@link Node}, sorted in increasing order.
+         */
+        protected final TKey[] keys;
+
+        @SuppressWarnings("unchecked")
+        protected Node(int keyCapacity)
+        {
+            keys = (TKey[]) new Comparable[keyCapacity];
+        }
+    }
+
+    /**
+     * The {@link Leaf} class represents a leaf of a {@link BPlusTree}, which holds key-value pairs and is linked to its
+     * siblings. It can hold one more pair than {@link #FANOUT} until it is split.
+     */
+    private final class Leaf extends Node
+    {
+        /**
+         * values[i] is the value associated with keys[i].
+         */
+        private final TValue[] values;
+
+        /**
+         * The left sibling of the {@link Leaf}, or null if it is the first leaf.
+         */
+        private Leaf previous;
+
+        /**
+         * The right sibling of the {@link Leaf}, or null if it is the last leaf.
+         */
+        private Leaf next;
+
+        @SuppressWarnings("unchecked")
+        private Leaf()
+        {
+            super(FANOUT + 1);
+            values = (TValue[]) new Object[FANOUT + 1];
+        }
+    }
+
+    /**
+     * The {@link Internal} class represents an internal node of a {@link BPlusTree}. children[i] contains the keys in
+     * the range [keys[i - 1], keys[i]). It can hold one more child than {@link #FANOUT} until it is split.
+     */
+    private final class Internal extends Node
+    {
+        /**
+         * Children of the {@link Internal} node. The number of children is keyCount + 1.
+         */
+        private final Node[] children;
+
+        @SuppressWarnings("unchecked")
+        private Internal()
+        {
+            super(FANOUT);
+            children = (Node[]) Array.newInstance(Node.class, FANOUT + 1);
+        }
+    }
+
+    /**
+     * Maximum number of children of an internal node, and maximum number of key-value pairs in a leaf.
+     */
+    private final int FANOUT;
+
+    /**
+     * Root of the B+ tree.
+     */
+    private Node root;
+
+    /**
+     * The first leaf of the B+ tree, where a full scan starts.
+     */
+    private Leaf first;
+
+    /**
+     * Height of the B+ tree. The root is a leaf if height is 0.
+     */
+    private int height;
+
+    /**
+     * Number of key-value pairs in the B+ tree.
+     */
+    private int count;
+
+    /**
+     * Incremented on every modification, so that cursors can detect concurrent modifications.
+     */
+    private int version;
+
+    /**
+     * Initializes an empty {@link BPlusTree} with {@link #DEFAULT_FANOUT}.
+     */
+    public BPlusTree()
+    {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * Initializes an empty {@link BPlusTree} with specified fanout.
+     *
+     * @param fanout Maximum number of children of an internal node, and maximum number of key-value pairs in a leaf.
+     * @throws IllegalArgumentException {@code fanout} is less than 3.
+     */
+    public BPlusTree(int fanout)
+    {
+        if (fanout < 3)
+            throw new IllegalArgumentException("Argument \"fanout\" must be greater than or equal to 3.");
+
+        FANOUT = fanout;
+        root = first = new Leaf();
+    }
+
+    /**
+     * Builds a {@link BPlusTree} from key-value pairs sorted by key in O(n). The leaves are packed full, which suits
+     * read-mostly data. The first insertion into a full leaf splits it.
+     *
+     * @param fanout      Maximum number of children of an internal node, and maximum number of key-value pairs in a
+     *                    leaf.
+     * @param sortedPairs Key-value pairs whose keys are in strictly increasing order.
+     * @param <TKey>      The type of keys in the BPlusTree.
+     * @param <TValue>    The type of values in the BPlusTree.
+     * @return A {@link BPlusTree} that contains the given key-value pairs.
+     * @throws NullPointerException     {@code sortedPairs}, or a key or value in it is null.
+     * @throws IllegalArgumentException {@code fanout} is less than 3, or the keys are not in strictly increasing
+     *                                  order.
+     */
+    public static <TKey extends Comparable<TKey>, TValue> BPlusTree<TKey, TValue> bulkLoad(int fanout, Iterable<KeyValuePair<TKey, TValue>> sortedPairs)
+    {
+        if (sortedPairs == null)
+            throw new NullPointerException("Argument \"sortedPairs\" cannot be null.");
+
+        BPlusTree<TKey, TValue> tree = new BPlusTree<>(fanout);
+        tree.load(sortedPairs);
+        return tree;
+    }
+
+    /**
+     * Fills this empty {@link BPlusTree} with the given key-value pairs, sorted by key.
+     *
+     * @param sortedPairs Key-value pairs whose keys are in strictly increasing order.
+     */
+    @SuppressWarnings("unchecked")
+    private void load(Iterable<KeyValuePair<TKey, TValue>> sortedPairs)
+    {
+        // Fill the leaves from left to right.
+        Leaf leaf = first;
+        int leafCount = 1;
+        TKey previousKey = null;
+        for (KeyValuePair<TKey, TValue> pair : sortedPairs)
+        {
+            TKey key = pair.getKey();
+            TValue value = pair.getValue();
+            if (key == null)
+                throw new NullPointerException("The argument \"key\" cannot be null.");
+            if (value == null)
+                throw new NullPointerException("The argument \"value\" cannot be null.");
+            if ((previousKey != null) && (previousKey.compareTo(key) >= 0))
+                throw new IllegalArgumentException("Keys of argument \"sortedPairs\" must be in strictly increasing order.");
+
+            if (leaf.keyCount == FANOUT)
+            {
+                Leaf next = new Leaf();
+                next.previous = leaf;
+                leaf.next = next;
+                leaf = next;
+                leafCount++;
+            }
+
+            leaf.keys[leaf.keyCount] = key;
+            leaf.values[leaf.keyCount] = value;
+            leaf.keyCount++;
+            previousKey = key;
+            count++;
+        }
+
+        // Only the last leaf may be less than half full. Share the pairs of the last 2 leaves evenly in that case.
+        Leaf previous = leaf.previous;
+        if ((previous != null) && (leaf.keyCount < FANOUT / 2))
+        {
+            int moved = (previous.keyCount - leaf.keyCount) / 2;
+            System.arraycopy(leaf.keys, 0, leaf.keys, moved, leaf.keyCount);
+            System.arraycopy(leaf.values, 0, leaf.values, moved, leaf.keyCount);
+            System.arraycopy(previous.keys, previous.keyCount - moved, leaf.keys, 0, moved);
+            System.arraycopy(previous.values, previous.keyCount - moved, leaf.values, 0, moved);
+            Arrays.fill(previous.keys, previous.keyCount - moved, previous.keyCount, null);
+            Arrays.fill(previous.values, previous.keyCount - moved, previous.keyCount, null);
+            previous.keyCount -= moved;
+            leaf.keyCount += moved;
+        }
+
+        // Build the internal levels bottom-up. lowKeys[i] is the smallest key in the sub-tree rooted at level[i], which
+        // becomes the separator in front of level[i] in its parent.
+        Node[] level = (Node[]) Array.newInstance(Node.class, leafCount);
+        TKey[] lowKeys = (TKey[]) new Comparable[leafCount];
+        int i = 0;
+        for (Leaf l = first; l != null; l = l.next, i++)
+        {
+            level[i] = l;
+            lowKeys[i] = l.keys[0];
+        }
+
+        int nodeCount = leafCount;
+        while (nodeCount > 1)
+        {
+            // Spread the children evenly, so that no internal node is left with very few children.
+            int parentCount = (nodeCount + FANOUT - 1) / FANOUT;
+            Node[] parents = (Node[]) Array.newInstance(Node.class, parentCount);
+            TKey[] parentLowKeys = (TKey[]) new Comparable[parentCount];
+
+            int child = 0;
+            for (int p = 0; p < parentCount; p++)
+            {
+                int childCount = nodeCount / parentCount + ((p < nodeCount % parentCount) ? 1 : 0);
+                Internal parent = new Internal();
+                parentLowKeys[p] = lowKeys[child];
+                for (int c = 0; c < childCount; c++, child++)
+                {
+                    parent.children[c] = level[child];
+                    if (c > 0)
+                        parent.keys[c - 1] = lowKeys[child];
+                }
+                parent.keyCount = childCount - 1;
+                parents[p] = parent;
+            }
+
+            level = parents;
+            lowKeys = parentLowKeys;
+            nodeCount = parentCount;
+            height++;
+        }
+
+        root = level[0];
+        version++;
+    }
+
+    /**
+     * Returns the index of the child of the given internal node that may contain the specified key, which is the
+     * number of separators that are less than or equal to the key.
+     *
+     * @param node The internal node.
+     * @param key  The specified key.
+     * @return The index of the child that may contain the specified key.
+     */
+    private int childIndex(Internal node, TKey key)
+    {
+        int low = 0;
+        int high = node.keyCount;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (key.compareTo(node.keys[middle]) < 0)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the index of the first key in the given leaf that is greater than or equal to the specified key, or the
+     * number of keys in the leaf if there is no such key.
+     *
+     * @param leaf The leaf.
+     * @param key  The specified key.
+     * @return The index of the first key that is greater than or equal to the specified key.
+     */
+    private int lowerBound(Leaf leaf, TKey key)
+    {
+        int low = 0;
+        int high = leaf.keyCount;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (leaf.keys[middle].compareTo(key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the leaf that may contain the specified key.
+     *
+     * @param key The specified key.
+     * @return The leaf that may contain the specified key.
+     */
+    private Leaf findLeaf(TKey key)
+    {
+        Node node = root;
+        for (int h = height; h > 0; h--)
+        {
+            Internal internal = (Internal) node;
+            node = internal.children[childIndex(internal, key)];
+        }
+
+        return (Leaf) node;
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in the {@link BPlusTree}.
+     */
+    @Override
+    public TValue get(TKey key)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+
+        Leaf leaf = findLeaf(key);
+        int i = lowerBound(leaf, key);
+        if ((i < leaf.keyCount) && (leaf.keys[i].compareTo(key) == 0))
+            return leaf.values[i];
+        else
+            throw new KeyNotFountException("The specified key is not in the BPlusTree.");
+    }
+
+    /**
+     * Sets the value associated with the specified key.
+     * If the specified key does not exist in the {@link BPlusTree}, the the key is added to the {@link BPlusTree}.
+     *
+     * @param key   The key of the element to get.
+     * @param value The new value associated with the specified key.
+     * @throws NullPointerException The specified key or value is null.
+     */
+    @Override
+    public void set(TKey key, TValue value)
+    {
+        insert(key, value, false);
+    }
+
+    /**
+     * Inserts the specified key-value pair to the {@link BPlusTree}, and splits the nodes that overflow on the path
+     * from the leaf to the root.
+     *
+     * @param key   Key of the key-value pair to insert.
+     * @param value Value of the key-value pair to insert.
+     * @param add   A boolean flag that indicates if this method is called for adding a key-value pair or set one.
+     * @throws NullPointerException     The given "key" or "value" is null.
+     * @throws IllegalArgumentException If try to add a key-value pair to the {@link BPlusTree}, while the specified
+     *                                  key exists in the {@link BPlusTree}.
+     */
+    @SuppressWarnings("unchecked")
+    private void insert(TKey key, TValue value, boolean add)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+        if (value == null)
+            throw new NullPointerException("The argument \"value\" cannot be null.");
+
+        // path[h - 1] is the internal node of height h on the path, and indexes[h - 1] is the index of its child on the path.
+        Internal[] path = (Internal[]) Array.newInstance(Internal.class, height);
+        int[] indexes = new int[height];
+        Node node = root;
+        for (int h = height; h > 0; h--)
+        {
+            Internal internal = (Internal) node;
+            int i = childIndex(internal, key);
+            path[h - 1] = internal;
+            indexes[h - 1] = i;
+            node = internal.children[i];
+        }
+
+        Leaf leaf = (Leaf) node;
+        int i = lowerBound(leaf, key);
+        if ((i < leaf.keyCount) && (leaf.keys[i].compareTo(key) == 0))
+        {
+            if (add)
+                throw new IllegalArgumentException("Try to add duplicate key.");
+
+            leaf.values[i] = value;
+            version++;
+            return;
+        }
+
+        System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.keyCount - i);
+        System.arraycopy(leaf.values, i, leaf.values, i + 1, leaf.keyCount - i);
+        leaf.keys[i] = key;
+        leaf.values[i] = value;
+        leaf.keyCount++;
+        count++;
+        version++;
+
+        if (leaf.keyCount <= FANOUT)
+            return;
+
+        // Split the leaf, then insert the separator and the new node into the parent, until a node does not overflow.
+        Node sibling = splitLeaf(leaf);
+        TKey separator = sibling.keys[0];
+        for (int h = 0; h < height; h++)
+        {
+            Internal parent = path[h];
+            int index = indexes[h];
+            System.arraycopy(parent.keys, index, parent.keys, index + 1, parent.keyCount - index);
+            System.arraycopy(parent.children, index + 1, parent.children, index + 2, parent.keyCount - index);
+            parent.keys[index] = separator;
+            parent.children[index + 1] = sibling;
+            parent.keyCount++;
+
+            if (parent.keyCount < FANOUT)
+                return;
+
+            // The middle key moves up to the grandparent instead of staying in either half.
+            int half = parent.keyCount / 2;
+            Internal right = new Internal();
+            right.keyCount = parent.keyCount - half - 1;
+            System.arraycopy(parent.keys, half + 1, right.keys, 0, right.keyCount);
+            System.arraycopy(parent.children, half + 1, right.children, 0, right.keyCount + 1);
+            separator = parent.keys[half];
+            Arrays.fill(parent.keys, half, parent.keyCount, null);
+            Arrays.fill(parent.children, half + 1, parent.keyCount + 1, null);
+            parent.keyCount = half;
+            sibling = right;
+        }
+
+        // The root is split, so grow a new root.
+        Internal newRoot = new Internal();
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = sibling;
+        newRoot.keyCount = 1;
+        root = newRoot;
+        height++;
+    }
+
+    /**
+     * Splits a leaf in half and links the new right half after it.
+     *
+     * @param leaf The leaf to split.
+     * @return The new leaf, which is the right sibling of the given leaf.
+     */
+    private Leaf splitLeaf(Leaf leaf)
+    {
+        int half = leaf.keyCount / 2;
+        Leaf right = new Leaf();
+        right.keyCount = leaf.keyCount - half;
+        System.arraycopy(leaf.keys, half, right.keys, 0, right.keyCount);
+        System.arraycopy(leaf.values, half, right.values, 0, right.keyCount);
+        Arrays.fill(leaf.keys, half, leaf.keyCount, null);
+        Arrays.fill(leaf.values, half, leaf.keyCount, null);
+        leaf.keyCount = half;
+
+        right.previous = leaf;
+        right.next = leaf.next;
+        if (leaf.next != null)
+            leaf.next.previous = right;
+        leaf.next = right;
+
+        return right;
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the keys of the {@link BPlusTree} in increasing order.
+     *
+     * @return an {@link Iterable} containing all the keys of the {@link BPlusTree}.
+     */
+    @Override
+    public Iterable<TKey> keys()
+    {
+        return () -> new KeyCursor(null, null);
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the values of the {@link BPlusTree} in the order of their keys.
+     *
+     * @return an {@link Iterable} containing all the values of the {@link BPlusTree}.
+     */
+    @Override
+    public Iterable<TValue> values()
+    {
+        return () -> new ValueCursor(null, null);
+    }
+
+    /**
+     * Gets an {@link Iterable} containing the key-value pairs whose keys are in the range [fromKey, toKey], in
+     * increasing order of keys. Each iteration seeks the first key in O(log n), and then walks the linked leaves.
+     *
+     * @param fromKey The lower bound of the range (inclusive).
+     * @param toKey   The upper bound of the range (inclusive).
+     * @return an {@link Iterable} containing the key-value pairs in the range.
+     * @throws NullPointerException {@code fromKey} or {@code toKey} is null.
+     */
+    public Iterable<KeyValuePair<TKey, TValue>> entries(TKey fromKey, TKey toKey)
+    {
+        if (fromKey == null)
+            throw new NullPointerException("The argument \"fromKey\" cannot be null.");
+        if (toKey == null)
+            throw new NullPointerException("The argument \"toKey\" cannot be null.");
+
+        return () -> new KeyValuePairCursor(fromKey, toKey);
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link BPlusTree}.
+     *
+     * @param key   The object to use as the key of the element to add.
+     * @param value The object to use as the value of the element to add.
+     * @throws NullPointerException     The given "key" or "value" is null.
+     * @throws IllegalArgumentException The specified key exists in the {@link BPlusTree}.
+     */
+    @Override
+    public void add(TKey key, TValue value)
+    {
+        insert(key, value, true);
+    }
+
+    /**
+     * Adds an element with the provided key-value pair to this {@link BPlusTree}.
+     *
+     * @param keyValuePair The key-value pair to add.
+     * @throws NullPointerException     The key or value of the given pair is null.
+     * @throws IllegalArgumentException The specified key exists in the {@link BPlusTree}.
+     */
+    @Override
+    public void add(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        add(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Determines whether this {@link BPlusTree} contains an element with the specified key.
+     *
+     * @param key The key to locate in this {@link BPlusTree}.
+     * @return <code>true</code> if this {@link BPlusTree} contains an element with the key; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKey(TKey key)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+
+        Leaf leaf = findLeaf(key);
+        int i = lowerBound(leaf, key);
+        return (i < leaf.keyCount) && (leaf.keys[i].compareTo(key) == 0);
+    }
+
+    /**
+     * Determines whether this {@link BPlusTree} contains an element with the specified value.
+     *
+     * @param value The value to locate in this {@link BPlusTree}.
+     * @return <code>true</code> if this {@link BPlusTree} contains an element with the value; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean containsValue(TValue value)
+    {
+        // Values are not ordered, so scan all the leaves.
+        for (Leaf leaf = first; leaf != null; leaf = leaf.next)
+        {
+            for (int i = 0; i < leaf.keyCount; i++)
+            {
+                if (leaf.values[i].equals(value))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link BPlusTree} contains an element with the specified key and value.
+     *
+     * @param key   The key to locate in this {@link BPlusTree}.
+     * @param value The value associated with the specified key.
+     * @return <code>true</code> if this {@link BPlusTree} contains an element with the key and value; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKeyValue(TKey key, TValue value)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+
+        Leaf leaf = findLeaf(key);
+        int i = lowerBound(leaf, key);
+        return (i < leaf.keyCount) && (leaf.keys[i].compareTo(key) == 0) && leaf.values[i].equals(value);
+    }
+
+    /**
+     * Tries to remove a {@link KeyValuePair} with the specified key.
+     *
+     * @param key The key of the element to remove.
+     * @return <code>true</code> if the element is successfully removed; otherwise, <code>false</code>. This method
+     * also returns <code>false</code> if key was not found in the original {@link BPlusTree}.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean removeByKey(TKey key)
+    {
+        return remove(key, null, false);
+    }
+
+    /**
+     * Removes the first occurrence of a specific object from this {@link BPlusTree}.
+     *
+     * @param keyValuePair The object to remove from this {@link BPlusTree}.
+     * @return <code>true</code> if item was successfully removed from the {@link BPlusTree}; otherwise,
+     * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
+     * {@link BPlusTree}.
+     */
+    @Override
+    public boolean remove(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+
+        return remove(keyValuePair.getKey(), keyValuePair.getValue(), true);
+    }
+
+    /**
+     * Tries to remove the key-value pair with the specified key. Removes the leaf if it becomes empty, and then the
+     * ancestors that become empty.
+     *
+     * @param key        Key of the key-value pair.
+     * @param value      Value of the key-value pair.
+     * @param checkValue A boolean flag that indicates if this method should check value of the found pair.
+     *                   If it is true, only when the pair's value equals the specified value can the pair be removed.
+     * @return {@code true} if the key-value pair is removed; otherwise, {@code false}.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean remove(TKey key, TValue value, boolean checkValue)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+
+        Internal[] path = (Internal[]) Array.newInstance(Internal.class, height);
+        int[] indexes = new int[height];
+        Node node = root;
+        for (int h = height; h > 0; h--)
+        {
+            Internal internal = (Internal) node;
+            int i = childIndex(internal, key);
+            path[h - 1] = internal;
+            indexes[h - 1] = i;
+            node = internal.children[i];
+        }
+
+        Leaf leaf = (Leaf) node;
+        int i = lowerBound(leaf, key);
+        if ((i == leaf.keyCount) || (leaf.keys[i].compareTo(key) != 0))
+            return false;
+        if (checkValue && !leaf.values[i].equals(value))
+            return false;
+
+        System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.keyCount - i - 1);
+        System.arraycopy(leaf.values, i + 1, leaf.values, i, leaf.keyCount - i - 1);
+        leaf.keyCount--;
+        leaf.keys[leaf.keyCount] = null;
+        leaf.values[leaf.keyCount] = null;
+        count--;
+        version++;
+
+        if (count == 0)
+        {
+            clear();
+            return true;
+        }
+        if (leaf.keyCount > 0)
+            return true;
+
+        // Unlink the empty leaf, and remove it from its parent. The separators left in the ancestors are still valid
+        // bounds, so they are not fixed.
+        if (leaf.previous != null)
+            leaf.previous.next = leaf.next;
+        else
+            first = leaf.next;
+        if (leaf.next != null)
+            leaf.next.previous = leaf.previous;
+
+        for (int h = 0; h < height; h++)
+        {
+            Internal parent = path[h];
+            int index = indexes[h];
+
+            // The parent becomes empty if it loses its only child, so remove it from the grandparent as well.
+            if (parent.keyCount == 0)
+                continue;
+
+            // Remove the child and the separator in front of it, or behind it if it is the first child.
+            int keyIndex = (index == 0) ? 0 : index - 1;
+            System.arraycopy(parent.keys, keyIndex + 1, parent.keys, keyIndex, parent.keyCount - keyIndex - 1);
+            System.arraycopy(parent.children, index + 1, parent.children, index, parent.keyCount - index);
+            parent.keys[parent.keyCount - 1] = null;
+            parent.children[parent.keyCount] = null;
+            parent.keyCount--;
+            break;
+        }
+
+        // Shrink the tree while the root has only one child.
+        while ((height > 0) && (root.keyCount == 0))
+        {
+            root = ((Internal) root).children[0];
+            height--;
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes all entries from this {@link BPlusTree}.
+     */
+    @Override
+    public void clear()
+    {
+        // Nodes are not shared with anything else, so dropping the root is enough for GC.
+        root = first = new Leaf();
+        height = 0;
+        count = 0;
+        version++;
+    }
+
+    /**
+     * Returns an iterator over all key-value pairs of the {@link BPlusTree}.
+     *
+     * @return an iterator over all key-value pairs of the {@link BPlusTree}.
+     */
+    @Override
+    public Iterator<KeyValuePair<TKey, TValue>> iterator()
+    {
+        return new KeyValuePairCursor(null, null);
+    }
+
+    /**
+     * Gets the number of elements contained in this {@link BPlusTree}.
+     *
+     * @return The number of elements contained in this {@link BPlusTree}.
+     */
+    @Override
+    public int count()
+    {
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Returns the height of this B+ tree.
+     *
+     * @return The height of this B+ tree.
+     */
+    public int height()
+    {
+        return height;
+    }
+
+    /**
+     * Determines whether this {@link BPlusTree} contains a specific value.
+     *
+     * @param keyValuePair The value to locate in this {@link BPlusTree}.
+     * @return <code>true</code> if the specified value is found in this {@link BPlusTree}; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean contains(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+
+        return containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Copies the elements of this {@link BPlusTree} to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from this
+     *              {@link BPlusTree}. The array must have zero-based indexing.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the source {@link BPlusTree} is greater than the
+     *                                  length of the destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of this {@link BPlusTree} to an array, starting at a particular array index.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from this
+     *                   {@link BPlusTree}. The array must have zero-based indexing.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException {@code startIndex} is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the source {@link BPlusTree} is greater than
+     *                                        the available space from <code>startIndex</code> to the end of the
+     *                                        destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+        if (array.length < startIndex + count)
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        int i = startIndex;
+        for (Leaf leaf = first; leaf != null; leaf = leaf.next)
+        {
+            for (int j = 0; j < leaf.keyCount; j++)
+                array[i++] = new KeyValuePair<>(leaf.keys[j], leaf.values[j]);
+        }
+    }
+
+    /**
+     * The {@link Cursor} class walks the linked leaves of the {@link BPlusTree} from a position found by one descent
+     * from the root. Nothing is allocated per entry, except what {@link #getItem(Leaf, int)} creates.
+     *
+     * @param <T> Type of the items returned by the cursor.
+     */
+    private abstract class Cursor<T> implements Iterator<T>
+    {
+        /**
+         * The current leaf, or null when the cursor is exhausted.
+         */
+        private Leaf leaf;
+
+        /**
+         * Index of the next pair in the current leaf.
+         */
+        private int index;
+
+        /**
+         * The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        private final TKey toKey;
+        private final int version;
+
+        /**
+         * Initializes a cursor positioned at the first pair whose key is greater than or equal to {@code fromKey}.
+         *
+         * @param fromKey The lower bound of the keys to return (inclusive), or null if unbounded.
+         * @param toKey   The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        private Cursor(TKey fromKey, TKey toKey)
+        {
+            this.toKey = toKey;
+            this.version = BPlusTree.this.version;
+
+            if (fromKey == null)
+                leaf = first;
+            else
+            {
+                leaf = findLeaf(fromKey);
+                index = lowerBound(leaf, fromKey);
+            }
+
+            // All keys in this leaf are less than "fromKey", or the tree is empty.
+            if (index == leaf.keyCount)
+            {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        protected abstract T getItem(Leaf leaf, int index);
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         * @throws InvalidOperationException The {@link BPlusTree} is modified after this cursor is created.
+         */
+        @Override
+        public boolean hasNext()
+        {
+            if (version != BPlusTree.this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+
+            return (leaf != null) && ((toKey == null) || (leaf.keys[index].compareTo(toKey) <= 0));
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            T item = getItem(leaf, index++);
+            if (index == leaf.keyCount)
+            {
+                leaf = leaf.next;
+                index = 0;
+            }
+
+            return item;
+        }
+    }
+
+    private final class KeyCursor extends Cursor<TKey>
+    {
+        private KeyCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TKey getItem(Leaf leaf, int index)
+        {
+            return leaf.keys[index];
+        }
+    }
+
+    private final class ValueCursor extends Cursor<TValue>
+    {
+        private ValueCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TValue getItem(Leaf leaf, int index)
+        {
+            return leaf.values[index];
+        }
+    }
+
+    private final class KeyValuePairCursor extends Cursor<KeyValuePair<TKey, TValue>>
+    {
+        private KeyValuePairCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected KeyValuePair<TKey, TValue> getItem(Leaf leaf, int index)
+        {
+            return new KeyValuePair<>(leaf.keys[index], leaf.values[index]);
+        }
+    }
 }
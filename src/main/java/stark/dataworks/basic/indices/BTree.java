@@ -1,12 +1,13 @@
 package stark.dataworks.basic.indices;
 
+import stark.dataworks.basic.InvalidOperationException;
 import stark.dataworks.basic.KeyNotFountException;
 import stark.dataworks.basic.collections.IDictionary;
 import stark.dataworks.basic.collections.KeyValuePair;
-import stark.dataworks.basic.collections.Queue;
 
 import java.lang.reflect.Array;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * The {@link BTree} class represents an ordered dictionary of generic key-value pairs.
@@ -124,6 +125,11 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
      */
     private int count;
 
+    /**
+     * Incremented on every modification, so that cursors can detect concurrent modifications.
+     */
+    private int version;
+
     /**
      * Initializes a {@link BTree} with specified maximum number of entries in a node.
      *
@@ -244,6 +250,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
 
         // Try to insert the given key-value pair.
         Node newBranch = insert(root, key, value, height, add);
+        version++;
 
         // Split the root if a new branch is created.
         if (newBranch != null)
@@ -375,99 +382,46 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
     }
 
     /**
-     * Returns a {@link Queue} that contains all existing keys in the {@link BTree}.
-     *
-     * @return A {@link Queue} that contains all existing keys in the {@link BTree}.
-     */
-
-    private Queue<TKey> getAllKeys()
-    {
-        Queue<TKey> keys = new Queue<>();
-        getAllKeys(root, keys, height);
-        return keys;
-    }
-
-    /**
-     * Iterates over all entries by depth-first search (or in-order traversal) and add all existing keys into the
-     * {@link Queue} in increasing order.
-     *
-     * @param node   The {@link Node} to iterate over.
-     * @param keys   The {@link Queue} to store all existing keys.
-     * @param height Height of the current {@link Node}.
-     */
-    private void getAllKeys(Node node, Queue<TKey> keys, int height)
-    {
-        // If height == 0, get all keys of "node".
-        // Otherwise, get all keys rooted at "node".
-        if (height == 0)
-        {
-            for (int i = 0; i < node.childrenCount; i++)
-                keys.enqueue(node.children[i].key);
-        }
-        else
-        {
-            for (int i = 0; i < node.childrenCount; i++)
-                getAllKeys(node.children[i].next, keys, height - 1);
-        }
-    }
-
-    /**
-     * Gets an {@link Iterable} containing all the keys of the {@link BTree}.
+     * Gets an {@link Iterable} containing all the keys of the {@link BTree} in increasing order. The keys are read
+     * from the nodes lazily, without copying the tree.
      *
      * @return an {@link Iterable} containing all the keys of the {@link BTree}.
      */
     @Override
     public Iterable<TKey> keys()
     {
-        return getAllKeys();
+        return () -> new KeyCursor(null, null);
     }
 
     /**
-     * Gets an {@link Iterable} containing all the values of the {@link BTree}.
+     * Gets an {@link Iterable} containing all the values of the {@link BTree} in the order of their keys. The values
+     * are read from the nodes lazily, without copying the tree.
      *
      * @return an {@link Iterable} containing all the values of the {@link BTree}.
      */
-
-    private Queue<TValue> getAllValues()
+    @Override
+    public Iterable<TValue> values()
     {
-        Queue<TValue> values = new Queue<>();
-        getAllValues(root, values, height);
-        return values;
+        return () -> new ValueCursor(null, null);
     }
 
     /**
-     * Iterates over all entries by depth-first search (or in-order traversal) and add all existing values into the
-     * {@link Queue} in increasing order.
+     * Gets an {@link Iterable} containing the key-value pairs whose keys are in the range [fromKey, toKey], in
+     * increasing order of keys. Each iteration seeks the first key in O(log n), and then reads the entries lazily.
      *
-     * @param node   The {@link Node} to iterate over.
-     * @param values The {@link Queue} to store all existing values.
-     * @param height Height of the current {@link Node}.
+     * @param fromKey The lower bound of the range (inclusive).
+     * @param toKey   The upper bound of the range (inclusive).
+     * @return an {@link Iterable} containing the key-value pairs in the range.
+     * @throws NullPointerException {@code fromKey} or {@code toKey} is null.
      */
-    private void getAllValues(Node node, Queue<TValue> values, int height)
+    public Iterable<KeyValuePair<TKey, TValue>> entries(TKey fromKey, TKey toKey)
     {
-        // If height == 0, get all values of "node".
-        // Otherwise, get all values rooted at "node".
-        if (height == 0)
-        {
-            for (int i = 0; i < node.childrenCount; i++)
-                values.enqueue(node.children[i].value);
-        }
-        else
-        {
-            for (int i = 0; i < node.childrenCount; i++)
-                getAllValues(node.children[i].next, values, height - 1);
-        }
-    }
+        if (fromKey == null)
+            throw new NullPointerException("The argument \"fromKey\" cannot be null.");
+        if (toKey == null)
+            throw new NullPointerException("The argument \"toKey\" cannot be null.");
 
-    /**
-     * Gets an {@link Iterable} containing all the values of the {@link BTree}.
-     *
-     * @return an {@link Iterable} containing all the values of the {@link BTree}.
-     */
-    @Override
-    public Iterable<TValue> values()
-    {
-        return getAllValues();
+        return () -> new KeyValuePairCursor(fromKey, toKey);
     }
 
     /**
@@ -563,6 +517,8 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
     public boolean removeByKey(TKey key)
     {
         boolean removeResult = remove(root, key, null, false, height);
+        if (removeResult)
+            version++;
 
         // I don't know if clear() is required.
         if (count == 0)
@@ -632,8 +588,8 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
                     Node childNode = children[i].next;
                     boolean result = remove(childNode, key, value, checkValue, height - 1);
 
-                    // Fix keys in non-leaf nodes.
-                    if (result)
+                    // Fix keys in non-leaf nodes. An empty child node is removed below, so there is no key to fix.
+                    if (result && (childNode.childrenCount > 0))
                     {
                         if (children[i].key.compareTo(childNode.children[0].key) != 0)
                             children[i].key = childNode.children[0].key;
@@ -667,8 +623,11 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
         // Clear all existing key-value pairs.
         clear(root, height);
 
-        // Set count to 0 after clearing the BTree.
+        // The old root is invalidated, so start over with an empty root. Set count to 0 after clearing the BTree.
+        root = new Node(0, MAX_CHILDREN);
+        height = 0;
         count = 0;
+        version++;
     }
 
     /**
@@ -707,42 +666,11 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
     @Override
     public boolean remove(KeyValuePair<TKey, TValue> keyValuePair)
     {
-        return remove(root, keyValuePair.getKey(), keyValuePair.getValue(), true, height);
-    }
+        boolean removeResult = remove(root, keyValuePair.getKey(), keyValuePair.getValue(), true, height);
+        if (removeResult)
+            version++;
 
-    /**
-     * Gets an {@link Iterable} containing all key-value pairs of the {@link BTree}.
-     *
-     * @return an {@link Iterable} containing all key-value pairs of the {@link BTree}.
-     */
-
-    private Queue<KeyValuePair<TKey, TValue>> getKeyValuePairs()
-    {
-        Queue<KeyValuePair<TKey, TValue>> keyValuePairs = new Queue<>();
-        getKeyValuePairs(root, keyValuePairs, height);
-        return keyValuePairs;
-    }
-
-    /**
-     * Iterates over all entries by depth-first search (or in-order traversal) and add all existing key-value pairs into the
-     * {@link Queue} in increasing order.
-     *
-     * @param node          The {@link Node} to iterate over.
-     * @param keyValuePairs The {@link Queue} to store all existing values.
-     * @param height        Height of the current {@link Node}.
-     */
-    private void getKeyValuePairs(Node node, Queue<KeyValuePair<TKey, TValue>> keyValuePairs, int height)
-    {
-        if (height == 0)
-        {
-            for (int i = 0; i < node.childrenCount; i++)
-                keyValuePairs.enqueue(new KeyValuePair<>(node.children[i].key, node.children[i].value));
-        }
-        else
-        {
-            for (int i = 0; i < node.childrenCount; i++)
-                getKeyValuePairs(node.children[i].next, keyValuePairs, height - 1);
-        }
+        return removeResult;
     }
 
     /**
@@ -753,7 +681,7 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
     @Override
     public Iterator<KeyValuePair<TKey, TValue>> iterator()
     {
-        return getKeyValuePairs().iterator();
+        return new KeyValuePairCursor(null, null);
     }
 
     /**
@@ -896,4 +824,186 @@ public class BTree<TKey extends Comparable<TKey>, TValue> implements IDictionary
         for (KeyValuePair<TKey, TValue> kvp : this)
             array[i++] = new KeyValuePair<>(kvp.getKey(), kvp.getValue());
     }
+
+    /**
+     * The {@link Cursor} class walks the leaf entries of the {@link BTree} in place. It keeps the path from the root
+     * to the current leaf, i.e. a node and an entry index per level, so that moving to the next entry only climbs to
+     * the nearest ancestor with a next child and descends its leftmost path. Nothing is allocated per entry, except
+     * what {@link #getItem(Entry)} creates.
+     *
+     * @param <T> Type of the items returned by the cursor.
+     */
+    private abstract class Cursor<T> implements Iterator<T>
+    {
+        /**
+         * nodes[h] is the node of height h on the current path, and positions[h] is the index of the entry in it.
+         * nodes[0] is null when the cursor is exhausted.
+         */
+        private final Node[] nodes;
+        private final int[] positions;
+
+        /**
+         * The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        private final TKey toKey;
+        private final int version;
+
+        /**
+         * Initializes a cursor positioned at the first entry whose key is greater than or equal to {@code fromKey}.
+         *
+         * @param fromKey The lower bound of the keys to return (inclusive), or null if unbounded.
+         * @param toKey   The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        private Cursor(TKey fromKey, TKey toKey)
+        {
+            this.toKey = toKey;
+            this.version = BTree.this.version;
+            nodes = (Node[]) Array.newInstance(Node.class, height + 1);
+            positions = new int[height + 1];
+
+            // Choose branches the same way as find().
+            Node node = root;
+            for (int h = height; h > 0; h--)
+            {
+                int i = 0;
+                if (fromKey != null)
+                {
+                    while ((i + 1 < node.childrenCount) && (fromKey.compareTo(node.children[i + 1].key) >= 0))
+                        i++;
+                }
+
+                nodes[h] = node;
+                positions[h] = i;
+                node = node.children[i].next;
+            }
+
+            int i = 0;
+            if (fromKey != null)
+            {
+                while ((i < node.childrenCount) && (node.children[i].key.compareTo(fromKey) < 0))
+                    i++;
+            }
+
+            nodes[0] = node;
+            positions[0] = i;
+
+            // All keys in this leaf are less than "fromKey", so the first key to return is in the next leaf.
+            if (i == node.childrenCount)
+                moveToNextLeaf();
+        }
+
+        /**
+         * Moves the cursor to the first entry of the next leaf, or exhausts the cursor if the current leaf is the last.
+         */
+        private void moveToNextLeaf()
+        {
+            int h = 1;
+            while ((h < nodes.length) && (positions[h] + 1 >= nodes[h].childrenCount))
+                h++;
+
+            if (h == nodes.length)
+            {
+                nodes[0] = null;
+                return;
+            }
+
+            positions[h]++;
+            for (; h > 0; h--)
+            {
+                nodes[h - 1] = nodes[h].children[positions[h]].next;
+                positions[h - 1] = 0;
+            }
+        }
+
+        private void checkVersion()
+        {
+            if (version != BTree.this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+        }
+
+        protected abstract T getItem(Entry entry);
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         * @throws InvalidOperationException The {@link BTree} is modified after this cursor is created.
+         */
+        @Override
+        public boolean hasNext()
+        {
+            // Removed nodes are invalidated in place, so do not read the path at all after a modification.
+            checkVersion();
+
+            Node leaf = nodes[0];
+            if ((leaf == null) || (positions[0] >= leaf.childrenCount))
+                return false;
+
+            return (toKey == null) || (leaf.children[positions[0]].key.compareTo(toKey) <= 0);
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            Node leaf = nodes[0];
+            Entry entry = leaf.children[positions[0]++];
+            if (positions[0] == leaf.childrenCount)
+                moveToNextLeaf();
+
+            return getItem(entry);
+        }
+    }
+
+    private final class KeyCursor extends Cursor<TKey>
+    {
+        private KeyCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TKey getItem(Entry entry)
+        {
+            return entry.key;
+        }
+    }
+
+    private final class ValueCursor extends Cursor<TValue>
+    {
+        private ValueCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TValue getItem(Entry entry)
+        {
+            return entry.value;
+        }
+    }
+
+    private final class KeyValuePairCursor extends Cursor<KeyValuePair<TKey, TValue>>
+    {
+        private KeyValuePairCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected KeyValuePair<TKey, TValue> getItem(Entry entry)
+        {
+            return new KeyValuePair<>(entry.key, entry.value);
+        }
+    }
 }
@@ -2,8 +2,23 @@ package stark.dataworks.basic.indices;
 
 import stark.dataworks.basic.collections.KeyValuePair;
 
+import java.util.Arrays;
+
+/**
+ * The {@link BinarySearch} class contains binary searches over sorted arrays.
+ * <p>
+ * The {@code search} methods bisect with a 3-way branch and return as soon as the target is found. The
+ * {@code lowerBound} and {@code upperBound} methods run the same number of steps for every target, and each step selects
+ * the next base with a conditional move instead of a branch, so the CPU has no branch to mispredict on random targets.
+ * {@link #searchAll(long[], long[], int[])} runs several such searches in lockstep, so their cache misses overlap. For
+ * arrays much larger than the cache, see {@link EytzingerArray}.
+ */
 public class BinarySearch
 {
+    /**
+     * Number of searches that {@link #searchAll(long[], long[], int[])} runs in lockstep.
+     */
+    private static final int BATCH_SIZE = 4;
 
     private BinarySearch()
     {
@@ -344,4 +359,255 @@ public class BinarySearch
 
         return ~low;
     }
+
+    /**
+     * Returns the index of the first element that is greater than or equal to the target, without branching on the
+     * comparisons. The array must be sorted in increasing order.
+     *
+     * @param values The sorted array to search.
+     * @param target The value to locate.
+     * @return The index of the first element that is not less than {@code target}, or the length of the array if
+     * there is no such element.
+     * @throws NullPointerException {@code values} is null.
+     */
+    public static int lowerBound(long[] values, long target)
+    {
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+        if (values.length == 0)
+            return 0;
+
+        // The result is always in [base, base + length].
+        int base = 0;
+        int length = values.length;
+        while (length > 1)
+        {
+            int half = length >>> 1;
+            base = (values[base + half] < target) ? base + half : base;
+            length -= half;
+        }
+
+        return (values[base] < target) ? base + 1 : base;
+    }
+
+    /**
+     * Returns the index of the first element that is greater than the target, without branching on the comparisons.
+     * The array must be sorted in increasing order.
+     *
+     * @param values The sorted array to search.
+     * @param target The value to locate.
+     * @return The index of the first element that is greater than {@code target}, or the length of the array if there
+     * is no such element.
+     * @throws NullPointerException {@code values} is null.
+     */
+    public static int upperBound(long[] values, long target)
+    {
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+        if (values.length == 0)
+            return 0;
+
+        int base = 0;
+        int length = values.length;
+        while (length > 1)
+        {
+            int half = length >>> 1;
+            base = (values[base + half] <= target) ? base + half : base;
+            length -= half;
+        }
+
+        return (values[base] <= target) ? base + 1 : base;
+    }
+
+    /**
+     * Returns the index of the first element that is greater than or equal to the target, without branching on the
+     * comparisons. The array must be sorted in increasing order.
+     *
+     * @param values The sorted array to search.
+     * @param target The value to locate.
+     * @return The index of the first element that is not less than {@code target}, or the length of the array if
+     * there is no such element.
+     * @throws NullPointerException {@code values} is null.
+     */
+    public static int lowerBound(int[] values, int target)
+    {
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+        if (values.length == 0)
+            return 0;
+
+        int base = 0;
+        int length = values.length;
+        while (length > 1)
+        {
+            int half = length >>> 1;
+            base = (values[base + half] < target) ? base + half : base;
+            length -= half;
+        }
+
+        return (values[base] < target) ? base + 1 : base;
+    }
+
+    /**
+     * Returns the index of the first element that is greater than the target, without branching on the comparisons.
+     * The array must be sorted in increasing order.
+     *
+     * @param values The sorted array to search.
+     * @param target The value to locate.
+     * @return The index of the first element that is greater than {@code target}, or the length of the array if there
+     * is no such element.
+     * @throws NullPointerException {@code values} is null.
+     */
+    public static int upperBound(int[] values, int target)
+    {
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+        if (values.length == 0)
+            return 0;
+
+        int base = 0;
+        int length = values.length;
+        while (length > 1)
+        {
+            int half = length >>> 1;
+            base = (values[base + half] <= target) ? base + half : base;
+            length -= half;
+        }
+
+        return (values[base] <= target) ? base + 1 : base;
+    }
+
+    /**
+     * Returns the index of the first element that is greater than or equal to the target, without branching on the
+     * comparisons. The array must be sorted in increasing order, and elements are compared by {@code <} like
+     * {@link #search(double[], double)}.
+     *
+     * @param values The sorted array to search.
+     * @param target The value to locate.
+     * @return The index of the first element that is not less than {@code target}, or the length of the array if
+     * there is no such element.
+     * @throws NullPointerException {@code values} is null.
+     */
+    public static int lowerBound(double[] values, double target)
+    {
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+        if (values.length == 0)
+            return 0;
+
+        int base = 0;
+        int length = values.length;
+        while (length > 1)
+        {
+            int half = length >>> 1;
+            base = (values[base + half] < target) ? base + half : base;
+            length -= half;
+        }
+
+        return (values[base] < target) ? base + 1 : base;
+    }
+
+    /**
+     * Returns the index of the first element that is greater than the target, without branching on the comparisons.
+     * The array must be sorted in increasing order, and elements are compared by {@code <=}.
+     *
+     * @param values The sorted array to search.
+     * @param target The value to locate.
+     * @return The index of the first element that is greater than {@code target}, or the length of the array if there
+     * is no such element.
+     * @throws NullPointerException {@code values} is null.
+     */
+    public static int upperBound(double[] values, double target)
+    {
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+        if (values.length == 0)
+            return 0;
+
+        int base = 0;
+        int length = values.length;
+        while (length > 1)
+        {
+            int half = length >>> 1;
+            base = (values[base + half] <= target) ? base + half : base;
+            length -= half;
+        }
+
+        return (values[base] <= target) ? base + 1 : base;
+    }
+
+    /**
+     * Searches a sorted array for every target, like {@link #search(long[], long)}. Searches run {@link #BATCH_SIZE}
+     * at a time in lockstep without branching on the comparisons, so the loads of independent searches are in flight
+     * together instead of one after another. Unlike {@link #search(long[], long)}, the index of the first equal element
+     * is returned when the array contains duplicates, and the array may be empty.
+     *
+     * @param keys    The sorted array to search.
+     * @param targets The values to locate.
+     * @param results Receives the result for targets[i] at index i: the index of the target in {@code keys}, or the
+     *                bitwise complement of the index of the first greater element if the target is not found.
+     * @throws NullPointerException     Any argument is null.
+     * @throws IllegalArgumentException {@code results} is shorter than {@code targets}.
+     */
+    public static void searchAll(long[] keys, long[] targets, int[] results)
+    {
+        if (keys == null)
+            throw new NullPointerException("Argument \"keys\" cannot be null.");
+        if (targets == null)
+            throw new NullPointerException("Argument \"targets\" cannot be null.");
+        if (results == null)
+            throw new NullPointerException("Argument \"results\" cannot be null.");
+        if (results.length < targets.length)
+            throw new IllegalArgumentException("Length of the given array \"results\" must not be less than the length of \"targets\".");
+
+        int n = keys.length;
+        if (n == 0)
+        {
+            Arrays.fill(results, 0, targets.length, ~0);
+            return;
+        }
+
+        int t = 0;
+        for (; t + BATCH_SIZE <= targets.length; t += BATCH_SIZE)
+        {
+            long x0 = targets[t];
+            long x1 = targets[t + 1];
+            long x2 = targets[t + 2];
+            long x3 = targets[t + 3];
+            int b0 = 0;
+            int b1 = 0;
+            int b2 = 0;
+            int b3 = 0;
+            int length = n;
+            while (length > 1)
+            {
+                int half = length >>> 1;
+                b0 = (keys[b0 + half] < x0) ? b0 + half : b0;
+                b1 = (keys[b1 + half] < x1) ? b1 + half : b1;
+                b2 = (keys[b2 + half] < x2) ? b2 + half : b2;
+                b3 = (keys[b3 + half] < x3) ? b3 + half : b3;
+                length -= half;
+            }
+
+            results[t] = toSearchResult(keys, b0, x0);
+            results[t + 1] = toSearchResult(keys, b1, x1);
+            results[t + 2] = toSearchResult(keys, b2, x2);
+            results[t + 3] = toSearchResult(keys, b3, x3);
+        }
+
+        for (; t < targets.length; t++)
+        {
+            int index = lowerBound(keys, targets[t]);
+            results[t] = ((index < n) && (keys[index] == targets[t])) ? index : ~index;
+        }
+    }
+
+    /**
+     * Converts the last base of a branchless lower-bound search to the result of {@link #search(long[], long)}.
+     */
+    private static int toSearchResult(long[] keys, int base, long target)
+    {
+        int index = (keys[base] < target) ? base + 1 : base;
+        return ((index < keys.length) && (keys[index] == target)) ? index : ~index;
+    }
 }
@@ -0,0 +1,123 @@
+package stark.dataworks.basic.indices;
+
+import java.util.ArrayList;
+
+/**
+ * The {@link BoundedMaxHeap} class keeps the elements with the k smallest distances among the elements offered to it,
+ * in a max-heap of their distances, for the k-nearest-neighbor queries of the spatial indices.
+ */
+final class BoundedMaxHeap
+{
+    private final double[] distances;
+    private final Object[] elements;
+    private int count;
+
+    /**
+     * Initializes an empty heap.
+     *
+     * @param capacity Maximum number of elements to keep, which may be 0.
+     */
+    BoundedMaxHeap(int capacity)
+    {
+        distances = new double[capacity];
+        elements = new Object[capacity];
+    }
+
+    /**
+     * Returns true if the heap holds as many elements as its capacity.
+     */
+    boolean isFull()
+    {
+        return count == distances.length;
+    }
+
+    /**
+     * Returns the largest distance kept if the heap is full, which an element must beat to be kept; otherwise, the
+     * positive infinity.
+     */
+    double bound()
+    {
+        return isFull() ? (count == 0 ? Double.NEGATIVE_INFINITY : distances[0]) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Keeps the element if the heap is not full or the distance is less than the largest distance kept, in which case
+     * the element with the largest distance is dropped.
+     */
+    void offer(double distance, Object element)
+    {
+        if (count < distances.length)
+        {
+            distances[count] = distance;
+            elements[count] = element;
+            siftUp(count++);
+        }
+        else if ((count > 0) && (distance < distances[0]))
+        {
+            distances[0] = distance;
+            elements[0] = element;
+            siftDown(0, count);
+        }
+    }
+
+    /**
+     * Sorts the heap in place and returns the elements, nearest first. The heap cannot be used afterward.
+     */
+    @SuppressWarnings("unchecked")
+    <T> ArrayList<T> drainSorted()
+    {
+        for (int end = count - 1; end > 0; end--)
+        {
+            swap(0, end);
+            siftDown(0, end);
+        }
+
+        ArrayList<T> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            result.add((T) elements[i]);
+
+        return result;
+    }
+
+    private void siftUp(int index)
+    {
+        while (index > 0)
+        {
+            int parent = (index - 1) >>> 1;
+            if (distances[parent] >= distances[index])
+                break;
+
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int end)
+    {
+        while (true)
+        {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if ((left < end) && (distances[left] > distances[largest]))
+                largest = left;
+            if ((right < end) && (distances[right] > distances[largest]))
+                largest = right;
+            if (largest == index)
+                return;
+
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private void swap(int i, int j)
+    {
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+        Object element = elements[i];
+        elements[i] = elements[j];
+        elements[j] = element;
+    }
+}
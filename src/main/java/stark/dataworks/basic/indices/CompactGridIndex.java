@@ -0,0 +1,427 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The {@link CompactGridIndex} class represents a read-only 2-D grid index in compressed sparse row (CSR) layout, built
+ * once from all its elements.
+ * <p>
+ * The cells are the same as the cells of a {@link GridIndex} with the same bounds: cell (row, column) covers x in
+ * [minX + row * xInterval, minX + (row + 1) * xInterval) and y in [minY + column * yInterval, minY + (column + 1) *
+ * yInterval). The id of a cell is row * columnCount + column. Elements are sorted by cell id into one array by a
+ * counting sort, and the elements of cell c are in [cellStarts[c], cellStarts[c + 1]). The coordinates of the elements
+ * are kept in parallel arrays, so no per-cell list or per-element entry object exists.
+ * <p>
+ * Adjacent columns of a row are adjacent in the arrays, so a patch of cells is one contiguous range per row. Queries
+ * return views over the arrays instead of copies, or pass the elements to a visitor, which allocates nothing.
+ *
+ * @param <T> The data type for elements stored in this index.
+ */
+public class CompactGridIndex<T>
+{
+    /**
+     * The visitor interface used to visit elements with their coordinates.
+     *
+     * @param <T> The data type for elements stored in the index.
+     */
+    public interface IElementVisitor<T>
+    {
+        void visit(double x, double y, T element);
+    }
+
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+    private final double xInterval;
+    private final double yInterval;
+    private final int rowCount;
+    private final int columnCount;
+
+    /**
+     * The elements of cell c are at indices [cellStarts[c], cellStarts[c + 1]).
+     */
+    private final int[] cellStarts;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final Object[] elements;
+
+    /**
+     * Builds a {@link CompactGridIndex} from elements and their coordinates in O(n + rowCount * columnCount). Elements
+     * in the same cell keep their order in the given arrays.
+     *
+     * @param minX        The minimum on x direction.
+     * @param maxX        The maximum on x direction.
+     * @param minY        The minimum on y direction.
+     * @param maxY        The maximum on y direction.
+     * @param rowCount    Number of rows in this grid, which divide the x direction.
+     * @param columnCount Number of columns in this grid, which divide the y direction.
+     * @param xs          X-coordinates of the elements.
+     * @param ys          Y-coordinates of the elements.
+     * @param elements    The elements, where elements[i] is at (xs[i], ys[i]).
+     * @throws NullPointerException         {@code xs}, {@code ys} or {@code elements} is null.
+     * @throws IllegalArgumentException     The bounds are empty, {@code rowCount} or {@code columnCount} is less than
+     *                                      1, the grid has more than {@link Integer#MAX_VALUE} - 1 cells, or the
+     *                                      arrays have different lengths.
+     * @throws ArgumentOutOfRangeException A coordinate is out of the bounds.
+     */
+    public CompactGridIndex(double minX, double maxX, double minY, double maxY, int rowCount, int columnCount, double[] xs, double[] ys, T[] elements)
+    {
+        if (xs == null)
+            throw new NullPointerException("Argument \"xs\" cannot be null.");
+        if (ys == null)
+            throw new NullPointerException("Argument \"ys\" cannot be null.");
+        if (elements == null)
+            throw new NullPointerException("Argument \"elements\" cannot be null.");
+        if (minX >= maxX)
+            throw new IllegalArgumentException("Argument \"minX\" must be less than parameter \"maxX\".");
+        if (minY >= maxY)
+            throw new IllegalArgumentException("Argument \"minY\" must be less than parameter \"maxY\".");
+        if ((rowCount < 1) || (columnCount < 1))
+            throw new IllegalArgumentException("Arguments \"rowCount\" and \"columnCount\" must be greater than 0.");
+        if ((long) rowCount * columnCount >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The grid must have less than " + Integer.MAX_VALUE + " cells.");
+        if ((xs.length != elements.length) || (ys.length != elements.length))
+            throw new IllegalArgumentException("Arguments \"xs\", \"ys\" and \"elements\" must have the same length.");
+
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        xInterval = (maxX - minX) / rowCount;
+        yInterval = (maxY - minY) / columnCount;
+
+        int n = elements.length;
+        int[] cellIds = new int[n];
+        cellStarts = new int[rowCount * columnCount + 1];
+        for (int i = 0; i < n; i++)
+        {
+            validateXY(xs[i], ys[i]);
+            cellIds[i] = rowOf(xs[i]) * columnCount + columnOf(ys[i]);
+            cellStarts[cellIds[i] + 1]++;
+        }
+
+        for (int c = 0; c < rowCount * columnCount; c++)
+            cellStarts[c + 1] += cellStarts[c];
+
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.elements = new Object[n];
+        int[] next = new int[rowCount * columnCount];
+        System.arraycopy(cellStarts, 0, next, 0, next.length);
+        for (int i = 0; i < n; i++)
+        {
+            int position = next[cellIds[i]]++;
+            this.xs[position] = xs[i];
+            this.ys[position] = ys[i];
+            this.elements[position] = elements[i];
+        }
+    }
+
+    /**
+     * Gets the minimum of x.
+     *
+     * @return The minimum of x.
+     */
+    public double getMinX()
+    {
+        return minX;
+    }
+
+    /**
+     * Gets the maximum of x.
+     *
+     * @return The maximum of x.
+     */
+    public double getMaxX()
+    {
+        return maxX;
+    }
+
+    /**
+     * Gets the minimum of y.
+     *
+     * @return The minimum of y.
+     */
+    public double getMinY()
+    {
+        return minY;
+    }
+
+    /**
+     * Gets the maximum of y.
+     *
+     * @return The maximum of y.
+     */
+    public double getMaxY()
+    {
+        return maxY;
+    }
+
+    /**
+     * Gets the number of rows in this grid.
+     *
+     * @return The number of rows in this grid.
+     */
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of columns in this grid.
+     *
+     * @return The number of columns in this grid.
+     */
+    public int getColumnCount()
+    {
+        return columnCount;
+    }
+
+    /**
+     * Gets the number of elements in this grid.
+     *
+     * @return The number of elements in this grid.
+     */
+    public int count()
+    {
+        return elements.length;
+    }
+
+    /**
+     * Returns the row of the cells that cover the specified x-coordinate. Coordinates out of the bounds are clamped
+     * to the first or last row.
+     */
+    private int rowOf(double x)
+    {
+        int row = (int) Math.floor((x - minX) / xInterval);
+        return Math.max(0, Math.min(row, rowCount - 1));
+    }
+
+    /**
+     * Returns the column of the cells that cover the specified y-coordinate. Coordinates out of the bounds are clamped
+     * to the first or last column.
+     */
+    private int columnOf(double y)
+    {
+        int column = (int) Math.floor((y - minY) / yInterval);
+        return Math.max(0, Math.min(column, columnCount - 1));
+    }
+
+    /**
+     * Gets the number of elements in the specified cell.
+     *
+     * @param row    Row of the cell.
+     * @param column Column of the cell.
+     * @return The number of elements in the specified cell.
+     * @throws ArgumentOutOfRangeException The cell is not in this grid.
+     */
+    public int count(int row, int column)
+    {
+        validateCell(row, column);
+        int cell = row * columnCount + column;
+        return cellStarts[cell + 1] - cellStarts[cell];
+    }
+
+    /**
+     * Gets a view of the elements in the specified cell, without copying them.
+     *
+     * @param row    Row of the cell.
+     * @param column Column of the cell.
+     * @return The elements in the specified cell.
+     * @throws ArgumentOutOfRangeException The cell is not in this grid.
+     */
+    public Iterable<T> getElements(int row, int column)
+    {
+        validateCell(row, column);
+        return () -> new PatchIterator(row, row, column, column);
+    }
+
+    /**
+     * Gets a view of the elements in the cells of the specified rows and columns, without copying them.
+     *
+     * @param minRow    The first row of the patch (inclusive).
+     * @param maxRow    The last row of the patch (inclusive).
+     * @param minColumn The first column of the patch (inclusive).
+     * @param maxColumn The last column of the patch (inclusive).
+     * @return The elements in the cells of the patch.
+     * @throws ArgumentOutOfRangeException A corner of the patch is not in this grid.
+     * @throws IllegalArgumentException     {@code minRow > maxRow} or {@code minColumn > maxColumn}.
+     */
+    public Iterable<T> getPatch(int minRow, int maxRow, int minColumn, int maxColumn)
+    {
+        validatePatch(minRow, maxRow, minColumn, maxColumn);
+        return () -> new PatchIterator(minRow, maxRow, minColumn, maxColumn);
+    }
+
+    /**
+     * Visits the elements in the cells of the specified rows and columns.
+     *
+     * @param minRow    The first row of the patch (inclusive).
+     * @param maxRow    The last row of the patch (inclusive).
+     * @param minColumn The first column of the patch (inclusive).
+     * @param maxColumn The last column of the patch (inclusive).
+     * @param visitor   The visitor to call for each element.
+     * @throws NullPointerException         {@code visitor} is null.
+     * @throws ArgumentOutOfRangeException A corner of the patch is not in this grid.
+     * @throws IllegalArgumentException     {@code minRow > maxRow} or {@code minColumn > maxColumn}.
+     */
+    public void forEachInPatch(int minRow, int maxRow, int minColumn, int maxColumn, IElementVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+        validatePatch(minRow, maxRow, minColumn, maxColumn);
+
+        visitPatch(minRow, maxRow, minColumn, maxColumn, visitor);
+    }
+
+    /**
+     * Gets a view of the elements within the cells that intersect with or inside the square that bounds the
+     * specified circle, without copying them. The center may be out of the bounds of this grid.
+     *
+     * @param x      X-coordinate of the circle.
+     * @param y      Y-coordinate of the circle.
+     * @param radius Radius of the circle.
+     * @return The elements within the cells that intersect with the square that bounds the circle.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> adjacent(double x, double y, double radius)
+    {
+        validateRadius(radius);
+        if (!intersects(x, y, radius))
+            return Collections::emptyIterator;
+
+        int minRow = rowOf(x - radius);
+        int maxRow = rowOf(x + radius);
+        int minColumn = columnOf(y - radius);
+        int maxColumn = columnOf(y + radius);
+        return () -> new PatchIterator(minRow, maxRow, minColumn, maxColumn);
+    }
+
+    /**
+     * Visits the elements within the cells that intersect with or inside the square that bounds the specified circle,
+     * like {@link #adjacent(double, double, double)}, without allocating anything.
+     *
+     * @param x       X-coordinate of the circle.
+     * @param y       Y-coordinate of the circle.
+     * @param radius  Radius of the circle.
+     * @param visitor The visitor to call for each element.
+     * @throws NullPointerException     {@code visitor} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public void forEachAdjacent(double x, double y, double radius, IElementVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+        validateRadius(radius);
+
+        if (intersects(x, y, radius))
+            visitPatch(rowOf(x - radius), rowOf(x + radius), columnOf(y - radius), columnOf(y + radius), visitor);
+    }
+
+    /**
+     * Returns {@code true} if the square that bounds the specified circle intersects with the bounds of this grid.
+     */
+    private boolean intersects(double x, double y, double radius)
+    {
+        return (x + radius >= minX) && (x - radius <= maxX) && (y + radius >= minY) && (y - radius <= maxY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void visitPatch(int minRow, int maxRow, int minColumn, int maxColumn, IElementVisitor<T> visitor)
+    {
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            // The columns of a row are contiguous, so the patch is one range per row.
+            int end = cellStarts[row * columnCount + maxColumn + 1];
+            for (int i = cellStarts[row * columnCount + minColumn]; i < end; i++)
+                visitor.visit(xs[i], ys[i], (T) elements[i]);
+        }
+    }
+
+    private void validateXY(double x, double y)
+    {
+        if (!(x >= minX) || !(x <= maxX))
+            throw new ArgumentOutOfRangeException("Argument \"x\" must between minX (" + minX + ") and maxX (" + maxX + ").");
+        if (!(y >= minY) || !(y <= maxY))
+            throw new ArgumentOutOfRangeException("Argument \"y\" must between minY (" + minY + ") and maxY (" + maxY + ").");
+    }
+
+    private void validateCell(int row, int column)
+    {
+        if ((row < 0) || (row >= rowCount))
+            throw new ArgumentOutOfRangeException("Argument \"row\" must be in range [0, rowCount (" + rowCount + ")).");
+        if ((column < 0) || (column >= columnCount))
+            throw new ArgumentOutOfRangeException("Argument \"column\" must be in range [0, columnCount (" + columnCount + ")).");
+    }
+
+    private void validatePatch(int minRow, int maxRow, int minColumn, int maxColumn)
+    {
+        if (minRow > maxRow)
+            throw new IllegalArgumentException("Argument \"minRow\" must be less than or equal to parameter \"maxRow\".");
+        if (minColumn > maxColumn)
+            throw new IllegalArgumentException("Argument \"minColumn\" must be less than or equal to parameter \"maxColumn\".");
+
+        validateCell(minRow, minColumn);
+        validateCell(maxRow, maxColumn);
+    }
+
+    private static void validateRadius(double radius)
+    {
+        if (!(radius >= 0))
+            throw new IllegalArgumentException("Argument \"radius\" must be greater than or equal to 0.");
+    }
+
+    /**
+     * The {@link PatchIterator} class iterates over the elements of a patch of cells, one contiguous range per row.
+     */
+    private final class PatchIterator implements Iterator<T>
+    {
+        private final int maxRow;
+        private final int minColumn;
+        private final int maxColumn;
+        private int row;
+        private int index;
+        private int end;
+
+        private PatchIterator(int minRow, int maxRow, int minColumn, int maxColumn)
+        {
+            this.maxRow = maxRow;
+            this.minColumn = minColumn;
+            this.maxColumn = maxColumn;
+            row = minRow;
+            index = cellStarts[row * columnCount + minColumn];
+            end = cellStarts[row * columnCount + maxColumn + 1];
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ((index == end) && (row < maxRow))
+            {
+                row++;
+                index = cellStarts[row * columnCount + minColumn];
+                end = cellStarts[row * columnCount + maxColumn + 1];
+            }
+
+            return index < end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            return (T) elements[index++];
+        }
+    }
+}
@@ -0,0 +1,1152 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.KeyNotFountException;
+import stark.dataworks.basic.collections.IDictionary;
+import stark.dataworks.basic.collections.KeyValuePair;
+
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link ConcurrentBTree} class represents a thread-safe ordered dictionary of generic key-value pairs, stored in
+ * a B+ tree whose nodes are synchronized by optimistic lock coupling.
+ * <p>
+ * Every node carries a version, and a writer locks a node by setting a bit of its version. Readers take no locks:
+ * they read the version of a node, read its content, and validate that the version has not changed, restarting from
+ * the root otherwise. While descending, the version of a child is read before its parent is validated, so a
+ * validated path is consistent from the root to the leaf.
+ * <p>
+ * Writers descend in the same way, and lock only the nodes they change. A leaf is locked to insert or remove a pair.
+ * A full node is split on the way down, before it is descended through, while only the node and its parent are
+ * locked, so a split never propagates to the ancestors.
+ * <p>
+ * Nodes are not merged on removal, and the leaves stay linked from left to right. Iterators are weakly consistent:
+ * they copy one leaf at a time, never throw {@link stark.dataworks.basic.InvalidOperationException}, and may or may
+ * not reflect modifications made after they are created.
+ * <p>
+ * Null keys and values are not allowed.
+ *
+ * @param <TKey>   The type of keys in the ConcurrentBTree.
+ * @param <TValue> The type of values in the ConcurrentBTree.
+ */
+public class ConcurrentBTree<TKey extends Comparable<TKey>, TValue> implements IDictionary<TKey, TValue>
+{
+    /**
+     * Default maximum number of children of an internal node, and maximum number of key-value pairs in a leaf.
+     */
+    public static final int DEFAULT_FANOUT = 64;
+
+    /**
+     * The bit of a version that is set while a writer holds the lock of the node.
+     */
+    private static final long LOCKED = 2;
+
+    /**
+     * Returned by the search helpers when they read a node that is being changed.
+     */
+    private static final int RESTART = -1;
+
+    private static final AtomicLongFieldUpdater<VersionedNode> VERSION = AtomicLongFieldUpdater.newUpdater(VersionedNode.class, "version");
+
+    /**
+     * The {@link VersionedNode} class holds the version of a node, which is also its lock.
+     */
+    private static class VersionedNode
+    {
+        /**
+         * Bit 1 is set while a writer holds the lock of the node. Unlocking adds {@link #LOCKED} again, so the
+         * version changes on every modification.
+         */
+        protected volatile long version;
+    }
+
+    /**
+     * The {@link Node} class is the base class of leaves and internal nodes of a {@link ConcurrentBTree}.
+     */
+    private abstract class Node extends VersionedNode
+    {
+        /**
+         * Number of keys in the {@link Node}.
+         */
+        protected int keyCount;
+
+        /**
+         * Keys of the {@link Node}, sorted in increasing order. Slots from keyCount are null.
+         */
+        protected final TKey[] keys;
+
+        @SuppressWarnings("unchecked")
+        protected Node(int keyCapacity)
+        {
+            keys = (TKey[]) new Comparable[keyCapacity];
+        }
+
+        protected boolean isFull()
+        {
+            return keyCount == keys.length;
+        }
+    }
+
+    /**
+     * The {@link Leaf} class represents a leaf of a {@link ConcurrentBTree}, which holds at most {@link #FANOUT}
+     * key-value pairs and is linked to its right sibling.
+     */
+    private final class Leaf extends Node
+    {
+        /**
+         * values[i] is the value associated with keys[i].
+         */
+        private final TValue[] values;
+
+        /**
+         * The right sibling of the {@link Leaf}, or null if it is the last leaf.
+         */
+        private Leaf next;
+
+        @SuppressWarnings("unchecked")
+        private Leaf()
+        {
+            super(FANOUT);
+            values = (TValue[]) new Object[FANOUT];
+        }
+    }
+
+    /**
+     * The {@link Internal} class represents an internal node of a {@link ConcurrentBTree}, which has at most
+     * {@link #FANOUT} children. children[i] contains the keys in the range [keys[i - 1], keys[i]).
+     */
+    private final class Internal extends Node
+    {
+        /**
+         * Children of the {@link Internal} node. The number of children is keyCount + 1.
+         */
+        private final Node[] children;
+
+        @SuppressWarnings("unchecked")
+        private Internal()
+        {
+            super(FANOUT - 1);
+            children = (Node[]) Array.newInstance(Node.class, FANOUT);
+        }
+    }
+
+    /**
+     * Maximum number of children of an internal node, and maximum number of key-value pairs in a leaf.
+     */
+    private final int FANOUT;
+
+    /**
+     * Root of the B+ tree. It is replaced, while the old root is locked, when the old root is split.
+     */
+    private volatile Node root;
+
+    /**
+     * The first leaf of the B+ tree, where a full scan starts. Splits move keys to the right, so it never changes.
+     */
+    private final Leaf first;
+
+    /**
+     * Number of key-value pairs in the B+ tree.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Initializes an empty {@link ConcurrentBTree} with {@link #DEFAULT_FANOUT}.
+     */
+    public ConcurrentBTree()
+    {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * Initializes an empty {@link ConcurrentBTree} with specified fanout.
+     *
+     * @param fanout Maximum number of children of an internal node, and maximum number of key-value pairs in a leaf.
+     * @throws IllegalArgumentException {@code fanout} is less than 3.
+     */
+    public ConcurrentBTree(int fanout)
+    {
+        if (fanout < 3)
+            throw new IllegalArgumentException("Argument \"fanout\" must be greater than or equal to 3.");
+
+        FANOUT = fanout;
+        root = first = new Leaf();
+    }
+
+    /**
+     * Waits until no writer holds the lock of the node, and returns its version.
+     *
+     * @param node The node.
+     * @return The version of the node, which is not locked.
+     */
+    private static long awaitVersion(VersionedNode node)
+    {
+        long version;
+        int spins = 0;
+        while (((version = node.version) & LOCKED) != 0)
+            backOff(++spins);
+
+        return version;
+    }
+
+    /**
+     * Returns {@code true} if the node has not changed since its version was read. The fence keeps the plain reads of
+     * the node before the version is read again.
+     *
+     * @param node    The node.
+     * @param version A version returned by {@link #awaitVersion(VersionedNode)}.
+     * @return {@code true} if the node has not changed; otherwise, {@code false}.
+     */
+    private static boolean validate(VersionedNode node, long version)
+    {
+        VarHandle.acquireFence();
+        return node.version == version;
+    }
+
+    /**
+     * Locks the node if it has not changed since its version was read. On success, everything read from the node
+     * after its version is consistent.
+     *
+     * @param node    The node.
+     * @param version A version returned by {@link #awaitVersion(VersionedNode)}.
+     * @return {@code true} if the node is locked; otherwise, {@code false}.
+     */
+    private static boolean tryUpgrade(VersionedNode node, long version)
+    {
+        VarHandle.acquireFence();
+        return VERSION.compareAndSet(node, version, version + LOCKED);
+    }
+
+    private static void lock(VersionedNode node)
+    {
+        while (!tryUpgrade(node, awaitVersion(node)))
+            Thread.onSpinWait();
+    }
+
+    private static void unlock(VersionedNode node)
+    {
+        // Only the holder of the lock writes the version, so there is no lost update.
+        node.version = node.version + LOCKED;
+    }
+
+    private static void backOff(int attempts)
+    {
+        if ((attempts & 7) == 0)
+            Thread.yield();
+        else
+            Thread.onSpinWait();
+    }
+
+    /**
+     * Returns the index of the child of the given internal node that may contain the specified key, which is the
+     * number of separators that are less than or equal to the key.
+     *
+     * @param node The internal node, which may be read without its lock.
+     * @param key  The specified key.
+     * @return The index of the child that may contain the specified key, or {@link #RESTART} if the node is being
+     * changed.
+     */
+    private int childIndex(Internal node, TKey key)
+    {
+        int low = 0;
+        int high = node.keyCount;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            TKey separator = node.keys[middle];
+            if (separator == null)
+                return RESTART;
+
+            if (key.compareTo(separator) < 0)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the index of the first key in the given leaf that is greater than or equal to the specified key, or the
+     * number of keys in the leaf if there is no such key.
+     *
+     * @param leaf The leaf, which may be read without its lock.
+     * @param key  The specified key.
+     * @return The index of the first key that is greater than or equal to the specified key, or {@link #RESTART} if
+     * the leaf is being changed.
+     */
+    private int lowerBound(Leaf leaf, TKey key)
+    {
+        int low = 0;
+        int high = leaf.keyCount;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            TKey current = leaf.keys[middle];
+            if (current == null)
+                return RESTART;
+
+            if (current.compareTo(key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the leaf that may contain the specified key by an optimistic descent from the root.
+     *
+     * @param key         The specified key.
+     * @param leafVersion Receives the version of the returned leaf at index 0. The leaf covers the key as long as it
+     *                    still has this version.
+     * @return The leaf that may contain the specified key.
+     */
+    private Leaf findLeaf(TKey key, long[] leafVersion)
+    {
+        int attempts = 0;
+
+        restart:
+        while (true)
+        {
+            if (attempts++ > 0)
+                backOff(attempts);
+
+            Node node = root;
+            long version = awaitVersion(node);
+
+            // The root may have been split and replaced after it is read.
+            if (node != root)
+                continue;
+
+            while (node instanceof Internal)
+            {
+                Internal internal = (Internal) node;
+                int i = childIndex(internal, key);
+                if (i == RESTART)
+                    continue restart;
+
+                Node child = internal.children[i];
+                if ((child == null) || !validate(internal, version))
+                    continue restart;
+
+                long childVersion = awaitVersion(child);
+                if (!validate(internal, version))
+                    continue restart;
+
+                node = child;
+                version = childVersion;
+            }
+
+            leafVersion[0] = version;
+            return (Leaf) node;
+        }
+    }
+
+    /**
+     * Finds the value associated with the specified key.
+     *
+     * @param key The specified key.
+     * @return The value associated with the specified key, or null if the key is not in the {@link ConcurrentBTree}.
+     */
+    private TValue find(TKey key)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+
+        long[] version = new long[1];
+        while (true)
+        {
+            Leaf leaf = findLeaf(key, version);
+            int i = lowerBound(leaf, key);
+            if (i == RESTART)
+                continue;
+
+            TValue value = null;
+            if (i < leaf.keyCount)
+            {
+                TKey current = leaf.keys[i];
+                if ((current != null) && (current.compareTo(key) == 0))
+                    value = leaf.values[i];
+            }
+
+            if (validate(leaf, version[0]))
+                return value;
+        }
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws NullPointerException The specified key is null.
+     * @throws KeyNotFountException The specified key is not in the {@link ConcurrentBTree}.
+     */
+    @Override
+    public TValue get(TKey key)
+    {
+        TValue value = find(key);
+        if (value == null)
+            throw new KeyNotFountException("The specified key is not in the ConcurrentBTree.");
+
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the specified key, or the specified default value if the key is not in the
+     * {@link ConcurrentBTree}.
+     *
+     * @param key          The key of the element to get.
+     * @param defaultValue The value to return if the key is not in the {@link ConcurrentBTree}.
+     * @return The value associated with the specified key, or {@code defaultValue}.
+     * @throws NullPointerException The specified key is null.
+     */
+    public TValue getOrDefault(TKey key, TValue defaultValue)
+    {
+        TValue value = find(key);
+        return (value != null) ? value : defaultValue;
+    }
+
+    /**
+     * Sets the value associated with the specified key.
+     * If the specified key does not exist in the {@link ConcurrentBTree}, the the key is added to the
+     * {@link ConcurrentBTree}.
+     *
+     * @param key   The key of the element to set.
+     * @param value The new value associated with the specified key.
+     * @throws NullPointerException The specified key or value is null.
+     */
+    @Override
+    public void set(TKey key, TValue value)
+    {
+        insert(key, value, false);
+    }
+
+    /**
+     * Sets the value associated with the specified key, and returns the previous value.
+     *
+     * @param key   The key of the element to set.
+     * @param value The new value associated with the specified key.
+     * @return The previous value associated with the key, or null if the key is added.
+     * @throws NullPointerException The specified key or value is null.
+     */
+    public TValue put(TKey key, TValue value)
+    {
+        return insert(key, value, false);
+    }
+
+    /**
+     * Adds the specified key-value pair if the key is not in the {@link ConcurrentBTree}.
+     *
+     * @param key   The key of the element to add.
+     * @param value The value of the element to add.
+     * @return {@code true} if the pair is added; {@code false} if the key already exists.
+     * @throws NullPointerException The specified key or value is null.
+     */
+    public boolean tryAdd(TKey key, TValue value)
+    {
+        return insert(key, value, true) == null;
+    }
+
+    /**
+     * Inserts the specified key-value pair. Full nodes on the way down are split first, and the descent restarts
+     * after every split.
+     *
+     * @param key          Key of the key-value pair to insert.
+     * @param value        Value of the key-value pair to insert.
+     * @param onlyIfAbsent A boolean flag that indicates if an existing value should be kept.
+     * @return The value associated with the key before this call, or null if the key is added.
+     */
+    private TValue insert(TKey key, TValue value, boolean onlyIfAbsent)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+        if (value == null)
+            throw new NullPointerException("The argument \"value\" cannot be null.");
+
+        int attempts = 0;
+
+        restart:
+        while (true)
+        {
+            if (attempts++ > 0)
+                backOff(attempts);
+
+            Node node = root;
+            long version = awaitVersion(node);
+            if (node != root)
+                continue;
+
+            Internal parent = null;
+            long parentVersion = 0;
+            while (true)
+            {
+                if (node.isFull())
+                {
+                    // The parent was not full when it was descended through, so it has room for the separator.
+                    if ((parent != null) && !tryUpgrade(parent, parentVersion))
+                        continue restart;
+                    if (!tryUpgrade(node, version))
+                    {
+                        if (parent != null)
+                            unlock(parent);
+                        continue restart;
+                    }
+
+                    if ((parent == null) && (node != root))
+                        unlock(node);
+                    else
+                    {
+                        split(parent, node);
+                        unlock(node);
+                        if (parent != null)
+                            unlock(parent);
+                    }
+
+                    continue restart;
+                }
+
+                if (node instanceof Leaf)
+                    break;
+
+                Internal internal = (Internal) node;
+                int i = childIndex(internal, key);
+                if (i == RESTART)
+                    continue restart;
+
+                Node child = internal.children[i];
+                if (child == null)
+                    continue restart;
+
+                long childVersion = awaitVersion(child);
+                if (!validate(internal, version))
+                    continue restart;
+
+                parent = internal;
+                parentVersion = version;
+                node = child;
+                version = childVersion;
+            }
+
+            // The leaf covers the key as long as it has the version read before its parent was validated.
+            Leaf leaf = (Leaf) node;
+            int i = lowerBound(leaf, key);
+            if (i == RESTART)
+                continue;
+
+            int keyCount = leaf.keyCount;
+            TKey current = (i < keyCount) ? leaf.keys[i] : null;
+            boolean found = (current != null) && (current.compareTo(key) == 0);
+            if (found && onlyIfAbsent)
+            {
+                TValue existing = leaf.values[i];
+                if ((existing == null) || !validate(leaf, version))
+                    continue;
+
+                return existing;
+            }
+
+            // Everything read above is consistent if the leaf is locked at the same version.
+            if (!tryUpgrade(leaf, version))
+                continue;
+
+            if (found)
+            {
+                TValue previous = leaf.values[i];
+                leaf.values[i] = value;
+                unlock(leaf);
+                return previous;
+            }
+
+            System.arraycopy(leaf.keys, i, leaf.keys, i + 1, keyCount - i);
+            System.arraycopy(leaf.values, i, leaf.values, i + 1, keyCount - i);
+            leaf.keys[i] = key;
+            leaf.values[i] = value;
+            leaf.keyCount = keyCount + 1;
+            unlock(leaf);
+            count.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Splits a full node into 2 halves, and inserts the separator into the parent, or into a new root if the node is
+     * the root. The caller holds the locks of the node and the parent.
+     *
+     * @param parent The parent of the node, which is not full, or null if the node is the root.
+     * @param node   The full node to split.
+     */
+    private void split(Internal parent, Node node)
+    {
+        TKey separator;
+        Node right;
+        if (node instanceof Leaf)
+        {
+            Leaf leaf = (Leaf) node;
+            Leaf rightLeaf = new Leaf();
+            int half = leaf.keyCount / 2;
+            int moved = leaf.keyCount - half;
+            System.arraycopy(leaf.keys, half, rightLeaf.keys, 0, moved);
+            System.arraycopy(leaf.values, half, rightLeaf.values, 0, moved);
+            rightLeaf.keyCount = moved;
+            rightLeaf.next = leaf.next;
+
+            Arrays.fill(leaf.keys, half, leaf.keyCount, null);
+            Arrays.fill(leaf.values, half, leaf.keyCount, null);
+            leaf.keyCount = half;
+            leaf.next = rightLeaf;
+
+            separator = rightLeaf.keys[0];
+            right = rightLeaf;
+        }
+        else
+        {
+            // The middle key moves up, and the keys and children behind it move to the new node.
+            Internal internal = (Internal) node;
+            Internal rightInternal = new Internal();
+            int half = internal.keyCount / 2;
+            int moved = internal.keyCount - half - 1;
+            System.arraycopy(internal.keys, half + 1, rightInternal.keys, 0, moved);
+            System.arraycopy(internal.children, half + 1, rightInternal.children, 0, moved + 1);
+            rightInternal.keyCount = moved;
+
+            separator = internal.keys[half];
+            Arrays.fill(internal.keys, half, internal.keyCount, null);
+            Arrays.fill(internal.children, half + 1, internal.keyCount + 1, null);
+            internal.keyCount = half;
+
+            right = rightInternal;
+        }
+
+        if (parent == null)
+        {
+            Internal newRoot = new Internal();
+            newRoot.keys[0] = separator;
+            newRoot.children[0] = node;
+            newRoot.children[1] = right;
+            newRoot.keyCount = 1;
+
+            // Published before the old root is unlocked, so a reader that validates the old root sees the new one.
+            root = newRoot;
+            return;
+        }
+
+        int i = childIndex(parent, separator);
+        System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.keyCount - i);
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.keyCount - i);
+        parent.keys[i] = separator;
+        parent.children[i + 1] = right;
+        parent.keyCount++;
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the keys of the {@link ConcurrentBTree} in increasing order.
+     *
+     * @return an {@link Iterable} containing all the keys of the {@link ConcurrentBTree}.
+     */
+    @Override
+    public Iterable<TKey> keys()
+    {
+        return () -> new KeyCursor(null, null);
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the values of the {@link ConcurrentBTree} in the order of their keys.
+     *
+     * @return an {@link Iterable} containing all the values of the {@link ConcurrentBTree}.
+     */
+    @Override
+    public Iterable<TValue> values()
+    {
+        return () -> new ValueCursor(null, null);
+    }
+
+    /**
+     * Gets an {@link Iterable} containing the key-value pairs whose keys are in the range [fromKey, toKey], in
+     * increasing order of keys. The iteration is weakly consistent.
+     *
+     * @param fromKey The lower bound of the range (inclusive).
+     * @param toKey   The upper bound of the range (inclusive).
+     * @return an {@link Iterable} containing the key-value pairs in the range.
+     * @throws NullPointerException {@code fromKey} or {@code toKey} is null.
+     */
+    public Iterable<KeyValuePair<TKey, TValue>> entries(TKey fromKey, TKey toKey)
+    {
+        if (fromKey == null)
+            throw new NullPointerException("The argument \"fromKey\" cannot be null.");
+        if (toKey == null)
+            throw new NullPointerException("The argument \"toKey\" cannot be null.");
+
+        return () -> new KeyValuePairCursor(fromKey, toKey);
+    }
+
+    /**
+     * Adds an element with the provided key and value to this {@link ConcurrentBTree}.
+     *
+     * @param key   The object to use as the key of the element to add.
+     * @param value The object to use as the value of the element to add.
+     * @throws NullPointerException     The given "key" or "value" is null.
+     * @throws IllegalArgumentException The specified key exists in the {@link ConcurrentBTree}.
+     */
+    @Override
+    public void add(TKey key, TValue value)
+    {
+        if (!tryAdd(key, value))
+            throw new IllegalArgumentException("The specified key is already in the ConcurrentBTree.");
+    }
+
+    /**
+     * Adds an element with the provided key-value pair to this {@link ConcurrentBTree}.
+     *
+     * @param keyValuePair The key-value pair to add.
+     * @throws NullPointerException     The key or value of the given pair is null.
+     * @throws IllegalArgumentException The specified key exists in the {@link ConcurrentBTree}.
+     */
+    @Override
+    public void add(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+
+        add(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Determines whether this {@link ConcurrentBTree} contains an element with the specified key.
+     *
+     * @param key The key to locate in this {@link ConcurrentBTree}.
+     * @return <code>true</code> if this {@link ConcurrentBTree} contains an element with the key; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKey(TKey key)
+    {
+        return find(key) != null;
+    }
+
+    /**
+     * Determines whether this {@link ConcurrentBTree} contains an element with the specified value. This method
+     * traverses the whole tree.
+     *
+     * @param value The value to locate in this {@link ConcurrentBTree}.
+     * @return <code>true</code> if this {@link ConcurrentBTree} contains an element with the value; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean containsValue(TValue value)
+    {
+        if (value == null)
+            return false;
+
+        for (TValue current : values())
+        {
+            if (value.equals(current))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link ConcurrentBTree} contains an element with the specified key and value.
+     *
+     * @param key   The key to locate in this {@link ConcurrentBTree}.
+     * @param value The value associated with the specified key.
+     * @return <code>true</code> if this {@link ConcurrentBTree} contains an element with the key and value; otherwise,
+     * <code>false</code>.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean containsKeyValue(TKey key, TValue value)
+    {
+        TValue current = find(key);
+        return (current != null) && current.equals(value);
+    }
+
+    /**
+     * Tries to remove a {@link KeyValuePair} with the specified key.
+     *
+     * @param key The key of the element to remove.
+     * @return <code>true</code> if the element is successfully removed; otherwise, <code>false</code>. This method
+     * also returns <code>false</code> if key was not found in the original {@link ConcurrentBTree}.
+     * @throws NullPointerException The specified key is null.
+     */
+    @Override
+    public boolean removeByKey(TKey key)
+    {
+        return remove(key, null) != null;
+    }
+
+    /**
+     * Removes the element with the specified key, and returns its value.
+     *
+     * @param key The key of the element to remove.
+     * @return The value of the removed element, or null if the key is not in the {@link ConcurrentBTree}.
+     * @throws NullPointerException The specified key is null.
+     */
+    public TValue tryRemove(TKey key)
+    {
+        return remove(key, null);
+    }
+
+    /**
+     * Removes the first occurrence of a specific object from this {@link ConcurrentBTree}.
+     *
+     * @param keyValuePair The object to remove from this {@link ConcurrentBTree}.
+     * @return <code>true</code> if item was successfully removed from the {@link ConcurrentBTree}; otherwise,
+     * <code>false</code>. This method also returns <code>false</code> if item is not found in the original
+     * {@link ConcurrentBTree}.
+     */
+    @Override
+    public boolean remove(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+        if (keyValuePair.getValue() == null)
+            return false;
+
+        return remove(keyValuePair.getKey(), keyValuePair.getValue()) != null;
+    }
+
+    /**
+     * Removes the key-value pair with the specified key from its leaf. The leaf is locked only if the pair is found,
+     * and it is not merged with its siblings when it becomes empty.
+     *
+     * @param key           Key of the key-value pair.
+     * @param expectedValue If it is not null, the pair is removed only if its value equals it.
+     * @return The value of the removed pair, or null if nothing is removed.
+     */
+    private TValue remove(TKey key, TValue expectedValue)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+
+        long[] version = new long[1];
+        while (true)
+        {
+            Leaf leaf = findLeaf(key, version);
+            int i = lowerBound(leaf, key);
+            if (i == RESTART)
+                continue;
+
+            int keyCount = leaf.keyCount;
+            TKey current = (i < keyCount) ? leaf.keys[i] : null;
+            TValue value = (current != null) ? leaf.values[i] : null;
+            boolean found = (current != null) && (value != null) && (current.compareTo(key) == 0);
+            if (!found || ((expectedValue != null) && !expectedValue.equals(value)))
+            {
+                if (validate(leaf, version[0]))
+                    return null;
+                continue;
+            }
+
+            if (!tryUpgrade(leaf, version[0]))
+                continue;
+
+            System.arraycopy(leaf.keys, i + 1, leaf.keys, i, keyCount - i - 1);
+            System.arraycopy(leaf.values, i + 1, leaf.values, i, keyCount - i - 1);
+            leaf.keys[keyCount - 1] = null;
+            leaf.values[keyCount - 1] = null;
+            leaf.keyCount = keyCount - 1;
+            unlock(leaf);
+            count.decrement();
+            return value;
+        }
+    }
+
+    /**
+     * Removes all entries from this {@link ConcurrentBTree}, by emptying the leaves one by one. Elements added
+     * concurrently may survive, and the internal nodes are kept.
+     */
+    @Override
+    public void clear()
+    {
+        for (Leaf leaf = first; leaf != null; )
+        {
+            lock(leaf);
+            int removed = leaf.keyCount;
+            Arrays.fill(leaf.keys, 0, removed, null);
+            Arrays.fill(leaf.values, 0, removed, null);
+            leaf.keyCount = 0;
+            Leaf next = leaf.next;
+            unlock(leaf);
+
+            count.add(-removed);
+            leaf = next;
+        }
+    }
+
+    /**
+     * Returns a weakly consistent iterator over all key-value pairs of the {@link ConcurrentBTree}.
+     *
+     * @return an iterator over all key-value pairs of the {@link ConcurrentBTree}.
+     */
+    @Override
+    public Iterator<KeyValuePair<TKey, TValue>> iterator()
+    {
+        return new KeyValuePairCursor(null, null);
+    }
+
+    /**
+     * Gets the number of elements contained in this {@link ConcurrentBTree}. The result is not exact while the tree is
+     * modified concurrently.
+     *
+     * @return The number of elements contained in this {@link ConcurrentBTree}.
+     */
+    @Override
+    public int count()
+    {
+        long n = count.sum();
+        if (n < 0)
+            return 0;
+        return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Determines whether this {@link ConcurrentBTree} contains a specific value.
+     *
+     * @param keyValuePair The value to locate in this {@link ConcurrentBTree}.
+     * @return <code>true</code> if the specified value is found in this {@link ConcurrentBTree}; otherwise,
+     * <code>false</code>.
+     */
+    @Override
+    public boolean contains(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+
+        return containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Copies the elements of this {@link ConcurrentBTree} to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from this
+     *              {@link ConcurrentBTree}. The array must have zero-based indexing.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the source {@link ConcurrentBTree} is greater than
+     *                                  the length of the destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of this {@link ConcurrentBTree} to an array, starting at a particular array index. The
+     * elements are collected before copying, so the space is checked against the elements actually copied.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from this
+     *                   {@link ConcurrentBTree}. The array must have zero-based indexing.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException {@code startIndex} is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the source {@link ConcurrentBTree} is greater
+     *                                        than the available space from <code>startIndex</code> to the end of the
+     *                                        destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+
+        ArrayList<KeyValuePair<TKey, TValue>> elements = new ArrayList<>(count());
+        for (KeyValuePair<TKey, TValue> kvp : this)
+            elements.add(kvp);
+
+        if (array.length < startIndex + elements.size())
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        for (KeyValuePair<TKey, TValue> kvp : elements)
+            array[startIndex++] = kvp;
+    }
+
+    /**
+     * The {@link Cursor} class walks the linked leaves of the {@link ConcurrentBTree}, and copies one leaf at a time
+     * under a validated version. A split moves keys to a new right sibling of the leaf, and the copy of a leaf and its
+     * next link are taken at the same version, so no key is returned twice or skipped because of a split.
+     *
+     * @param <T> Type of the items returned by the cursor.
+     */
+    private abstract class Cursor<T> implements Iterator<T>
+    {
+        private final TKey[] keys;
+        private final TValue[] values;
+
+        /**
+         * Number of pairs copied from the current leaf.
+         */
+        private int copied;
+
+        /**
+         * Index of the next pair in the copy.
+         */
+        private int index;
+
+        /**
+         * The leaf to copy after the current one, or null if the current leaf is the last one.
+         */
+        private Leaf nextLeaf;
+
+        /**
+         * The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        private final TKey toKey;
+
+        /**
+         * Initializes a cursor positioned at the first pair whose key is greater than or equal to {@code fromKey}.
+         *
+         * @param fromKey The lower bound of the keys to return (inclusive), or null if unbounded.
+         * @param toKey   The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        @SuppressWarnings("unchecked")
+        private Cursor(TKey fromKey, TKey toKey)
+        {
+            this.toKey = toKey;
+            keys = (TKey[]) new Comparable[FANOUT];
+            values = (TValue[]) new Object[FANOUT];
+
+            if (fromKey == null)
+                nextLeaf = first;
+            else
+            {
+                long[] version = new long[1];
+                while (!tryCopy(findLeaf(fromKey, version), version[0], fromKey))
+                    Thread.onSpinWait();
+            }
+        }
+
+        /**
+         * Copies the pairs of a leaf whose keys are greater than or equal to {@code fromKey}, and its next link.
+         *
+         * @param leaf    The leaf to copy.
+         * @param version The version of the leaf read before copying.
+         * @param fromKey The lower bound of the keys to copy, or null if unbounded.
+         * @return {@code true} if the copy is consistent; otherwise, {@code false}.
+         */
+        private boolean tryCopy(Leaf leaf, long version, TKey fromKey)
+        {
+            int keyCount = leaf.keyCount;
+            int start = (fromKey == null) ? 0 : lowerBound(leaf, fromKey);
+            if ((start == RESTART) || (start > keyCount))
+                return false;
+
+            int n = keyCount - start;
+            System.arraycopy(leaf.keys, start, keys, 0, n);
+            System.arraycopy(leaf.values, start, values, 0, n);
+            Leaf next = leaf.next;
+            if (!validate(leaf, version))
+                return false;
+
+            copied = n;
+            index = 0;
+            nextLeaf = next;
+            return true;
+        }
+
+        protected abstract T getItem(TKey key, TValue value);
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext()
+        {
+            while ((index == copied) && (nextLeaf != null))
+            {
+                Leaf leaf = nextLeaf;
+                while (!tryCopy(leaf, awaitVersion(leaf), null))
+                    Thread.onSpinWait();
+            }
+
+            return (index < copied) && ((toKey == null) || (keys[index].compareTo(toKey) <= 0));
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            T item = getItem(keys[index], values[index]);
+            index++;
+            return item;
+        }
+    }
+
+    private final class KeyCursor extends Cursor<TKey>
+    {
+        private KeyCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TKey getItem(TKey key, TValue value)
+        {
+            return key;
+        }
+    }
+
+    private final class ValueCursor extends Cursor<TValue>
+    {
+        private ValueCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TValue getItem(TKey key, TValue value)
+        {
+            return value;
+        }
+    }
+
+    private final class KeyValuePairCursor extends Cursor<KeyValuePair<TKey, TValue>>
+    {
+        private KeyValuePairCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected KeyValuePair<TKey, TValue> getItem(TKey key, TValue value)
+        {
+            return new KeyValuePair<>(key, value);
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+import stark.dataworks.basic.collections.LinkedList;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link ConcurrentGridIndex} class represents a thread-safe 2-D grid index, which can be updated by multiple
+ * threads while it is being queried.
+ * <p>
+ * Every cell is an immutable snapshot of the coordinates and elements of the cell, which is replaced as a whole by
+ * writers. Readers never take a lock: they read the snapshots through volatile references, so a query sees every cell
+ * either before or after any update of it. Writers lock one of a fixed number of stripes, chosen by the cell, so
+ * writers to cells of different stripes never contend.
+ * <p>
+ * An element is appended to a cell in place, behind the count of the current snapshot, and published by a new snapshot
+ * that shares the arrays, so an addition costs amortized O(1). Removing an element copies the arrays of the cell.
+ * <p>
+ * Iterables returned by {@link #getElements(int, int)}, {@link #getPatch(int, int, int, int)} and the
+ * {@code adjacent} methods capture the snapshots of their cells when they are returned, so iterating over them never
+ * blocks, never throws {@link stark.dataworks.basic.InvalidOperationException}, and doesn't reflect later updates.
+ * Unlike {@link GridIndex}, the bounds of this grid are fixed.
+ *
+ * @param <T> The data type for elements stored in this index.
+ */
+public class ConcurrentGridIndex<T>
+{
+    /**
+     * The {@link Cell} class is an immutable snapshot of a cell. The first {@link #count} entries of the arrays never
+     * change after the snapshot is published, while entries behind them may be written for newer snapshots.
+     */
+    private static final class Cell
+    {
+        private final double[] xs;
+        private final double[] ys;
+        private final Object[] elements;
+        private final int count;
+
+        private Cell(double[] xs, double[] ys, Object[] elements, int count)
+        {
+            this.xs = xs;
+            this.ys = ys;
+            this.elements = elements;
+            this.count = count;
+        }
+    }
+
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+    private final double xInterval;
+    private final double yInterval;
+    private final int rowCount;
+    private final int columnCount;
+
+    /**
+     * Snapshots of the cells in row-major order, where a null entry is an empty cell.
+     */
+    private final AtomicReferenceArray<Cell> cells;
+
+    /**
+     * Locks of the writers, where the cell at index i is guarded by locks[i & stripeMask].
+     */
+    private final Object[] locks;
+    private final int stripeMask;
+    private final LongAdder count;
+
+    /**
+     * Initializes a grid index with specified arguments and 4 lock stripes per available processor.
+     *
+     * @param minX        The minimum on x direction.
+     * @param maxX        The maximum on x direction.
+     * @param minY        The minimum on y direction.
+     * @param maxY        The maximum on y direction.
+     * @param rowCount    Number of rows in this grid.
+     * @param columnCount Number of columns in this grid.
+     */
+    public ConcurrentGridIndex(double minX, double maxX, double minY, double maxY, int rowCount, int columnCount)
+    {
+        this(minX, maxX, minY, maxY, rowCount, columnCount, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Initializes a grid index with specified arguments.
+     *
+     * @param minX        The minimum on x direction.
+     * @param maxX        The maximum on x direction.
+     * @param minY        The minimum on y direction.
+     * @param maxY        The maximum on y direction.
+     * @param rowCount    Number of rows in this grid.
+     * @param columnCount Number of columns in this grid.
+     * @param stripeCount The expected number of concurrent writers, which is rounded up to a power of 2 and capped by
+     *                    the number of cells.
+     * @throws IllegalArgumentException The bounds are empty or NaN, or {@code rowCount}, {@code columnCount} or
+     *                                  {@code stripeCount} is less than 1.
+     */
+    public ConcurrentGridIndex(double minX, double maxX, double minY, double maxY, int rowCount, int columnCount, int stripeCount)
+    {
+        if (!(minX < maxX))
+            throw new IllegalArgumentException("Argument \"minX\" must be less than parameter \"maxX\".");
+        if (!(minY < maxY))
+            throw new IllegalArgumentException("Argument \"minY\" must be less than parameter \"maxY\".");
+        if (rowCount < 1)
+            throw new IllegalArgumentException("Argument \"rowCount\" must be greater than 0.");
+        if (columnCount < 1)
+            throw new IllegalArgumentException("Argument \"columnCount\" must be greater than 0.");
+        if (stripeCount < 1)
+            throw new IllegalArgumentException("Argument \"stripeCount\" must be greater than 0.");
+
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        xInterval = (maxX - minX) / rowCount;
+        yInterval = (maxY - minY) / columnCount;
+
+        int cellCount = Math.multiplyExact(rowCount, columnCount);
+        cells = new AtomicReferenceArray<>(cellCount);
+
+        int lockCount = 1;
+        while ((lockCount < stripeCount) && (lockCount < cellCount))
+            lockCount <<= 1;
+        locks = new Object[lockCount];
+        for (int i = 0; i < lockCount; i++)
+            locks[i] = new Object();
+        stripeMask = lockCount - 1;
+
+        count = new LongAdder();
+    }
+
+    /**
+     * Gets the minimum of x.
+     *
+     * @return The minimum of x.
+     */
+    public double getMinX()
+    {
+        return minX;
+    }
+
+    /**
+     * Gets the minimum of y.
+     *
+     * @return The minimum of y.
+     */
+    public double getMinY()
+    {
+        return minY;
+    }
+
+    /**
+     * Gets the maximum of x.
+     *
+     * @return The maximum of x.
+     */
+    public double getMaxX()
+    {
+        return maxX;
+    }
+
+    /**
+     * Gets the maximum of y.
+     *
+     * @return The maximum of y.
+     */
+    public double getMaxY()
+    {
+        return maxY;
+    }
+
+    /**
+     * Gets the number of rows in this grid.
+     *
+     * @return The number of rows in this grid.
+     */
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of columns in this grid.
+     *
+     * @return The number of columns in this grid.
+     */
+    public int getColumnCount()
+    {
+        return columnCount;
+    }
+
+    /**
+     * Gets the number of elements in this grid. The result is exact only when no element is being added or removed.
+     *
+     * @return The number of elements in this grid.
+     */
+    public int count()
+    {
+        return (int) count.sum();
+    }
+
+    /**
+     * Adds an element with specified coordinate to this grid.
+     *
+     * @param x       X-coordinate of this element.
+     * @param y       Y-coordinate of this element
+     * @param element The element to add.
+     * @throws ArgumentOutOfRangeException The coordinate is out of the bounds of this grid.
+     */
+    public void add(double x, double y, T element)
+    {
+        validateXY(x, y);
+
+        int index = rowOf(x) * columnCount + columnOf(y);
+        synchronized (locks[index & stripeMask])
+        {
+            Cell cell = cells.get(index);
+            double[] xs;
+            double[] ys;
+            Object[] elements;
+            int n;
+            if (cell == null)
+            {
+                xs = new double[INITIAL_CELL_CAPACITY];
+                ys = new double[INITIAL_CELL_CAPACITY];
+                elements = new Object[INITIAL_CELL_CAPACITY];
+                n = 0;
+            }
+            else if (cell.count == cell.elements.length)
+            {
+                n = cell.count;
+                xs = Arrays.copyOf(cell.xs, n * 2);
+                ys = Arrays.copyOf(cell.ys, n * 2);
+                elements = Arrays.copyOf(cell.elements, n * 2);
+            }
+            else
+            {
+                // Only the current snapshot can grow in place, and no published snapshot reads behind its count.
+                n = cell.count;
+                xs = cell.xs;
+                ys = cell.ys;
+                elements = cell.elements;
+            }
+
+            xs[n] = x;
+            ys[n] = y;
+            elements[n] = element;
+            cells.set(index, new Cell(xs, ys, elements, n + 1));
+        }
+
+        count.increment();
+    }
+
+    /**
+     * Tries to remove the element in the specified cell.
+     *
+     * @param x       X-index of the cell.
+     * @param y       Y-index of the cell.
+     * @param element The element to remove.
+     * @return True if the element is removed; false if the cell doesn't contain the element.
+     * @throws ArgumentOutOfRangeException The cell is out of this grid.
+     */
+    public boolean remove(int x, int y, T element)
+    {
+        validateXY(x, y);
+
+        int index = x * columnCount + y;
+        synchronized (locks[index & stripeMask])
+        {
+            Cell cell = cells.get(index);
+            if (cell == null)
+                return false;
+
+            for (int i = 0; i < cell.count; i++)
+            {
+                Object current = cell.elements[i];
+                if ((element == null) ? (current == null) : element.equals(current))
+                {
+                    int n = cell.count - 1;
+                    if (n == 0)
+                        cells.set(index, null);
+                    else
+                    {
+                        // Published snapshots still read the old arrays, so the remaining entries are copied.
+                        int capacity = cell.elements.length;
+                        double[] xs = new double[capacity];
+                        double[] ys = new double[capacity];
+                        Object[] elements = new Object[capacity];
+                        System.arraycopy(cell.xs, 0, xs, 0, i);
+                        System.arraycopy(cell.ys, 0, ys, 0, i);
+                        System.arraycopy(cell.elements, 0, elements, 0, i);
+                        System.arraycopy(cell.xs, i + 1, xs, i, n - i);
+                        System.arraycopy(cell.ys, i + 1, ys, i, n - i);
+                        System.arraycopy(cell.elements, i + 1, elements, i, n - i);
+                        cells.set(index, new Cell(xs, ys, elements, n));
+                    }
+
+                    count.decrement();
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Clears all elements in the specified cell.
+     *
+     * @param x X-index of the cell.
+     * @param y Y-index of the cell.
+     * @throws ArgumentOutOfRangeException The cell is out of this grid.
+     */
+    public void clear(int x, int y)
+    {
+        validateXY(x, y);
+        clear(x * columnCount + y);
+    }
+
+    /**
+     * Clears all elements in this grid, one cell at a time.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < cells.length(); i++)
+        {
+            if (cells.get(i) != null)
+                clear(i);
+        }
+    }
+
+    private void clear(int index)
+    {
+        synchronized (locks[index & stripeMask])
+        {
+            Cell cell = cells.get(index);
+            if (cell != null)
+            {
+                cells.set(index, null);
+                count.add(-cell.count);
+            }
+        }
+    }
+
+    /**
+     * Gets a snapshot of the elements in the specified cell.
+     *
+     * @param x X-index of the cell.
+     * @param y Y-index of the cell.
+     * @return The elements in the specified cell when this method is called.
+     * @throws ArgumentOutOfRangeException The cell is out of this grid.
+     */
+    public Iterable<T> getElements(int x, int y)
+    {
+        return getPatch(x, x, y, y);
+    }
+
+    /**
+     * Gets a snapshot of the elements in the specified range of cells.
+     *
+     * @param minX The minimum X-index of the cells.
+     * @param maxX The maximum X-index of the cells.
+     * @param minY The minimum Y-index of the cells.
+     * @param maxY The maximum Y-index of the cells.
+     * @return The elements in the specified cells when this method is called.
+     * @throws IllegalArgumentException    The range is empty.
+     * @throws ArgumentOutOfRangeException The range is out of this grid.
+     */
+    public Iterable<T> getPatch(int minX, int maxX, int minY, int maxY)
+    {
+        validateRange(minX, maxX, minY, maxY);
+        validateXY(minX, minY);
+        validateXY(maxX, maxY);
+        return snapshot(minX, maxX, minY, maxY);
+    }
+
+    /**
+     * Gets a snapshot of the elements within the cells intersect with or inside the specified circle.
+     *
+     * @param x      X-coordinate of the circle.
+     * @param y      Y-coordinate of the circle.
+     * @param radius Radius of the circle.
+     * @return The elements within the cells that intersect with or inside the specified circle.
+     * @throws ArgumentOutOfRangeException The center is out of the bounds of this grid.
+     */
+    public Iterable<T> adjacent(double x, double y, double radius)
+    {
+        int xSpan = (int) (radius / xInterval) + 1;
+        int ySpan = (int) (radius / yInterval) + 1;
+        return adjacent(x, y, xSpan, ySpan);
+    }
+
+    /**
+     * Gets a snapshot of the elements within the cells centered at the cell that contains (x, y) and specified range.
+     *
+     * @param x     X-coordinate of the center.
+     * @param y     Y-coordinate of the center.
+     * @param xSpan Number of cells to include on each side on x direction.
+     * @param ySpan Number of cells to include on each side on y direction.
+     * @return The elements within the specified cells.
+     * @throws ArgumentOutOfRangeException The center is out of the bounds of this grid.
+     */
+    public Iterable<T> adjacent(double x, double y, int xSpan, int ySpan)
+    {
+        validateXY(x, y);
+        return adjacent(rowOf(x), columnOf(y), xSpan, ySpan);
+    }
+
+    /**
+     * Gets a snapshot of the elements within the cells centered at the specified cell and specified range.
+     *
+     * @param x     X-index of the center cell.
+     * @param y     Y-index of the center cell.
+     * @param xSpan Number of cells to include on each side on x direction.
+     * @param ySpan Number of cells to include on each side on y direction.
+     * @return The elements within the specified cells.
+     * @throws ArgumentOutOfRangeException The center cell is out of this grid.
+     */
+    public Iterable<T> adjacent(int x, int y, int xSpan, int ySpan)
+    {
+        validateXY(x, y);
+        return snapshot(Math.max(x - xSpan, 0), Math.min(x + xSpan, rowCount - 1), Math.max(y - ySpan, 0), Math.min(y + ySpan, columnCount - 1));
+    }
+
+    /**
+     * Gets the elements whose distance to the specified point is less than or equal to the radius. Each cell is read
+     * from one snapshot.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y.
+     * @return The elements within the radius, in no particular order.
+     * @throws NullPointerException     {@code distanceFunction} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> withinRadius(double x, double y, double radius, GridIndex.IDistanceFunction distanceFunction)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachWithinRadius(x, y, radius, distanceFunction, (elementX, elementY, element) -> result.addLast(element));
+        return result;
+    }
+
+    /**
+     * Visits the elements whose distance to the specified point is less than or equal to the radius, without
+     * collecting them. Each cell is read from one snapshot, and no lock is taken.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y.
+     * @param visitor          The visitor to call for each element within the radius.
+     * @throws NullPointerException     {@code distanceFunction} or {@code visitor} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachWithinRadius(double x, double y, double radius, GridIndex.IDistanceFunction distanceFunction, GridIndex.IElementVisitor<T> visitor)
+    {
+        if (distanceFunction == null)
+            throw new NullPointerException("Argument \"distanceFunction\" cannot be null.");
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+        if (!(radius >= 0))
+            throw new IllegalArgumentException("Argument \"radius\" must be greater than or equal to 0.");
+
+        if ((x + radius < minX) || (x - radius > maxX) || (y + radius < minY) || (y - radius > maxY))
+            return;
+
+        int maxRow = rowOf(x + radius);
+        int minColumn = columnOf(y - radius);
+        int maxColumn = columnOf(y + radius);
+        for (int i = rowOf(x - radius); i <= maxRow; i++)
+        {
+            for (int j = minColumn; j <= maxColumn; j++)
+            {
+                Cell cell = cells.get(i * columnCount + j);
+                if (cell == null)
+                    continue;
+
+                for (int k = 0; k < cell.count; k++)
+                {
+                    if (distanceFunction.distance(x, y, cell.xs[k], cell.ys[k]) <= radius)
+                        visitor.visit(cell.xs[k], cell.ys[k], (T) cell.elements[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Captures the snapshots of the non-empty cells in the specified range, which must be inside this grid.
+     */
+    private Iterable<T> snapshot(int minRow, int maxRow, int minColumn, int maxColumn)
+    {
+        Cell[] snapshot = new Cell[(maxRow - minRow + 1) * (maxColumn - minColumn + 1)];
+        int n = 0;
+        for (int i = minRow; i <= maxRow; i++)
+        {
+            for (int j = minColumn; j <= maxColumn; j++)
+            {
+                Cell cell = cells.get(i * columnCount + j);
+                if (cell != null)
+                    snapshot[n++] = cell;
+            }
+        }
+
+        int cellCount = n;
+        return () -> new SnapshotIterator<>(snapshot, cellCount);
+    }
+
+    private static final class SnapshotIterator<T> implements Iterator<T>
+    {
+        private final Cell[] cells;
+        private final int cellCount;
+        private int cellIndex;
+        private int elementIndex;
+
+        private SnapshotIterator(Cell[] cells, int cellCount)
+        {
+            this.cells = cells;
+            this.cellCount = cellCount;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return cellIndex < cellCount;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next()
+        {
+            if (cellIndex >= cellCount)
+                throw new NoSuchElementException();
+
+            Cell cell = cells[cellIndex];
+            T element = (T) cell.elements[elementIndex++];
+            if (elementIndex == cell.count)
+            {
+                cellIndex++;
+                elementIndex = 0;
+            }
+
+            return element;
+        }
+    }
+
+    /**
+     * Returns the row of the cells that cover the specified x-coordinate, clamped to the rows of this grid.
+     */
+    private int rowOf(double x)
+    {
+        int row = (int) Math.floor((x - minX) / xInterval);
+        return Math.max(0, Math.min(row, rowCount - 1));
+    }
+
+    /**
+     * Returns the column of the cells that cover the specified y-coordinate, clamped to the columns of this grid.
+     */
+    private int columnOf(double y)
+    {
+        int column = (int) Math.floor((y - minY) / yInterval);
+        return Math.max(0, Math.min(column, columnCount - 1));
+    }
+
+    private void validateXY(double x, double y)
+    {
+        if ((x < minX) || (x > maxX))
+            throw new ArgumentOutOfRangeException("Argument \"x\" must between minX (" + minX + ") and maxX (" + maxX + ").");
+        if ((y < minY) || (y > maxY))
+            throw new ArgumentOutOfRangeException("Argument \"y\" must between minY (" + minY + ") and maxY (" + maxY + ").");
+    }
+
+    private void validateXY(int x, int y)
+    {
+        if ((x < 0) || (x >= rowCount))
+            throw new ArgumentOutOfRangeException("Argument \"x\" must between 0 and rowCount (" + rowCount + ").");
+        if ((y < 0) || (y >= columnCount))
+            throw new ArgumentOutOfRangeException("Argument \"y\" must between 0 and columnCount (" + columnCount + ").");
+    }
+
+    private void validateRange(int minX, int maxX, int minY, int maxY)
+    {
+        if (minX > maxX)
+            throw new IllegalArgumentException("Argument \"minX\" must be less than or equal to parameter \"maxX\".");
+        if (minY > maxY)
+            throw new IllegalArgumentException("Argument \"minY\" must be less than or equal to parameter \"maxY\".");
+    }
+}
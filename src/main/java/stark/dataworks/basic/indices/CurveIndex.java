@@ -0,0 +1,336 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.collections.LinkedList;
+import stark.dataworks.basic.mathematics.geometry.Point;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The {@link CurveIndex} class represents a static 2-D point index over a sorted array of space-filling curve keys.
+ * <p>
+ * The bounds are divided into 2^31 * 2^31 cells, and every point is keyed by its cell on the Z-order or Hilbert curve.
+ * The points are sorted by key, so points near each other on the curve are near each other in memory. A range query is
+ * decomposed into the key ranges of the quadtree cells that cover the query box, and each key range is answered by a
+ * binary search and a sequential scan, without any tree. Because the keys are plain {@code long} values that are
+ * never negative, {@link #keyOf(double, double)} and {@link #keyRanges(double, double, double, double)} can also be used
+ * with other ordered structures that compare {@code long} keys exactly, such as {@link BTree}.
+ * <p>
+ * This class is immutable, and thus thread-safe for queries.
+ *
+ * @param <T> The data type for elements stored in this index.
+ */
+public class CurveIndex<T>
+{
+    /**
+     * The space-filling curves that order the cells.
+     */
+    public enum Curve
+    {
+        /**
+         * The Z-order curve of {@link MortonCode}, which is cheaper to compute.
+         */
+        MORTON,
+
+        /**
+         * The Hilbert curve of {@link HilbertCode}, which covers a box with fewer key ranges.
+         */
+        HILBERT
+    }
+
+    /**
+     * Number of cells on each side of the grid.
+     */
+    private static final double SIDE = 1L << MortonCode.BITS;
+
+    /**
+     * A query box is divided until the cells are about this many times smaller than the longer side of the box, which
+     * bounds the number of key ranges of a query by a constant.
+     */
+    private static final int RESOLUTION = 8;
+
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+    private final Curve curve;
+    private final long[] keys;
+    private final double[] xs;
+    private final double[] ys;
+    private final Object[] elements;
+
+    /**
+     * Initializes a {@link CurveIndex} with the specified points.
+     *
+     * @param minX     The minimum on x direction.
+     * @param maxX     The maximum on x direction.
+     * @param minY     The minimum on y direction.
+     * @param maxY     The maximum on y direction.
+     * @param curve    The space-filling curve that orders the cells.
+     * @param xs       X-coordinates of the points, which are clamped to the bounds when they are keyed.
+     * @param ys       Y-coordinates of the points, which are clamped to the bounds when they are keyed.
+     * @param elements The elements, where elements[i] is at (xs[i], ys[i]).
+     * @throws NullPointerException     {@code curve} or one of the arrays is null.
+     * @throws IllegalArgumentException The bounds are empty or NaN, or the arrays have different lengths.
+     */
+    public CurveIndex(double minX, double maxX, double minY, double maxY, Curve curve, double[] xs, double[] ys, T[] elements)
+    {
+        if (!(minX < maxX))
+            throw new IllegalArgumentException("Argument \"minX\" must be less than parameter \"maxX\".");
+        if (!(minY < maxY))
+            throw new IllegalArgumentException("Argument \"minY\" must be less than parameter \"maxY\".");
+        if (curve == null)
+            throw new NullPointerException("Argument \"curve\" cannot be null.");
+        if (xs == null)
+            throw new NullPointerException("Argument \"xs\" cannot be null.");
+        if (ys == null)
+            throw new NullPointerException("Argument \"ys\" cannot be null.");
+        if (elements == null)
+            throw new NullPointerException("Argument \"elements\" cannot be null.");
+        if ((xs.length != elements.length) || (ys.length != elements.length))
+            throw new IllegalArgumentException("Arguments \"xs\", \"ys\" and \"elements\" must have the same length.");
+
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.curve = curve;
+
+        int n = elements.length;
+        long[] unsortedKeys = new long[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+        {
+            unsortedKeys[i] = keyOf(xs[i], ys[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> unsortedKeys[i]));
+
+        keys = new long[n];
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.elements = new Object[n];
+        for (int i = 0; i < n; i++)
+        {
+            int j = order[i];
+            keys[i] = unsortedKeys[j];
+            this.xs[i] = xs[j];
+            this.ys[i] = ys[j];
+            this.elements[i] = elements[j];
+        }
+    }
+
+    /**
+     * Gets the space-filling curve that orders the cells.
+     *
+     * @return The space-filling curve that orders the cells.
+     */
+    public Curve getCurve()
+    {
+        return curve;
+    }
+
+    /**
+     * Gets the number of elements in this index.
+     *
+     * @return The number of elements in this index.
+     */
+    public int count()
+    {
+        return elements.length;
+    }
+
+    /**
+     * Gets the curve key of a point.
+     *
+     * @param point The point.
+     * @return The curve key of the cell that contains the point.
+     * @throws NullPointerException {@code point} is null.
+     */
+    public long keyOf(Point point)
+    {
+        if (point == null)
+            throw new NullPointerException("Argument \"point\" cannot be null.");
+
+        return keyOf(point.getX(), point.getY());
+    }
+
+    /**
+     * Gets the curve key of a point, which is clamped to the bounds of this index.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @return The curve key of the cell that contains the point.
+     */
+    public long keyOf(double x, double y)
+    {
+        return keyOf(cellOf(x, minX, maxX), cellOf(y, minY, maxY));
+    }
+
+    private long keyOf(int cellX, int cellY)
+    {
+        return curve == Curve.MORTON ? MortonCode.encode(cellX, cellY) : HilbertCode.encode(cellX, cellY);
+    }
+
+    private static int cellOf(double coordinate, double min, double max)
+    {
+        double cell = Math.floor((coordinate - min) / (max - min) * SIDE);
+        return (int) Math.max(0, Math.min(cell, SIDE - 1));
+    }
+
+    /**
+     * Gets the curve key ranges that cover the specified box, sorted and with adjacent ranges merged. Every point in the
+     * box has a key in one of the ranges, but a key in a range may belong to a point outside the box near its border.
+     * The box is clamped to the bounds of this index like the points are, so a box outside the bounds is covered by
+     * the edge cells that the points outside the bounds are keyed to.
+     *
+     * @param minX The minimum on x direction.
+     * @param maxX The maximum on x direction.
+     * @param minY The minimum on y direction.
+     * @param maxY The maximum on y direction.
+     * @return The key ranges as {first1, last1, first2, last2, ...}, including both ends, or an empty array if the box
+     * is empty.
+     */
+    public long[] keyRanges(double minX, double maxX, double minY, double maxY)
+    {
+        if ((minX > maxX) || (minY > maxY))
+            return new long[0];
+
+        int cellMinX = cellOf(minX, this.minX, this.maxX);
+        int cellMaxX = cellOf(maxX, this.minX, this.maxX);
+        int cellMinY = cellOf(minY, this.minY, this.maxY);
+        int cellMaxY = cellOf(maxY, this.minY, this.maxY);
+
+        // Quadtree cells smaller than this are not divided any more.
+        long span = Math.max((long) cellMaxX - cellMinX, (long) cellMaxY - cellMinY) + 1;
+        int minLevelBits = 63 - Long.numberOfLeadingZeros(Math.max(span / RESOLUTION, 1));
+
+        KeyRanges ranges = new KeyRanges();
+        collectRanges(0, 0, MortonCode.BITS, minLevelBits, cellMinX, cellMaxX, cellMinY, cellMaxY, ranges);
+        return ranges.toMergedArray();
+    }
+
+    /**
+     * The key ranges of the cells that cover a query box, in the order the cells are found.
+     */
+    private static final class KeyRanges
+    {
+        private long[] firsts = new long[16];
+        private long[] lasts = new long[16];
+        private int count;
+
+        private void add(long first, long last)
+        {
+            if (count == firsts.length)
+            {
+                firsts = Arrays.copyOf(firsts, count * 2);
+                lasts = Arrays.copyOf(lasts, count * 2);
+            }
+
+            firsts[count] = first;
+            lasts[count++] = last;
+        }
+
+        /**
+         * Sorts the ranges, merges the ranges that are adjacent on the curve, and returns them as pairs.
+         */
+        private long[] toMergedArray()
+        {
+            // The ranges of distinct cells are disjoint, so sorting the first and last keys separately keeps them in
+            // pairs.
+            Arrays.sort(firsts, 0, count);
+            Arrays.sort(lasts, 0, count);
+
+            long[] merged = new long[count * 2];
+            int n = 0;
+            for (int i = 0; i < count; i++)
+            {
+                if ((n > 0) && (merged[n - 1] + 1 == firsts[i]))
+                    merged[n - 1] = lasts[i];
+                else
+                {
+                    merged[n++] = firsts[i];
+                    merged[n++] = lasts[i];
+                }
+            }
+
+            return Arrays.copyOf(merged, n);
+        }
+    }
+
+    /**
+     * Adds the key ranges of the quadtree cell at (x, y) with side 2^levelBits that cover the box.
+     */
+    private void collectRanges(int x, int y, int levelBits, int minLevelBits, int boxMinX, int boxMaxX, int boxMinY, int boxMaxY, KeyRanges ranges)
+    {
+        long side = 1L << levelBits;
+        long x1 = x + side - 1;
+        long y1 = y + side - 1;
+        if ((x > boxMaxX) || (x1 < boxMinX) || (y > boxMaxY) || (y1 < boxMinY))
+            return;
+
+        boolean inside = (x >= boxMinX) && (x1 <= boxMaxX) && (y >= boxMinY) && (y1 <= boxMaxY);
+        if (inside || (levelBits <= minLevelBits))
+        {
+            // An aligned square is a contiguous range on both curves, of the keys that share the prefix of the square.
+            long mask = (1L << (2 * levelBits)) - 1;
+            long first = keyOf(x, y) & ~mask;
+            ranges.add(first, first | mask);
+            return;
+        }
+
+        int half = 1 << (levelBits - 1);
+        collectRanges(x, y, levelBits - 1, minLevelBits, boxMinX, boxMaxX, boxMinY, boxMaxY, ranges);
+        collectRanges(x + half, y, levelBits - 1, minLevelBits, boxMinX, boxMaxX, boxMinY, boxMaxY, ranges);
+        collectRanges(x, y + half, levelBits - 1, minLevelBits, boxMinX, boxMaxX, boxMinY, boxMaxY, ranges);
+        collectRanges(x + half, y + half, levelBits - 1, minLevelBits, boxMinX, boxMaxX, boxMinY, boxMaxY, ranges);
+    }
+
+    /**
+     * Gets the elements in the specified range, including the boundaries.
+     *
+     * @param minX The minimum on x direction.
+     * @param maxX The maximum on x direction.
+     * @param minY The minimum on y direction.
+     * @param maxY The maximum on y direction.
+     * @return The elements in the range, in the order of their keys.
+     */
+    public Iterable<T> range(double minX, double maxX, double minY, double maxY)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachInRange(minX, maxX, minY, maxY, (x, y, element) -> result.addLast(element));
+        return result;
+    }
+
+    /**
+     * Visits the elements in the specified range, including the boundaries, without collecting them. Every key range
+     * of the box is located by {@link BinarySearch#lowerBound(long[], long)} and scanned sequentially, and the points
+     * in it are filtered by their coordinates.
+     *
+     * @param minX    The minimum on x direction.
+     * @param maxX    The maximum on x direction.
+     * @param minY    The minimum on y direction.
+     * @param maxY    The maximum on y direction.
+     * @param visitor The visitor to call for each element in the range.
+     * @throws NullPointerException {@code visitor} is null.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachInRange(double minX, double maxX, double minY, double maxY, GridIndex.IElementVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+
+        long[] ranges = keyRanges(minX, maxX, minY, maxY);
+        for (int r = 0; r < ranges.length; r += 2)
+        {
+            long last = ranges[r + 1];
+            for (int i = BinarySearch.lowerBound(keys, ranges[r]); (i < keys.length) && (keys[i] <= last); i++)
+            {
+                double x = xs[i];
+                double y = ys[i];
+                if ((x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY))
+                    visitor.visit(x, y, (T) elements[i]);
+            }
+        }
+    }
+}
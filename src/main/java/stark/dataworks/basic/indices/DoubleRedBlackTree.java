@@ -0,0 +1,271 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.KeyNotFountException;
+
+import java.util.Objects;
+
+/**
+ * The {@link DoubleRedBlackTree} class represents an ordered index whose keys are primitive {@code double} values. It
+ * stores every key in a {@link RedBlackTree} as a {@code long} whose signed order is the order of the doubles, so it
+ * has the same layout without per-element objects.
+ * <p>
+ * Keys are ordered like {@link Double#compare(double, double)}: -0.0 is less than 0.0, and NaN is greater than every
+ * other key and equal to itself.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <TValue> Type of values in the tree.
+ */
+public class DoubleRedBlackTree<TValue>
+{
+    /**
+     * The visitor interface used to visit elements in key order without boxing keys.
+     *
+     * @param <TValue> Type of values in the tree.
+     */
+    public interface IEntryVisitor<TValue>
+    {
+        void visit(double key, TValue value);
+    }
+
+    private final RedBlackTree<TValue> tree;
+
+    /**
+     * Initializes an empty {@link DoubleRedBlackTree}.
+     */
+    public DoubleRedBlackTree()
+    {
+        tree = new RedBlackTree<>();
+    }
+
+    /**
+     * Initializes an empty {@link DoubleRedBlackTree} that can hold the specified number of elements without growing
+     * its arrays.
+     *
+     * @param capacity The expected number of elements.
+     * @throws IllegalArgumentException {@code capacity} is less than 0.
+     */
+    public DoubleRedBlackTree(int capacity)
+    {
+        tree = new RedBlackTree<>(capacity);
+    }
+
+    /**
+     * Maps a double to a long with the same order. Flipping all bits but the sign of a negative double reverses the
+     * order of negative values, which otherwise grow with their magnitude. The mapping is its own inverse.
+     *
+     * @param bits The bits of a double, or a mapped long.
+     * @return The mapped long, or the bits of the double.
+     */
+    private static long flip(long bits)
+    {
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static long toKey(double value)
+    {
+        return flip(Double.doubleToLongBits(value));
+    }
+
+    private static double fromKey(long key)
+    {
+        return Double.longBitsToDouble(flip(key));
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws KeyNotFountException The specified key is not in this tree.
+     */
+    public TValue get(double key)
+    {
+        return tree.get(toKey(key));
+    }
+
+    /**
+     * Gets the element associated with the specified key, or the specified default value if the key is not in this
+     * tree.
+     *
+     * @param key          The key of the element to get.
+     * @param defaultValue The value to return if the key is not found.
+     * @return The value associated with the specified key, or {@code defaultValue}.
+     */
+    public TValue getOrDefault(double key, TValue defaultValue)
+    {
+        return tree.getOrDefault(toKey(key), defaultValue);
+    }
+
+    /**
+     * Determines whether this tree contains an element with the specified key.
+     *
+     * @param key The key to locate.
+     * @return {@code true} if this tree contains an element with the key; otherwise, {@code false}.
+     */
+    public boolean containsKey(double key)
+    {
+        return tree.containsKey(toKey(key));
+    }
+
+    /**
+     * Adds an element with the provided key and value to this tree.
+     *
+     * @param key   The key of the element to add.
+     * @param value The value of the element to add.
+     * @throws IllegalArgumentException An element with the same key already exists in this tree.
+     */
+    public void add(double key, TValue value)
+    {
+        tree.add(toKey(key), value);
+    }
+
+    /**
+     * Adds an element with the provided key and value, or replaces the value if the key already exists.
+     *
+     * @param key   The key of the element to add or replace.
+     * @param value The new value associated with the specified key.
+     * @return The previous value associated with the specified key, or null if there was no such element.
+     */
+    public TValue put(double key, TValue value)
+    {
+        return tree.put(toKey(key), value);
+    }
+
+    /**
+     * Tries to remove the element with the specified key.
+     *
+     * @param key The key of the element to remove.
+     * @return {@code true} if the element is successfully removed; otherwise, {@code false}.
+     */
+    public boolean removeByKey(double key)
+    {
+        return tree.removeByKey(toKey(key));
+    }
+
+    /**
+     * Gets the smallest key in this tree.
+     *
+     * @return The smallest key in this tree.
+     * @throws InvalidOperationException This tree is empty.
+     */
+    public double minKey()
+    {
+        return fromKey(tree.minKey());
+    }
+
+    /**
+     * Gets the largest key in this tree.
+     *
+     * @return The largest key in this tree.
+     * @throws InvalidOperationException This tree is empty.
+     */
+    public double maxKey()
+    {
+        return fromKey(tree.maxKey());
+    }
+
+    /**
+     * Gets the largest key less than or equal to the specified key.
+     *
+     * @param key The key to search for.
+     * @return The largest key less than or equal to the specified key.
+     * @throws KeyNotFountException All keys in this tree are greater than the specified key.
+     */
+    public double floorKey(double key)
+    {
+        return fromKey(tree.floorKey(toKey(key)));
+    }
+
+    /**
+     * Gets the smallest key greater than or equal to the specified key.
+     *
+     * @param key The key to search for.
+     * @return The smallest key greater than or equal to the specified key.
+     * @throws KeyNotFountException All keys in this tree are less than the specified key.
+     */
+    public double ceilingKey(double key)
+    {
+        return fromKey(tree.ceilingKey(toKey(key)));
+    }
+
+    /**
+     * Visits all elements of this tree in increasing order of keys, without boxing their keys.
+     *
+     * @param visitor The visitor to call for each element.
+     * @throws NullPointerException      {@code visitor} is null.
+     * @throws InvalidOperationException The tree is modified by the visitor.
+     */
+    public void forEach(IEntryVisitor<TValue> visitor)
+    {
+        Objects.requireNonNull(visitor, "Argument \"visitor\" cannot be null.");
+        tree.forEach((key, value) -> visitor.visit(fromKey(key), value));
+    }
+
+    /**
+     * Visits the elements whose keys are in the range [fromKey, toKey] in increasing order of keys.
+     *
+     * @param fromKey The lower bound of the range (inclusive).
+     * @param toKey   The upper bound of the range (inclusive).
+     * @param visitor The visitor to call for each element.
+     * @throws NullPointerException      {@code visitor} is null.
+     * @throws InvalidOperationException The tree is modified by the visitor.
+     */
+    public void forEachInRange(double fromKey, double toKey, IEntryVisitor<TValue> visitor)
+    {
+        Objects.requireNonNull(visitor, "Argument \"visitor\" cannot be null.");
+        tree.forEachInRange(toKey(fromKey), toKey(toKey), (key, value) -> visitor.visit(fromKey(key), value));
+    }
+
+    /**
+     * Returns all keys of this tree in increasing order in a new array.
+     *
+     * @return An array that contains all keys of this tree in increasing order.
+     */
+    public double[] keysToArray()
+    {
+        long[] keys = tree.keysToArray();
+        double[] result = new double[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            result[i] = fromKey(keys[i]);
+
+        return result;
+    }
+
+    /**
+     * Rebuilds this tree so that nodes are stored in increasing order of keys, and releases the free slots.
+     */
+    public void compact()
+    {
+        tree.compact();
+    }
+
+    /**
+     * Removes all elements from this tree.
+     */
+    public void clear()
+    {
+        tree.clear();
+    }
+
+    /**
+     * Gets the number of elements contained in this tree.
+     *
+     * @return The number of elements contained in this tree.
+     */
+    public int count()
+    {
+        return tree.count();
+    }
+
+    /**
+     * Returns the height of this tree.
+     *
+     * @return The height of this tree.
+     */
+    public int height()
+    {
+        return tree.height();
+    }
+}
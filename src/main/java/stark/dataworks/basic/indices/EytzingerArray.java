@@ -0,0 +1,138 @@
+package stark.dataworks.basic.indices;
+
+/**
+ * The {@link EytzingerArray} class is a read-only copy of a sorted {@code long} array in Eytzinger (BFS) order, which
+ * is searched faster than the sorted array when the array is much larger than the cache.
+ * <p>
+ * The element at index k of the layout is the root of an implicit binary search tree, and its children are at 2k and
+ * 2k + 1, where the root is at index 1. A search walks from the root to a leaf with k = 2k + (layout[k] &lt; target),
+ * which has no branch to mispredict. The first levels of the tree share a few cache lines that stay hot across
+ * searches, and the 16 descendants 4 levels below a node are adjacent, so that a search reads 1 or 2 new cache lines
+ * every 4 levels instead of 1 per level as the bisection of a sorted array does.
+ * <p>
+ * Results are reported as indices in the original sorted array, which are stored next to the layout.
+ */
+public class EytzingerArray
+{
+    /**
+     * Maximum number of values, so that the index 2k + 1 of a child never overflows an {@code int}.
+     */
+    public static final int MAX_LENGTH = (1 << 30) - 1;
+
+    /**
+     * The values in Eytzinger order, starting at index 1. Index 0 is unused.
+     */
+    private final long[] layout;
+
+    /**
+     * ranks[k] is the index in the sorted array of layout[k].
+     */
+    private final int[] ranks;
+
+    private final int length;
+
+    /**
+     * Builds an {@link EytzingerArray} from a sorted array in O(n).
+     *
+     * @param sortedValues The values sorted in increasing order, which are copied.
+     * @throws NullPointerException     {@code sortedValues} is null.
+     * @throws IllegalArgumentException {@code sortedValues} has more than {@link #MAX_LENGTH} values.
+     */
+    public EytzingerArray(long[] sortedValues)
+    {
+        if (sortedValues == null)
+            throw new NullPointerException("Argument \"sortedValues\" cannot be null.");
+        if (sortedValues.length > MAX_LENGTH)
+            throw new IllegalArgumentException("Argument \"sortedValues\" cannot have more than " + MAX_LENGTH + " values.");
+
+        length = sortedValues.length;
+        layout = new long[length + 1];
+        ranks = new int[length + 1];
+        fill(sortedValues, 0, 1);
+    }
+
+    /**
+     * Fills the subtree rooted at index k by an in-order traversal, which visits the sorted values in order.
+     *
+     * @param sortedValues The sorted values.
+     * @param next         Index of the next sorted value to place.
+     * @param k            Index of the root of the subtree in the layout.
+     * @return Index of the next sorted value to place after the subtree.
+     */
+    private int fill(long[] sortedValues, int next, int k)
+    {
+        if (k > length)
+            return next;
+
+        next = fill(sortedValues, next, 2 * k);
+        layout[k] = sortedValues[next];
+        ranks[k] = next++;
+        return fill(sortedValues, next, 2 * k + 1);
+    }
+
+    /**
+     * Gets the number of values.
+     *
+     * @return The number of values.
+     */
+    public int length()
+    {
+        return length;
+    }
+
+    /**
+     * Returns the index in the sorted array of the first value that is greater than or equal to the target.
+     *
+     * @param target The value to locate.
+     * @return The index of the first value that is not less than {@code target}, or {@link #length()} if there is no
+     * such value.
+     */
+    public int lowerBound(long target)
+    {
+        int k = 1;
+        while (k <= length)
+            k = 2 * k + ((layout[k] < target) ? 1 : 0);
+
+        // The path went right after every value less than the target. Dropping the trailing right turns and the last
+        // left turn leads back to the last node where it went left, which is the answer.
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return (k == 0) ? length : ranks[k];
+    }
+
+    /**
+     * Returns the index in the sorted array of the first value that is greater than the target.
+     *
+     * @param target The value to locate.
+     * @return The index of the first value that is greater than {@code target}, or {@link #length()} if there is no
+     * such value.
+     */
+    public int upperBound(long target)
+    {
+        int k = 1;
+        while (k <= length)
+            k = 2 * k + ((layout[k] <= target) ? 1 : 0);
+
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return (k == 0) ? length : ranks[k];
+    }
+
+    /**
+     * Searches for the target, like {@link BinarySearch#search(long[], long)} on the sorted array.
+     *
+     * @param target The value to locate.
+     * @return The index in the sorted array of the first value equal to {@code target}, or the bitwise complement of
+     * the index of the first greater value if {@code target} is not found.
+     */
+    public int search(long target)
+    {
+        int k = 1;
+        while (k <= length)
+            k = 2 * k + ((layout[k] < target) ? 1 : 0);
+
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        if (k == 0)
+            return ~length;
+
+        return (layout[k] == target) ? ranks[k] : ~ranks[k];
+    }
+}
@@ -3,13 +3,95 @@ package stark.dataworks.basic.indices;
 import stark.dataworks.basic.ArgumentOutOfRangeException;
 import stark.dataworks.basic.collections.LinkedList;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * The {@link GridIndex} class represents a 2-D grid index for quick data filtering and access.
+ * <p>
+ * Every cell keeps the coordinates of its elements in parallel arrays next to the elements, so that exact distance
+ * filters in {@link #withinRadius(double, double, double, IDistanceFunction)} and {@link #kNearest(double, double, int)}
+ * read the coordinates without dereferencing the elements.
  *
  * @param <T> The data type for elements stored in this index.
  */
 public class GridIndex<T>
 {
+    /**
+     * The function interface used to measure the distance between 2 points.
+     */
+    public interface IDistanceFunction
+    {
+        double distance(double x1, double y1, double x2, double y2);
+    }
+
+    /**
+     * The visitor interface used to visit elements with their coordinates.
+     *
+     * @param <T> The data type for elements stored in the index.
+     */
+    public interface IElementVisitor<T>
+    {
+        void visit(double x, double y, T element);
+    }
+
+    /**
+     * The Euclidean distance.
+     */
+    public static final IDistanceFunction EUCLIDEAN = (x1, y1, x2, y2) -> Math.hypot(x1 - x2, y1 - y2);
+
+    /**
+     * The {@link Cell} class holds the elements of a cell and their coordinates in parallel arrays, in the order they
+     * are added.
+     */
+    private static final class Cell<T>
+    {
+        private double[] xs = new double[4];
+        private double[] ys = new double[4];
+        private Object[] elements = new Object[4];
+        private int count;
+
+        private void add(double x, double y, T element)
+        {
+            if (count == elements.length)
+            {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+                elements = Arrays.copyOf(elements, count * 2);
+            }
+
+            xs[count] = x;
+            ys[count] = y;
+            elements[count++] = element;
+        }
+
+        private boolean remove(T element)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                if ((element == null) ? (elements[i] == null) : element.equals(elements[i]))
+                {
+                    int moved = count - i - 1;
+                    System.arraycopy(xs, i + 1, xs, i, moved);
+                    System.arraycopy(ys, i + 1, ys, i, moved);
+                    System.arraycopy(elements, i + 1, elements, i, moved);
+                    elements[--count] = null;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T elementAt(int index)
+        {
+            return (T) elements[index];
+        }
+    }
+
     /**
      * The minimum on x direction.
      */
@@ -51,9 +133,14 @@ public class GridIndex<T>
     private int columnCount;
 
     /**
-     * The collection that stores all the data.
+     * The cells of this grid, where data[i][j] is null until an element is added to it.
      */
-    private LinkedList<T>[][] data;
+    private Cell<T>[][] data;
+
+    /**
+     * Number of elements in this grid.
+     */
+    private int count;
 
     /**
      * Initializes a grid index with specified arguments.
@@ -160,7 +247,15 @@ public class GridIndex<T>
     public void add(double x, double y, T element)
     {
         validateXY(x, y);
-        data[(int) (x / xInterval)][(int) (y / yInterval)].addLast(element);
+
+        int row = rowOf(x);
+        int column = columnOf(y);
+        Cell<T> cell = data[row][column];
+        if (cell == null)
+            data[row][column] = cell = new Cell<>();
+
+        cell.add(x, y, element);
+        count++;
     }
 
     /**
@@ -172,8 +267,7 @@ public class GridIndex<T>
      */
     public void add(int x, int y, T element)
     {
-        validateXY(x, y);
-        data[(int) (x / xInterval)][(int) (y / yInterval)].addLast(element);
+        add((double) x, (double) y, element);
     }
 
     /**
@@ -186,7 +280,10 @@ public class GridIndex<T>
     public void remove(int x, int y, T element)
     {
         validateXY(x, y);
-        data[x][y].remove(element);
+
+        Cell<T> cell = data[x][y];
+        if ((cell != null) && cell.remove(element))
+            count--;
     }
 
     /**
@@ -198,7 +295,31 @@ public class GridIndex<T>
      */
     public Iterable<T> getElements(int x, int y)
     {
-        return data[x][y];
+        validateXY(x, y);
+
+        Cell<T> cell = data[x][y];
+        if (cell == null)
+            return Collections::emptyIterator;
+
+        return () -> new Iterator<>()
+        {
+            private int index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < cell.count;
+            }
+
+            @Override
+            public T next()
+            {
+                if (index >= cell.count)
+                    throw new NoSuchElementException();
+
+                return cell.elementAt(index++);
+            }
+        };
     }
 
     /**
@@ -210,7 +331,12 @@ public class GridIndex<T>
     public void clear(int x, int y)
     {
         validateXY(x, y);
-        data[x][y].clear();
+
+        if (data[x][y] != null)
+        {
+            count -= data[x][y].count;
+            data[x][y] = null;
+        }
     }
 
     /**
@@ -219,10 +345,19 @@ public class GridIndex<T>
     public void clear()
     {
         for (int i = 0; i < rowCount; i++)
-        {
-            for (int j = 0; j < columnCount; j++)
-                data[i][j].clear();
-        }
+            Arrays.fill(data[i], null);
+
+        count = 0;
+    }
+
+    /**
+     * Gets the number of elements in this grid.
+     *
+     * @return The number of elements in this grid.
+     */
+    public int count()
+    {
+        return count;
     }
 
     /**
@@ -251,7 +386,32 @@ public class GridIndex<T>
         xInterval = (maxX - minX) / rowCount;
         yInterval = (maxY - minY) / columnCount;
 
-        data = (LinkedList<T>[][]) new Object[rowCount][columnCount];
+        data = newCells(rowCount, columnCount);
+        count = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Cell<T>[][] newCells(int rowCount, int columnCount)
+    {
+        return (Cell<T>[][]) new Cell[rowCount][columnCount];
+    }
+
+    /**
+     * Returns the row of the cells that cover the specified x-coordinate, clamped to the rows of this grid.
+     */
+    private int rowOf(double x)
+    {
+        int row = (int) Math.floor((x - minX) / xInterval);
+        return Math.max(0, Math.min(row, rowCount - 1));
+    }
+
+    /**
+     * Returns the column of the cells that cover the specified y-coordinate, clamped to the columns of this grid.
+     */
+    private int columnOf(double y)
+    {
+        int column = (int) Math.floor((y - minY) / yInterval);
+        return Math.max(0, Math.min(column, columnCount - 1));
     }
 
     /**
@@ -287,9 +447,8 @@ public class GridIndex<T>
 
     public Iterable<T> adjacent(double x, double y, int xSpan, int ySpan)
     {
-        int centerX = (int) (x / xInterval);
-        int centerY = (int) (y / yInterval);
-        return adjacent(centerX, centerY, xSpan, ySpan);
+        validateXY(x, y);
+        return adjacent(rowOf(x), columnOf(y), xSpan, ySpan);
     }
 
     public Iterable<T> adjacent(int x, int y, int xSpan, int ySpan)
@@ -303,8 +462,9 @@ public class GridIndex<T>
                 if ((i >= 0) &&
                     (i < rowCount) &&
                     (j >= 0) &&
-                    (j < columnCount))
-                    adjacentData.addAll(getElements(i, j));
+                    (j < columnCount) &&
+                    (data[i][j] != null))
+                    addAll(adjacentData, data[i][j]);
             }
         }
 
@@ -318,12 +478,207 @@ public class GridIndex<T>
         for (int i = minX; i <= maxX; i++)
         {
             for (int j = minY; j <= maxY; j++)
-                patchData.addAll(data[i][j]);
+            {
+                if (data[i][j] != null)
+                    addAll(patchData, data[i][j]);
+            }
         }
 
         return patchData;
     }
 
+    private static <T> void addAll(LinkedList<T> list, Cell<T> cell)
+    {
+        for (int i = 0; i < cell.count; i++)
+            list.addLast(cell.elementAt(i));
+    }
+
+    /**
+     * Gets the elements whose Euclidean distance to the specified point is less than or equal to the radius.
+     *
+     * @param x      X-coordinate of the point.
+     * @param y      Y-coordinate of the point.
+     * @param radius The maximum distance.
+     * @return The elements within the radius, in no particular order.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> withinRadius(double x, double y, double radius)
+    {
+        return withinRadius(x, y, radius, EUCLIDEAN);
+    }
+
+    /**
+     * Gets the elements whose distance to the specified point is less than or equal to the radius.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y
+     *                         (such as the Euclidean or Manhattan distance), so that only the cells covered by the
+     *                         square that bounds the circle need to be searched.
+     * @return The elements within the radius, in no particular order.
+     * @throws NullPointerException     {@code distanceFunction} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> withinRadius(double x, double y, double radius, IDistanceFunction distanceFunction)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachWithinRadius(x, y, radius, distanceFunction, (elementX, elementY, element) -> result.addLast(element));
+        return result;
+    }
+
+    /**
+     * Visits the elements whose distance to the specified point is less than or equal to the radius, like
+     * {@link #withinRadius(double, double, double, IDistanceFunction)}, without collecting them. Squared distances are
+     * compared for {@link #EUCLIDEAN}, so no square root is taken.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y.
+     * @param visitor          The visitor to call for each element within the radius.
+     * @throws NullPointerException     {@code distanceFunction} or {@code visitor} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public void forEachWithinRadius(double x, double y, double radius, IDistanceFunction distanceFunction, IElementVisitor<T> visitor)
+    {
+        if (distanceFunction == null)
+            throw new NullPointerException("Argument \"distanceFunction\" cannot be null.");
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+        if (!(radius >= 0))
+            throw new IllegalArgumentException("Argument \"radius\" must be greater than or equal to 0.");
+
+        if ((x + radius < minX) || (x - radius > maxX) || (y + radius < minY) || (y - radius > maxY))
+            return;
+
+        boolean euclidean = distanceFunction == EUCLIDEAN;
+        double squaredRadius = radius * radius;
+        int maxRow = rowOf(x + radius);
+        int maxColumn = columnOf(y + radius);
+        for (int i = rowOf(x - radius); i <= maxRow; i++)
+        {
+            for (int j = columnOf(y - radius); j <= maxColumn; j++)
+            {
+                Cell<T> cell = data[i][j];
+                if (cell == null)
+                    continue;
+
+                for (int k = 0; k < cell.count; k++)
+                {
+                    double elementX = cell.xs[k];
+                    double elementY = cell.ys[k];
+                    boolean within;
+                    if (euclidean)
+                    {
+                        double dx = elementX - x;
+                        double dy = elementY - y;
+                        within = dx * dx + dy * dy <= squaredRadius;
+                    }
+                    else
+                        within = distanceFunction.distance(x, y, elementX, elementY) <= radius;
+
+                    if (within)
+                        visitor.visit(elementX, elementY, cell.elementAt(k));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the k elements nearest to the specified point by Euclidean distance, nearest first.
+     * <p>
+     * Cells are searched in square rings around the cell of the point, and the nearest elements found so far are kept
+     * in a max-heap of at most k squared distances. The search stops after a ring once the k-th nearest element is
+     * nearer than the border of the rings searched, because every cell beyond the border is farther than that.
+     *
+     * @param x X-coordinate of the point, which may be out of the bounds of this grid.
+     * @param y Y-coordinate of the point, which may be out of the bounds of this grid.
+     * @param k Number of elements to find.
+     * @return The k nearest elements, or all the elements if this grid has less than k elements.
+     * @throws IllegalArgumentException {@code k} is less than 1.
+     */
+    public Iterable<T> kNearest(double x, double y, int k)
+    {
+        if (k < 1)
+            throw new IllegalArgumentException("Argument \"k\" must be greater than 0.");
+
+        int capacity = Math.min(k, count);
+        BoundedMaxHeap heap = new BoundedMaxHeap(capacity);
+
+        int centerRow = rowOf(x);
+        int centerColumn = columnOf(y);
+        int maxRing = Math.max(Math.max(centerRow, rowCount - 1 - centerRow), Math.max(centerColumn, columnCount - 1 - centerColumn));
+        for (int ring = 0; (ring <= maxRing) && (capacity > 0); ring++)
+        {
+            int top = centerRow - ring;
+            int bottom = centerRow + ring;
+            int left = centerColumn - ring;
+            int right = centerColumn + ring;
+            for (int i = Math.max(top, 0); i <= Math.min(bottom, rowCount - 1); i++)
+            {
+                // The first and last rows of a ring are whole, and the other rows only have the 2 end cells.
+                boolean wholeRow = (i == top) || (i == bottom);
+                int step = wholeRow ? 1 : right - left;
+                for (int j = left; j <= right; j += step)
+                {
+                    if ((j < 0) || (j >= columnCount) || (data[i][j] == null))
+                        continue;
+
+                    Cell<T> cell = data[i][j];
+                    for (int e = 0; e < cell.count; e++)
+                    {
+                        double dx = cell.xs[e] - x;
+                        double dy = cell.ys[e] - y;
+                        heap.offer(dx * dx + dy * dy, cell.elements[e]);
+                    }
+                }
+            }
+
+            if (heap.isFull())
+            {
+                double gap = Math.min(
+                    Math.min(x - (minX + top * xInterval), minX + (bottom + 1) * xInterval - x),
+                    Math.min(y - (minY + left * yInterval), minY + (right + 1) * yInterval - y));
+                if ((gap >= 0) && (gap * gap >= heap.bound()))
+                    break;
+            }
+        }
+
+        return heap.drainSorted();
+    }
+
+    /**
+     * Copies this grid into a {@link CompactGridIndex} with the same bounds and cells, for read-only queries that
+     * allocate nothing.
+     *
+     * @return A {@link CompactGridIndex} that contains all the elements of this grid.
+     */
+    @SuppressWarnings("unchecked")
+    public CompactGridIndex<T> compact()
+    {
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        T[] elements = (T[]) new Object[count];
+        int n = 0;
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int j = 0; j < columnCount; j++)
+            {
+                Cell<T> cell = data[i][j];
+                if (cell == null)
+                    continue;
+
+                System.arraycopy(cell.xs, 0, xs, n, cell.count);
+                System.arraycopy(cell.ys, 0, ys, n, cell.count);
+                System.arraycopy(cell.elements, 0, elements, n, cell.count);
+                n += cell.count;
+            }
+        }
+
+        return new CompactGridIndex<>(minX, maxX, minY, maxY, rowCount, columnCount, xs, ys, elements);
+    }
+
     private void validateXY(double x, double y)
     {
         if ((x < minX) || (x > maxX))
@@ -334,9 +689,9 @@ public class GridIndex<T>
 
     private void validateXY(int x, int y)
     {
-        if ((x < 0) || (x > rowCount))
+        if ((x < 0) || (x >= rowCount))
             throw new ArgumentOutOfRangeException("Argument \"x\" must between 0 and rowCount (" + rowCount + ").");
-        if ((y < 0) || (y > columnCount))
+        if ((y < 0) || (y >= columnCount))
             throw new ArgumentOutOfRangeException("Argument \"y\" must between 0 and columnCount (" + columnCount + ").");
     }
 
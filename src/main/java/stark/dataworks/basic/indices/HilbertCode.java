@@ -0,0 +1,94 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+/**
+ * The {@link HilbertCode} class provides methods to map 2-D grid coordinates to keys on the Hilbert curve and back.
+ * <p>
+ * Consecutive keys on the Hilbert curve are always adjacent cells, so a box is covered by fewer and longer key ranges
+ * than on the Z-order curve of {@link MortonCode}. Like the Morton keys, each coordinate has {@link MortonCode#BITS}
+ * bits, keys are never negative, and every aligned square of 2^k * 2^k cells is a contiguous range of keys.
+ */
+public final class HilbertCode
+{
+    /**
+     * The last coordinate on each side of the curve, which is 2^31 - 1.
+     */
+    private static final int LAST = Integer.MAX_VALUE;
+
+    private HilbertCode(){}
+
+    /**
+     * Gets the Hilbert key of a cell.
+     *
+     * @param x X-coordinate of the cell, in range [0, 2^31).
+     * @param y Y-coordinate of the cell, in range [0, 2^31).
+     * @return The Hilbert key of the cell.
+     * @throws ArgumentOutOfRangeException A coordinate is negative.
+     */
+    public static long encode(int x, int y)
+    {
+        MortonCode.validateXY(x, y);
+
+        long key = 0;
+        for (int s = 1 << (MortonCode.BITS - 1); s > 0; s >>>= 1)
+        {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            key += (long) s * s * ((3 * rx) ^ ry);
+
+            // Rotate the quadrant, so that the sub-curve in it starts and ends like the whole curve.
+            if (ry == 0)
+            {
+                if (rx == 1)
+                {
+                    x = LAST - x;
+                    y = LAST - y;
+                }
+
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Gets the cell of a Hilbert key.
+     *
+     * @param key The Hilbert key, in range [0, 4^31).
+     * @return The cell as {x, y}.
+     */
+    public static int[] decode(long key)
+    {
+        int x = 0;
+        int y = 0;
+        long t = key;
+        for (int bit = 0; bit < MortonCode.BITS; bit++)
+        {
+            int s = 1 << bit;
+            int rx = (int) (1 & (t >>> 1));
+            int ry = (int) (1 & (t ^ rx));
+            if (ry == 0)
+            {
+                if (rx == 1)
+                {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+
+            x += s * rx;
+            y += s * ry;
+            t >>>= 2;
+        }
+
+        return new int[]{x, y};
+    }
+}
@@ -0,0 +1,381 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.collections.LinkedList;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@link KdTree} class represents a static 2-D tree of points, which adapts to skewed distributions of points.
+ * <p>
+ * The tree is implicit: the coordinates and elements are kept in parallel arrays, reordered so that the subtree of the
+ * range [lo, hi) has its splitting point at the middle index (lo + hi) / 2, the points before it are not greater than
+ * the splitting point on the splitting axis, and the points after it are not less. Every range splits on the axis with
+ * the larger extent, and ranges of at most {@link #LEAF_SIZE} points are scanned linearly. So the tree has no node
+ * objects, and a query reads only primitive arrays until it reports an element.
+ * <p>
+ * The tree is built by median partitioning with quickselect, which is O(n log n). The 2 halves of a large range are
+ * built in parallel by the common {@link ForkJoinPool}.
+ * <p>
+ * This class is immutable, and thus thread-safe for queries.
+ *
+ * @param <T> The data type for elements stored in this tree.
+ */
+public class KdTree<T>
+{
+    /**
+     * Maximum number of points in a range that is scanned linearly instead of split.
+     */
+    private static final int LEAF_SIZE = 8;
+
+    /**
+     * Minimum number of points in a range whose halves are built in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final Object[] elements;
+
+    /**
+     * splitsOnY[mid] is true if the range whose splitting point is at mid splits on the y axis.
+     */
+    private final boolean[] splitsOnY;
+
+    /**
+     * Initializes a {@link KdTree} with the specified points.
+     *
+     * @param xs       X-coordinates of the points.
+     * @param ys       Y-coordinates of the points.
+     * @param elements The elements, where elements[i] is at (xs[i], ys[i]).
+     * @throws NullPointerException     One of the arrays is null.
+     * @throws IllegalArgumentException The arrays have different lengths.
+     */
+    public KdTree(double[] xs, double[] ys, T[] elements)
+    {
+        if (xs == null)
+            throw new NullPointerException("Argument \"xs\" cannot be null.");
+        if (ys == null)
+            throw new NullPointerException("Argument \"ys\" cannot be null.");
+        if (elements == null)
+            throw new NullPointerException("Argument \"elements\" cannot be null.");
+        if ((xs.length != elements.length) || (ys.length != elements.length))
+            throw new IllegalArgumentException("Arguments \"xs\", \"ys\" and \"elements\" must have the same length.");
+
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        this.elements = Arrays.copyOf(elements, elements.length, Object[].class);
+        splitsOnY = new boolean[elements.length];
+
+        if (elements.length >= PARALLEL_THRESHOLD)
+            ForkJoinPool.commonPool().invoke(new BuildTask(0, elements.length));
+        else
+            build(0, elements.length);
+    }
+
+    private final class BuildTask extends RecursiveAction
+    {
+        private final int lo;
+        private final int hi;
+
+        private BuildTask(int lo, int hi)
+        {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (hi - lo < PARALLEL_THRESHOLD)
+            {
+                build(lo, hi);
+                return;
+            }
+
+            int mid = partition(lo, hi);
+            invokeAll(new BuildTask(lo, mid), new BuildTask(mid + 1, hi));
+        }
+    }
+
+    private void build(int lo, int hi)
+    {
+        while (hi - lo > LEAF_SIZE)
+        {
+            int mid = partition(lo, hi);
+            build(lo, mid);
+            lo = mid + 1;
+        }
+    }
+
+    /**
+     * Chooses the splitting axis of the range, and moves the median on that axis to the middle of the range.
+     *
+     * @return The middle index.
+     */
+    private int partition(int lo, int hi)
+    {
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = lo; i < hi; i++)
+        {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+
+        int mid = (lo + hi) >>> 1;
+        boolean onY = maxY - minY > maxX - minX;
+        splitsOnY[mid] = onY;
+        select(onY ? ys : xs, lo, hi - 1, mid);
+        return mid;
+    }
+
+    /**
+     * Reorders the points in [left, right] by Hoare's quickselect, so that keys[k] is the k-th smallest key, no key
+     * before it is greater and no key after it is less.
+     */
+    private void select(double[] keys, int left, int right, int k)
+    {
+        while (left < right)
+        {
+            double a = keys[left];
+            double b = keys[(left + right) >>> 1];
+            double c = keys[right];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+            int i = left;
+            int j = right;
+            while (i <= j)
+            {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j)
+                    swap(i++, j--);
+            }
+
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    private void swap(int i, int j)
+    {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        Object element = elements[i];
+        elements[i] = elements[j];
+        elements[j] = element;
+    }
+
+    /**
+     * Gets the number of elements in this tree.
+     *
+     * @return The number of elements in this tree.
+     */
+    public int count()
+    {
+        return elements.length;
+    }
+
+    /**
+     * Gets the elements in the specified range, including the boundaries.
+     *
+     * @param minX The minimum on x direction.
+     * @param maxX The maximum on x direction.
+     * @param minY The minimum on y direction.
+     * @param maxY The maximum on y direction.
+     * @return The elements in the range, in no particular order.
+     */
+    public Iterable<T> range(double minX, double maxX, double minY, double maxY)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachInRange(minX, maxX, minY, maxY, (x, y, element) -> result.addLast(element));
+        return result;
+    }
+
+    /**
+     * Visits the elements in the specified range, including the boundaries, without collecting them.
+     *
+     * @param minX    The minimum on x direction.
+     * @param maxX    The maximum on x direction.
+     * @param minY    The minimum on y direction.
+     * @param maxY    The maximum on y direction.
+     * @param visitor The visitor to call for each element in the range.
+     * @throws NullPointerException {@code visitor} is null.
+     */
+    public void forEachInRange(double minX, double maxX, double minY, double maxY, GridIndex.IElementVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+
+        forEachInRange(0, elements.length, minX, maxX, minY, maxY, visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEachInRange(int lo, int hi, double minX, double maxX, double minY, double maxY, GridIndex.IElementVisitor<T> visitor)
+    {
+        while (hi - lo > LEAF_SIZE)
+        {
+            int mid = (lo + hi) >>> 1;
+            double x = xs[mid];
+            double y = ys[mid];
+            if ((x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY))
+                visitor.visit(x, y, (T) elements[mid]);
+
+            boolean onY = splitsOnY[mid];
+            double split = onY ? y : x;
+            boolean visitLeft = (onY ? minY : minX) <= split;
+            boolean visitRight = (onY ? maxY : maxX) >= split;
+            if (visitLeft && visitRight)
+            {
+                forEachInRange(lo, mid, minX, maxX, minY, maxY, visitor);
+                lo = mid + 1;
+            }
+            else if (visitLeft)
+                hi = mid;
+            else if (visitRight)
+                lo = mid + 1;
+            else
+                return;
+        }
+
+        for (int i = lo; i < hi; i++)
+        {
+            if ((xs[i] >= minX) && (xs[i] <= maxX) && (ys[i] >= minY) && (ys[i] <= maxY))
+                visitor.visit(xs[i], ys[i], (T) elements[i]);
+        }
+    }
+
+    /**
+     * Gets the elements whose Euclidean distance to the specified point is less than or equal to the radius.
+     *
+     * @param x      X-coordinate of the point.
+     * @param y      Y-coordinate of the point.
+     * @param radius The maximum distance.
+     * @return The elements within the radius, in no particular order.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> withinRadius(double x, double y, double radius)
+    {
+        return withinRadius(x, y, radius, GridIndex.EUCLIDEAN);
+    }
+
+    /**
+     * Gets the elements whose distance to the specified point is less than or equal to the radius.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y,
+     *                         so that only the square that bounds the circle needs to be searched.
+     * @return The elements within the radius, in no particular order.
+     * @throws NullPointerException     {@code distanceFunction} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> withinRadius(double x, double y, double radius, GridIndex.IDistanceFunction distanceFunction)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachWithinRadius(x, y, radius, distanceFunction, (elementX, elementY, element) -> result.addLast(element));
+        return result;
+    }
+
+    /**
+     * Visits the elements whose distance to the specified point is less than or equal to the radius, without collecting
+     * them.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y.
+     * @param visitor          The visitor to call for each element within the radius.
+     * @throws NullPointerException     {@code distanceFunction} or {@code visitor} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public void forEachWithinRadius(double x, double y, double radius, GridIndex.IDistanceFunction distanceFunction, GridIndex.IElementVisitor<T> visitor)
+    {
+        if (distanceFunction == null)
+            throw new NullPointerException("Argument \"distanceFunction\" cannot be null.");
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+        if (!(radius >= 0))
+            throw new IllegalArgumentException("Argument \"radius\" must be greater than or equal to 0.");
+
+        forEachInRange(0, elements.length, x - radius, x + radius, y - radius, y + radius, (elementX, elementY, element) ->
+        {
+            if (distanceFunction.distance(x, y, elementX, elementY) <= radius)
+                visitor.visit(elementX, elementY, element);
+        });
+    }
+
+    /**
+     * Gets the k elements nearest to the specified point by Euclidean distance, nearest first.
+     * <p>
+     * The search descends to the side of the point first, keeps the nearest elements found so far in a max-heap of at
+     * most k squared distances, and skips the other side of a split when the splitting line is not nearer than the k-th
+     * nearest element.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @param k Number of elements to find.
+     * @return The k nearest elements, or all the elements if this tree has less than k elements.
+     * @throws IllegalArgumentException {@code k} is less than 1.
+     */
+    public Iterable<T> kNearest(double x, double y, int k)
+    {
+        if (k < 1)
+            throw new IllegalArgumentException("Argument \"k\" must be greater than 0.");
+
+        BoundedMaxHeap heap = new BoundedMaxHeap(Math.min(k, elements.length));
+        kNearest(0, elements.length, x, y, heap);
+        return heap.drainSorted();
+    }
+
+    private void kNearest(int lo, int hi, double x, double y, BoundedMaxHeap heap)
+    {
+        if (hi - lo <= LEAF_SIZE)
+        {
+            for (int i = lo; i < hi; i++)
+            {
+                double dx = xs[i] - x;
+                double dy = ys[i] - y;
+                heap.offer(dx * dx + dy * dy, elements[i]);
+            }
+
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        double dx = xs[mid] - x;
+        double dy = ys[mid] - y;
+        heap.offer(dx * dx + dy * dy, elements[mid]);
+
+        double difference = splitsOnY[mid] ? y - ys[mid] : x - xs[mid];
+        if (difference < 0)
+        {
+            kNearest(lo, mid, x, y, heap);
+            if (difference * difference < heap.bound())
+                kNearest(mid + 1, hi, x, y, heap);
+        }
+        else
+        {
+            kNearest(mid + 1, hi, x, y, heap);
+            if (difference * difference < heap.bound())
+                kNearest(lo, mid, x, y, heap);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+/**
+ * The {@link MortonCode} class provides methods to map 2-D grid coordinates to keys on the Z-order (Morton) curve and
+ * back, by interleaving the bits of the coordinates: bit i of x goes to bit 2i of the key, and bit i of y to bit 2i + 1.
+ * <p>
+ * Each coordinate has {@link #BITS} bits, so that keys are never negative and sort the same way as signed
+ * {@code long} values in ordered structures such as {@link BTree}. Every aligned square of 2^k * 2^k cells is a
+ * contiguous range of keys that share the same prefix.
+ */
+public final class MortonCode
+{
+    /**
+     * Number of bits of each coordinate.
+     */
+    public static final int BITS = 31;
+
+    private MortonCode(){}
+
+    /**
+     * Gets the Morton key of a cell.
+     *
+     * @param x X-coordinate of the cell, in range [0, 2^31).
+     * @param y Y-coordinate of the cell, in range [0, 2^31).
+     * @return The Morton key of the cell.
+     * @throws ArgumentOutOfRangeException A coordinate is negative.
+     */
+    public static long encode(int x, int y)
+    {
+        validateXY(x, y);
+        return spread(x) | (spread(y) << 1);
+    }
+
+    /**
+     * Gets the x-coordinate of the cell of a Morton key.
+     *
+     * @param key The Morton key.
+     * @return The x-coordinate of the cell.
+     */
+    public static int decodeX(long key)
+    {
+        return compact(key);
+    }
+
+    /**
+     * Gets the y-coordinate of the cell of a Morton key.
+     *
+     * @param key The Morton key.
+     * @return The y-coordinate of the cell.
+     */
+    public static int decodeY(long key)
+    {
+        return compact(key >>> 1);
+    }
+
+    /**
+     * Moves bit i of the value to bit 2i.
+     */
+    private static long spread(int value)
+    {
+        long x = value & 0xFFFFFFFFL;
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x << 2)) & 0x3333333333333333L;
+        x = (x | (x << 1)) & 0x5555555555555555L;
+        return x;
+    }
+
+    /**
+     * Moves bit 2i of the value to bit i, which reverses {@link #spread(int)}.
+     */
+    private static int compact(long value)
+    {
+        long x = value & 0x5555555555555555L;
+        x = (x | (x >>> 1)) & 0x3333333333333333L;
+        x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+        return (int) x;
+    }
+
+    static void validateXY(int x, int y)
+    {
+        if (x < 0)
+            throw new ArgumentOutOfRangeException("Argument \"x\" must be greater than or equal to 0.");
+        if (y < 0)
+            throw new ArgumentOutOfRangeException("Argument \"y\" must be greater than or equal to 0.");
+    }
+}
@@ -0,0 +1,490 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+import stark.dataworks.basic.collections.LinkedList;
+
+import java.util.Arrays;
+
+/**
+ * The {@link QuadTree} class represents a bucket point-region (PR) quadtree, which adapts to skewed distributions of
+ * points.
+ * <p>
+ * Every node covers a square-cut region of the bounds: a leaf keeps up to the bucket size of points in parallel
+ * coordinate and element arrays, and an overflowed leaf is split into 4 quadrants at the center of its region. So dense
+ * areas are divided finely and sparse areas stay coarse. Points with identical coordinates cannot be separated, so a
+ * leaf at the maximum depth holds any number of points. When the points under an inner node fit into one bucket after a
+ * removal, the node is merged back into a leaf.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> The data type for elements stored in this tree.
+ */
+public class QuadTree<T>
+{
+    /**
+     * Default maximum number of points in a leaf.
+     */
+    public static final int DEFAULT_BUCKET_SIZE = 16;
+
+    /**
+     * Maximum depth of a leaf, which bounds the splits of points that are (nearly) identical.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    private static final class Node
+    {
+        /**
+         * The quadrants of an inner node, indexed by (x >= centerX ? 1 : 0) | (y >= centerY ? 2 : 0), or null for a
+         * leaf.
+         */
+        private Node[] children;
+        private double[] xs;
+        private double[] ys;
+        private Object[] elements;
+
+        /**
+         * Number of points in the leaf, or in the subtree of an inner node.
+         */
+        private int count;
+
+        private Node(int capacity)
+        {
+            xs = new double[capacity];
+            ys = new double[capacity];
+            elements = new Object[capacity];
+        }
+
+        private void add(double x, double y, Object element)
+        {
+            if (count == elements.length)
+            {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+                elements = Arrays.copyOf(elements, count * 2);
+            }
+
+            xs[count] = x;
+            ys[count] = y;
+            elements[count++] = element;
+        }
+    }
+
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+    private final int bucketSize;
+    private Node root;
+
+    /**
+     * Initializes an empty {@link QuadTree} with {@link #DEFAULT_BUCKET_SIZE} points per leaf.
+     *
+     * @param minX The minimum on x direction.
+     * @param maxX The maximum on x direction.
+     * @param minY The minimum on y direction.
+     * @param maxY The maximum on y direction.
+     */
+    public QuadTree(double minX, double maxX, double minY, double maxY)
+    {
+        this(minX, maxX, minY, maxY, DEFAULT_BUCKET_SIZE);
+    }
+
+    /**
+     * Initializes an empty {@link QuadTree}.
+     *
+     * @param minX       The minimum on x direction.
+     * @param maxX       The maximum on x direction.
+     * @param minY       The minimum on y direction.
+     * @param maxY       The maximum on y direction.
+     * @param bucketSize Maximum number of points in a leaf.
+     * @throws IllegalArgumentException The bounds are empty or NaN, or {@code bucketSize} is less than 1.
+     */
+    public QuadTree(double minX, double maxX, double minY, double maxY, int bucketSize)
+    {
+        if (!(minX < maxX))
+            throw new IllegalArgumentException("Argument \"minX\" must be less than parameter \"maxX\".");
+        if (!(minY < maxY))
+            throw new IllegalArgumentException("Argument \"minY\" must be less than parameter \"maxY\".");
+        if (bucketSize < 1)
+            throw new IllegalArgumentException("Argument \"bucketSize\" must be greater than 0.");
+
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.bucketSize = bucketSize;
+        clear();
+    }
+
+    /**
+     * Gets the number of elements in this tree.
+     *
+     * @return The number of elements in this tree.
+     */
+    public int count()
+    {
+        return root.count;
+    }
+
+    /**
+     * Removes all the elements from this tree.
+     */
+    public void clear()
+    {
+        root = new Node(bucketSize);
+    }
+
+    /**
+     * Adds an element with specified coordinate to this tree.
+     *
+     * @param x       X-coordinate of this element.
+     * @param y       Y-coordinate of this element.
+     * @param element The element to add.
+     * @throws ArgumentOutOfRangeException The coordinate is out of the bounds of this tree.
+     */
+    public void add(double x, double y, T element)
+    {
+        validateXY(x, y);
+
+        Node node = root;
+        double x0 = minX;
+        double x1 = maxX;
+        double y0 = minY;
+        double y1 = maxY;
+        int depth = 0;
+        while (node.children != null)
+        {
+            node.count++;
+            double centerX = (x0 + x1) / 2;
+            double centerY = (y0 + y1) / 2;
+            int quadrant = 0;
+            if (x >= centerX)
+            {
+                quadrant |= 1;
+                x0 = centerX;
+            }
+            else
+                x1 = centerX;
+            if (y >= centerY)
+            {
+                quadrant |= 2;
+                y0 = centerY;
+            }
+            else
+                y1 = centerY;
+
+            node = node.children[quadrant];
+            depth++;
+        }
+
+        node.add(x, y, element);
+        if ((node.count > bucketSize) && (depth < MAX_DEPTH))
+            split(node, x0, x1, y0, y1, depth);
+    }
+
+    /**
+     * Splits a leaf into 4 quadrants, and the quadrants that still overflow recursively.
+     */
+    private void split(Node node, double x0, double x1, double y0, double y1, int depth)
+    {
+        double centerX = (x0 + x1) / 2;
+        double centerY = (y0 + y1) / 2;
+        Node[] children = new Node[4];
+        for (int q = 0; q < 4; q++)
+            children[q] = new Node(bucketSize);
+
+        for (int i = 0; i < node.count; i++)
+        {
+            int quadrant = (node.xs[i] >= centerX ? 1 : 0) | (node.ys[i] >= centerY ? 2 : 0);
+            children[quadrant].add(node.xs[i], node.ys[i], node.elements[i]);
+        }
+
+        node.children = children;
+        node.xs = null;
+        node.ys = null;
+        node.elements = null;
+
+        for (int q = 0; q < 4; q++)
+        {
+            if ((children[q].count > bucketSize) && (depth + 1 < MAX_DEPTH))
+            {
+                split(children[q],
+                    (q & 1) == 0 ? x0 : centerX, (q & 1) == 0 ? centerX : x1,
+                    (q & 2) == 0 ? y0 : centerY, (q & 2) == 0 ? centerY : y1,
+                    depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Tries to remove an element with specified coordinate. Elements are compared by {@link Object#equals(Object)}.
+     *
+     * @param x       X-coordinate of the element.
+     * @param y       Y-coordinate of the element.
+     * @param element The element to remove.
+     * @return True if the element is removed; false if this tree doesn't contain the element at the coordinate.
+     */
+    public boolean remove(double x, double y, T element)
+    {
+        if ((x < minX) || (x > maxX) || (y < minY) || (y > maxY))
+            return false;
+
+        return remove(root, minX, maxX, minY, maxY, x, y, element);
+    }
+
+    private boolean remove(Node node, double x0, double x1, double y0, double y1, double x, double y, Object element)
+    {
+        if (node.children == null)
+        {
+            for (int i = 0; i < node.count; i++)
+            {
+                if ((node.xs[i] == x) && (node.ys[i] == y) && ((element == null) ? (node.elements[i] == null) : element.equals(node.elements[i])))
+                {
+                    int last = --node.count;
+                    node.xs[i] = node.xs[last];
+                    node.ys[i] = node.ys[last];
+                    node.elements[i] = node.elements[last];
+                    node.elements[last] = null;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        double centerX = (x0 + x1) / 2;
+        double centerY = (y0 + y1) / 2;
+        int quadrant = (x >= centerX ? 1 : 0) | (y >= centerY ? 2 : 0);
+        boolean removed = remove(node.children[quadrant],
+            (quadrant & 1) == 0 ? x0 : centerX, (quadrant & 1) == 0 ? centerX : x1,
+            (quadrant & 2) == 0 ? y0 : centerY, (quadrant & 2) == 0 ? centerY : y1,
+            x, y, element);
+        if (!removed)
+            return false;
+
+        node.count--;
+        if (node.count <= bucketSize)
+            merge(node);
+
+        return true;
+    }
+
+    /**
+     * Turns an inner node into a leaf that holds all the points under it.
+     */
+    private void merge(Node node)
+    {
+        Node leaf = new Node(Math.max(bucketSize, node.count));
+        collect(node, leaf);
+        node.children = null;
+        node.xs = leaf.xs;
+        node.ys = leaf.ys;
+        node.elements = leaf.elements;
+    }
+
+    private static void collect(Node node, Node leaf)
+    {
+        if (node.children == null)
+        {
+            for (int i = 0; i < node.count; i++)
+                leaf.add(node.xs[i], node.ys[i], node.elements[i]);
+        }
+        else
+        {
+            for (Node child : node.children)
+                collect(child, leaf);
+        }
+    }
+
+    /**
+     * Gets the elements in the specified range, including the boundaries.
+     *
+     * @param minX The minimum on x direction.
+     * @param maxX The maximum on x direction.
+     * @param minY The minimum on y direction.
+     * @param maxY The maximum on y direction.
+     * @return The elements in the range, in no particular order.
+     */
+    public Iterable<T> range(double minX, double maxX, double minY, double maxY)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachInRange(minX, maxX, minY, maxY, (x, y, element) -> result.addLast(element));
+        return result;
+    }
+
+    /**
+     * Visits the elements in the specified range, including the boundaries, without collecting them.
+     *
+     * @param minX    The minimum on x direction.
+     * @param maxX    The maximum on x direction.
+     * @param minY    The minimum on y direction.
+     * @param maxY    The maximum on y direction.
+     * @param visitor The visitor to call for each element in the range.
+     * @throws NullPointerException {@code visitor} is null.
+     */
+    public void forEachInRange(double minX, double maxX, double minY, double maxY, GridIndex.IElementVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+
+        forEachInRange(root, this.minX, this.maxX, this.minY, this.maxY, minX, maxX, minY, maxY, visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void forEachInRange(Node node, double x0, double x1, double y0, double y1,
+                                           double minX, double maxX, double minY, double maxY, GridIndex.IElementVisitor<T> visitor)
+    {
+        if ((x0 > maxX) || (x1 < minX) || (y0 > maxY) || (y1 < minY) || (node.count == 0))
+            return;
+
+        if (node.children == null)
+        {
+            for (int i = 0; i < node.count; i++)
+            {
+                double x = node.xs[i];
+                double y = node.ys[i];
+                if ((x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY))
+                    visitor.visit(x, y, (T) node.elements[i]);
+            }
+
+            return;
+        }
+
+        double centerX = (x0 + x1) / 2;
+        double centerY = (y0 + y1) / 2;
+        forEachInRange(node.children[0], x0, centerX, y0, centerY, minX, maxX, minY, maxY, visitor);
+        forEachInRange(node.children[1], centerX, x1, y0, centerY, minX, maxX, minY, maxY, visitor);
+        forEachInRange(node.children[2], x0, centerX, centerY, y1, minX, maxX, minY, maxY, visitor);
+        forEachInRange(node.children[3], centerX, x1, centerY, y1, minX, maxX, minY, maxY, visitor);
+    }
+
+    /**
+     * Gets the elements whose Euclidean distance to the specified point is less than or equal to the radius.
+     *
+     * @param x      X-coordinate of the point.
+     * @param y      Y-coordinate of the point.
+     * @param radius The maximum distance.
+     * @return The elements within the radius, in no particular order.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> withinRadius(double x, double y, double radius)
+    {
+        return withinRadius(x, y, radius, GridIndex.EUCLIDEAN);
+    }
+
+    /**
+     * Gets the elements whose distance to the specified point is less than or equal to the radius.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y,
+     *                         so that only the square that bounds the circle needs to be searched.
+     * @return The elements within the radius, in no particular order.
+     * @throws NullPointerException     {@code distanceFunction} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public Iterable<T> withinRadius(double x, double y, double radius, GridIndex.IDistanceFunction distanceFunction)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachWithinRadius(x, y, radius, distanceFunction, (elementX, elementY, element) -> result.addLast(element));
+        return result;
+    }
+
+    /**
+     * Visits the elements whose distance to the specified point is less than or equal to the radius, without collecting
+     * them.
+     *
+     * @param x                X-coordinate of the point.
+     * @param y                Y-coordinate of the point.
+     * @param radius           The maximum distance.
+     * @param distanceFunction The distance, which must not be less than the larger one of the differences of x and y.
+     * @param visitor          The visitor to call for each element within the radius.
+     * @throws NullPointerException     {@code distanceFunction} or {@code visitor} is null.
+     * @throws IllegalArgumentException {@code radius} is negative or NaN.
+     */
+    public void forEachWithinRadius(double x, double y, double radius, GridIndex.IDistanceFunction distanceFunction, GridIndex.IElementVisitor<T> visitor)
+    {
+        if (distanceFunction == null)
+            throw new NullPointerException("Argument \"distanceFunction\" cannot be null.");
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+        if (!(radius >= 0))
+            throw new IllegalArgumentException("Argument \"radius\" must be greater than or equal to 0.");
+
+        GridIndex.IElementVisitor<T> filter = (elementX, elementY, element) ->
+        {
+            if (distanceFunction.distance(x, y, elementX, elementY) <= radius)
+                visitor.visit(elementX, elementY, element);
+        };
+        forEachInRange(root, minX, maxX, minY, maxY, x - radius, x + radius, y - radius, y + radius, filter);
+    }
+
+    /**
+     * Gets the k elements nearest to the specified point by Euclidean distance, nearest first.
+     * <p>
+     * The search visits the quadrants of a node from the nearest one, keeps the nearest elements found so far in a
+     * max-heap of at most k squared distances, and skips a quadrant whose region is not nearer than the k-th nearest
+     * element.
+     *
+     * @param x X-coordinate of the point, which may be out of the bounds of this tree.
+     * @param y Y-coordinate of the point, which may be out of the bounds of this tree.
+     * @param k Number of elements to find.
+     * @return The k nearest elements, or all the elements if this tree has less than k elements.
+     * @throws IllegalArgumentException {@code k} is less than 1.
+     */
+    public Iterable<T> kNearest(double x, double y, int k)
+    {
+        if (k < 1)
+            throw new IllegalArgumentException("Argument \"k\" must be greater than 0.");
+
+        BoundedMaxHeap heap = new BoundedMaxHeap(Math.min(k, root.count));
+        kNearest(root, minX, maxX, minY, maxY, x, y, heap);
+        return heap.drainSorted();
+    }
+
+    private static void kNearest(Node node, double x0, double x1, double y0, double y1, double x, double y, BoundedMaxHeap heap)
+    {
+        if (node.children == null)
+        {
+            for (int i = 0; i < node.count; i++)
+            {
+                double dx = node.xs[i] - x;
+                double dy = node.ys[i] - y;
+                heap.offer(dx * dx + dy * dy, node.elements[i]);
+            }
+
+            return;
+        }
+
+        // Visiting the quadrant of the point first, then its 2 neighbors and the opposite one last, finds near
+        // elements early so that more quadrants are skipped.
+        double centerX = (x0 + x1) / 2;
+        double centerY = (y0 + y1) / 2;
+        int first = (x >= centerX ? 1 : 0) | (y >= centerY ? 2 : 0);
+        int[] order = {first, first ^ 1, first ^ 2, first ^ 3};
+        for (int quadrant : order)
+        {
+            Node child = node.children[quadrant];
+            if (child.count == 0)
+                continue;
+
+            double childX0 = (quadrant & 1) == 0 ? x0 : centerX;
+            double childX1 = (quadrant & 1) == 0 ? centerX : x1;
+            double childY0 = (quadrant & 2) == 0 ? y0 : centerY;
+            double childY1 = (quadrant & 2) == 0 ? centerY : y1;
+            double dx = Math.max(Math.max(childX0 - x, x - childX1), 0);
+            double dy = Math.max(Math.max(childY0 - y, y - childY1), 0);
+            if (dx * dx + dy * dy < heap.bound())
+                kNearest(child, childX0, childX1, childY0, childY1, x, y, heap);
+        }
+    }
+
+    private void validateXY(double x, double y)
+    {
+        if ((x < minX) || (x > maxX))
+            throw new ArgumentOutOfRangeException("Argument \"x\" must between minX (" + minX + ") and maxX (" + maxX + ").");
+        if ((y < minY) || (y > maxY))
+            throw new ArgumentOutOfRangeException("Argument \"y\" must between minY (" + minY + ") and maxY (" + maxY + ").");
+    }
+}
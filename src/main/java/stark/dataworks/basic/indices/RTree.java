@@ -0,0 +1,848 @@
+package stark.dataworks.basic.indices;
+
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.collections.LinkedList;
+import stark.dataworks.basic.mathematics.geometry.BoundingBox;
+import stark.dataworks.basic.mathematics.geometry.Circle;
+import stark.dataworks.basic.mathematics.geometry.IShape2D;
+import stark.dataworks.basic.mathematics.geometry.LineSegment;
+import stark.dataworks.basic.mathematics.geometry.Point;
+import stark.dataworks.basic.mathematics.geometry.Polyline;
+import stark.dataworks.basic.mathematics.geometry.Rectangle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * The {@link RTree} class represents an R-tree, which indexes 2-D shapes by their minimum bounding boxes (MBRs).
+ * <p>
+ * A tree can be bulk loaded by the Sort-Tile-Recursive (STR) algorithm, which packs the entries into full nodes whose
+ * boxes barely overlap, and updated by {@link #add(BoundingBox, IShape2D)} and {@link #remove(BoundingBox, IShape2D)}
+ * afterward. An overflowed node is split by the quadratic seeds of Guttman, and an underflowed node is dissolved with
+ * its entries inserted again.
+ * <p>
+ * Every node keeps the boxes of its entries in parallel arrays, so the box tests of a query read only primitive arrays,
+ * and a shape is dereferenced only when its box passes the test.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> The type of shapes in this tree.
+ */
+public class RTree<T extends IShape2D>
+{
+    /**
+     * Default maximum number of entries in a node.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 16;
+
+    /**
+     * The visitor interface used to visit shapes found by a query.
+     *
+     * @param <T> The type of shapes in the tree.
+     */
+    public interface IShapeVisitor<T>
+    {
+        void visit(T shape);
+    }
+
+    private static final class Node
+    {
+        private final boolean leaf;
+        private final double[] minXs;
+        private final double[] minYs;
+        private final double[] maxXs;
+        private final double[] maxYs;
+
+        /**
+         * Child nodes of an inner node, or shapes of a leaf.
+         */
+        private final Object[] children;
+        private int count;
+
+        private Node(boolean leaf, int capacity)
+        {
+            this.leaf = leaf;
+            minXs = new double[capacity];
+            minYs = new double[capacity];
+            maxXs = new double[capacity];
+            maxYs = new double[capacity];
+            children = new Object[capacity];
+        }
+
+        private void add(double minX, double minY, double maxX, double maxY, Object child)
+        {
+            minXs[count] = minX;
+            minYs[count] = minY;
+            maxXs[count] = maxX;
+            maxYs[count] = maxY;
+            children[count++] = child;
+        }
+
+        /**
+         * Removes the entry at the specified index by moving the last entry into it.
+         */
+        private void removeAt(int index)
+        {
+            int last = --count;
+            minXs[index] = minXs[last];
+            minYs[index] = minYs[last];
+            maxXs[index] = maxXs[last];
+            maxYs[index] = maxYs[last];
+            children[index] = children[last];
+            children[last] = null;
+        }
+
+        /**
+         * Returns the box that covers all the entries, as {minX, minY, maxX, maxY}.
+         */
+        private double[] bounds()
+        {
+            double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (int i = 0; i < count; i++)
+            {
+                bounds[0] = Math.min(bounds[0], minXs[i]);
+                bounds[1] = Math.min(bounds[1], minYs[i]);
+                bounds[2] = Math.max(bounds[2], maxXs[i]);
+                bounds[3] = Math.max(bounds[3], maxYs[i]);
+            }
+
+            return bounds;
+        }
+
+        private void addNode(Node child)
+        {
+            double[] bounds = child.bounds();
+            add(bounds[0], bounds[1], bounds[2], bounds[3], child);
+        }
+
+        /**
+         * Sets the box of the entry at the specified index to the box of the child node.
+         */
+        private void updateBox(int index)
+        {
+            double[] bounds = ((Node) children[index]).bounds();
+            minXs[index] = bounds[0];
+            minYs[index] = bounds[1];
+            maxXs[index] = bounds[2];
+            maxYs[index] = bounds[3];
+        }
+    }
+
+    /**
+     * An entry in the queue of a nearest-neighbor search, which is either a node or a shape.
+     */
+    private static final class Candidate
+    {
+        private final double distance;
+        private final Object item;
+        private final boolean shape;
+
+        private Candidate(double distance, Object item, boolean shape)
+        {
+            this.distance = distance;
+            this.item = item;
+            this.shape = shape;
+        }
+    }
+
+    private final int maxEntries;
+    private final int minEntries;
+    private Node root;
+    private int count;
+    private int height;
+
+    /**
+     * Initializes an empty {@link RTree} with {@link #DEFAULT_MAX_ENTRIES} entries per node.
+     */
+    public RTree()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Initializes an empty {@link RTree}.
+     *
+     * @param maxEntries Maximum number of entries in a node.
+     * @throws IllegalArgumentException {@code maxEntries} is less than 4.
+     */
+    public RTree(int maxEntries)
+    {
+        if (maxEntries < 4)
+            throw new IllegalArgumentException("Argument \"maxEntries\" must be greater than or equal to 4.");
+
+        this.maxEntries = maxEntries;
+        minEntries = Math.max(2, maxEntries * 2 / 5);
+        clear();
+    }
+
+    /**
+     * Initializes an {@link RTree} with the specified shapes by STR bulk loading, whose boxes are computed by
+     * {@link #boundsOf(IShape2D)}.
+     *
+     * @param shapes     The shapes to add.
+     * @param maxEntries Maximum number of entries in a node.
+     * @throws NullPointerException     {@code shapes} or one of its elements is null.
+     * @throws IllegalArgumentException {@code maxEntries} is less than 4, or the box of a shape cannot be computed.
+     */
+    public RTree(T[] shapes, int maxEntries)
+    {
+        this(boundsOf(shapes), shapes, maxEntries);
+    }
+
+    /**
+     * Initializes an {@link RTree} with the specified shapes and their boxes by STR bulk loading.
+     * <p>
+     * The entries are sorted by the x-coordinates of the centers of their boxes and cut into about sqrt(n / M)
+     * vertical slices, where M is the maximum number of entries in a node. The entries of each slice are sorted by the
+     * y-coordinates and packed into leaves of M entries, and the leaves are packed into the upper levels in the same
+     * way.
+     *
+     * @param boxes      The boxes of the shapes, where boxes[i] is the box of shapes[i].
+     * @param shapes     The shapes to add.
+     * @param maxEntries Maximum number of entries in a node.
+     * @throws NullPointerException     {@code boxes}, {@code shapes} or one of their elements is null.
+     * @throws IllegalArgumentException {@code maxEntries} is less than 4, or the arrays have different lengths.
+     */
+    public RTree(BoundingBox[] boxes, T[] shapes, int maxEntries)
+    {
+        this(maxEntries);
+
+        if (boxes == null)
+            throw new NullPointerException("Argument \"boxes\" cannot be null.");
+        if (shapes == null)
+            throw new NullPointerException("Argument \"shapes\" cannot be null.");
+        if (boxes.length != shapes.length)
+            throw new IllegalArgumentException("Arguments \"boxes\" and \"shapes\" must have the same length.");
+
+        int n = shapes.length;
+        if (n == 0)
+            return;
+
+        // Pack the entries of the current level into the nodes of the level above, until 1 node is left.
+        double[] minXs = new double[n];
+        double[] minYs = new double[n];
+        double[] maxXs = new double[n];
+        double[] maxYs = new double[n];
+        Object[] items = new Object[n];
+        for (int i = 0; i < n; i++)
+        {
+            BoundingBox box = boxes[i];
+            if ((box == null) || (shapes[i] == null))
+                throw new NullPointerException("Elements of arguments \"boxes\" and \"shapes\" cannot be null.");
+
+            minXs[i] = box.getMinX();
+            minYs[i] = box.getMinY();
+            maxXs[i] = box.getMaxX();
+            maxYs[i] = box.getMaxY();
+            items[i] = shapes[i];
+        }
+
+        boolean leaf = true;
+        height = 0;
+        while (true)
+        {
+            Node[] nodes = pack(minXs, minYs, maxXs, maxYs, items, leaf);
+            height++;
+            if (nodes.length == 1)
+            {
+                root = nodes[0];
+                break;
+            }
+
+            int m = nodes.length;
+            minXs = new double[m];
+            minYs = new double[m];
+            maxXs = new double[m];
+            maxYs = new double[m];
+            items = nodes;
+            for (int i = 0; i < m; i++)
+            {
+                double[] bounds = nodes[i].bounds();
+                minXs[i] = bounds[0];
+                minYs[i] = bounds[1];
+                maxXs[i] = bounds[2];
+                maxYs[i] = bounds[3];
+            }
+
+            leaf = false;
+        }
+
+        count = n;
+    }
+
+    /**
+     * Packs the specified entries into nodes by STR.
+     */
+    private Node[] pack(double[] minXs, double[] minYs, double[] maxXs, double[] maxYs, Object[] items, boolean leaf)
+    {
+        int n = items.length;
+        int nodeCount = (n + maxEntries - 1) / maxEntries;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * maxEntries;
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> minXs[i] + maxXs[i]));
+        for (int start = 0; start < n; start += sliceSize)
+            Arrays.sort(order, start, Math.min(start + sliceSize, n), Comparator.comparingDouble(i -> minYs[i] + maxYs[i]));
+
+        // Each slice is packed separately, so that no node spans 2 slices.
+        Node[] nodes = new Node[n];
+        int m = 0;
+        for (int start = 0; start < n; start += sliceSize)
+        {
+            int end = Math.min(start + sliceSize, n);
+            for (int i = start; i < end; i++)
+            {
+                if ((i - start) % maxEntries == 0)
+                    nodes[m++] = new Node(leaf, maxEntries + 1);
+
+                int e = order[i];
+                nodes[m - 1].add(minXs[e], minYs[e], maxXs[e], maxYs[e], items[e]);
+            }
+        }
+
+        return Arrays.copyOf(nodes, m);
+    }
+
+    /**
+     * Gets the bounding box of a shape, for the shapes whose extent is known: {@link Point}, {@link Circle},
+     * {@link BoundingBox}, {@link LineSegment}, {@link Polyline} and {@link Rectangle}.
+     *
+     * @param shape The shape.
+     * @return The minimum bounding box of the shape.
+     * @throws NullPointerException     {@code shape} is null.
+     * @throws IllegalArgumentException The box of the shape cannot be computed, so it must be given explicitly.
+     */
+    public static BoundingBox boundsOf(IShape2D shape)
+    {
+        if (shape == null)
+            throw new NullPointerException("Argument \"shape\" cannot be null.");
+
+        if (shape instanceof Point)
+        {
+            Point point = (Point) shape;
+            return new BoundingBox(point.getX(), point.getY(), point.getX(), point.getY());
+        }
+        if (shape instanceof Circle)
+        {
+            Circle circle = (Circle) shape;
+            double radius = circle.getRadius();
+            return new BoundingBox(circle.getCenterX() - radius, circle.getCenterY() - radius, circle.getCenterX() + radius, circle.getCenterY() + radius);
+        }
+        if (shape instanceof BoundingBox)
+        {
+            BoundingBox box = (BoundingBox) shape;
+            return new BoundingBox(box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY());
+        }
+        if (shape instanceof LineSegment)
+        {
+            LineSegment segment = (LineSegment) shape;
+            return new BoundingBox(new Point[]{segment.getEndPoint1(), segment.getEndPoint2()});
+        }
+        if (shape instanceof Polyline)
+            return new BoundingBox(((Polyline) shape).getPoints());
+        if (shape instanceof Rectangle)
+        {
+            Rectangle rectangle = (Rectangle) shape;
+            return new BoundingBox(new Point[]{rectangle.getPoint1(), rectangle.getPoint2(), rectangle.getPoint3(), rectangle.getPoint4()});
+        }
+
+        throw new IllegalArgumentException("The bounding box of " + shape.getClass().getSimpleName() + " cannot be computed, please specify it explicitly.");
+    }
+
+    private static BoundingBox[] boundsOf(IShape2D[] shapes)
+    {
+        if (shapes == null)
+            throw new NullPointerException("Argument \"shapes\" cannot be null.");
+
+        BoundingBox[] boxes = new BoundingBox[shapes.length];
+        for (int i = 0; i < shapes.length; i++)
+            boxes[i] = boundsOf(shapes[i]);
+
+        return boxes;
+    }
+
+    /**
+     * Gets the number of shapes in this tree.
+     *
+     * @return The number of shapes in this tree.
+     */
+    public int count()
+    {
+        return count;
+    }
+
+    /**
+     * Gets the number of levels of this tree, where a tree with only a root leaf has height 1.
+     *
+     * @return The number of levels of this tree.
+     */
+    public int height()
+    {
+        return height;
+    }
+
+    /**
+     * Removes all the shapes from this tree.
+     */
+    public void clear()
+    {
+        root = new Node(true, maxEntries + 1);
+        count = 0;
+        height = 1;
+    }
+
+    /**
+     * Adds a shape whose box is computed by {@link #boundsOf(IShape2D)}.
+     *
+     * @param shape The shape to add.
+     * @throws NullPointerException     {@code shape} is null.
+     * @throws IllegalArgumentException The box of the shape cannot be computed.
+     */
+    public void add(T shape)
+    {
+        add(boundsOf(shape), shape);
+    }
+
+    /**
+     * Adds a shape with the specified box.
+     *
+     * @param box   The bounding box of the shape.
+     * @param shape The shape to add.
+     * @throws NullPointerException {@code box} or {@code shape} is null.
+     */
+    public void add(BoundingBox box, T shape)
+    {
+        if (box == null)
+            throw new NullPointerException("Argument \"box\" cannot be null.");
+        if (shape == null)
+            throw new NullPointerException("Argument \"shape\" cannot be null.");
+
+        insert(box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY(), shape);
+        count++;
+    }
+
+    private void insert(double minX, double minY, double maxX, double maxY, Object shape)
+    {
+        Node sibling = insert(root, minX, minY, maxX, maxY, shape);
+        if (sibling != null)
+        {
+            Node newRoot = new Node(false, maxEntries + 1);
+            newRoot.addNode(root);
+            newRoot.addNode(sibling);
+            root = newRoot;
+            height++;
+        }
+    }
+
+    /**
+     * Inserts an entry into the subtree of the specified node.
+     *
+     * @return The new sibling of the node if the node is split; otherwise, null.
+     */
+    private Node insert(Node node, double minX, double minY, double maxX, double maxY, Object shape)
+    {
+        if (node.leaf)
+            node.add(minX, minY, maxX, maxY, shape);
+        else
+        {
+            int index = chooseSubtree(node, minX, minY, maxX, maxY);
+            Node child = (Node) node.children[index];
+            Node sibling = insert(child, minX, minY, maxX, maxY, shape);
+            if (sibling == null)
+            {
+                node.minXs[index] = Math.min(node.minXs[index], minX);
+                node.minYs[index] = Math.min(node.minYs[index], minY);
+                node.maxXs[index] = Math.max(node.maxXs[index], maxX);
+                node.maxYs[index] = Math.max(node.maxYs[index], maxY);
+            }
+            else
+            {
+                node.updateBox(index);
+                node.addNode(sibling);
+            }
+        }
+
+        return node.count > maxEntries ? split(node) : null;
+    }
+
+    /**
+     * Returns the index of the entry whose box needs the least enlargement to cover the specified box, breaking ties by
+     * the smaller area.
+     */
+    private static int chooseSubtree(Node node, double minX, double minY, double maxX, double maxY)
+    {
+        int best = 0;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < node.count; i++)
+        {
+            double area = area(node.minXs[i], node.minYs[i], node.maxXs[i], node.maxYs[i]);
+            double enlargement = area(Math.min(node.minXs[i], minX), Math.min(node.minYs[i], minY), Math.max(node.maxXs[i], maxX), Math.max(node.maxYs[i], maxY)) - area;
+            if ((enlargement < bestEnlargement) || ((enlargement == bestEnlargement) && (area < bestArea)))
+            {
+                best = i;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Splits an overflowed node, keeping one group in the node and returning the other group in a new node.
+     */
+    private Node split(Node node)
+    {
+        int n = node.count;
+
+        // The seeds are the pair of entries that would waste the most area in the same node.
+        int seed1 = 0;
+        int seed2 = 1;
+        double worst = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = i + 1; j < n; j++)
+            {
+                double waste = area(Math.min(node.minXs[i], node.minXs[j]), Math.min(node.minYs[i], node.minYs[j]), Math.max(node.maxXs[i], node.maxXs[j]), Math.max(node.maxYs[i], node.maxYs[j])) -
+                               area(node.minXs[i], node.minYs[i], node.maxXs[i], node.maxYs[i]) -
+                               area(node.minXs[j], node.minYs[j], node.maxXs[j], node.maxYs[j]);
+                if (waste > worst)
+                {
+                    worst = waste;
+                    seed1 = i;
+                    seed2 = j;
+                }
+            }
+        }
+
+        Node entries = new Node(node.leaf, n);
+        for (int i = 0; i < n; i++)
+            entries.add(node.minXs[i], node.minYs[i], node.maxXs[i], node.maxYs[i], node.children[i]);
+        Arrays.fill(node.children, null);
+        node.count = 0;
+
+        Node sibling = new Node(node.leaf, maxEntries + 1);
+        Node[] groups = {node, sibling};
+        double[][] boxes = new double[2][];
+        int[] seeds = {seed1, seed2};
+        for (int g = 0; g < 2; g++)
+        {
+            int s = seeds[g];
+            groups[g].add(entries.minXs[s], entries.minYs[s], entries.maxXs[s], entries.maxYs[s], entries.children[s]);
+            boxes[g] = new double[]{entries.minXs[s], entries.minYs[s], entries.maxXs[s], entries.maxYs[s]};
+        }
+
+        int remaining = n - 2;
+        for (int i = 0; i < n; i++)
+        {
+            if ((i == seed1) || (i == seed2))
+                continue;
+
+            // A group that needs all the remaining entries to reach the minimum takes them.
+            int g;
+            if (groups[0].count + remaining == minEntries)
+                g = 0;
+            else if (groups[1].count + remaining == minEntries)
+                g = 1;
+            else
+            {
+                double enlargement0 = enlargement(boxes[0], entries, i);
+                double enlargement1 = enlargement(boxes[1], entries, i);
+                if (enlargement0 != enlargement1)
+                    g = enlargement0 < enlargement1 ? 0 : 1;
+                else
+                    g = groups[0].count <= groups[1].count ? 0 : 1;
+            }
+
+            groups[g].add(entries.minXs[i], entries.minYs[i], entries.maxXs[i], entries.maxYs[i], entries.children[i]);
+            double[] box = boxes[g];
+            box[0] = Math.min(box[0], entries.minXs[i]);
+            box[1] = Math.min(box[1], entries.minYs[i]);
+            box[2] = Math.max(box[2], entries.maxXs[i]);
+            box[3] = Math.max(box[3], entries.maxYs[i]);
+            remaining--;
+        }
+
+        return sibling;
+    }
+
+    private static double enlargement(double[] box, Node entries, int i)
+    {
+        return area(Math.min(box[0], entries.minXs[i]), Math.min(box[1], entries.minYs[i]), Math.max(box[2], entries.maxXs[i]), Math.max(box[3], entries.maxYs[i])) -
+               area(box[0], box[1], box[2], box[3]);
+    }
+
+    private static double area(double minX, double minY, double maxX, double maxY)
+    {
+        return (maxX - minX) * (maxY - minY);
+    }
+
+    /**
+     * Removes a shape whose box is computed by {@link #boundsOf(IShape2D)}.
+     *
+     * @param shape The shape to remove.
+     * @return True if the shape is removed; false if this tree doesn't contain the shape.
+     * @throws NullPointerException     {@code shape} is null.
+     * @throws IllegalArgumentException The box of the shape cannot be computed.
+     */
+    public boolean remove(T shape)
+    {
+        return remove(boundsOf(shape), shape);
+    }
+
+    /**
+     * Removes a shape that was added with the specified box. Shapes are compared by {@link Object#equals(Object)}.
+     *
+     * @param box   The bounding box the shape was added with.
+     * @param shape The shape to remove.
+     * @return True if the shape is removed; false if this tree doesn't contain the shape within the box.
+     * @throws NullPointerException {@code box} or {@code shape} is null.
+     */
+    public boolean remove(BoundingBox box, T shape)
+    {
+        if (box == null)
+            throw new NullPointerException("Argument \"box\" cannot be null.");
+        if (shape == null)
+            throw new NullPointerException("Argument \"shape\" cannot be null.");
+
+        LinkedList<Node> orphans = new LinkedList<>();
+        if (!remove(root, box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY(), shape, orphans))
+            return false;
+
+        count--;
+        while (!root.leaf && (root.count == 1))
+        {
+            root = (Node) root.children[0];
+            height--;
+        }
+        if (!root.leaf && (root.count == 0))
+        {
+            root = new Node(true, maxEntries + 1);
+            height = 1;
+        }
+
+        // The entries of dissolved nodes are inserted again from the root.
+        for (Node orphan : orphans)
+            reinsert(orphan);
+
+        return true;
+    }
+
+    private boolean remove(Node node, double minX, double minY, double maxX, double maxY, Object shape, LinkedList<Node> orphans)
+    {
+        for (int i = 0; i < node.count; i++)
+        {
+            if ((node.minXs[i] > minX) || (node.minYs[i] > minY) || (node.maxXs[i] < maxX) || (node.maxYs[i] < maxY))
+                continue;
+
+            if (node.leaf)
+            {
+                if (shape.equals(node.children[i]))
+                {
+                    node.removeAt(i);
+                    return true;
+                }
+            }
+            else
+            {
+                Node child = (Node) node.children[i];
+                if (remove(child, minX, minY, maxX, maxY, shape, orphans))
+                {
+                    if (child.count < minEntries)
+                    {
+                        node.removeAt(i);
+                        orphans.addLast(child);
+                    }
+                    else
+                        node.updateBox(i);
+
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void reinsert(Node node)
+    {
+        for (int i = 0; i < node.count; i++)
+        {
+            if (node.leaf)
+                insert(node.minXs[i], node.minYs[i], node.maxXs[i], node.maxYs[i], node.children[i]);
+            else
+                reinsert((Node) node.children[i]);
+        }
+    }
+
+    /**
+     * Gets the shapes whose boxes intersect with the specified box.
+     *
+     * @param box The box to query.
+     * @return The shapes whose boxes intersect with the box, in no particular order.
+     * @throws NullPointerException {@code box} is null.
+     */
+    public Iterable<T> intersecting(BoundingBox box)
+    {
+        if (box == null)
+            throw new NullPointerException("Argument \"box\" cannot be null.");
+
+        LinkedList<T> result = new LinkedList<>();
+        forEachIntersecting(box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY(), result::addLast);
+        return result;
+    }
+
+    /**
+     * Visits the shapes whose boxes intersect with the specified box, without collecting them.
+     *
+     * @param minX    The minimum x of the box.
+     * @param minY    The minimum y of the box.
+     * @param maxX    The maximum x of the box.
+     * @param maxY    The maximum y of the box.
+     * @param visitor The visitor to call for each shape found.
+     * @throws NullPointerException {@code visitor} is null.
+     */
+    public void forEachIntersecting(double minX, double minY, double maxX, double maxY, IShapeVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("Argument \"visitor\" cannot be null.");
+
+        forEachIntersecting(root, minX, minY, maxX, maxY, visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void forEachIntersecting(Node node, double minX, double minY, double maxX, double maxY, IShapeVisitor<T> visitor)
+    {
+        for (int i = 0; i < node.count; i++)
+        {
+            if ((node.minXs[i] > maxX) || (node.maxXs[i] < minX) || (node.minYs[i] > maxY) || (node.maxYs[i] < minY))
+                continue;
+
+            if (node.leaf)
+                visitor.visit((T) node.children[i]);
+            else
+                forEachIntersecting((Node) node.children[i], minX, minY, maxX, maxY, visitor);
+        }
+    }
+
+    /**
+     * Gets the shapes that contain the specified point. Only the shapes whose boxes contain the point are tested by
+     * {@link IShape2D#contains(double, double)}.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @return The shapes that contain the point, in no particular order.
+     */
+    public Iterable<T> containing(double x, double y)
+    {
+        LinkedList<T> result = new LinkedList<>();
+        forEachIntersecting(root, x, y, x, y, (T shape) ->
+        {
+            if (shape.contains(x, y))
+                result.addLast(shape);
+        });
+        return result;
+    }
+
+    /**
+     * Determines whether any shape in this tree contains the specified point, which stops at the first such shape.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @return True if a shape in this tree contains the point; otherwise, false.
+     */
+    public boolean contains(double x, double y)
+    {
+        return contains(root, x, y);
+    }
+
+    private static boolean contains(Node node, double x, double y)
+    {
+        for (int i = 0; i < node.count; i++)
+        {
+            if ((node.minXs[i] > x) || (node.maxXs[i] < x) || (node.minYs[i] > y) || (node.maxYs[i] < y))
+                continue;
+
+            if (node.leaf ? ((IShape2D) node.children[i]).contains(x, y) : contains((Node) node.children[i], x, y))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the shape nearest to the specified point by {@link IShape2D#distanceTo(double, double)}.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @return The nearest shape.
+     * @throws InvalidOperationException This tree is empty.
+     */
+    public T nearest(double x, double y)
+    {
+        if (count == 0)
+            throw new InvalidOperationException("The RTree is empty.");
+
+        return nearest(x, y, 1).iterator().next();
+    }
+
+    /**
+     * Gets the k shapes nearest to the specified point, nearest first. The distance to a shape is the larger one of
+     * {@link IShape2D#distanceTo(double, double)} and the distance to the bounding box of the shape. For points, line
+     * segments, polylines and circles, that is just {@link IShape2D#distanceTo(double, double)}; for rectangles and
+     * polygons, whose {@link IShape2D#distanceTo(double, double)} is always 0, it is the distance to their box.
+     * <p>
+     * Nodes and shapes are visited best-first from a priority queue. A node is keyed by the distance from the point to
+     * its box, which is a lower bound of the distance to every shape in it, since the box of the node contains the box
+     * of each shape. So a shape polled from the queue is nearer than everything left in it.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @param k Number of shapes to find.
+     * @return The k nearest shapes, or all the shapes if this tree has less than k shapes.
+     * @throws IllegalArgumentException {@code k} is less than 1.
+     */
+    @SuppressWarnings("unchecked")
+    public Iterable<T> nearest(double x, double y, int k)
+    {
+        if (k < 1)
+            throw new IllegalArgumentException("Argument \"k\" must be greater than 0.");
+
+        ArrayList<T> result = new ArrayList<>(Math.min(k, count));
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distance));
+        queue.add(new Candidate(0, root, false));
+        while (!queue.isEmpty() && (result.size() < k))
+        {
+            Candidate candidate = queue.poll();
+            if (candidate.shape)
+            {
+                result.add((T) candidate.item);
+                continue;
+            }
+
+            Node node = (Node) candidate.item;
+            for (int i = 0; i < node.count; i++)
+            {
+                double dx = Math.max(Math.max(node.minXs[i] - x, x - node.maxXs[i]), 0);
+                double dy = Math.max(Math.max(node.minYs[i] - y, y - node.maxYs[i]), 0);
+                double boxDistance = Math.sqrt(dx * dx + dy * dy);
+                if (node.leaf)
+                {
+                    // Never key a shape below its box, so that no shape is polled before a node that may hold a nearer one.
+                    double distance = Math.max(((IShape2D) node.children[i]).distanceTo(x, y), boxDistance);
+                    queue.add(new Candidate(distance, node.children[i], true));
+                }
+                else
+                    queue.add(new Candidate(boxDistance, node.children[i], false));
+            }
+        }
+
+        return result;
+    }
+}
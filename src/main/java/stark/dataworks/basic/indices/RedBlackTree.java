@@ -1,5 +1,803 @@
 package stark.dataworks.basic.indices;
 
-public class RedBlackTree
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.KeyNotFountException;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The {@link RedBlackTree} class represents an ordered index whose keys are primitive {@code long} values, stored in a
+ * red-black tree.
+ * <p>
+ * Unlike {@link stark.dataworks.basic.collections.SortedDictionary}, there is no node object per element. Node i is
+ * described by keys[i], values[i], left[i], right[i], parent[i] and red[i] in parallel arrays, and links between nodes
+ * are int indices into them, so a node costs no object header and keys are compared without unboxing. Index 0 is the
+ * black sentinel that stands for every missing child. Slots of removed nodes are chained into a free list through the
+ * left array and reused by later insertions, and {@link #compact()} lays the nodes out in key order again after many
+ * removals.
+ * <p>
+ * Insertion and removal follow the classic algorithms with parent links. They are not recursive, and ordered scans
+ * walk from a node to its successor in place without a stack.
+ * <p>
+ * {@link DoubleRedBlackTree} wraps this class for {@code double} keys.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <TValue> Type of values in the tree.
+ */
+public class RedBlackTree<TValue>
 {
+    /**
+     * The visitor interface used to visit elements in key order without boxing keys.
+     *
+     * @param <TValue> Type of values in the tree.
+     */
+    public interface IEntryVisitor<TValue>
+    {
+        void visit(long key, TValue value);
+    }
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Index of the sentinel node, which is black and has no children. Its parent is temporarily set during removal.
+     */
+    private static final int NIL = 0;
+
+    private long[] keys;
+    private Object[] values;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private boolean[] red;
+
+    private int root = NIL;
+
+    /**
+     * Head of the list of free slots, chained through the left array.
+     */
+    private int freeHead = NIL;
+
+    /**
+     * Number of slots that have ever been used, including the sentinel.
+     */
+    private int used = 1;
+
+    private int count;
+    private int version;
+
+    /**
+     * Initializes an empty {@link RedBlackTree}.
+     */
+    public RedBlackTree()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty {@link RedBlackTree} that can hold the specified number of elements without growing its
+     * arrays.
+     *
+     * @param capacity The expected number of elements.
+     * @throws IllegalArgumentException {@code capacity} is less than 0.
+     */
+    public RedBlackTree(int capacity)
+    {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Argument \"capacity\" must be greater than or equal to 0.");
+
+        allocate(capacity + 1);
+    }
+
+    private void allocate(int length)
+    {
+        keys = new long[length];
+        values = new Object[length];
+        left = new int[length];
+        right = new int[length];
+        parent = new int[length];
+        red = new boolean[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private TValue valueAt(int node)
+    {
+        return (TValue) values[node];
+    }
+
+    /**
+     * Finds the node with the specified key.
+     *
+     * @param key The specified key.
+     * @return Index of the node, or {@link #NIL} if the key is not in the tree.
+     */
+    private int find(long key)
+    {
+        int node = root;
+        while (node != NIL)
+        {
+            long current = keys[node];
+            if (key < current)
+                node = left[node];
+            else if (key > current)
+                node = right[node];
+            else
+                return node;
+        }
+
+        return NIL;
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws KeyNotFountException The specified key is not in this tree.
+     */
+    public TValue get(long key)
+    {
+        int node = find(key);
+        if (node == NIL)
+            throw new KeyNotFountException("The specified key is not in the RedBlackTree.");
+
+        return valueAt(node);
+    }
+
+    /**
+     * Gets the element associated with the specified key, or the specified default value if the key is not in this
+     * tree.
+     *
+     * @param key          The key of the element to get.
+     * @param defaultValue The value to return if the key is not found.
+     * @return The value associated with the specified key, or {@code defaultValue}.
+     */
+    public TValue getOrDefault(long key, TValue defaultValue)
+    {
+        int node = find(key);
+        return (node == NIL) ? defaultValue : valueAt(node);
+    }
+
+    /**
+     * Determines whether this tree contains an element with the specified key.
+     *
+     * @param key The key to locate.
+     * @return {@code true} if this tree contains an element with the key; otherwise, {@code false}.
+     */
+    public boolean containsKey(long key)
+    {
+        return find(key) != NIL;
+    }
+
+    /**
+     * Adds an element with the provided key and value to this tree.
+     *
+     * @param key   The key of the element to add.
+     * @param value The value of the element to add.
+     * @throws IllegalArgumentException An element with the same key already exists in this tree.
+     */
+    public void add(long key, TValue value)
+    {
+        if (insert(key, value) != NIL)
+            throw new IllegalArgumentException("The specified key is already in the RedBlackTree.");
+    }
+
+    /**
+     * Adds an element with the provided key and value, or replaces the value if the key already exists.
+     *
+     * @param key   The key of the element to add or replace.
+     * @param value The new value associated with the specified key.
+     * @return The previous value associated with the specified key, or null if there was no such element.
+     */
+    public TValue put(long key, TValue value)
+    {
+        int node = insert(key, value);
+        if (node == NIL)
+            return null;
+
+        TValue previous = valueAt(node);
+        values[node] = value;
+        version++;
+        return previous;
+    }
+
+    /**
+     * Inserts a red node below the leaf where the search for the key ends, and restores the red-black properties. The
+     * tree is not changed if the key already exists.
+     *
+     * @param key   Key of the element to insert.
+     * @param value Value of the element to insert.
+     * @return The node with the specified key if it already exists; otherwise, {@link #NIL}.
+     */
+    private int insert(long key, TValue value)
+    {
+        int p = NIL;
+        int node = root;
+        while (node != NIL)
+        {
+            p = node;
+            long current = keys[node];
+            if (key < current)
+                node = left[node];
+            else if (key > current)
+                node = right[node];
+            else
+                return node;
+        }
+
+        int z = newNode(key, value);
+        parent[z] = p;
+        if (p == NIL)
+            root = z;
+        else if (key < keys[p])
+            left[p] = z;
+        else
+            right[p] = z;
+
+        fixAfterInsertion(z);
+        count++;
+        version++;
+        return NIL;
+    }
+
+    /**
+     * Takes a slot from the free list, or the next unused slot, and initializes it as a red node without children.
+     */
+    private int newNode(long key, TValue value)
+    {
+        int node;
+        if (freeHead != NIL)
+        {
+            node = freeHead;
+            freeHead = left[node];
+        }
+        else
+        {
+            if (used == keys.length)
+                grow();
+            node = used++;
+        }
+
+        keys[node] = key;
+        values[node] = value;
+        left[node] = NIL;
+        right[node] = NIL;
+        red[node] = true;
+        return node;
+    }
+
+    private void grow()
+    {
+        int length = Math.max(keys.length * 2, DEFAULT_CAPACITY);
+        keys = Arrays.copyOf(keys, length);
+        values = Arrays.copyOf(values, length);
+        left = Arrays.copyOf(left, length);
+        right = Arrays.copyOf(right, length);
+        parent = Arrays.copyOf(parent, length);
+        red = Arrays.copyOf(red, length);
+    }
+
+    private void freeNode(int node)
+    {
+        values[node] = null;
+        left[node] = freeHead;
+        right[node] = NIL;
+        parent[node] = NIL;
+        red[node] = false;
+        freeHead = node;
+    }
+
+    private void rotateLeft(int x)
+    {
+        int y = right[x];
+        right[x] = left[y];
+        if (left[y] != NIL)
+            parent[left[y]] = x;
+
+        replaceChild(x, y);
+        left[y] = x;
+        parent[x] = y;
+    }
+
+    private void rotateRight(int x)
+    {
+        int y = left[x];
+        left[x] = right[y];
+        if (right[y] != NIL)
+            parent[right[y]] = x;
+
+        replaceChild(x, y);
+        right[y] = x;
+        parent[x] = y;
+    }
+
+    /**
+     * Puts node v in the place of node u under the parent of u. v may be the sentinel, whose parent is set as well.
+     */
+    private void replaceChild(int u, int v)
+    {
+        int p = parent[u];
+        if (p == NIL)
+            root = v;
+        else if (u == left[p])
+            left[p] = v;
+        else
+            right[p] = v;
+
+        parent[v] = p;
+    }
+
+    private void fixAfterInsertion(int z)
+    {
+        // The sentinel is black, so the loop stops below the root.
+        while (red[parent[z]])
+        {
+            int p = parent[z];
+            int g = parent[p];
+            if (p == left[g])
+            {
+                int uncle = right[g];
+                if (red[uncle])
+                {
+                    red[p] = false;
+                    red[uncle] = false;
+                    red[g] = true;
+                    z = g;
+                }
+                else
+                {
+                    if (z == right[p])
+                    {
+                        z = p;
+                        rotateLeft(z);
+                        p = parent[z];
+                    }
+
+                    red[p] = false;
+                    red[g] = true;
+                    rotateRight(g);
+                }
+            }
+            else
+            {
+                int uncle = left[g];
+                if (red[uncle])
+                {
+                    red[p] = false;
+                    red[uncle] = false;
+                    red[g] = true;
+                    z = g;
+                }
+                else
+                {
+                    if (z == left[p])
+                    {
+                        z = p;
+                        rotateRight(z);
+                        p = parent[z];
+                    }
+
+                    red[p] = false;
+                    red[g] = true;
+                    rotateLeft(g);
+                }
+            }
+        }
+
+        red[root] = false;
+    }
+
+    /**
+     * Tries to remove the element with the specified key.
+     *
+     * @param key The key of the element to remove.
+     * @return {@code true} if the element is successfully removed; otherwise, {@code false}.
+     */
+    public boolean removeByKey(long key)
+    {
+        int z = find(key);
+        if (z == NIL)
+            return false;
+
+        // y is the node that leaves its position: z itself, or its successor if z has 2 children. x takes the place of
+        // y, and it may be the sentinel, whose parent is then set by replaceChild().
+        int y = z;
+        boolean removedRed = red[y];
+        int x;
+        if (left[z] == NIL)
+        {
+            x = right[z];
+            replaceChild(z, x);
+        }
+        else if (right[z] == NIL)
+        {
+            x = left[z];
+            replaceChild(z, x);
+        }
+        else
+        {
+            y = minimum(right[z]);
+            removedRed = red[y];
+            x = right[y];
+            if (parent[y] == z)
+                parent[x] = y;
+            else
+            {
+                replaceChild(y, x);
+                right[y] = right[z];
+                parent[right[y]] = y;
+            }
+
+            replaceChild(z, y);
+            left[y] = left[z];
+            parent[left[y]] = y;
+            red[y] = red[z];
+        }
+
+        if (!removedRed)
+            fixAfterRemoval(x);
+
+        freeNode(z);
+        parent[NIL] = NIL;
+        count--;
+        version++;
+        return true;
+    }
+
+    private void fixAfterRemoval(int x)
+    {
+        while ((x != root) && !red[x])
+        {
+            int p = parent[x];
+            if (x == left[p])
+            {
+                int sibling = right[p];
+                if (red[sibling])
+                {
+                    red[sibling] = false;
+                    red[p] = true;
+                    rotateLeft(p);
+                    sibling = right[p];
+                }
+
+                if (!red[left[sibling]] && !red[right[sibling]])
+                {
+                    red[sibling] = true;
+                    x = p;
+                }
+                else
+                {
+                    if (!red[right[sibling]])
+                    {
+                        red[left[sibling]] = false;
+                        red[sibling] = true;
+                        rotateRight(sibling);
+                        sibling = right[p];
+                    }
+
+                    red[sibling] = red[p];
+                    red[p] = false;
+                    red[right[sibling]] = false;
+                    rotateLeft(p);
+                    x = root;
+                }
+            }
+            else
+            {
+                int sibling = left[p];
+                if (red[sibling])
+                {
+                    red[sibling] = false;
+                    red[p] = true;
+                    rotateRight(p);
+                    sibling = left[p];
+                }
+
+                if (!red[right[sibling]] && !red[left[sibling]])
+                {
+                    red[sibling] = true;
+                    x = p;
+                }
+                else
+                {
+                    if (!red[left[sibling]])
+                    {
+                        red[right[sibling]] = false;
+                        red[sibling] = true;
+                        rotateLeft(sibling);
+                        sibling = left[p];
+                    }
+
+                    red[sibling] = red[p];
+                    red[p] = false;
+                    red[left[sibling]] = false;
+                    rotateRight(p);
+                    x = root;
+                }
+            }
+        }
+
+        red[x] = false;
+    }
+
+    private int minimum(int node)
+    {
+        while (left[node] != NIL)
+            node = left[node];
+        return node;
+    }
+
+    private int maximum(int node)
+    {
+        while (right[node] != NIL)
+            node = right[node];
+        return node;
+    }
+
+    /**
+     * Returns the node with the next greater key, or {@link #NIL} if the node has the greatest key.
+     */
+    private int successor(int node)
+    {
+        if (right[node] != NIL)
+            return minimum(right[node]);
+
+        int p = parent[node];
+        while ((p != NIL) && (node == right[p]))
+        {
+            node = p;
+            p = parent[p];
+        }
+
+        return p;
+    }
+
+    /**
+     * Returns the node with the smallest key greater than or equal to the specified key, or {@link #NIL}.
+     */
+    private int ceilingNode(long key)
+    {
+        int node = root;
+        int result = NIL;
+        while (node != NIL)
+        {
+            if (keys[node] < key)
+                node = right[node];
+            else
+            {
+                result = node;
+                node = left[node];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the node with the largest key less than or equal to the specified key, or {@link #NIL}.
+     */
+    private int floorNode(long key)
+    {
+        int node = root;
+        int result = NIL;
+        while (node != NIL)
+        {
+            if (keys[node] > key)
+                node = left[node];
+            else
+            {
+                result = node;
+                node = right[node];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the smallest key in this tree.
+     *
+     * @return The smallest key in this tree.
+     * @throws InvalidOperationException This tree is empty.
+     */
+    public long minKey()
+    {
+        if (root == NIL)
+            throw new InvalidOperationException("The RedBlackTree is empty.");
+
+        return keys[minimum(root)];
+    }
+
+    /**
+     * Gets the largest key in this tree.
+     *
+     * @return The largest key in this tree.
+     * @throws InvalidOperationException This tree is empty.
+     */
+    public long maxKey()
+    {
+        if (root == NIL)
+            throw new InvalidOperationException("The RedBlackTree is empty.");
+
+        return keys[maximum(root)];
+    }
+
+    /**
+     * Gets the largest key less than or equal to the specified key.
+     *
+     * @param key The key to search for.
+     * @return The largest key less than or equal to the specified key.
+     * @throws KeyNotFountException All keys in this tree are greater than the specified key.
+     */
+    public long floorKey(long key)
+    {
+        int node = floorNode(key);
+        if (node == NIL)
+            throw new KeyNotFountException("No key in the RedBlackTree is less than or equal to the specified key.");
+
+        return keys[node];
+    }
+
+    /**
+     * Gets the smallest key greater than or equal to the specified key.
+     *
+     * @param key The key to search for.
+     * @return The smallest key greater than or equal to the specified key.
+     * @throws KeyNotFountException All keys in this tree are less than the specified key.
+     */
+    public long ceilingKey(long key)
+    {
+        int node = ceilingNode(key);
+        if (node == NIL)
+            throw new KeyNotFountException("No key in the RedBlackTree is greater than or equal to the specified key.");
+
+        return keys[node];
+    }
+
+    /**
+     * Visits all elements of this tree in increasing order of keys, without boxing their keys.
+     *
+     * @param visitor The visitor to call for each element.
+     * @throws NullPointerException      {@code visitor} is null.
+     * @throws InvalidOperationException The tree is modified by the visitor.
+     */
+    public void forEach(IEntryVisitor<TValue> visitor)
+    {
+        Objects.requireNonNull(visitor, "Argument \"visitor\" cannot be null.");
+
+        if (root != NIL)
+            visitFrom(minimum(root), Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visits the elements whose keys are in the range [fromKey, toKey] in increasing order of keys. It takes
+     * O(log n + k) time to visit k elements.
+     *
+     * @param fromKey The lower bound of the range (inclusive).
+     * @param toKey   The upper bound of the range (inclusive).
+     * @param visitor The visitor to call for each element.
+     * @throws NullPointerException      {@code visitor} is null.
+     * @throws InvalidOperationException The tree is modified by the visitor.
+     */
+    public void forEachInRange(long fromKey, long toKey, IEntryVisitor<TValue> visitor)
+    {
+        Objects.requireNonNull(visitor, "Argument \"visitor\" cannot be null.");
+
+        if (fromKey <= toKey)
+            visitFrom(ceilingNode(fromKey), toKey, visitor);
+    }
+
+    private void visitFrom(int node, long toKey, IEntryVisitor<TValue> visitor)
+    {
+        int version = this.version;
+        while ((node != NIL) && (keys[node] <= toKey))
+        {
+            visitor.visit(keys[node], valueAt(node));
+            if (version != this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+
+            node = successor(node);
+        }
+    }
+
+    /**
+     * Returns all keys of this tree in increasing order in a new array.
+     *
+     * @return An array that contains all keys of this tree in increasing order.
+     */
+    public long[] keysToArray()
+    {
+        long[] result = new long[count];
+        int i = 0;
+        for (int node = (root == NIL) ? NIL : minimum(root); node != NIL; node = successor(node))
+            result[i++] = keys[node];
+
+        return result;
+    }
+
+    /**
+     * Rebuilds this tree so that nodes are stored in increasing order of keys, and releases the free slots. A
+     * balanced tree is built from the sorted elements, with the nodes on its deepest level colored red, which keeps
+     * the black height equal on all paths. Call it after many removals, so that ordered scans read the arrays
+     * sequentially again.
+     */
+    public void compact()
+    {
+        long[] sortedKeys = new long[count];
+        Object[] sortedValues = new Object[count];
+        int i = 0;
+        for (int node = (root == NIL) ? NIL : minimum(root); node != NIL; node = successor(node))
+        {
+            sortedKeys[i] = keys[node];
+            sortedValues[i++] = values[node];
+        }
+
+        allocate(count + 1);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(sortedValues, 0, values, 1, count);
+        freeHead = NIL;
+        used = count + 1;
+
+        // Node i + 1 holds the i-th smallest key, so a subtree is a contiguous range of slots.
+        int deepest = 31 - Integer.numberOfLeadingZeros(count);
+        root = build(1, count, NIL, 0, deepest);
+        version++;
+    }
+
+    /**
+     * Links the nodes in slots [low, high] into a balanced subtree, and returns its root.
+     */
+    private int build(int low, int high, int p, int depth, int deepest)
+    {
+        if (low > high)
+            return NIL;
+
+        int middle = (low + high) >>> 1;
+        parent[middle] = p;
+        left[middle] = build(low, middle - 1, middle, depth + 1, deepest);
+        right[middle] = build(middle + 1, high, middle, depth + 1, deepest);
+        red[middle] = (depth == deepest) && (depth > 0);
+        return middle;
+    }
+
+    /**
+     * Removes all elements from this tree. The arrays are kept for reuse.
+     */
+    public void clear()
+    {
+        Arrays.fill(values, 0, used, null);
+        root = NIL;
+        freeHead = NIL;
+        used = 1;
+        count = 0;
+        version++;
+    }
+
+    /**
+     * Gets the number of elements contained in this tree.
+     *
+     * @return The number of elements contained in this tree.
+     */
+    public int count()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the height of this tree, which is the number of nodes on its longest path from the root.
+     *
+     * @return The height of this tree.
+     */
+    public int height()
+    {
+        return heightOf(root);
+    }
+
+    private int heightOf(int node)
+    {
+        if (node == NIL)
+            return 0;
+        return 1 + Math.max(heightOf(left[node]), heightOf(right[node]));
+    }
 }
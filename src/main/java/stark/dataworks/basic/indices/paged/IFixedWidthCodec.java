@@ -0,0 +1,154 @@
+package stark.dataworks.basic.indices.paged;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes values of a type into a fixed number of bytes, so that a page can address its n-th key or value directly.
+ *
+ * @param <T> Type of the values to encode.
+ */
+public interface IFixedWidthCodec<T>
+{
+    /**
+     * Encodes an {@link Integer} into 4 bytes.
+     */
+    IFixedWidthCodec<Integer> INT32 = new IFixedWidthCodec<>()
+    {
+        @Override
+        public int width()
+        {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Integer value)
+        {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset)
+        {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * Encodes a {@link Long} into 8 bytes.
+     */
+    IFixedWidthCodec<Long> INT64 = new IFixedWidthCodec<>()
+    {
+        @Override
+        public int width()
+        {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long value)
+        {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset)
+        {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /**
+     * Encodes a {@link Double} into 8 bytes.
+     */
+    IFixedWidthCodec<Double> FLOAT64 = new IFixedWidthCodec<>()
+    {
+        @Override
+        public int width()
+        {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Double value)
+        {
+            buffer.putDouble(offset, value);
+        }
+
+        @Override
+        public Double read(ByteBuffer buffer, int offset)
+        {
+            return buffer.getDouble(offset);
+        }
+    };
+
+    /**
+     * Creates a codec that encodes a {@link String} of at most {@code maxBytes} bytes in UTF-8, as a 2-byte length
+     * followed by the bytes, padded to {@code maxBytes + 2} bytes.
+     *
+     * @param maxBytes Maximum number of bytes of an encoded string.
+     * @return The created codec.
+     * @throws IllegalArgumentException {@code maxBytes} is not in range [1, 65535].
+     */
+    static IFixedWidthCodec<String> utf8(int maxBytes)
+    {
+        if ((maxBytes < 1) || (maxBytes > 0xFFFF))
+            throw new IllegalArgumentException("Argument \"maxBytes\" must be in range [1, 65535].");
+
+        return new IFixedWidthCodec<>()
+        {
+            @Override
+            public int width()
+            {
+                return maxBytes + Short.BYTES;
+            }
+
+            /**
+             * @throws IllegalArgumentException The string is longer than {@code maxBytes} bytes in UTF-8.
+             */
+            @Override
+            public void write(ByteBuffer buffer, int offset, String value)
+            {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > maxBytes)
+                    throw new IllegalArgumentException("The string is longer than " + maxBytes + " bytes in UTF-8.");
+
+                buffer.putShort(offset, (short) bytes.length);
+                buffer.put(offset + Short.BYTES, bytes);
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset)
+            {
+                byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(offset))];
+                buffer.get(offset + Short.BYTES, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * Gets the number of bytes of an encoded value.
+     *
+     * @return The number of bytes of an encoded value.
+     */
+    int width();
+
+    /**
+     * Encodes a value into the buffer, starting at the specified offset. The position of the buffer is not changed.
+     *
+     * @param buffer The buffer to write to.
+     * @param offset The offset in the buffer to write the first byte.
+     * @param value  The value to encode.
+     */
+    void write(ByteBuffer buffer, int offset, T value);
+
+    /**
+     * Decodes a value from the buffer, starting at the specified offset. The position of the buffer is not changed.
+     *
+     * @param buffer The buffer to read from.
+     * @param offset The offset in the buffer of the first byte.
+     * @return The decoded value.
+     */
+    T read(ByteBuffer buffer, int offset);
+}
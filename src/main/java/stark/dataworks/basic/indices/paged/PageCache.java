@@ -0,0 +1,214 @@
+package stark.dataworks.basic.indices.paged;
+
+import stark.dataworks.basic.collections.IntObjectHashDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The {@link PageCache} class is a buffer pool of the fixed-size pages of a file. Every cached page is a
+ * {@link MappedByteBuffer} over its region of the file, so reading a page copies nothing onto the heap, and only the
+ * mappings of at most {@link #getCapacity()} pages are kept.
+ * <p>
+ * When the pool is full, a page is evicted by the CLOCK (second chance) algorithm: a hand sweeps the frames, clears
+ * the reference bit of every recently used frame, and evicts the first frame whose bit is already clear.
+ * <p>
+ * A buffer returned by {@link #read(int)} or {@link #write(int)} stays valid after its page is evicted, because a
+ * mapping lives until the buffer is garbage collected. Therefore, a dirty page is not forced when it is evicted, but
+ * kept until {@link #flush()}, so that writes through such a buffer are still forced. Call {@link #trim()} whenever no
+ * buffer from this cache is in use any more, to bound the number of such pages: it forces them in batches once as many
+ * have been evicted as the capacity, so that at most twice the capacity of mappings are kept.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class PageCache
+{
+    private static final class Frame
+    {
+        private int pageId;
+        private MappedByteBuffer buffer;
+        private boolean referenced;
+        private boolean dirty;
+    }
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final Frame[] frames;
+    private final IntObjectHashDictionary<Frame> framesByPage;
+
+    /**
+     * Dirty pages that have been evicted but not forced yet.
+     */
+    private final IntObjectHashDictionary<MappedByteBuffer> evictedDirtyPages;
+
+    private int frameCount;
+    private int hand;
+
+    /**
+     * Initializes a new instance of the {@link PageCache} class.
+     *
+     * @param channel  The channel of the file, which must be opened for reading and writing.
+     * @param pageSize Number of bytes of a page.
+     * @param capacity Maximum number of pages to cache.
+     * @throws NullPointerException     {@code channel} is null.
+     * @throws IllegalArgumentException {@code pageSize} or {@code capacity} is less than 1.
+     */
+    public PageCache(FileChannel channel, int pageSize, int capacity)
+    {
+        if (channel == null)
+            throw new NullPointerException("Argument \"channel\" cannot be null.");
+        if (pageSize < 1)
+            throw new IllegalArgumentException("Argument \"pageSize\" must be greater than 0.");
+        if (capacity < 1)
+            throw new IllegalArgumentException("Argument \"capacity\" must be greater than 0.");
+
+        this.channel = channel;
+        this.pageSize = pageSize;
+        frames = new Frame[capacity];
+        framesByPage = new IntObjectHashDictionary<>(capacity);
+        evictedDirtyPages = new IntObjectHashDictionary<>();
+    }
+
+    /**
+     * Gets the number of bytes of a page.
+     *
+     * @return The number of bytes of a page.
+     */
+    public int getPageSize()
+    {
+        return pageSize;
+    }
+
+    /**
+     * Gets the maximum number of pages to cache.
+     *
+     * @return The maximum number of pages to cache.
+     */
+    public int getCapacity()
+    {
+        return frames.length;
+    }
+
+    /**
+     * Gets a page for reading. The file grows if the page is beyond its end.
+     *
+     * @param pageId Index of the page in the file.
+     * @return A buffer over the page, whose index 0 is the first byte of the page.
+     * @throws UncheckedIOException The page cannot be mapped.
+     */
+    public ByteBuffer read(int pageId)
+    {
+        Frame frame = framesByPage.getOrDefault(pageId, null);
+        if (frame == null)
+            frame = load(pageId);
+
+        frame.referenced = true;
+        return frame.buffer;
+    }
+
+    /**
+     * Gets a page for writing, which is forced to the file by the next {@link #flush()}. The file grows if the page is
+     * beyond its end.
+     *
+     * @param pageId Index of the page in the file.
+     * @return A buffer over the page, whose index 0 is the first byte of the page.
+     * @throws UncheckedIOException The page cannot be mapped.
+     */
+    public ByteBuffer write(int pageId)
+    {
+        Frame frame = framesByPage.getOrDefault(pageId, null);
+        if (frame == null)
+            frame = load(pageId);
+
+        frame.referenced = true;
+        frame.dirty = true;
+        return frame.buffer;
+    }
+
+    /**
+     * Maps a page into a free frame, or into the frame chosen by the clock hand if all frames are in use.
+     *
+     * @param pageId Index of the page in the file.
+     * @return The frame of the page.
+     */
+    private Frame load(int pageId)
+    {
+        Frame frame;
+        if (frameCount < frames.length)
+        {
+            frame = new Frame();
+            frames[frameCount++] = frame;
+        }
+        else
+        {
+            while (true)
+            {
+                frame = frames[hand];
+                hand = (hand + 1) % frames.length;
+                if (!frame.referenced)
+                    break;
+
+                frame.referenced = false;
+            }
+
+            framesByPage.removeByKey(frame.pageId);
+            if (frame.dirty)
+                evictedDirtyPages.put(frame.pageId, frame.buffer);
+        }
+
+        try
+        {
+            frame.buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) pageId * pageSize, pageSize);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        frame.pageId = pageId;
+        frame.dirty = false;
+        framesByPage.put(pageId, frame);
+        return frame;
+    }
+
+    /**
+     * Forces the dirty pages that have been evicted, if there are at least as many as the capacity; otherwise does
+     * nothing, so that calling it after every operation forces the evicted pages in batches. Call it only when no
+     * buffer returned by this cache is written any more, because later writes through those buffers would not be
+     * forced. Call {@link #flush()} to force all the dirty pages at once.
+     *
+     * @throws UncheckedIOException A page cannot be forced.
+     */
+    public void trim()
+    {
+        if (evictedDirtyPages.count() < frames.length)
+            return;
+
+        evictedDirtyPages.forEach((pageId, buffer) -> buffer.force());
+        evictedDirtyPages.clear();
+    }
+
+    /**
+     * Forces all the dirty pages to the file, including the evicted ones.
+     *
+     * @throws UncheckedIOException A page cannot be forced.
+     */
+    public void flush()
+    {
+        evictedDirtyPages.forEach((pageId, buffer) -> buffer.force());
+        evictedDirtyPages.clear();
+
+        for (int i = 0; i < frameCount; i++)
+        {
+            Frame frame = frames[i];
+            if (frame.dirty)
+            {
+                frame.buffer.force();
+                frame.dirty = false;
+            }
+        }
+    }
+}
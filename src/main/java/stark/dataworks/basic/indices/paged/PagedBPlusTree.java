@@ -0,0 +1,1262 @@
+package stark.dataworks.basic.indices.paged;
+
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.KeyNotFountException;
+import stark.dataworks.basic.collections.IDictionary;
+import stark.dataworks.basic.collections.KeyValuePair;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * The {@link PagedBPlusTree} class represents an ordered dictionary of key-value pairs, stored in a B+ tree of
+ * fixed-size pages in a file. Keys and values are encoded by {@link IFixedWidthCodec}s, and pages are accessed through
+ * a {@link PageCache} of memory-mapped pages, so the tree can be much larger than the heap. A lookup reads only the
+ * pages on the path from the root to a leaf, and a range scan reads only the leaves in the range and their ancestors.
+ * <p>
+ * Changes are grouped into transactions, which are made durable by {@link #commit()}. A committed page is never
+ * modified in place: the first change to a page in a transaction copies it to a free page (shadow paging), together
+ * with its ancestors up to the root. Page 0 and page 1 are meta pages that hold the root of the last 2 commits with a
+ * checksum. A commit forces the new pages first, and then writes the meta page of the older commit and forces it. If
+ * the process crashes at any point, the file still holds a complete tree of the last commit, and a torn meta page is
+ * detected by its checksum, in which case the tree of the previous commit is opened. Changes that are not committed are
+ * lost when the process crashes, and can be discarded by {@link #rollback()}.
+ * <p>
+ * A page freed by a transaction is only reused after the transaction is committed, since the tree of the previous
+ * commit may still need it. Free pages are not stored in the file, but found on opening by walking the internal
+ * pages, which are a small fraction of the file.
+ * <p>
+ * Like {@link stark.dataworks.basic.indices.BPlusTree}, leaves are not rebalanced on removal. A page is only freed
+ * when it becomes empty. Leaves are not linked to their siblings, because a link would make every copied leaf copy
+ * its neighbours, so a range scan keeps the path to the current leaf instead. This class is not thread-safe.
+ *
+ * @param <TKey>   The type of keys in the tree.
+ * @param <TValue> The type of values in the tree.
+ */
+public class PagedBPlusTree<TKey extends Comparable<TKey>, TValue> implements IDictionary<TKey, TValue>, Closeable
+{
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_CACHE_PAGES = 1024;
+
+    private static final int MAGIC = 0x42505452;
+    private static final int FORMAT_VERSION = 1;
+    private static final int META_PAGES = 2;
+
+    // Layout of a meta page.
+    private static final int META_MAGIC = 0;
+    private static final int META_FORMAT_VERSION = 4;
+    private static final int META_PAGE_SIZE = 8;
+    private static final int META_KEY_WIDTH = 12;
+    private static final int META_VALUE_WIDTH = 16;
+    private static final int META_TRANSACTION = 20;
+    private static final int META_ROOT = 28;
+    private static final int META_HEIGHT = 32;
+    private static final int META_COUNT = 36;
+    private static final int META_PAGE_COUNT = 40;
+    private static final int META_CHECKSUM = 44;
+
+    // Layout of a node page. A leaf stores its keys and then its values. An internal node stores its children and then
+    // its keys. children[i] contains the keys in the range [keys[i - 1], keys[i]).
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int NODE_TYPE = 0;
+    private static final int NODE_KEY_COUNT = 4;
+    private static final int NODE_HEADER = 8;
+
+    private final FileChannel channel;
+    private final PageCache cache;
+    private final IFixedWidthCodec<TKey> keyCodec;
+    private final IFixedWidthCodec<TValue> valueCodec;
+    private final int pageSize;
+    private final int keyWidth;
+    private final int valueWidth;
+
+    /**
+     * Number of pair slots in a leaf. A leaf is split when all of them are used.
+     */
+    private final int leafCapacity;
+
+    /**
+     * Number of child slots in an internal node. An internal node is split when all of them are used.
+     */
+    private final int internalCapacity;
+
+    /**
+     * Buffer for moving bytes within a page.
+     */
+    private final byte[] scratch;
+
+    /**
+     * Buffers that a key and a value are encoded into before any page is changed, so that a codec that throws leaves
+     * the tree unchanged.
+     */
+    private final ByteBuffer encodedKey;
+    private final ByteBuffer encodedValue;
+
+    // State of the last commit.
+    private long transaction;
+    private int committedRoot;
+    private int committedHeight;
+    private int committedCount;
+    private int committedPageCount;
+
+    // State of the current transaction.
+    private int root;
+    private int height;
+    private int count;
+    private int pageCount;
+
+    /**
+     * Pages allocated by the current transaction, which can be modified in place.
+     */
+    private final BitSet freshPages;
+
+    /**
+     * Pages that can be allocated.
+     */
+    private final BitSet freePages;
+
+    /**
+     * No page below this index is in {@link #freePages}, so that allocation does not scan the allocated pages.
+     */
+    private int freePageHint;
+
+    /**
+     * Pages freed by the current transaction, which can be allocated after it is committed.
+     */
+    private final BitSet pendingFreePages;
+
+    /**
+     * Incremented on every modification, so that cursors can detect concurrent modifications.
+     */
+    private int version;
+    private boolean closed;
+
+    /**
+     * Opens or creates a {@link PagedBPlusTree} with {@link #DEFAULT_PAGE_SIZE} and {@link #DEFAULT_CACHE_PAGES}.
+     *
+     * @param path       Path of the file.
+     * @param keyCodec   Codec of keys.
+     * @param valueCodec Codec of values.
+     * @throws NullPointerException     An argument is null.
+     * @throws IllegalArgumentException The file was created with other codec widths.
+     * @throws IOException              The file cannot be opened, is not a valid tree, or was created with another
+     *                                  page size.
+     */
+    public PagedBPlusTree(Path path, IFixedWidthCodec<TKey> keyCodec, IFixedWidthCodec<TValue> valueCodec) throws IOException
+    {
+        this(path, keyCodec, valueCodec, DEFAULT_PAGE_SIZE, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * Opens or creates a {@link PagedBPlusTree}.
+     *
+     * @param path       Path of the file.
+     * @param keyCodec   Codec of keys.
+     * @param valueCodec Codec of values.
+     * @param pageSize   Number of bytes of a page, which must be the same every time the file is opened.
+     * @param cachePages Maximum number of pages to cache.
+     * @throws NullPointerException     An argument is null.
+     * @throws IllegalArgumentException {@code pageSize} is too small to hold 4 keys and values, {@code cachePages} is
+     *                                  less than 1, or the file was created with other codec widths.
+     * @throws IOException              The file cannot be opened, is not a valid tree, or was created with another
+     *                                  page size.
+     */
+    public PagedBPlusTree(Path path, IFixedWidthCodec<TKey> keyCodec, IFixedWidthCodec<TValue> valueCodec, int pageSize, int cachePages) throws IOException
+    {
+        if (path == null)
+            throw new NullPointerException("Argument \"path\" cannot be null.");
+        if (keyCodec == null)
+            throw new NullPointerException("Argument \"keyCodec\" cannot be null.");
+        if (valueCodec == null)
+            throw new NullPointerException("Argument \"valueCodec\" cannot be null.");
+
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.pageSize = pageSize;
+        keyWidth = keyCodec.width();
+        valueWidth = valueCodec.width();
+        leafCapacity = (pageSize - NODE_HEADER) / (keyWidth + valueWidth);
+        internalCapacity = (pageSize - NODE_HEADER + keyWidth) / (keyWidth + Integer.BYTES);
+        if ((pageSize < META_CHECKSUM + Integer.BYTES) || (leafCapacity < 4) || (internalCapacity < 4))
+            throw new IllegalArgumentException("Argument \"pageSize\" is too small to hold 4 keys and values.");
+
+        scratch = new byte[pageSize];
+        encodedKey = ByteBuffer.allocate(keyWidth);
+        encodedValue = ByteBuffer.allocate(valueWidth);
+        freshPages = new BitSet();
+        freePages = new BitSet();
+        pendingFreePages = new BitSet();
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            cache = new PageCache(channel, pageSize, cachePages);
+            if (channel.size() == 0)
+                initialize();
+            else
+                recover();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates an empty tree in an empty file.
+     */
+    private void initialize()
+    {
+        pageCount = META_PAGES;
+        root = allocate();
+        ByteBuffer page = cache.write(root);
+        page.put(NODE_TYPE, LEAF);
+        page.putInt(NODE_KEY_COUNT, 0);
+        commit();
+    }
+
+    /**
+     * Opens the tree of the last commit whose meta page is valid, and finds the free pages.
+     *
+     * @throws IOException Neither meta page is valid.
+     */
+    private void recover() throws IOException
+    {
+        ByteBuffer meta0 = cache.read(0);
+        ByteBuffer meta1 = cache.read(1);
+        boolean valid0 = isValidMeta(meta0);
+        boolean valid1 = isValidMeta(meta1);
+        if (!valid0 && !valid1)
+            throw new IOException("The file is not a paged B+ tree of page size " + pageSize + ", or both of its meta pages are corrupted.");
+
+        ByteBuffer meta = meta0;
+        if (!valid0 || (valid1 && (meta1.getLong(META_TRANSACTION) > meta0.getLong(META_TRANSACTION))))
+            meta = meta1;
+        if ((meta.getInt(META_KEY_WIDTH) != keyWidth) || (meta.getInt(META_VALUE_WIDTH) != valueWidth))
+            throw new IllegalArgumentException("The widths of the codecs do not match the widths of keys and values in the file.");
+
+        transaction = meta.getLong(META_TRANSACTION);
+        root = committedRoot = meta.getInt(META_ROOT);
+        height = committedHeight = meta.getInt(META_HEIGHT);
+        count = committedCount = meta.getInt(META_COUNT);
+        pageCount = committedPageCount = meta.getInt(META_PAGE_COUNT);
+
+        // Every page that the tree does not reach is free, including the pages of an interrupted transaction.
+        BitSet reachable = new BitSet(pageCount);
+        markReachable(root, height, reachable);
+        freePages.set(META_PAGES, pageCount);
+        freePages.andNot(reachable);
+        freePageHint = META_PAGES;
+    }
+
+    private boolean isValidMeta(ByteBuffer meta)
+    {
+        return (meta.getInt(META_MAGIC) == MAGIC)
+                && (meta.getInt(META_FORMAT_VERSION) == FORMAT_VERSION)
+                && (meta.getInt(META_PAGE_SIZE) == pageSize)
+                && (meta.getInt(META_CHECKSUM) == checksum(meta));
+    }
+
+    private static int checksum(ByteBuffer meta)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(meta.slice(0, META_CHECKSUM));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Marks the page of a node and the pages of all its descendants. Leaves are marked through their parents, without
+     * reading them.
+     *
+     * @param pageId    The page of the node.
+     * @param height    Height of the node.
+     * @param reachable The set of pages to mark.
+     */
+    private void markReachable(int pageId, int height, BitSet reachable)
+    {
+        reachable.set(pageId);
+        if (height == 0)
+            return;
+
+        ByteBuffer page = cache.read(pageId);
+        int childCount = keyCount(page) + 1;
+        for (int i = 0; i < childCount; i++)
+        {
+            int child = child(page, i);
+            if (height == 1)
+                reachable.set(child);
+            else
+                markReachable(child, height - 1, reachable);
+        }
+    }
+
+    /**
+     * Makes all changes since the last commit durable. New pages are forced before the meta page, so that the meta page
+     * never refers to a page that is not on disk.
+     *
+     * @throws InvalidOperationException The tree is closed.
+     * @throws java.io.UncheckedIOException The pages cannot be forced.
+     */
+    public void commit()
+    {
+        ensureOpen();
+
+        // Every change copies the root, so no fresh page means no change.
+        if (freshPages.isEmpty())
+            return;
+
+        cache.flush();
+
+        // Overwrite the meta page of the older commit, so the meta page of the last commit survives a torn write.
+        long nextTransaction = transaction + 1;
+        ByteBuffer meta = cache.write((int) (nextTransaction & 1));
+        meta.putInt(META_MAGIC, MAGIC);
+        meta.putInt(META_FORMAT_VERSION, FORMAT_VERSION);
+        meta.putInt(META_PAGE_SIZE, pageSize);
+        meta.putInt(META_KEY_WIDTH, keyWidth);
+        meta.putInt(META_VALUE_WIDTH, valueWidth);
+        meta.putLong(META_TRANSACTION, nextTransaction);
+        meta.putInt(META_ROOT, root);
+        meta.putInt(META_HEIGHT, height);
+        meta.putInt(META_COUNT, count);
+        meta.putInt(META_PAGE_COUNT, pageCount);
+        meta.putInt(META_CHECKSUM, checksum(meta));
+        cache.flush();
+
+        transaction = nextTransaction;
+        committedRoot = root;
+        committedHeight = height;
+        committedCount = count;
+        committedPageCount = pageCount;
+        freePages.or(pendingFreePages);
+        freePageHint = META_PAGES;
+        pendingFreePages.clear();
+        freshPages.clear();
+    }
+
+    /**
+     * Discards all changes since the last commit.
+     *
+     * @throws InvalidOperationException The tree is closed.
+     */
+    public void rollback()
+    {
+        ensureOpen();
+
+        root = committedRoot;
+        height = committedHeight;
+        count = committedCount;
+
+        // Pages allocated beyond the committed page count are reused from the committed page count again.
+        freePages.or(freshPages);
+        freePages.clear(committedPageCount, Math.max(committedPageCount, pageCount));
+        freePageHint = META_PAGES;
+        pageCount = committedPageCount;
+        freshPages.clear();
+        pendingFreePages.clear();
+        version++;
+    }
+
+    /**
+     * Commits the changes since the last commit, and closes the file. Closing a closed tree has no effect.
+     *
+     * @throws IOException The file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed)
+            return;
+
+        try
+        {
+            commit();
+        }
+        finally
+        {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void ensureOpen()
+    {
+        if (closed)
+            throw new InvalidOperationException("The PagedBPlusTree is closed.");
+    }
+
+    private int allocate()
+    {
+        int pageId = freePages.nextSetBit(freePageHint);
+        if (pageId >= 0)
+        {
+            freePages.clear(pageId);
+            freePageHint = pageId + 1;
+        }
+        else
+        {
+            pageId = pageCount++;
+            freePageHint = pageCount;
+        }
+
+        freshPages.set(pageId);
+        return pageId;
+    }
+
+    private void free(int pageId)
+    {
+        if (freshPages.get(pageId))
+        {
+            freshPages.clear(pageId);
+            freePages.set(pageId);
+            freePageHint = Math.min(freePageHint, pageId);
+        }
+        else
+            pendingFreePages.set(pageId);
+    }
+
+    /**
+     * Returns a page that can be modified in place with the same content as the given page. The given page is returned
+     * if it was allocated by the current transaction; otherwise, it is copied to a new page and freed.
+     *
+     * @param pageId The page to modify.
+     * @return The page to modify instead.
+     */
+    private int shadow(int pageId)
+    {
+        if (freshPages.get(pageId))
+            return pageId;
+
+        int copy = allocate();
+        cache.write(copy).put(0, cache.read(pageId), 0, pageSize);
+        free(pageId);
+        return copy;
+    }
+
+    /**
+     * Shadows the pages on the path from the root to the leaf that may contain the specified key, so that all of them
+     * can be modified in place.
+     *
+     * @param key     The specified key.
+     * @param pageIds Receives the page of the node of height h on the path at index h.
+     * @param indexes Receives the index of the child on the path of the node of height h at index h.
+     */
+    private void shadowPath(TKey key, int[] pageIds, int[] indexes)
+    {
+        int pageId = root = shadow(root);
+        for (int h = height; h > 0; h--)
+        {
+            pageIds[h] = pageId;
+            ByteBuffer page = cache.write(pageId);
+            int i = childIndex(page, key);
+            indexes[h] = i;
+
+            pageId = shadow(child(page, i));
+            page.putInt(childOffset(i), pageId);
+        }
+
+        pageIds[0] = pageId;
+    }
+
+    private static int keyCount(ByteBuffer page)
+    {
+        return page.getInt(NODE_KEY_COUNT);
+    }
+
+    private static int child(ByteBuffer page, int index)
+    {
+        return page.getInt(childOffset(index));
+    }
+
+    private static int childOffset(int index)
+    {
+        return NODE_HEADER + index * Integer.BYTES;
+    }
+
+    private int internalKeyOffset(int index)
+    {
+        return NODE_HEADER + internalCapacity * Integer.BYTES + index * keyWidth;
+    }
+
+    private int leafKeyOffset(int index)
+    {
+        return NODE_HEADER + index * keyWidth;
+    }
+
+    private int leafValueOffset(int index)
+    {
+        return NODE_HEADER + leafCapacity * keyWidth + index * valueWidth;
+    }
+
+    /**
+     * Moves bytes within a page. The source and the target may overlap.
+     */
+    private void move(ByteBuffer page, int from, int to, int length)
+    {
+        if (length > 0)
+        {
+            page.get(from, scratch, 0, length);
+            page.put(to, scratch, 0, length);
+        }
+    }
+
+    /**
+     * Returns the index of the child of an internal node that may contain the specified key, which is the number of
+     * separators that are less than or equal to the key.
+     */
+    private int childIndex(ByteBuffer page, TKey key)
+    {
+        int low = 0;
+        int high = keyCount(page);
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (key.compareTo(keyCodec.read(page, internalKeyOffset(middle))) < 0)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the index of the first key in a leaf that is greater than or equal to the specified key, or the number
+     * of keys in the leaf if there is no such key.
+     */
+    private int lowerBound(ByteBuffer page, TKey key)
+    {
+        int low = 0;
+        int high = keyCount(page);
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (keyCodec.read(page, leafKeyOffset(middle)).compareTo(key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the leaf that may contain the specified key, without modifying anything.
+     *
+     * @param key The specified key.
+     * @return The page of the leaf.
+     */
+    private ByteBuffer findLeaf(TKey key)
+    {
+        ByteBuffer page = cache.read(root);
+        for (int h = height; h > 0; h--)
+            page = cache.read(child(page, childIndex(page, key)));
+
+        return page;
+    }
+
+    /**
+     * Returns the index of the specified key in the given leaf, or -1 if the leaf does not contain the key.
+     */
+    private int indexOf(ByteBuffer leaf, TKey key)
+    {
+        int i = lowerBound(leaf, key);
+        if ((i < keyCount(leaf)) && (keyCodec.read(leaf, leafKeyOffset(i)).compareTo(key) == 0))
+            return i;
+
+        return -1;
+    }
+
+    /**
+     * Gets the element associated with the specified key.
+     *
+     * @param key The key of the element to get.
+     * @return The value associated with the specified key.
+     * @throws NullPointerException      The specified key is null.
+     * @throws KeyNotFountException      The specified key is not in the tree.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public TValue get(TKey key)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+        ensureOpen();
+
+        ByteBuffer leaf = findLeaf(key);
+        int i = indexOf(leaf, key);
+        if (i < 0)
+            throw new KeyNotFountException("The specified key is not in the PagedBPlusTree.");
+
+        return valueCodec.read(leaf, leafValueOffset(i));
+    }
+
+    /**
+     * Sets the value associated with the specified key.
+     * If the specified key does not exist in the tree, the the key is added to the tree.
+     *
+     * @param key   The key of the element to get.
+     * @param value The new value associated with the specified key.
+     * @throws NullPointerException      The specified key or value is null.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public void set(TKey key, TValue value)
+    {
+        insert(key, value, false);
+    }
+
+    /**
+     * Adds an element with the provided key and value to the tree.
+     *
+     * @param key   The object to use as the key of the element to add.
+     * @param value The object to use as the value of the element to add.
+     * @throws NullPointerException      The given "key" or "value" is null.
+     * @throws IllegalArgumentException  The specified key exists in the tree.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public void add(TKey key, TValue value)
+    {
+        insert(key, value, true);
+    }
+
+    /**
+     * Adds an element with the provided key-value pair to the tree.
+     *
+     * @param keyValuePair The key-value pair to add.
+     * @throws NullPointerException      The key or value of the given pair is null.
+     * @throws IllegalArgumentException  The specified key exists in the tree.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public void add(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        add(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Inserts the specified key-value pair to the tree.
+     *
+     * @param key   Key of the key-value pair to insert.
+     * @param value Value of the key-value pair to insert.
+     * @param add   A boolean flag that indicates if this method is called for adding a key-value pair or set one.
+     */
+    private void insert(TKey key, TValue value, boolean add)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+        if (value == null)
+            throw new NullPointerException("The argument \"value\" cannot be null.");
+        ensureOpen();
+
+        // Find the position and encode the pair before copying any page, so that a failed add or set changes nothing.
+        ByteBuffer leaf = findLeaf(key);
+        int i = lowerBound(leaf, key);
+        boolean exists = (i < keyCount(leaf)) && (keyCodec.read(leaf, leafKeyOffset(i)).compareTo(key) == 0);
+        if (exists && add)
+            throw new IllegalArgumentException("Try to add duplicate key.");
+
+        if (!exists)
+            keyCodec.write(encodedKey, 0, key);
+        valueCodec.write(encodedValue, 0, value);
+
+        int[] pageIds = new int[height + 1];
+        int[] indexes = new int[height + 1];
+        shadowPath(key, pageIds, indexes);
+        leaf = cache.write(pageIds[0]);
+        version++;
+
+        if (exists)
+        {
+            leaf.put(leafValueOffset(i), encodedValue, 0, valueWidth);
+            cache.trim();
+            return;
+        }
+
+        int keyCount = keyCount(leaf);
+        move(leaf, leafKeyOffset(i), leafKeyOffset(i + 1), (keyCount - i) * keyWidth);
+        move(leaf, leafValueOffset(i), leafValueOffset(i + 1), (keyCount - i) * valueWidth);
+        leaf.put(leafKeyOffset(i), encodedKey, 0, keyWidth);
+        leaf.put(leafValueOffset(i), encodedValue, 0, valueWidth);
+        leaf.putInt(NODE_KEY_COUNT, keyCount + 1);
+        count++;
+
+        if (keyCount + 1 == leafCapacity)
+            split(pageIds, indexes);
+
+        cache.trim();
+    }
+
+    /**
+     * Splits the full leaf on the shadowed path, and then every ancestor that becomes full, growing a new root if the
+     * root is split.
+     *
+     * @param pageIds The pages on the path, from the leaf at index 0 to the root.
+     * @param indexes The indexes of the children on the path.
+     */
+    private void split(int[] pageIds, int[] indexes)
+    {
+        ByteBuffer leaf = cache.write(pageIds[0]);
+        int leafKeys = keyCount(leaf);
+        int half = leafKeys / 2;
+        int rightId = allocate();
+        ByteBuffer right = cache.write(rightId);
+        right.put(NODE_TYPE, LEAF);
+        right.putInt(NODE_KEY_COUNT, leafKeys - half);
+        right.put(leafKeyOffset(0), leaf, leafKeyOffset(half), (leafKeys - half) * keyWidth);
+        right.put(leafValueOffset(0), leaf, leafValueOffset(half), (leafKeys - half) * valueWidth);
+        leaf.putInt(NODE_KEY_COUNT, half);
+        TKey separator = keyCodec.read(right, leafKeyOffset(0));
+
+        for (int h = 1; h <= height; h++)
+        {
+            ByteBuffer parent = cache.write(pageIds[h]);
+            int index = indexes[h];
+            int keyCount = keyCount(parent);
+            move(parent, internalKeyOffset(index), internalKeyOffset(index + 1), (keyCount - index) * keyWidth);
+            move(parent, childOffset(index + 1), childOffset(index + 2), (keyCount - index) * Integer.BYTES);
+            keyCodec.write(parent, internalKeyOffset(index), separator);
+            parent.putInt(childOffset(index + 1), rightId);
+            keyCount++;
+            parent.putInt(NODE_KEY_COUNT, keyCount);
+
+            if (keyCount + 1 < internalCapacity)
+                return;
+
+            // The middle key moves up to the grandparent instead of staying in either half.
+            half = keyCount / 2;
+            int rightKeys = keyCount - half - 1;
+            rightId = allocate();
+            right = cache.write(rightId);
+            right.put(NODE_TYPE, INTERNAL);
+            right.putInt(NODE_KEY_COUNT, rightKeys);
+            right.put(internalKeyOffset(0), parent, internalKeyOffset(half + 1), rightKeys * keyWidth);
+            right.put(childOffset(0), parent, childOffset(half + 1), (rightKeys + 1) * Integer.BYTES);
+            separator = keyCodec.read(parent, internalKeyOffset(half));
+            parent.putInt(NODE_KEY_COUNT, half);
+        }
+
+        // The root is split, so grow a new root.
+        int newRoot = allocate();
+        ByteBuffer page = cache.write(newRoot);
+        page.put(NODE_TYPE, INTERNAL);
+        page.putInt(NODE_KEY_COUNT, 1);
+        page.putInt(childOffset(0), root);
+        page.putInt(childOffset(1), rightId);
+        keyCodec.write(page, internalKeyOffset(0), separator);
+        root = newRoot;
+        height++;
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the keys of the tree in increasing order.
+     *
+     * @return an {@link Iterable} containing all the keys of the tree.
+     */
+    @Override
+    public Iterable<TKey> keys()
+    {
+        return () -> new KeyCursor(null, null);
+    }
+
+    /**
+     * Gets an {@link Iterable} containing all the values of the tree in the order of their keys.
+     *
+     * @return an {@link Iterable} containing all the values of the tree.
+     */
+    @Override
+    public Iterable<TValue> values()
+    {
+        return () -> new ValueCursor(null, null);
+    }
+
+    /**
+     * Gets an {@link Iterable} containing the key-value pairs whose keys are in the range [fromKey, toKey], in
+     * increasing order of keys. Each iteration reads the pages on the path to the first key, and then only the leaves
+     * in the range and their ancestors.
+     *
+     * @param fromKey The lower bound of the range (inclusive).
+     * @param toKey   The upper bound of the range (inclusive).
+     * @return an {@link Iterable} containing the key-value pairs in the range.
+     * @throws NullPointerException {@code fromKey} or {@code toKey} is null.
+     */
+    public Iterable<KeyValuePair<TKey, TValue>> entries(TKey fromKey, TKey toKey)
+    {
+        if (fromKey == null)
+            throw new NullPointerException("The argument \"fromKey\" cannot be null.");
+        if (toKey == null)
+            throw new NullPointerException("The argument \"toKey\" cannot be null.");
+
+        return () -> new KeyValuePairCursor(fromKey, toKey);
+    }
+
+    /**
+     * Determines whether the tree contains an element with the specified key.
+     *
+     * @param key The key to locate in the tree.
+     * @return <code>true</code> if the tree contains an element with the key; otherwise, <code>false</code>.
+     * @throws NullPointerException      The specified key is null.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public boolean containsKey(TKey key)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+        ensureOpen();
+
+        return indexOf(findLeaf(key), key) >= 0;
+    }
+
+    /**
+     * Determines whether the tree contains an element with the specified value. This method reads all the leaves.
+     *
+     * @param value The value to locate in the tree.
+     * @return <code>true</code> if the tree contains an element with the value; otherwise, <code>false</code>.
+     */
+    @Override
+    public boolean containsValue(TValue value)
+    {
+        for (TValue v : values())
+        {
+            if (v.equals(value))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether the tree contains an element with the specified key and value.
+     *
+     * @param key   The key to locate in the tree.
+     * @param value The value associated with the specified key.
+     * @return <code>true</code> if the tree contains an element with the key and value; otherwise, <code>false</code>.
+     * @throws NullPointerException      The specified key is null.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public boolean containsKeyValue(TKey key, TValue value)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+        ensureOpen();
+
+        ByteBuffer leaf = findLeaf(key);
+        int i = indexOf(leaf, key);
+        return (i >= 0) && valueCodec.read(leaf, leafValueOffset(i)).equals(value);
+    }
+
+    /**
+     * Tries to remove a {@link KeyValuePair} with the specified key.
+     *
+     * @param key The key of the element to remove.
+     * @return <code>true</code> if the element is successfully removed; otherwise, <code>false</code>.
+     * @throws NullPointerException      The specified key is null.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public boolean removeByKey(TKey key)
+    {
+        return remove(key, null, false);
+    }
+
+    /**
+     * Removes the specified key-value pair from the tree.
+     *
+     * @param keyValuePair The key-value pair to remove.
+     * @return <code>true</code> if the pair is successfully removed; otherwise, <code>false</code>.
+     * @throws NullPointerException      The specified pair or its key is null.
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public boolean remove(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+
+        return remove(keyValuePair.getKey(), keyValuePair.getValue(), true);
+    }
+
+    /**
+     * Tries to remove the key-value pair with the specified key. Frees the leaf if it becomes empty, and then the
+     * ancestors that become empty.
+     *
+     * @param key        Key of the key-value pair.
+     * @param value      Value of the key-value pair.
+     * @param checkValue A boolean flag that indicates if this method should check value of the found pair.
+     * @return {@code true} if the key-value pair is removed; otherwise, {@code false}.
+     */
+    private boolean remove(TKey key, TValue value, boolean checkValue)
+    {
+        if (key == null)
+            throw new NullPointerException("The argument \"key\" cannot be null.");
+        ensureOpen();
+
+        // Find the pair before copying any page, so that a failed removal changes nothing.
+        ByteBuffer leaf = findLeaf(key);
+        int i = indexOf(leaf, key);
+        if (i < 0)
+            return false;
+        if (checkValue && !valueCodec.read(leaf, leafValueOffset(i)).equals(value))
+            return false;
+
+        if (count == 1)
+        {
+            clear();
+            return true;
+        }
+
+        int[] pageIds = new int[height + 1];
+        int[] indexes = new int[height + 1];
+        shadowPath(key, pageIds, indexes);
+        leaf = cache.write(pageIds[0]);
+        int keyCount = keyCount(leaf);
+        move(leaf, leafKeyOffset(i + 1), leafKeyOffset(i), (keyCount - i - 1) * keyWidth);
+        move(leaf, leafValueOffset(i + 1), leafValueOffset(i), (keyCount - i - 1) * valueWidth);
+        leaf.putInt(NODE_KEY_COUNT, keyCount - 1);
+        count--;
+        version++;
+
+        if (keyCount == 1)
+        {
+            free(pageIds[0]);
+            for (int h = 1; h <= height; h++)
+            {
+                ByteBuffer parent = cache.write(pageIds[h]);
+                int parentKeys = keyCount(parent);
+
+                // The parent becomes empty if it loses its only child, so remove it from the grandparent as well.
+                if (parentKeys == 0)
+                {
+                    free(pageIds[h]);
+                    continue;
+                }
+
+                // Remove the child and the separator in front of it, or behind it if it is the first child.
+                int index = indexes[h];
+                int keyIndex = (index == 0) ? 0 : index - 1;
+                move(parent, internalKeyOffset(keyIndex + 1), internalKeyOffset(keyIndex), (parentKeys - keyIndex - 1) * keyWidth);
+                move(parent, childOffset(index + 1), childOffset(index), (parentKeys - index) * Integer.BYTES);
+                parent.putInt(NODE_KEY_COUNT, parentKeys - 1);
+                break;
+            }
+
+            // Shrink the tree while the root has only one child.
+            while ((height > 0) && (keyCount(cache.read(root)) == 0))
+            {
+                int oldRoot = root;
+                root = child(cache.read(root), 0);
+                free(oldRoot);
+                height--;
+            }
+        }
+
+        cache.trim();
+        return true;
+    }
+
+    /**
+     * Removes all entries from the tree. The pages are reused after the next commit.
+     *
+     * @throws InvalidOperationException The tree is closed.
+     */
+    @Override
+    public void clear()
+    {
+        ensureOpen();
+
+        BitSet pages = new BitSet(pageCount);
+        markReachable(root, height, pages);
+        for (int pageId = pages.nextSetBit(0); pageId >= 0; pageId = pages.nextSetBit(pageId + 1))
+            free(pageId);
+
+        root = allocate();
+        ByteBuffer page = cache.write(root);
+        page.put(NODE_TYPE, LEAF);
+        page.putInt(NODE_KEY_COUNT, 0);
+        height = 0;
+        count = 0;
+        version++;
+        cache.trim();
+    }
+
+    /**
+     * Returns an iterator over all key-value pairs of the tree.
+     *
+     * @return an iterator over all key-value pairs of the tree.
+     */
+    @Override
+    public Iterator<KeyValuePair<TKey, TValue>> iterator()
+    {
+        return new KeyValuePairCursor(null, null);
+    }
+
+    /**
+     * Gets the number of elements contained in the tree.
+     *
+     * @return The number of elements contained in the tree.
+     */
+    @Override
+    public int count()
+    {
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the collection is read only; otherwise, {@code false}.
+     *
+     * @return {@code true} if the collection is read only; otherwise, {@code false}.
+     */
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Returns the height of the tree.
+     *
+     * @return The height of the tree.
+     */
+    public int height()
+    {
+        return height;
+    }
+
+    /**
+     * Determines whether the tree contains a specific key-value pair.
+     *
+     * @param keyValuePair The key-value pair to locate in the tree.
+     * @return <code>true</code> if the specified pair is found in the tree; otherwise, <code>false</code>.
+     */
+    @Override
+    public boolean contains(KeyValuePair<TKey, TValue> keyValuePair)
+    {
+        if (keyValuePair == null)
+            throw new NullPointerException("Argument \"keyValuePair\" cannot be null.");
+
+        return containsKeyValue(keyValuePair.getKey(), keyValuePair.getValue());
+    }
+
+    /**
+     * Copies the elements of the tree to an array, starting at index 0.
+     *
+     * @param array The one-dimensional array that is the destination of the elements copied from the tree.
+     * @throws NullPointerException     The given array is null.
+     * @throws IllegalArgumentException The number of elements in the tree is greater than the length of the array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array)
+    {
+        copyTo(array, 0);
+    }
+
+    /**
+     * Copies the elements of the tree to an array, starting at a particular array index.
+     *
+     * @param array      The one-dimensional array that is the destination of the elements copied from the tree.
+     * @param startIndex The zero-based index in array at which copying begins.
+     * @throws NullPointerException           The given array is null.
+     * @throws ArrayIndexOutOfBoundsException {@code startIndex} is less than 0.
+     * @throws IllegalArgumentException       The number of elements in the tree is greater than the available space
+     *                                        from <code>startIndex</code> to the end of the destination array.
+     */
+    @Override
+    public void copyTo(KeyValuePair<TKey, TValue>[] array, int startIndex)
+    {
+        if (array == null)
+            throw new NullPointerException("Argument \"array\" cannot be null.");
+        if (startIndex < 0)
+            throw new ArrayIndexOutOfBoundsException("The start index of an array must be greater than or equal to 0.");
+        if (array.length < startIndex + count)
+            throw new IllegalArgumentException("The length between the start index and the end of the given array is not enough for copying contents.");
+
+        int i = startIndex;
+        for (KeyValuePair<TKey, TValue> pair : this)
+            array[i++] = pair;
+    }
+
+    /**
+     * The {@link Cursor} class walks the leaves of the tree, keeping the pages on the path from the root to the current
+     * leaf, i.e. a page and a child index per level. Moving to the next leaf climbs to the nearest ancestor with a next
+     * child and descends its leftmost path, so only the pages in the range and their ancestors are read.
+     *
+     * @param <T> Type of the items returned by the cursor.
+     */
+    private abstract class Cursor<T> implements Iterator<T>
+    {
+        /**
+         * pageIds[h] is the page of height h on the current path, and positions[h] is the index of the child on the
+         * path in it.
+         */
+        private final int[] pageIds;
+        private final int[] positions;
+
+        /**
+         * The current leaf, or null when the cursor is exhausted.
+         */
+        private ByteBuffer leaf;
+        private int leafKeyCount;
+        private int index;
+
+        /**
+         * The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        private final TKey toKey;
+        private final int version;
+
+        /**
+         * Initializes a cursor positioned at the first pair whose key is greater than or equal to {@code fromKey}.
+         *
+         * @param fromKey The lower bound of the keys to return (inclusive), or null if unbounded.
+         * @param toKey   The upper bound of the keys to return (inclusive), or null if unbounded.
+         */
+        private Cursor(TKey fromKey, TKey toKey)
+        {
+            ensureOpen();
+            this.toKey = toKey;
+            this.version = PagedBPlusTree.this.version;
+            pageIds = new int[height + 1];
+            positions = new int[height + 1];
+
+            int pageId = root;
+            for (int h = height; h > 0; h--)
+            {
+                ByteBuffer page = cache.read(pageId);
+                int i = (fromKey == null) ? 0 : childIndex(page, fromKey);
+                pageIds[h] = pageId;
+                positions[h] = i;
+                pageId = child(page, i);
+            }
+
+            pageIds[0] = pageId;
+            leaf = cache.read(pageId);
+            leafKeyCount = keyCount(leaf);
+            index = (fromKey == null) ? 0 : lowerBound(leaf, fromKey);
+
+            // All keys in this leaf are less than "fromKey", or the tree is empty.
+            if (index == leafKeyCount)
+                moveToNextLeaf();
+        }
+
+        /**
+         * Moves the cursor to the first pair of the next leaf, or exhausts the cursor if the current leaf is the last.
+         */
+        private void moveToNextLeaf()
+        {
+            int h = 1;
+            while ((h < pageIds.length) && (positions[h] >= keyCount(cache.read(pageIds[h]))))
+                h++;
+
+            if (h == pageIds.length)
+            {
+                leaf = null;
+                return;
+            }
+
+            positions[h]++;
+            for (; h > 0; h--)
+            {
+                pageIds[h - 1] = child(cache.read(pageIds[h]), positions[h]);
+                positions[h - 1] = 0;
+            }
+
+            leaf = cache.read(pageIds[0]);
+            leafKeyCount = keyCount(leaf);
+            index = 0;
+        }
+
+        protected abstract T getItem(ByteBuffer leaf, int index);
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         * @throws InvalidOperationException The tree is modified or closed after this cursor is created.
+         */
+        @Override
+        public boolean hasNext()
+        {
+            ensureOpen();
+            if (version != PagedBPlusTree.this.version)
+                throw new InvalidOperationException("ICollection object is not allowed to be modified during iterating through it.");
+
+            return (leaf != null) && ((toKey == null) || (keyCodec.read(leaf, leafKeyOffset(index)).compareTo(toKey) <= 0));
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            T item = getItem(leaf, index++);
+            if (index == leafKeyCount)
+                moveToNextLeaf();
+
+            return item;
+        }
+    }
+
+    private final class KeyCursor extends Cursor<TKey>
+    {
+        private KeyCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TKey getItem(ByteBuffer leaf, int index)
+        {
+            return keyCodec.read(leaf, leafKeyOffset(index));
+        }
+    }
+
+    private final class ValueCursor extends Cursor<TValue>
+    {
+        private ValueCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected TValue getItem(ByteBuffer leaf, int index)
+        {
+            return valueCodec.read(leaf, leafValueOffset(index));
+        }
+    }
+
+    private final class KeyValuePairCursor extends Cursor<KeyValuePair<TKey, TValue>>
+    {
+        private KeyValuePairCursor(TKey fromKey, TKey toKey)
+        {
+            super(fromKey, toKey);
+        }
+
+        @Override
+        protected KeyValuePair<TKey, TValue> getItem(ByteBuffer leaf, int index)
+        {
+            return new KeyValuePair<>(keyCodec.read(leaf, leafKeyOffset(index)), valueCodec.read(leaf, leafValueOffset(index)));
+        }
+    }
+}
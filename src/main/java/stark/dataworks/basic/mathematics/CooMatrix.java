@@ -0,0 +1,290 @@
+package stark.dataworks.basic.mathematics;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+import java.util.Arrays;
+
+/**
+ * A sparse matrix in the coordinate (COO) format, i.e. a list of (row, column, value) triples in insertion order.
+ * <p>
+ * This is the format to assemble a sparse matrix in: {@link #add(int, int, double)} appends in amortized O(1), and
+ * entries added several times at the same position are summed. Convert it with {@link #toCsr()} before running
+ * repeated products.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class CooMatrix implements ISparseMatrix
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int rowCount;
+    private final int columnCount;
+    private int[] rowIndices;
+    private int[] columnIndices;
+    private double[] values;
+    private int count;
+
+    /**
+     * Initializes an empty COO matrix of the given size.
+     *
+     * @param rowCount    The row count of the matrix.
+     * @param columnCount The column count of the matrix.
+     */
+    public CooMatrix(int rowCount, int columnCount)
+    {
+        this(rowCount, columnCount, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty COO matrix of the given size, with room for the given number of entries.
+     *
+     * @param rowCount    The row count of the matrix.
+     * @param columnCount The column count of the matrix.
+     * @param capacity    The number of entries to allocate room for.
+     */
+    public CooMatrix(int rowCount, int columnCount, int capacity)
+    {
+        CsrMatrix.validateSize(rowCount, columnCount);
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity must be non-negative.");
+
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.rowIndices = new int[capacity];
+        this.columnIndices = new int[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Appends an entry. Entries at the same position are summed.
+     *
+     * @param rowIndex    The row of the entry.
+     * @param columnIndex The column of the entry.
+     * @param value       The value of the entry.
+     */
+    public void add(int rowIndex, int columnIndex, double value)
+    {
+        validateIndices(rowIndex, columnIndex);
+
+        if (count == values.length)
+        {
+            int capacity = Math.max(DEFAULT_CAPACITY, 2 * count);
+            rowIndices = Arrays.copyOf(rowIndices, capacity);
+            columnIndices = Arrays.copyOf(columnIndices, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        rowIndices[count] = rowIndex;
+        columnIndices[count] = columnIndex;
+        values[count] = value;
+        count++;
+    }
+
+    private void validateIndices(int rowIndex, int columnIndex)
+    {
+        if ((rowIndex < 0) || (rowIndex >= rowCount))
+            throw new ArgumentOutOfRangeException("\"rowIndex\" is out of the range of this matrix.");
+        if ((columnIndex < 0) || (columnIndex >= columnCount))
+            throw new ArgumentOutOfRangeException("\"columnIndex\" is out of the range of this matrix.");
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return columnCount;
+    }
+
+    /**
+     * Returns the number of added entries, counting duplicates separately.
+     *
+     * @return The number of added entries.
+     */
+    @Override
+    public int nonZeroCount()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the entries added at the given position, scanning all entries.
+     */
+    @Override
+    public double get(int rowIndex, int columnIndex)
+    {
+        validateIndices(rowIndex, columnIndex);
+
+        double sum = 0;
+        for (int k = 0; k < count; k++)
+        {
+            if ((rowIndices[k] == rowIndex) && (columnIndices[k] == columnIndex))
+                sum += values[k];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Passes each added entry to the given consumer, in insertion order. Entries added at the same position are
+     * passed separately.
+     */
+    @Override
+    public void forEachNonZero(IEntryConsumer consumer)
+    {
+        if (consumer == null)
+            throw new NullPointerException("Argument \"consumer\" cannot be null.");
+
+        for (int k = 0; k < count; k++)
+            consumer.accept(rowIndices[k], columnIndices[k], values[k]);
+    }
+
+    @Override
+    public Vector multiply(Vector columnVector)
+    {
+        Vector.validateVector(columnVector);
+        if (columnVector.count() != columnCount)
+            throw new IllegalArgumentException("The column count of the matrix and the count of the vector must be equal.");
+
+        Vector result = new Vector(rowCount);
+        double[] x = columnVector.backingArray();
+        double[] y = result.backingArray();
+        for (int k = 0; k < count; k++)
+            y[rowIndices[k]] += values[k] * x[columnIndices[k]];
+
+        return result;
+    }
+
+    @Override
+    public Matrix multiply(Matrix right)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+        if (columnCount != right.getRowCount())
+            throw new IllegalArgumentException("The column count of left matrix and the row count of right matrix must be equal.");
+
+        int p = right.getColumnCount();
+        double[] b = right.toRowMajorArray();
+        double[] c = new double[rowCount * p];
+        for (int k = 0; k < count; k++)
+        {
+            double a = values[k];
+            int bRow = columnIndices[k] * p;
+            int cRow = rowIndices[k] * p;
+            for (int j = 0; j < p; j++)
+                c[cRow + j] += a * b[bRow + j];
+        }
+
+        return new Matrix(rowCount, p, c);
+    }
+
+    @Override
+    public CooMatrix transpose()
+    {
+        CooMatrix result = new CooMatrix(columnCount, rowCount, count);
+        System.arraycopy(columnIndices, 0, result.rowIndices, 0, count);
+        System.arraycopy(rowIndices, 0, result.columnIndices, 0, count);
+        System.arraycopy(values, 0, result.values, 0, count);
+        result.count = count;
+
+        return result;
+    }
+
+    /**
+     * Returns this matrix in the CSR format, with the entries at the same position summed into one.
+     *
+     * @return This matrix in the CSR format.
+     */
+    @Override
+    public CsrMatrix toCsr()
+    {
+        // Bucket the entries by row with a counting sort.
+        int[] pointers = new int[rowCount + 1];
+        for (int k = 0; k < count; k++)
+            pointers[rowIndices[k] + 1]++;
+        for (int i = 0; i < rowCount; i++)
+            pointers[i + 1] += pointers[i];
+
+        int[] next = Arrays.copyOf(pointers, rowCount);
+        int[] order = new int[count];
+        for (int k = 0; k < count; k++)
+            order[next[rowIndices[k]]++] = k;
+
+        // Sort each row by column and merge duplicates, compacting in place.
+        int[] columns = new int[count];
+        double[] mergedValues = new double[count];
+        int merged = 0;
+        long[] keys = new long[0];
+        for (int i = 0; i < rowCount; i++)
+        {
+            int start = pointers[i];
+            int end = pointers[i + 1];
+            pointers[i] = merged;
+
+            int length = end - start;
+            if (keys.length < length)
+                keys = new long[Math.max(length, 2 * keys.length)];
+
+            // Pack (column, position) so that a primitive sort keeps duplicates in insertion order.
+            for (int t = 0; t < length; t++)
+            {
+                int k = order[start + t];
+                keys[t] = ((long) columnIndices[k] << 32) | k;
+            }
+            Arrays.sort(keys, 0, length);
+
+            for (int t = 0; t < length; t++)
+            {
+                int column = (int) (keys[t] >>> 32);
+                double value = values[(int) keys[t]];
+                if ((merged > pointers[i]) && (columns[merged - 1] == column))
+                    mergedValues[merged - 1] += value;
+                else
+                {
+                    columns[merged] = column;
+                    mergedValues[merged] = value;
+                    merged++;
+                }
+            }
+        }
+        pointers[rowCount] = merged;
+
+        return new CsrMatrix(rowCount, columnCount, pointers,
+            Arrays.copyOf(columns, merged), Arrays.copyOf(mergedValues, merged), true);
+    }
+
+    /**
+     * Returns this matrix in the CSC format, with the entries at the same position summed into one.
+     *
+     * @return This matrix in the CSC format.
+     */
+    public CscMatrix toCsc()
+    {
+        return new CscMatrix(transpose().toCsr());
+    }
+
+    @Override
+    public Matrix toMatrix()
+    {
+        double[] data = new double[rowCount * columnCount];
+        for (int k = 0; k < count; k++)
+            data[rowIndices[k] * columnCount + columnIndices[k]] += values[k];
+
+        return new Matrix(rowCount, columnCount, data);
+    }
+
+    /**
+     * Returns the COO form of the non-zero entries of the given dense Matrix, in row-major order.
+     *
+     * @param matrix The dense Matrix.
+     * @return A new COO matrix with the same entries.
+     */
+    public static CooMatrix fromMatrix(Matrix matrix)
+    {
+        return CsrMatrix.fromMatrix(matrix).toCoo();
+    }
+}
@@ -0,0 +1,142 @@
+package stark.dataworks.basic.mathematics;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+/**
+ * A sparse matrix in the compressed sparse column (CSC) format.
+ * <p>
+ * The CSC arrays of a matrix are exactly the CSR arrays of its transpose, so this class wraps a {@link CsrMatrix}
+ * holding the transpose. Columns are read sequentially, which suits "ThisMatrixᵀ x vector" and column slicing; the
+ * product with a column vector is a scatter over the columns.
+ * <p>
+ * This class is immutable, and thus thread-safe.
+ */
+public class CscMatrix implements ISparseMatrix
+{
+    private final CsrMatrix transposed;
+
+    /**
+     * Initializes a CSC matrix from a copy of the given arrays.
+     *
+     * @param rowCount       The row count of the matrix.
+     * @param columnCount    The column count of the matrix.
+     * @param columnPointers columnCount + 1 non-decreasing offsets, starting at 0 and ending at the number of entries.
+     * @param rowIndices     The row of each entry, strictly increasing within each column.
+     * @param values         The value of each entry.
+     */
+    public CscMatrix(int rowCount, int columnCount, int[] columnPointers, int[] rowIndices, double[] values)
+    {
+        this(new CsrMatrix(columnCount, rowCount, columnPointers, rowIndices, values));
+    }
+
+    CscMatrix(CsrMatrix transposed)
+    {
+        this.transposed = transposed;
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return transposed.getColumnCount();
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return transposed.getRowCount();
+    }
+
+    @Override
+    public int nonZeroCount()
+    {
+        return transposed.nonZeroCount();
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex)
+    {
+        if ((rowIndex < 0) || (rowIndex >= getRowCount()))
+            throw new ArgumentOutOfRangeException("\"rowIndex\" is out of the range of this matrix.");
+        if ((columnIndex < 0) || (columnIndex >= getColumnCount()))
+            throw new ArgumentOutOfRangeException("\"columnIndex\" is out of the range of this matrix.");
+
+        return transposed.get(columnIndex, rowIndex);
+    }
+
+    /**
+     * Passes each stored entry to the given consumer, in column-major order.
+     */
+    @Override
+    public void forEachNonZero(IEntryConsumer consumer)
+    {
+        if (consumer == null)
+            throw new NullPointerException("Argument \"consumer\" cannot be null.");
+
+        transposed.forEachNonZero((rowIndex, columnIndex, value) -> consumer.accept(columnIndex, rowIndex, value));
+    }
+
+    @Override
+    public Vector multiply(Vector columnVector)
+    {
+        Vector.validateVector(columnVector);
+        if (columnVector.count() != getColumnCount())
+            throw new IllegalArgumentException("The column count of the matrix and the count of the vector must be equal.");
+
+        return transposed.transposeMultiply(columnVector);
+    }
+
+    /**
+     * Returns the product "ThisMatrixᵀ x columnVector", which reads the columns of this matrix sequentially.
+     *
+     * @param columnVector The Vector to multiply, whose count must equal the row count of this matrix.
+     * @return A new Vector with as many entries as this matrix has columns.
+     */
+    public Vector transposeMultiply(Vector columnVector)
+    {
+        Vector.validateVector(columnVector);
+        if (columnVector.count() != getRowCount())
+            throw new IllegalArgumentException("The row count of the matrix and the count of the vector must be equal.");
+
+        return transposed.multiply(columnVector);
+    }
+
+    @Override
+    public Matrix multiply(Matrix right)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+        if (getColumnCount() != right.getRowCount())
+            throw new IllegalArgumentException("The column count of left matrix and the row count of right matrix must be equal.");
+
+        return transposed.transposeMultiply(right);
+    }
+
+    @Override
+    public CscMatrix transpose()
+    {
+        return new CscMatrix(transposed.transpose());
+    }
+
+    @Override
+    public CsrMatrix toCsr()
+    {
+        return transposed.transpose();
+    }
+
+    @Override
+    public Matrix toMatrix()
+    {
+        return transposed.toMatrix().transpose();
+    }
+
+    /**
+     * Returns the CSC form of the non-zero entries of the given dense Matrix.
+     *
+     * @param matrix The dense Matrix.
+     * @return A new CSC matrix with the same entries.
+     */
+    public static CscMatrix fromMatrix(Matrix matrix)
+    {
+        return CsrMatrix.fromMatrix(matrix).toCsc();
+    }
+}
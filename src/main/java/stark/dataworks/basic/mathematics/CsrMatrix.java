@@ -0,0 +1,600 @@
+package stark.dataworks.basic.mathematics;
+
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+import stark.dataworks.basic.graphs.directed.Digraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A sparse matrix in the compressed sparse row (CSR) format.
+ * <p>
+ * The column indices and values of row i are stored in {@code columnIndices} and {@code values} at
+ * [rowPointers[i], rowPointers[i + 1]), sorted by column. A row is thus read sequentially, which makes the product
+ * with a column vector (SpMV) a gather over contiguous memory that can be split by rows across threads.
+ * <p>
+ * This class is immutable, and thus thread-safe.
+ */
+public class CsrMatrix implements ISparseMatrix
+{
+    private final int rowCount;
+    private final int columnCount;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    /**
+     * Initializes a CSR matrix from a copy of the given arrays.
+     *
+     * @param rowCount      The row count of the matrix.
+     * @param columnCount   The column count of the matrix.
+     * @param rowPointers   rowCount + 1 non-decreasing offsets, starting at 0 and ending at the number of entries.
+     * @param columnIndices The column of each entry, strictly increasing within each row.
+     * @param values        The value of each entry.
+     */
+    public CsrMatrix(int rowCount, int columnCount, int[] rowPointers, int[] columnIndices, double[] values)
+    {
+        validateSize(rowCount, columnCount);
+        if (rowPointers == null)
+            throw new NullPointerException("Argument \"rowPointers\" cannot be null.");
+        if (columnIndices == null)
+            throw new NullPointerException("Argument \"columnIndices\" cannot be null.");
+        if (values == null)
+            throw new NullPointerException("Argument \"values\" cannot be null.");
+
+        if (rowPointers.length != rowCount + 1)
+            throw new IllegalArgumentException("The length of \"rowPointers\" must be rowCount + 1.");
+        if (columnIndices.length != values.length)
+            throw new IllegalArgumentException("\"columnIndices\" and \"values\" must have the same length.");
+        if ((rowPointers[0] != 0) || (rowPointers[rowCount] != values.length))
+            throw new IllegalArgumentException("\"rowPointers\" must start at 0 and end at the number of entries.");
+
+        for (int i = 0; i < rowCount; i++)
+        {
+            if (rowPointers[i + 1] < rowPointers[i])
+                throw new IllegalArgumentException("\"rowPointers\" must be non-decreasing, error on row: " + i);
+
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+            {
+                if ((columnIndices[k] < 0) || (columnIndices[k] >= columnCount))
+                    throw new ArgumentOutOfRangeException("Column index of entry " + k + " is out of the range of this matrix.");
+                if ((k > rowPointers[i]) && (columnIndices[k] <= columnIndices[k - 1]))
+                    throw new IllegalArgumentException("Column indices must be strictly increasing within a row, error on row: " + i);
+            }
+        }
+
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.rowPointers = rowPointers.clone();
+        this.columnIndices = columnIndices.clone();
+        this.values = values.clone();
+    }
+
+    /**
+     * Wraps the given arrays without copying or validating them.
+     */
+    CsrMatrix(int rowCount, int columnCount, int[] rowPointers, int[] columnIndices, double[] values, boolean trusted)
+    {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    static void validateSize(int rowCount, int columnCount)
+    {
+        if ((rowCount < 1) || (columnCount < 1))
+            throw new IllegalArgumentException("The size of a sparse matrix must be greater than or equal to 1*1.");
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return columnCount;
+    }
+
+    @Override
+    public int nonZeroCount()
+    {
+        return values.length;
+    }
+
+    /**
+     * Returns the number of entries stored in the given row.
+     *
+     * @param rowIndex The row.
+     * @return The number of entries stored in the given row.
+     */
+    public int nonZeroCount(int rowIndex)
+    {
+        validateRowIndex(rowIndex);
+        return rowPointers[rowIndex + 1] - rowPointers[rowIndex];
+    }
+
+    @Override
+    public double get(int rowIndex, int columnIndex)
+    {
+        validateRowIndex(rowIndex);
+        if ((columnIndex < 0) || (columnIndex >= columnCount))
+            throw new ArgumentOutOfRangeException("\"columnIndex\" is out of the range of this matrix.");
+
+        int k = Arrays.binarySearch(columnIndices, rowPointers[rowIndex], rowPointers[rowIndex + 1], columnIndex);
+        return (k >= 0) ? values[k] : 0;
+    }
+
+    /**
+     * Passes each stored entry to the given consumer, in row-major order.
+     */
+    @Override
+    public void forEachNonZero(IEntryConsumer consumer)
+    {
+        if (consumer == null)
+            throw new NullPointerException("Argument \"consumer\" cannot be null.");
+
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+                consumer.accept(i, columnIndices[k], values[k]);
+        }
+    }
+
+    private void validateRowIndex(int rowIndex)
+    {
+        if ((rowIndex < 0) || (rowIndex >= rowCount))
+            throw new ArgumentOutOfRangeException("\"rowIndex\" is out of the range of this matrix.");
+    }
+
+    // ---------------------------Products---------------------------
+
+    @Override
+    public Vector multiply(Vector columnVector)
+    {
+        validateMultiplicand(columnVector);
+        Vector result = new Vector(rowCount);
+        multiplyRows(columnVector.backingArray(), result.backingArray(), 0, rowCount);
+        return result;
+    }
+
+    /**
+     * Writes the product of this matrix and the given column vector into the destination, without allocating.
+     *
+     * @param columnVector The Vector to multiply, whose count must equal the column count of this matrix.
+     * @param destination  The Vector that receives the product, whose count must equal the row count of this matrix.
+     *                     It must not be the same object as columnVector.
+     * @return The destination.
+     */
+    public Vector multiplyInto(Vector columnVector, Vector destination)
+    {
+        validateMultiplicand(columnVector);
+        validateDestination(columnVector, destination, rowCount);
+
+        multiplyRows(columnVector.backingArray(), destination.backingArray(), 0, rowCount);
+        return destination;
+    }
+
+    /**
+     * Writes the product of this matrix and the given column vector into the destination, splitting the rows into
+     * chunks of similar non-zero counts that are computed in the given pool.
+     *
+     * @param columnVector The Vector to multiply, whose count must equal the column count of this matrix.
+     * @param destination  The Vector that receives the product, whose count must equal the row count of this matrix.
+     *                     It must not be the same object as columnVector.
+     * @param pool         The pool that computes the chunks when this matrix has more non-zeros than the parallel threshold.
+     * @return The destination.
+     */
+    public Vector multiplyInto(Vector columnVector, Vector destination, ForkJoinPool pool)
+    {
+        validateMultiplicand(columnVector);
+        validateDestination(columnVector, destination, rowCount);
+        if (pool == null)
+            throw new NullPointerException("Argument \"pool\" cannot be null.");
+
+        double[] x = columnVector.backingArray();
+        double[] y = destination.backingArray();
+        if (values.length + rowCount < Matrix.PARALLEL_THRESHOLD)
+            multiplyRows(x, y, 0, rowCount);
+        else
+            pool.invoke(new MultiplyTask(x, y, 0, rowCount));
+
+        return destination;
+    }
+
+    private void multiplyRows(double[] x, double[] y, int startRow, int endRow)
+    {
+        for (int i = startRow; i < endRow; i++)
+        {
+            double sum = 0;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+                sum += values[k] * x[columnIndices[k]];
+            y[i] = sum;
+        }
+    }
+
+    /**
+     * Halves its row range at the row that splits its non-zeros evenly, until the range holds fewer than
+     * {@link Matrix#PARALLEL_THRESHOLD} non-zeros and rows.
+     */
+    private final class MultiplyTask extends RecursiveAction
+    {
+        private final double[] x;
+        private final double[] y;
+        private final int startRow;
+        private final int endRow;
+
+        private MultiplyTask(double[] x, double[] y, int startRow, int endRow)
+        {
+            this.x = x;
+            this.y = y;
+            this.startRow = startRow;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected void compute()
+        {
+            int work = rowPointers[endRow] - rowPointers[startRow] + (endRow - startRow);
+            if ((work < Matrix.PARALLEL_THRESHOLD) || (endRow - startRow < 2))
+            {
+                multiplyRows(x, y, startRow, endRow);
+                return;
+            }
+
+            // Find the first row whose pointer reaches half of the non-zeros of the range.
+            int target = (rowPointers[startRow] + rowPointers[endRow]) >>> 1;
+            int low = startRow + 1;
+            int high = endRow - 1;
+            while (low < high)
+            {
+                int middle = (low + high) >>> 1;
+                if (rowPointers[middle] < target)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            invokeAll(new MultiplyTask(x, y, startRow, low), new MultiplyTask(x, y, low, endRow));
+        }
+    }
+
+    /**
+     * Returns the product "ThisMatrixᵀ x columnVector" without materializing the transpose, by scattering each row.
+     *
+     * @param columnVector The Vector to multiply, whose count must equal the row count of this matrix.
+     * @return A new Vector with as many entries as this matrix has columns.
+     */
+    public Vector transposeMultiply(Vector columnVector)
+    {
+        Vector.validateVector(columnVector);
+        if (columnVector.count() != rowCount)
+            throw new IllegalArgumentException("The row count of the matrix and the count of the vector must be equal.");
+
+        Vector result = new Vector(columnCount);
+        double[] x = columnVector.backingArray();
+        double[] y = result.backingArray();
+        for (int i = 0; i < rowCount; i++)
+        {
+            double xi = x[i];
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+                y[columnIndices[k]] += values[k] * xi;
+        }
+
+        return result;
+    }
+
+    @Override
+    public Matrix multiply(Matrix right)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+        if (columnCount != right.getRowCount())
+            throw new IllegalArgumentException("The column count of left matrix and the row count of right matrix must be equal.");
+
+        // Row i of the product is the combination of the rows of the right matrix selected by row i of this matrix.
+        int p = right.getColumnCount();
+        double[] b = right.toRowMajorArray();
+        double[] c = new double[rowCount * p];
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+            {
+                double a = values[k];
+                int bRow = columnIndices[k] * p;
+                int cRow = i * p;
+                for (int j = 0; j < p; j++)
+                    c[cRow + j] += a * b[bRow + j];
+            }
+        }
+
+        return new Matrix(rowCount, p, c);
+    }
+
+    /**
+     * Returns the product "ThisMatrixᵀ x right" without materializing the transpose, by scattering each row.
+     *
+     * @param right The dense Matrix to multiply, whose row count must equal the row count of this matrix.
+     * @return A new dense Matrix with as many rows as this matrix has columns.
+     */
+    public Matrix transposeMultiply(Matrix right)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+        if (rowCount != right.getRowCount())
+            throw new IllegalArgumentException("The row count of left matrix and the row count of right matrix must be equal.");
+
+        int p = right.getColumnCount();
+        double[] b = right.toRowMajorArray();
+        double[] c = new double[columnCount * p];
+        for (int i = 0; i < rowCount; i++)
+        {
+            int bRow = i * p;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+            {
+                double a = values[k];
+                int cRow = columnIndices[k] * p;
+                for (int j = 0; j < p; j++)
+                    c[cRow + j] += a * b[bRow + j];
+            }
+        }
+
+        return new Matrix(columnCount, p, c);
+    }
+
+    /**
+     * Returns the sparse product of this matrix and the given CSR matrix, accumulating each row of the result in a
+     * dense buffer (Gustavson's algorithm).
+     *
+     * @param right The right operand, whose row count must equal the column count of this matrix.
+     * @return A new CSR matrix holding the product.
+     */
+    public CsrMatrix multiply(CsrMatrix right)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+        if (columnCount != right.rowCount)
+            throw new IllegalArgumentException("The column count of left matrix and the row count of right matrix must be equal.");
+
+        int p = right.columnCount;
+        double[] accumulator = new double[p];
+        int[] lastRow = new int[p];
+        Arrays.fill(lastRow, -1);
+        int[] touched = new int[p];
+
+        int[] resultPointers = new int[rowCount + 1];
+        int[] resultColumns = new int[Math.max(16, values.length)];
+        double[] resultValues = new double[resultColumns.length];
+        int count = 0;
+
+        for (int i = 0; i < rowCount; i++)
+        {
+            int touchedCount = 0;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+            {
+                double a = values[k];
+                int row = columnIndices[k];
+                for (int t = right.rowPointers[row]; t < right.rowPointers[row + 1]; t++)
+                {
+                    int j = right.columnIndices[t];
+                    if (lastRow[j] != i)
+                    {
+                        lastRow[j] = i;
+                        accumulator[j] = 0;
+                        touched[touchedCount++] = j;
+                    }
+                    accumulator[j] += a * right.values[t];
+                }
+            }
+
+            // Emit the row sorted by column.
+            Arrays.sort(touched, 0, touchedCount);
+            if (count + touchedCount > resultColumns.length)
+            {
+                int capacity = Math.max(count + touchedCount, 2 * resultColumns.length);
+                resultColumns = Arrays.copyOf(resultColumns, capacity);
+                resultValues = Arrays.copyOf(resultValues, capacity);
+            }
+            for (int t = 0; t < touchedCount; t++)
+            {
+                resultColumns[count] = touched[t];
+                resultValues[count] = accumulator[touched[t]];
+                count++;
+            }
+            resultPointers[i + 1] = count;
+        }
+
+        return new CsrMatrix(rowCount, p, resultPointers,
+            Arrays.copyOf(resultColumns, count), Arrays.copyOf(resultValues, count), true);
+    }
+
+    private void validateMultiplicand(Vector columnVector)
+    {
+        Vector.validateVector(columnVector);
+        if (columnVector.count() != columnCount)
+            throw new IllegalArgumentException("The column count of the matrix and the count of the vector must be equal.");
+    }
+
+    static void validateDestination(Vector columnVector, Vector destination, int count)
+    {
+        if (destination == null)
+            throw new NullPointerException("Argument \"destination\" cannot be null.");
+        if (destination.count() != count)
+            throw new IllegalArgumentException("The row count of the matrix and the count of the destination must be equal.");
+        if (destination == columnVector)
+            throw new IllegalArgumentException("Argument \"destination\" cannot be the Vector to multiply.");
+    }
+
+    // ---------------------------Conversions---------------------------
+
+    /**
+     * Returns the transpose of this matrix, built with a counting sort by column in O(nonZeroCount + columnCount).
+     *
+     * @return The transpose of this matrix in the CSR format.
+     */
+    @Override
+    public CsrMatrix transpose()
+    {
+        // Count the entries of each column, then turn the counts into offsets.
+        int[] pointers = new int[columnCount + 1];
+        for (int column : columnIndices)
+            pointers[column + 1]++;
+        for (int j = 0; j < columnCount; j++)
+            pointers[j + 1] += pointers[j];
+
+        // Scatter the entries row by row, so that each column of the result comes out sorted by row.
+        int[] next = Arrays.copyOf(pointers, columnCount);
+        int[] rows = new int[values.length];
+        double[] transposedValues = new double[values.length];
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+            {
+                int target = next[columnIndices[k]]++;
+                rows[target] = i;
+                transposedValues[target] = values[k];
+            }
+        }
+
+        return new CsrMatrix(columnCount, rowCount, pointers, rows, transposedValues, true);
+    }
+
+    @Override
+    public CsrMatrix toCsr()
+    {
+        return this;
+    }
+
+    /**
+     * Returns this matrix in the CSC format.
+     *
+     * @return This matrix in the CSC format.
+     */
+    public CscMatrix toCsc()
+    {
+        return new CscMatrix(transpose());
+    }
+
+    /**
+     * Returns this matrix in the COO format, with its entries in row-major order.
+     *
+     * @return This matrix in the COO format.
+     */
+    public CooMatrix toCoo()
+    {
+        CooMatrix coo = new CooMatrix(rowCount, columnCount, values.length);
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+                coo.add(i, columnIndices[k], values[k]);
+        }
+
+        return coo;
+    }
+
+    @Override
+    public Matrix toMatrix()
+    {
+        double[] data = new double[rowCount * columnCount];
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++)
+                data[i * columnCount + columnIndices[k]] = values[k];
+        }
+
+        return new Matrix(rowCount, columnCount, data);
+    }
+
+    /**
+     * Returns the digraph that has an edge i->j for each stored entry (i, j) of this square matrix, ignoring the values.
+     * The adjacency list of each vertex iterates its targets in increasing order.
+     *
+     * @return A new Digraph with rowCount vertices and nonZeroCount edges.
+     */
+    public Digraph toDigraph()
+    {
+        if (rowCount != columnCount)
+            throw new IllegalArgumentException("Only a square matrix can be converted to a digraph.");
+
+        // Digraph.addEdge() prepends, so add the targets of each row backwards.
+        Digraph digraph = new Digraph(rowCount);
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int k = rowPointers[i + 1] - 1; k >= rowPointers[i]; k--)
+                digraph.addEdge(i, columnIndices[k]);
+        }
+
+        return digraph;
+    }
+
+    /**
+     * Returns the CSR form of the non-zero entries of the given dense Matrix.
+     *
+     * @param matrix The dense Matrix.
+     * @return A new CSR matrix with the same entries.
+     */
+    public static CsrMatrix fromMatrix(Matrix matrix)
+    {
+        if (matrix == null)
+            throw new NullPointerException("Argument \"matrix\" cannot be null.");
+
+        int rowCount = matrix.getRowCount();
+        int columnCount = matrix.getColumnCount();
+        double[] data = matrix.toRowMajorArray();
+
+        int nonZeroCount = 0;
+        for (double value : data)
+        {
+            if (value != 0)
+                nonZeroCount++;
+        }
+
+        int[] pointers = new int[rowCount + 1];
+        int[] columns = new int[nonZeroCount];
+        double[] values = new double[nonZeroCount];
+        int count = 0;
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int j = 0; j < columnCount; j++)
+            {
+                double value = data[i * columnCount + j];
+                if (value != 0)
+                {
+                    columns[count] = j;
+                    values[count] = value;
+                    count++;
+                }
+            }
+            pointers[i + 1] = count;
+        }
+
+        return new CsrMatrix(rowCount, columnCount, pointers, columns, values, true);
+    }
+
+    /**
+     * Returns the adjacency matrix of the given digraph, where entry (v, w) is the number of edges v->w.
+     *
+     * @param digraph The digraph, which must have at least one vertex.
+     * @return A new square CSR matrix with as many rows as the digraph has vertices.
+     */
+    public static CsrMatrix fromDigraph(Digraph digraph)
+    {
+        if (digraph == null)
+            throw new NullPointerException("Argument \"digraph\" cannot be null.");
+
+        int vertexCount = digraph.vCount();
+        CooMatrix coo = new CooMatrix(vertexCount, vertexCount, digraph.eCount());
+        for (int v = 0; v < vertexCount; v++)
+        {
+            for (int w : digraph.adjacent(v))
+                coo.add(v, w, 1);
+        }
+
+        return coo.toCsr();
+    }
+}
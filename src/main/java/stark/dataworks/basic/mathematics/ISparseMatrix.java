@@ -0,0 +1,81 @@
+package stark.dataworks.basic.mathematics;
+
+/**
+ * Operations shared by the sparse matrix formats {@link CsrMatrix}, {@link CscMatrix} and {@link CooMatrix}.
+ * Only the entries that are stored (the non-zeros) take memory, so the cost of every operation depends on
+ * {@link #nonZeroCount()} rather than on rowCount * columnCount.
+ */
+public interface ISparseMatrix
+{
+    int getRowCount();
+
+    int getColumnCount();
+
+    /**
+     * Returns the number of stored entries.
+     *
+     * @return The number of stored entries.
+     */
+    int nonZeroCount();
+
+    /**
+     * Returns the entry at the given position, which is 0 if it is not stored.
+     *
+     * @param rowIndex    The row of the entry.
+     * @param columnIndex The column of the entry.
+     * @return The entry at the given position.
+     */
+    double get(int rowIndex, int columnIndex);
+
+    /**
+     * Passes each stored entry to the given consumer, without visiting the implicit zeros.
+     *
+     * @param consumer The consumer of the entries.
+     */
+    void forEachNonZero(IEntryConsumer consumer);
+
+    /**
+     * Returns the product of this matrix and the given column vector (SpMV).
+     *
+     * @param columnVector The Vector to multiply, whose count must equal the column count of this matrix.
+     * @return A new Vector holding the product.
+     */
+    Vector multiply(Vector columnVector);
+
+    /**
+     * Returns the product of this matrix and the given dense Matrix (SpMM).
+     *
+     * @param right The dense Matrix to multiply, whose row count must equal the column count of this matrix.
+     * @return A new dense Matrix holding the product.
+     */
+    Matrix multiply(Matrix right);
+
+    /**
+     * Returns the transpose of this matrix, in the same format.
+     *
+     * @return The transpose of this matrix.
+     */
+    ISparseMatrix transpose();
+
+    /**
+     * Returns this matrix in the CSR format.
+     *
+     * @return This matrix in the CSR format.
+     */
+    CsrMatrix toCsr();
+
+    /**
+     * Returns this matrix as a dense Matrix.
+     *
+     * @return A new dense Matrix with the same entries.
+     */
+    Matrix toMatrix();
+
+    /**
+     * Consumer of the entries visited by {@link #forEachNonZero(IEntryConsumer)}.
+     */
+    interface IEntryConsumer
+    {
+        void accept(int rowIndex, int columnIndex, double value);
+    }
+}
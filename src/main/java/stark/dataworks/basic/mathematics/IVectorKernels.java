@@ -0,0 +1,86 @@
+package stark.dataworks.basic.mathematics;
+
+/**
+ * Dense kernels over the first {@code length} entries of {@code double[]} arrays, used by {@link Vector} and the
+ * distance metrics. Obtain an implementation from {@link VectorKernels#get()}.
+ * <p>
+ * Implementations do not validate their arguments: callers check nulls and lengths once before entering a kernel.
+ * An output array may be the same array as an input, which makes the operation in-place.
+ */
+public interface IVectorKernels
+{
+    /**
+     * Returns the sum of x[i] * y[i].
+     */
+    double dot(double[] x, double[] y, int length);
+
+    /**
+     * Computes y[i] += alpha * x[i].
+     */
+    void axpy(double alpha, double[] x, double[] y, int length);
+
+    /**
+     * Computes result[i] = x[i] + y[i].
+     */
+    void add(double[] x, double[] y, double[] result, int length);
+
+    /**
+     * Computes result[i] = x[i] + scalar.
+     */
+    void add(double[] x, double scalar, double[] result, int length);
+
+    /**
+     * Computes result[i] = alpha * x[i] + scalar in one pass.
+     */
+    void scaleAdd(double alpha, double[] x, double scalar, double[] result, int length);
+
+    /**
+     * Computes result[i] = x[i] - y[i].
+     */
+    void subtract(double[] x, double[] y, double[] result, int length);
+
+    /**
+     * Computes result[i] = x[i] * y[i].
+     */
+    void multiply(double[] x, double[] y, double[] result, int length);
+
+    /**
+     * Computes result[i] = alpha * x[i].
+     */
+    void scale(double alpha, double[] x, double[] result, int length);
+
+    /**
+     * Returns the sum of x[i].
+     */
+    double sum(double[] x, int length);
+
+    /**
+     * Returns the maximum of x[i], or {@link Double#NEGATIVE_INFINITY} if length is 0.
+     */
+    double max(double[] x, int length);
+
+    /**
+     * Returns the minimum of x[i], or {@link Double#POSITIVE_INFINITY} if length is 0.
+     */
+    double min(double[] x, int length);
+
+    /**
+     * Returns the sum of (x[i] - y[i])^2, i.e. the square of the Euclidean distance.
+     */
+    double squaredEuclideanDistance(double[] x, double[] y, int length);
+
+    /**
+     * Returns the sum of |x[i] - y[i]|.
+     */
+    double manhattanDistance(double[] x, double[] y, int length);
+
+    /**
+     * Returns the maximum of |x[i] - y[i]|.
+     */
+    double chebyshevDistance(double[] x, double[] y, int length);
+
+    /**
+     * Returns the p-th root of the sum of |x[i] - y[i]|^p.
+     */
+    double minkowskiDistance(double[] x, double[] y, int length, double p);
+}
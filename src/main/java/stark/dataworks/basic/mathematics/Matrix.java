@@ -4,9 +4,27 @@ import stark.dataworks.basic.ArgumentOutOfRangeException;
 import stark.dataworks.basic.Environment;
 import stark.dataworks.basic.IPredicate;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class Matrix
 {
-    private final Vector[] matrix;
+    /**
+     * Number of multiply-adds (or element updates) below which a fork/join task is not split any further.
+     * Operations whose total work is below this threshold run sequentially on the calling thread even when a pool is given.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    /**
+     * Minimum side of a tile of a parallel product, a multiple of the packed block height of {@link MatrixKernels}.
+     */
+    private static final int PRODUCT_TILE_SIDE = 4 * MatrixKernels.M_BLOCK;
+
+    /**
+     * Entries of this matrix in one contiguous row-major block: entry (i, j) is at {@code i * columnCount + j}.
+     */
+    private final double[] data;
 
     private final int rowCount;
     private final int columnCount;
@@ -28,13 +46,9 @@ public class Matrix
         columnCount = matrix[0].length;
 
         // Initialize the internal matrix.
-        this.matrix = new Vector[rowCount];
+        data = new double[rowCount * columnCount];
         for (int i = 0; i < rowCount; i++)
-        {
-            this.matrix[i] = new Vector(columnCount);
-            for (int j = 0; j < columnCount; j++)
-                set(i, j, matrix[i][j]);
-        }
+            System.arraycopy(matrix[i], 0, data, i * columnCount, columnCount);
     }
 
     public Matrix(Vector[] vectors, boolean isRowVector)
@@ -50,10 +64,9 @@ public class Matrix
             rowCount = vectors.length;
             columnCount = vectors[0].count();
 
-            matrix = new Vector[rowCount];
+            data = new double[rowCount * columnCount];
             for (int i = 0; i < rowCount; i++)
             {
-                matrix[i] = new Vector(columnCount);
                 for (int j = 0; j < columnCount; j++)
                     set(i, j, vectors[i].get(j));
             }
@@ -63,10 +76,9 @@ public class Matrix
             rowCount = vectors[0].count();
             columnCount = vectors.length;
 
-            matrix = new Vector[rowCount];
+            data = new double[rowCount * columnCount];
             for (int i = 0; i < rowCount; i++)
             {
-                matrix[i] = new Vector(rowCount);
                 for (int j = 0; j < columnCount; j++)
                     set(i, j, vectors[j].get(i));
             }
@@ -83,22 +95,19 @@ public class Matrix
         columnCount = numColumns;
 
         // Initialize the internal matrix.
-        matrix = new Vector[rowCount];
+        data = new double[rowCount * columnCount];
+        if (value != 0)
+            Arrays.fill(data, value);
+    }
 
-        if (value == 0)
-        {
-            for (int i = 0; i < this.rowCount; i++)
-                matrix[i] = new Vector(this.columnCount);
-        }
-        else
-        {
-            for (int i = 0; i < this.rowCount; i++)
-            {
-                matrix[i] = new Vector(columnCount);
-                for (int j = 0; j < columnCount; j++)
-                    set(i, j, value);
-            }
-        }
+    /**
+     * Wraps the given row-major array without copying it. The caller must not keep using the array afterwards.
+     */
+    Matrix(int rowCount, int columnCount, double[] data)
+    {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.data = data;
     }
 
     // ---------------------------Member methods---------------------------
@@ -162,14 +171,14 @@ public class Matrix
     {
         validateRowIndex(rowIndex);
         validateColumnIndex(columnIndex);
-        return matrix[rowIndex].get(columnIndex);
+        return data[rowIndex * columnCount + columnIndex];
     }
 
     public void set(int rowIndex, int columnIndex, double value)
     {
         validateRowIndex(rowIndex);
         validateColumnIndex(columnIndex);
-        matrix[rowIndex].set(columnIndex, value);
+        data[rowIndex * columnCount + columnIndex] = value;
     }
 
     public boolean isSquareMatrix()
@@ -295,21 +304,25 @@ public class Matrix
 
     public Matrix clone()
     {
-        return new Matrix(this.matrix, true);
+        return new Matrix(rowCount, columnCount, data.clone());
     }
 
     public Vector getRow(int rowIndex)
     {
         validateRowIndex(rowIndex);
-        return new Vector(matrix[rowIndex]);
+        return new Vector(Arrays.copyOfRange(data, rowIndex * columnCount, (rowIndex + 1) * columnCount));
     }
 
     public Vector getSubRow(int rowIndex, int startColumnIndex, int endColumnIndex)
     {
         validateRowIndex(rowIndex);
 
+        validateColumnIndex(startColumnIndex);
+        validateColumnIndex(endColumnIndex);
+
         // Remainging check will be done here in the Vector's constructor.
-        return matrix[rowIndex].getSubVector(startColumnIndex, endColumnIndex);
+        int rowOffset = rowIndex * columnCount;
+        return new Vector(data, rowOffset + startColumnIndex, rowOffset + endColumnIndex);
     }
 
     public Vector getColumn(int columnIndex)
@@ -728,16 +741,7 @@ public class Matrix
 
     public double[] toRowMajorArray()
     {
-        double[] result = new double[this.rowCount * this.columnCount];
-        int nextIndex = 0;
-
-        for (int i = 0; i < this.rowCount; i++)
-        {
-            for (int j = 0; j < this.columnCount; j++)
-                result[nextIndex++] = this.get(i, j);
-        }
-
-        return result;
+        return data.clone();
     }
 
     public double[][] toRowArrays()
@@ -768,7 +772,7 @@ public class Matrix
     {
         Vector[] rows = new Vector[this.rowCount];
         for (int i = 0; i < this.rowCount; i++)
-            rows[i] = new Vector(matrix[i]);
+            rows[i] = getRow(i);
 
         return rows;
     }
@@ -790,7 +794,7 @@ public class Matrix
         if (axis == 0)
         {
             Vector result = new Vector(this.columnCount);
-            for (Vector rowVector : matrix)
+            for (Vector rowVector : toRowVectors())
                 result = result.add(rowVector);
             return result;
         }
@@ -844,20 +848,27 @@ public class Matrix
 
     public Matrix add(double scalar)
     {
-        // Make a deep copy of this Matrix.
-        Matrix result = this.clone();
+        // Initialize the result Matrix.
+        Matrix result = zeros(this.rowCount, this.columnCount);
 
-        // Add operation.
-        for (int i = 0; i < result.rowCount; i++)
-        {
-            for (int j = 0; j < result.columnCount; j++)
-                result.set(i, j, result.get(i, j) + scalar);
-        }
+        // Add operation, reading this Matrix once and writing the result once.
+        VectorKernels.get().add(this.data, scalar, result.data, data.length);
 
         // Return the result Matrix.
         return result;
     }
 
+    /**
+     * Adds the given scalar to each entry of this Matrix, without allocating a new Matrix.
+     * @param scalar The scalar to add.
+     * @return This Matrix.
+     */
+    public Matrix addInPlace(double scalar)
+    {
+        VectorKernels.get().add(this.data, scalar, this.data, data.length);
+        return this;
+    }
+
     /**
      * Perform an elementwise addition.
      * @param matrix2
@@ -866,33 +877,72 @@ public class Matrix
     public Matrix add(Matrix matrix2)
     {
         // Check 2 input matrices.
-        validateShape(this, matrix2);
+        validateMatrices(this, matrix2);
 
-        // Make a deep copy of this Matrix.
-        Matrix result = this.clone();
+        return combine(matrix2, false, null, zeros(this.rowCount, this.columnCount));
+    }
 
-        // Add operation.
-        for (int i = 0; i < this.rowCount; i++)
-        {
-            for (int j = 0; j < this.columnCount; j++)
-                result.set(i, j, result.get(i, j) + matrix2.get(i, j));
-        }
+    /**
+     * Perform an elementwise addition into the given destination.
+     * @param matrix2 The Matrix to add, which must have the same shape as this Matrix.
+     * @param destination The Matrix that receives the sums, which may be this Matrix or matrix2.
+     * @return The destination.
+     */
+    public Matrix addInto(Matrix matrix2, Matrix destination)
+    {
+        // Check 2 input matrices and the destination.
+        validateMatrices(this, matrix2);
+        validateDestination(destination, this.rowCount, this.columnCount);
 
-        // Return the result Matrix.
-        return result;
+        return combine(matrix2, false, null, destination);
+    }
+
+    /**
+     * Adds the given Matrix to this Matrix, without allocating a new Matrix.
+     * @param matrix2 The Matrix to add, which must have the same shape as this Matrix.
+     * @return This Matrix.
+     */
+    public Matrix addInPlace(Matrix matrix2)
+    {
+        return addInto(matrix2, this);
+    }
+
+    /**
+     * Computes "ThisMatrix += alpha * x" in place.
+     * @param alpha The factor of x.
+     * @param x The Matrix to accumulate, which must have the same shape as this Matrix.
+     * @return This Matrix.
+     */
+    public Matrix axpy(double alpha, Matrix x)
+    {
+        validateMatrices(this, x);
+
+        VectorKernels.get().axpy(alpha, x.data, this.data, data.length);
+        return this;
+    }
+
+    /**
+     * Perform an elementwise addition, splitting the rows of the result across the given pool.
+     * @param matrix2 The Matrix to add, which must have the same shape as this Matrix.
+     * @param pool The pool that runs the addition when this Matrix is larger than the parallel threshold.
+     * @return A new Matrix holding the sums.
+     */
+    public Matrix add(Matrix matrix2, ForkJoinPool pool)
+    {
+        // Check 2 input matrices and the pool.
+        validateMatrices(this, matrix2);
+        validatePool(pool);
+
+        return combine(matrix2, false, pool, zeros(this.rowCount, this.columnCount));
     }
 
     public Matrix subtract(double scalar)
     {
-        // Make a deep copy of this Matrix.
-        Matrix result = this.clone();
+        // Initialize the result Matrix.
+        Matrix result = zeros(this.rowCount, this.columnCount);
 
-        // Subtraction operation.
-        for (int i = 0; i < result.rowCount; i++)
-        {
-            for (int j = 0; j < result.columnCount; j++)
-                result.set(i, j, result.get(i, j) - scalar);
-        }
+        // Subtraction operation, reading this Matrix once and writing the result once.
+        VectorKernels.get().add(this.data, -scalar, result.data, data.length);
 
         // Return the result Matrix.
         return result;
@@ -908,15 +958,75 @@ public class Matrix
         // Check 2 input matrices.
         validateMatrices(this, matrix2);
 
-        // Make a deep copy of this Matrix.
-        Matrix result = this.clone();
+        return combine(matrix2, true, null, zeros(this.rowCount, this.columnCount));
+    }
 
-        // Subtraction operation.
-        for (int i = 0; i < result.rowCount; i++)
+    /**
+     * Perform an elementwise subtraction into the given destination.
+     * @param matrix2 The Matrix to subtract, which must have the same shape as this Matrix.
+     * @param destination The Matrix that receives the differences, which may be this Matrix or matrix2.
+     * @return The destination.
+     */
+    public Matrix subtractInto(Matrix matrix2, Matrix destination)
+    {
+        // Check 2 input matrices and the destination.
+        validateMatrices(this, matrix2);
+        validateDestination(destination, this.rowCount, this.columnCount);
+
+        return combine(matrix2, true, null, destination);
+    }
+
+    /**
+     * Subtracts the given Matrix from this Matrix, without allocating a new Matrix.
+     * @param matrix2 The Matrix to subtract, which must have the same shape as this Matrix.
+     * @return This Matrix.
+     */
+    public Matrix subtractInPlace(Matrix matrix2)
+    {
+        return subtractInto(matrix2, this);
+    }
+
+    /**
+     * Perform an elementwise subtraction, splitting the rows of the result across the given pool.
+     * @param matrix2 The Matrix to subtract, which must have the same shape as this Matrix.
+     * @param pool The pool that runs the subtraction when this Matrix is larger than the parallel threshold.
+     * @return A new Matrix holding the differences.
+     */
+    public Matrix subtract(Matrix matrix2, ForkJoinPool pool)
+    {
+        // Check 2 input matrices and the pool.
+        validateMatrices(this, matrix2);
+        validatePool(pool);
+
+        return combine(matrix2, true, pool, zeros(this.rowCount, this.columnCount));
+    }
+
+    private Matrix combine(Matrix matrix2, boolean subtract, ForkJoinPool pool, Matrix result)
+    {
+        double[] left = this.data;
+        double[] right = matrix2.data;
+        double[] output = result.data;
+        int columns = this.columnCount;
+
+        // Elementwise operation over each assigned block of the contiguous storage.
+        execute(pool, rowCount, columnCount, 1, 1, (startRow, endRow, startColumn, endColumn) ->
         {
-            for (int j = 0; j < matrix2.rowCount; j++)
-                result.set(i, j, result.get(i, j) - matrix2.get(i, j));
-        }
+            for (int i = startRow; i < endRow; i++)
+            {
+                int start = i * columns + startColumn;
+                int end = i * columns + endColumn;
+                if (subtract)
+                {
+                    for (int index = start; index < end; index++)
+                        output[index] = left[index] - right[index];
+                }
+                else
+                {
+                    for (int index = start; index < end; index++)
+                        output[index] = left[index] + right[index];
+                }
+            }
+        });
 
         // Return the result Matrix.
         return result;
@@ -924,18 +1034,31 @@ public class Matrix
 
     public Matrix multiply(double scalar)
     {
-        // Make a deep copy of this Matrix.
-        Matrix result = this.clone();
+        return scaleInto(scalar, zeros(this.rowCount, this.columnCount));
+    }
 
-        // Multiplication operation.
-        for (int i = 0; i < result.rowCount; i++)
-        {
-            for (int j = 0; j < result.columnCount; j++)
-                result.set(i, j, result.get(i, j) * scalar);
-        }
+    /**
+     * Writes "ThisMatrix * scalar" into the given destination.
+     * @param scalar The factor.
+     * @param destination The Matrix that receives the result, which may be this Matrix.
+     * @return The destination.
+     */
+    public Matrix scaleInto(double scalar, Matrix destination)
+    {
+        validateDestination(destination, this.rowCount, this.columnCount);
 
-        // Return the result Matrix.
-        return result;
+        VectorKernels.get().scale(scalar, this.data, destination.data, data.length);
+        return destination;
+    }
+
+    /**
+     * Multiplies each entry of this Matrix by the given scalar, without allocating a new Matrix.
+     * @param scalar The factor.
+     * @return This Matrix.
+     */
+    public Matrix scaleInPlace(double scalar)
+    {
+        return scaleInto(scalar, this);
     }
 
     public Vector multiply(Vector columnVector)
@@ -947,18 +1070,52 @@ public class Matrix
         if (this.columnCount != columnVector.count())
             throw new IllegalArgumentException("The column count of the matrix and the count of the vector must be equal.");
 
-        // Get rows of the given matrix.
-        Vector[] rows = this.matrix;
+        return multiplyVector(columnVector, new Vector(this.rowCount));
+    }
 
-        // Initialize the result Vector.
-        Vector result = new Vector(this.rowCount);
+    /**
+     * Writes "ThisMatrix x columnVector" into the given destination.
+     *
+     * @param columnVector The Vector to multiply, whose count must equal the column count of this Matrix.
+     * @param destination  The Vector that receives the product, whose count must equal the row count of this Matrix.
+     *                     It must not be the same object as columnVector.
+     * @return The destination.
+     */
+    public Vector multiplyInto(Vector columnVector, Vector destination)
+    {
+        if (columnVector == null)
+            throw new NullPointerException("The input Vector is null.");
+        if (destination == null)
+            throw new NullPointerException("Argument \"destination\" cannot be null.");
 
-        // Multiplication operation.
-        for (int i = 0; i < result.count(); i++)
-            result.set(i, rows[i].dot(columnVector));
+        // Check whether the column count of the matrix and the count of the vector must be equal
+        if (this.columnCount != columnVector.count())
+            throw new IllegalArgumentException("The column count of the matrix and the count of the vector must be equal.");
+        if (this.rowCount != destination.count())
+            throw new IllegalArgumentException("The row count of the matrix and the count of the destination must be equal.");
+        if (columnVector == destination)
+            throw new IllegalArgumentException("Argument \"destination\" cannot be the Vector to multiply.");
+
+        return multiplyVector(columnVector, destination);
+    }
+
+    private Vector multiplyVector(Vector columnVector, Vector destination)
+    {
+        double[] x = columnVector.backingArray();
+        double[] y = destination.backingArray();
+
+        // Multiplication operation, streaming each row of the contiguous storage.
+        for (int i = 0; i < this.rowCount; i++)
+        {
+            int rowOffset = i * this.columnCount;
+            double sum = 0;
+            for (int j = 0; j < this.columnCount; j++)
+                sum += data[rowOffset + j] * x[j];
+            y[i] = sum;
+        }
 
         // Return the result Vector.
-        return result;
+        return destination;
     }
 
     public Matrix multiply(Matrix right)
@@ -970,19 +1127,114 @@ public class Matrix
         if (this.columnCount != right.rowCount)
             throw new IllegalArgumentException("The column count of left matrix and the row count of right matrix must be equal.");
 
-        // Initialize the result Matrix.
-        Matrix result = zeros(this.rowCount, right.columnCount);
+        // Matrix multiplication with the blocked kernel, reading both operands as stored.
+        return product(this.rowCount, this.columnCount, this.columnCount, 1,
+            right, right.columnCount, right.columnCount, 1, null, zeros(this.rowCount, right.columnCount));
+    }
 
-        // Get the row and column vectors.
-        Vector[] rows = this.matrix;
-        Vector[] columns = right.toColumnVectors();
+    /**
+     * Writes the product "ThisMatrix x right" into the given destination, overwriting its previous content.
+     *
+     * @param right       The right operand, whose row count must equal the column count of this Matrix.
+     * @param destination The Matrix that receives the product. It must not be this Matrix or the right Matrix.
+     * @return The destination.
+     */
+    public Matrix multiplyInto(Matrix right, Matrix destination)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
 
-        // Matrix multiplication.
-        for (int i = 0; i < result.rowCount; i++)
-        {
-            for (int j = 0; j < result.columnCount; j++)
-                result.set(i, j, rows[i].dot(columns[j]));
-        }
+        // Check the inner dimension of 2 matrices.
+        if (this.columnCount != right.rowCount)
+            throw new IllegalArgumentException("The column count of left matrix and the row count of right matrix must be equal.");
+
+        validateDestination(destination, this.rowCount, right.columnCount);
+        if ((destination == this) || (destination == right))
+            throw new IllegalArgumentException("Argument \"destination\" cannot be an operand of the product.");
+
+        // The kernel accumulates into the destination.
+        Arrays.fill(destination.data, 0);
+        return product(this.rowCount, this.columnCount, this.columnCount, 1,
+            right, right.columnCount, right.columnCount, 1, null, destination);
+    }
+
+    /**
+     * Returns the product "ThisMatrix x right", splitting the result into tiles that are computed in the given pool.
+     *
+     * @param right The right operand, whose row count must equal the column count of this Matrix.
+     * @param pool  The pool that computes the tiles when the product is larger than the parallel threshold.
+     * @return A new Matrix holding the product.
+     */
+    public Matrix multiply(Matrix right, ForkJoinPool pool)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+        validatePool(pool);
+
+        // Check the inner dimension of 2 matrices.
+        if (this.columnCount != right.rowCount)
+            throw new IllegalArgumentException("The column count of left matrix and the row count of right matrix must be equal.");
+
+        return product(this.rowCount, this.columnCount, this.columnCount, 1,
+            right, right.columnCount, right.columnCount, 1, pool, zeros(this.rowCount, right.columnCount));
+    }
+
+    /**
+     * Returns the product "ThisMatrixᵀ x right" without materializing the transpose of this Matrix.
+     *
+     * @param right The right operand, whose row count must equal the row count of this Matrix.
+     * @return A new Matrix with as many rows as this Matrix has columns.
+     */
+    public Matrix transposeMultiply(Matrix right)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+
+        // Check the inner dimension of 2 matrices.
+        if (this.rowCount != right.rowCount)
+            throw new IllegalArgumentException("The row count of left matrix and the row count of right matrix must be equal.");
+
+        // Read this Matrix with its strides swapped, which views it as its transpose.
+        return product(this.columnCount, this.rowCount, 1, this.columnCount,
+            right, right.columnCount, right.columnCount, 1, null, zeros(this.columnCount, right.columnCount));
+    }
+
+    /**
+     * Returns the product "ThisMatrix x rightᵀ" without materializing the transpose of the right Matrix.
+     *
+     * @param right The right operand, whose column count must equal the column count of this Matrix.
+     * @return A new Matrix with as many columns as the right Matrix has rows.
+     */
+    public Matrix multiplyTranspose(Matrix right)
+    {
+        if (right == null)
+            throw new NullPointerException("matrixRight is null.");
+
+        // Check the inner dimension of 2 matrices.
+        if (this.columnCount != right.columnCount)
+            throw new IllegalArgumentException("The column count of left matrix and the column count of right matrix must be equal.");
+
+        // Read the right Matrix with its strides swapped, which views it as its transpose.
+        return product(this.rowCount, this.columnCount, this.columnCount, 1,
+            right, right.rowCount, 1, right.columnCount, null, zeros(this.rowCount, right.rowCount));
+    }
+
+    /**
+     * Accumulates the m x p product of this Matrix and the right Matrix, each read through the given strides, into the result.
+     */
+    private Matrix product(int m, int n, int aRowStride, int aColumnStride,
+                           Matrix right, int p, int bRowStride, int bColumnStride, ForkJoinPool pool, Matrix result)
+    {
+        double[] a = this.data;
+        double[] b = right.data;
+        double[] c = result.data;
+
+        // Tiles keep at least PRODUCT_TILE_SIDE rows or columns, so that re-packing A and B per tile stays cheap.
+        execute(pool, m, p, n, PRODUCT_TILE_SIDE, (startRow, endRow, startColumn, endColumn) ->
+            MatrixKernels.multiplyAdd(endRow - startRow, n, endColumn - startColumn,
+                a, startRow * aRowStride, aRowStride, aColumnStride,
+                b, startColumn * bColumnStride, bRowStride, bColumnStride,
+                c, startRow * p + startColumn, p));
 
         // Return the result Matrix.
         return result;
@@ -990,15 +1242,12 @@ public class Matrix
 
     public Matrix divide(double scalar)
     {
-        // Make a deep copy of this Matrix.
-        Matrix result = this.clone();
+        // Initialize the result Matrix.
+        Matrix result = zeros(this.rowCount, this.columnCount);
 
         // Division operation.
-        for (int i = 0; i < result.rowCount; i++)
-        {
-            for (int j = 0; j < result.columnCount; j++)
-                result.set(i, j, result.get(i, j) / scalar);
-        }
+        for (int i = 0; i < data.length; i++)
+            result.data[i] = data[i] / scalar;
 
         // Return the result Matrix.
         return result;
@@ -1101,95 +1350,195 @@ public class Matrix
         // Check before computing.
         convolutionPreValidate(matrix1, matrix2, padding, stride);
 
-        // Reflect matrix 2.
-        double[][] reflectedMatrix2 = new double[matrix2.rowCount][matrix2.columnCount];
-        for (int i = 0; i < matrix2.rowCount; i++)
-        {
-            for (int j = 0; j < matrix2.columnCount; j++)
-                reflectedMatrix2[i][j] = matrix2.get(matrix2.rowCount - 1 - i, matrix2.columnCount - 1 - j);
-        }
+        return convolve(matrix1, matrix2, padding, stride, null);
+    }
+
+    /**
+     * Computes the convolution of matrix1 by matrix2, splitting the output into tiles that are computed in the given pool.
+     *
+     * @param matrix1 The input Matrix.
+     * @param matrix2 The kernel.
+     * @param padding The number of zero rows and columns padded around matrix1.
+     * @param stride  The step between 2 adjacent windows.
+     * @param pool    The pool that computes the tiles when the convolution is larger than the parallel threshold.
+     * @return The convolution of matrix1 by matrix2.
+     */
+    public static Matrix computeConvolution(Matrix matrix1, Matrix matrix2, int padding, int stride, ForkJoinPool pool)
+    {
+        // Check before computing.
+        convolutionPreValidate(matrix1, matrix2, padding, stride);
+        validatePool(pool);
+
+        return convolve(matrix1, matrix2, padding, stride, pool);
+    }
+
+    private static Matrix convolve(Matrix matrix1, Matrix matrix2, int padding, int stride, ForkJoinPool pool)
+    {
+        // Reflect matrix 2, the convolution is the correlation by the reflected kernel.
+        double[] reflectedMatrix2 = new double[matrix2.data.length];
+        for (int i = 0; i < reflectedMatrix2.length; i++)
+            reflectedMatrix2[i] = matrix2.data[reflectedMatrix2.length - 1 - i];
+
+        return correlate(matrix1, reflectedMatrix2, matrix2.rowCount, matrix2.columnCount, padding, stride, pool);
+    }
+
+    public static Matrix computeCorrelation(Matrix matrix1, Matrix matrix2, int padding, int stride)
+    {
+        // Check before computing.
+        convolutionPreValidate(matrix1, matrix2, padding, stride);
+
+        return correlate(matrix1, matrix2.data, matrix2.rowCount, matrix2.columnCount, padding, stride, null);
+    }
 
+    /**
+     * Computes the correlation of matrix1 by matrix2, splitting the output into tiles that are computed in the given pool.
+     *
+     * @param matrix1 The input Matrix.
+     * @param matrix2 The kernel.
+     * @param padding The number of zero rows and columns padded around matrix1.
+     * @param stride  The step between 2 adjacent windows.
+     * @param pool    The pool that computes the tiles when the correlation is larger than the parallel threshold.
+     * @return The correlation of matrix1 by matrix2.
+     */
+    public static Matrix computeCorrelation(Matrix matrix1, Matrix matrix2, int padding, int stride, ForkJoinPool pool)
+    {
+        // Check before computing.
+        convolutionPreValidate(matrix1, matrix2, padding, stride);
+        validatePool(pool);
+
+        return correlate(matrix1, matrix2.data, matrix2.rowCount, matrix2.columnCount, padding, stride, pool);
+    }
+
+    private static Matrix correlate(Matrix matrix1, double[] kernel, int kernelRowCount, int kernelColumnCount,
+                                    int padding, int stride, ForkJoinPool pool)
+    {
         // Pad zeros around matrix 1.
-        double[][] extendedMatrix1 = new double[matrix1.rowCount + 2 * padding][matrix1.columnCount + 2 * padding];
+        int extendedRowCount = matrix1.rowCount + 2 * padding;
+        int extendedColumnCount = matrix1.columnCount + 2 * padding;
+        double[] extendedMatrix1 = new double[extendedRowCount * extendedColumnCount];
         for (int i = 0; i < matrix1.rowCount; i++)
-        {
-            for (int j = 0; j < matrix1.columnCount; j++)
-                extendedMatrix1[i + padding][j + padding] = matrix1.get(i, j);
-        }
+            System.arraycopy(matrix1.data, i * matrix1.columnCount, extendedMatrix1, (i + padding) * extendedColumnCount + padding, matrix1.columnCount);
 
         // Initialize the result matrix.
-        int resultRowCount = 1 + (extendedMatrix1.length - matrix2.rowCount) / stride;
-        int resultColumnCount = 1 + (extendedMatrix1[0].length - matrix2.columnCount) / stride;
+        int resultRowCount = 1 + (extendedRowCount - kernelRowCount) / stride;
+        int resultColumnCount = 1 + (extendedColumnCount - kernelColumnCount) / stride;
         Matrix result = zeros(resultRowCount, resultColumnCount);
+        double[] output = result.data;
 
-        // Compute the convolution.
-        for (int i = 0; i < result.rowCount; i++)
+        // Compute the correlation of each output cell in the assigned tile, sliding the window over the flat padded input.
+        execute(pool, resultRowCount, resultColumnCount, kernel.length, 1, (startRow, endRow, startColumn, endColumn) ->
         {
-            int startRowIndex = i * stride;
-
-            for (int j = 0; j < result.columnCount; j++)
+            for (int i = startRow; i < endRow; i++)
             {
-                int startColumnIndex = j * stride;
-
-                // Use reflectedMatrix2 here so that CPU doesn't need to read matrix2 to cache to get its row count and column count.
-                // To avoid cache miss.
-                for (int x = 0; x < reflectedMatrix2.length; x++)
+                for (int j = startColumn; j < endColumn; j++)
                 {
-                    for (int y = 0; y < reflectedMatrix2[x].length; y++)
+                    int window = i * stride * extendedColumnCount + j * stride;
+                    double sum = 0;
+                    for (int x = 0; x < kernelRowCount; x++)
                     {
-                        double z = extendedMatrix1[startRowIndex + x][startColumnIndex + y] * reflectedMatrix2[x][y];
-                        result.set(i, j, result.get(i, j) + z);
+                        int inputRow = window + x * extendedColumnCount;
+                        int kernelRow = x * kernelColumnCount;
+                        for (int y = 0; y < kernelColumnCount; y++)
+                            sum += extendedMatrix1[inputRow + y] * kernel[kernelRow + y];
                     }
+                    output[i * resultColumnCount + j] = sum;
                 }
             }
-        }
+        });
 
-        // Return the convolution computed above.
+        // Return the correlation computed above.
         return result;
     }
 
-    public static Matrix computeCorrelation(Matrix matrix1, Matrix matrix2, int padding, int stride)
+    private static void validateDestination(Matrix destination, int rowCount, int columnCount)
     {
-        // Check before computing.
-        convolutionPreValidate(matrix1, matrix2, padding, stride);
+        if (destination == null)
+            throw new NullPointerException("Argument \"destination\" cannot be null.");
+        if ((destination.rowCount != rowCount) || (destination.columnCount != columnCount))
+            throw new IllegalArgumentException("Argument \"destination\" doesn't have the shape of the result.");
+    }
 
-        // Pad zeros around matrix 1.
-        double[][] extendedMatrix1 = new double[matrix1.rowCount + 2 * padding][matrix1.columnCount + 2 * padding];
-        for (int i = 0; i < matrix1.rowCount; i++)
+    private static void validatePool(ForkJoinPool pool)
+    {
+        if (pool == null)
+            throw new NullPointerException("Argument \"pool\" cannot be null.");
+    }
+
+    // ---------------------------Parallel execution---------------------------
+
+    /**
+     * Computes the cells of a result Matrix that lie in [startRow, endRow) x [startColumn, endColumn).
+     * Implementations must only write to those cells, so that disjoint tiles can run concurrently.
+     */
+    private interface ITileOperation
+    {
+        void compute(int startRow, int endRow, int startColumn, int endColumn);
+    }
+
+    /**
+     * Runs the operation over a rowCount x columnCount result, on the calling thread when the pool is null or the total
+     * work is below {@link #PARALLEL_THRESHOLD}, and otherwise as a tree of {@link TileTask}s in the pool.
+     */
+    private static void execute(ForkJoinPool pool, int rowCount, int columnCount, long workPerCell, int minTileSide, ITileOperation operation)
+    {
+        if ((pool == null) || ((long) rowCount * columnCount * workPerCell < PARALLEL_THRESHOLD))
+            operation.compute(0, rowCount, 0, columnCount);
+        else
+            pool.invoke(new TileTask(operation, workPerCell, minTileSide, 0, rowCount, 0, columnCount));
+    }
+
+    /**
+     * Halves its tile along the longer side until the tile's work drops below {@link #PARALLEL_THRESHOLD}
+     * or both sides are shorter than twice the minimum tile side. Rows are preferred so that tiles stay contiguous.
+     */
+    private static final class TileTask extends RecursiveAction
+    {
+        private final ITileOperation operation;
+        private final long workPerCell;
+        private final int minTileSide;
+        private final int startRow;
+        private final int endRow;
+        private final int startColumn;
+        private final int endColumn;
+
+        private TileTask(ITileOperation operation, long workPerCell, int minTileSide, int startRow, int endRow, int startColumn, int endColumn)
         {
-            for (int j = 0; j < matrix1.columnCount; j++)
-                extendedMatrix1[i + padding][j + padding] = matrix1.get(i, j);
+            this.operation = operation;
+            this.workPerCell = workPerCell;
+            this.minTileSide = minTileSide;
+            this.startRow = startRow;
+            this.endRow = endRow;
+            this.startColumn = startColumn;
+            this.endColumn = endColumn;
         }
 
-        // Initialize the result matrix.
-        int resultRowCount = 1 + (extendedMatrix1.length - matrix2.rowCount) / stride;
-        int resultColumnCount = 1 + (extendedMatrix1[0].length - matrix2.columnCount) / stride;
-        Matrix result = zeros(resultRowCount, resultColumnCount);
-
-        // Compute the convolution.
-        for (int i = 0; i < result.rowCount; i++)
+        @Override
+        protected void compute()
         {
-            int startRowIndex = i * stride;
+            int rows = endRow - startRow;
+            int columns = endColumn - startColumn;
+            boolean rowsSplittable = rows >= 2 * minTileSide;
+            boolean columnsSplittable = columns >= 2 * minTileSide;
 
-            for (int j = 0; j < result.columnCount; j++)
+            if (((long) rows * columns * workPerCell < PARALLEL_THRESHOLD) || (!rowsSplittable && !columnsSplittable))
             {
-                int startColumnIndex = j * stride;
+                operation.compute(startRow, endRow, startColumn, endColumn);
+                return;
+            }
 
-                // Use reflectedMatrix2 here so that CPU doesn't need to read matrix2 to cache to get its row count and column count.
-                // To avoid cache miss.
-                for (int x = 0; x < matrix2.rowCount; x++)
-                {
-                    for (int y = 0; y < matrix2.columnCount; y++)
-                    {
-                        double z = extendedMatrix1[startRowIndex + x][startColumnIndex + y] * matrix2.get(x, y);
-                        result.set(i, j, result.get(i, j) + z);
-                    }
-                }
+            if (rowsSplittable && ((rows >= columns) || !columnsSplittable))
+            {
+                int middle = (startRow + endRow) >>> 1;
+                invokeAll(new TileTask(operation, workPerCell, minTileSide, startRow, middle, startColumn, endColumn),
+                    new TileTask(operation, workPerCell, minTileSide, middle, endRow, startColumn, endColumn));
+            }
+            else
+            {
+                int middle = (startColumn + endColumn) >>> 1;
+                invokeAll(new TileTask(operation, workPerCell, minTileSide, startRow, endRow, startColumn, middle),
+                    new TileTask(operation, workPerCell, minTileSide, startRow, endRow, middle, endColumn));
             }
         }
-
-        // Return the correlation computed above.
-        return result;
     }
 
     private static void validateShape(Matrix matrix1, Matrix matrix2)
@@ -0,0 +1,232 @@
+package stark.dataworks.basic.mathematics;
+
+/**
+ * Dense matrix-product kernels over row-major (or arbitrarily strided) {@code double[]} storage.
+ * <p>
+ * Every operand is described by an array, an offset and two strides, so element (i, k) of A is
+ * {@code a[aOffset + i * aRowStride + k * aColumnStride]}. Passing the strides of a row-major matrix
+ * swapped reads it as its transpose, which is how {@code AᵀB} and {@code ABᵀ} are computed without
+ * materializing a transposed copy.
+ * <p>
+ * The product is cache-blocked in the GotoBLAS style: a {@link #K_BLOCK} x {@link #N_BLOCK} block of
+ * B and a {@link #M_BLOCK} x {@link #K_BLOCK} block of A are packed into contiguous micro-panels of
+ * width {@link #TILE}, then a {@link #TILE} x {@link #TILE} register tile of C is accumulated in
+ * local variables while streaming both panels sequentially. The tile accumulates with {@link Math#fma}, which
+ * the JIT compiles to a single fused multiply-add instruction on x86-64 (Haswell and later) and AArch64.
+ */
+final class MatrixKernels
+{
+    /**
+     * Side of the register tile of C.
+     */
+    static final int TILE = 4;
+
+    /**
+     * Depth of a packed block, chosen so that one A panel and one B panel stay in L1.
+     */
+    static final int K_BLOCK = 256;
+
+    /**
+     * Row count of a packed block of A, chosen so that the packed A block stays in L2.
+     */
+    static final int M_BLOCK = 64;
+
+    /**
+     * Column count of a packed block of B, chosen so that the packed B block stays in L2/L3.
+     */
+    static final int N_BLOCK = 512;
+
+    private MatrixKernels()
+    {
+    }
+
+    /**
+     * Computes C += A * B, where A is m x n, B is n x p and C is m x p.
+     *
+     * @param m             The row count of A and C.
+     * @param n             The column count of A and the row count of B.
+     * @param p             The column count of B and C.
+     * @param a             Storage of A.
+     * @param aOffset       Index of A(0, 0).
+     * @param aRowStride    Distance between A(i, k) and A(i + 1, k).
+     * @param aColumnStride Distance between A(i, k) and A(i, k + 1).
+     * @param b             Storage of B.
+     * @param bOffset       Index of B(0, 0).
+     * @param bRowStride    Distance between B(k, j) and B(k + 1, j).
+     * @param bColumnStride Distance between B(k, j) and B(k, j + 1).
+     * @param c             Storage of C, which is always addressed with a unit column stride.
+     * @param cOffset       Index of C(0, 0).
+     * @param cRowStride    Distance between C(i, j) and C(i + 1, j).
+     */
+    static void multiplyAdd(int m, int n, int p,
+                            double[] a, int aOffset, int aRowStride, int aColumnStride,
+                            double[] b, int bOffset, int bRowStride, int bColumnStride,
+                            double[] c, int cOffset, int cRowStride)
+    {
+        if ((m == 0) || (n == 0) || (p == 0))
+            return;
+
+        int kBlock = Math.min(K_BLOCK, n);
+        int mBlock = Math.min(M_BLOCK, roundUpToTile(m));
+        int nBlock = Math.min(N_BLOCK, roundUpToTile(p));
+        double[] packedA = new double[mBlock * kBlock];
+        double[] packedB = new double[kBlock * nBlock];
+
+        for (int k0 = 0; k0 < n; k0 += K_BLOCK)
+        {
+            int kc = Math.min(K_BLOCK, n - k0);
+
+            for (int j0 = 0; j0 < p; j0 += N_BLOCK)
+            {
+                int nc = Math.min(N_BLOCK, p - j0);
+                packB(b, bOffset + k0 * bRowStride + j0 * bColumnStride, bRowStride, bColumnStride, kc, nc, packedB);
+
+                for (int i0 = 0; i0 < m; i0 += M_BLOCK)
+                {
+                    int mc = Math.min(M_BLOCK, m - i0);
+                    packA(a, aOffset + i0 * aRowStride + k0 * aColumnStride, aRowStride, aColumnStride, mc, kc, packedA);
+
+                    for (int j = 0; j < nc; j += TILE)
+                    {
+                        int width = Math.min(TILE, nc - j);
+                        for (int i = 0; i < mc; i += TILE)
+                        {
+                            int height = Math.min(TILE, mc - i);
+                            tile(kc, packedA, i * kc, packedB, j * kc,
+                                c, cOffset + (i0 + i) * cRowStride + j0 + j, cRowStride, height, width);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs an mc x kc block of A into row panels of height {@link #TILE}, so that the panel starting
+     * at row i holds A(i..i+3, k) at {@code i * kc + k * TILE}. Missing rows are padded with zeros.
+     */
+    private static void packA(double[] a, int offset, int rowStride, int columnStride, int mc, int kc, double[] packed)
+    {
+        int index = 0;
+        for (int i = 0; i < mc; i += TILE)
+        {
+            int height = Math.min(TILE, mc - i);
+            int rowStart = offset + i * rowStride;
+            for (int k = 0; k < kc; k++)
+            {
+                int source = rowStart + k * columnStride;
+                for (int t = 0; t < TILE; t++)
+                    packed[index++] = (t < height) ? a[source + t * rowStride] : 0;
+            }
+        }
+    }
+
+    /**
+     * Packs a kc x nc block of B into column panels of width {@link #TILE}, so that the panel starting
+     * at column j holds B(k, j..j+3) at {@code j * kc + k * TILE}. Missing columns are padded with zeros.
+     */
+    private static void packB(double[] b, int offset, int rowStride, int columnStride, int kc, int nc, double[] packed)
+    {
+        int index = 0;
+        for (int j = 0; j < nc; j += TILE)
+        {
+            int width = Math.min(TILE, nc - j);
+            int columnStart = offset + j * columnStride;
+            for (int k = 0; k < kc; k++)
+            {
+                int source = columnStart + k * rowStride;
+                for (int t = 0; t < TILE; t++)
+                    packed[index++] = (t < width) ? b[source + t * columnStride] : 0;
+            }
+        }
+    }
+
+    /**
+     * Accumulates one {@link #TILE} x {@link #TILE} tile of C from one packed A panel and one packed B
+     * panel, keeping all 16 partial sums in registers for the whole depth of the block.
+     */
+    private static void tile(int kc, double[] packedA, int aIndex, double[] packedB, int bIndex,
+                             double[] c, int cIndex, int cRowStride, int height, int width)
+    {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+        int aEnd = aIndex + kc * TILE;
+        for (; aIndex < aEnd; aIndex += TILE, bIndex += TILE)
+        {
+            double b0 = packedB[bIndex];
+            double b1 = packedB[bIndex + 1];
+            double b2 = packedB[bIndex + 2];
+            double b3 = packedB[bIndex + 3];
+
+            double a0 = packedA[aIndex];
+            c00 = Math.fma(a0, b0, c00);
+            c01 = Math.fma(a0, b1, c01);
+            c02 = Math.fma(a0, b2, c02);
+            c03 = Math.fma(a0, b3, c03);
+
+            double a1 = packedA[aIndex + 1];
+            c10 = Math.fma(a1, b0, c10);
+            c11 = Math.fma(a1, b1, c11);
+            c12 = Math.fma(a1, b2, c12);
+            c13 = Math.fma(a1, b3, c13);
+
+            double a2 = packedA[aIndex + 2];
+            c20 = Math.fma(a2, b0, c20);
+            c21 = Math.fma(a2, b1, c21);
+            c22 = Math.fma(a2, b2, c22);
+            c23 = Math.fma(a2, b3, c23);
+
+            double a3 = packedA[aIndex + 3];
+            c30 = Math.fma(a3, b0, c30);
+            c31 = Math.fma(a3, b1, c31);
+            c32 = Math.fma(a3, b2, c32);
+            c33 = Math.fma(a3, b3, c33);
+        }
+
+        if ((height == TILE) && (width == TILE))
+        {
+            c[cIndex] += c00;
+            c[cIndex + 1] += c01;
+            c[cIndex + 2] += c02;
+            c[cIndex + 3] += c03;
+            cIndex += cRowStride;
+            c[cIndex] += c10;
+            c[cIndex + 1] += c11;
+            c[cIndex + 2] += c12;
+            c[cIndex + 3] += c13;
+            cIndex += cRowStride;
+            c[cIndex] += c20;
+            c[cIndex + 1] += c21;
+            c[cIndex + 2] += c22;
+            c[cIndex + 3] += c23;
+            cIndex += cRowStride;
+            c[cIndex] += c30;
+            c[cIndex + 1] += c31;
+            c[cIndex + 2] += c32;
+            c[cIndex + 3] += c33;
+            return;
+        }
+
+        // Edge tile: only the top-left height x width corner lies inside C.
+        double[] sums =
+            {
+                c00, c01, c02, c03,
+                c10, c11, c12, c13,
+                c20, c21, c22, c23,
+                c30, c31, c32, c33
+            };
+        for (int i = 0; i < height; i++)
+        {
+            for (int j = 0; j < width; j++)
+                c[cIndex + i * cRowStride + j] += sums[i * TILE + j];
+        }
+    }
+
+    private static int roundUpToTile(int value)
+    {
+        return (value + TILE - 1) / TILE * TILE;
+    }
+}
@@ -0,0 +1,185 @@
+package stark.dataworks.basic.mathematics;
+
+/**
+ * Portable {@link IVectorKernels} in plain Java.
+ * <p>
+ * Reductions keep 4 independent accumulators: the JIT must not reorder floating-point additions, so a single
+ * accumulator serializes the loop on the latency of one add. Element-wise loops are left simple so that the JIT can
+ * auto-vectorize them.
+ */
+final class ScalarVectorKernels implements IVectorKernels
+{
+    static final ScalarVectorKernels INSTANCE = new ScalarVectorKernels();
+
+    private ScalarVectorKernels()
+    {
+    }
+
+    @Override
+    public double dot(double[] x, double[] y, int length)
+    {
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4)
+        {
+            sum0 += x[i] * y[i];
+            sum1 += x[i + 1] * y[i + 1];
+            sum2 += x[i + 2] * y[i + 2];
+            sum3 += x[i + 3] * y[i + 3];
+        }
+        for (; i < length; i++)
+            sum0 += x[i] * y[i];
+
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, double[] y, int length)
+    {
+        for (int i = 0; i < length; i++)
+            y[i] += alpha * x[i];
+    }
+
+    @Override
+    public void add(double[] x, double[] y, double[] result, int length)
+    {
+        for (int i = 0; i < length; i++)
+            result[i] = x[i] + y[i];
+    }
+
+    @Override
+    public void add(double[] x, double scalar, double[] result, int length)
+    {
+        for (int i = 0; i < length; i++)
+            result[i] = x[i] + scalar;
+    }
+
+    @Override
+    public void scaleAdd(double alpha, double[] x, double scalar, double[] result, int length)
+    {
+        for (int i = 0; i < length; i++)
+            result[i] = alpha * x[i] + scalar;
+    }
+
+    @Override
+    public void subtract(double[] x, double[] y, double[] result, int length)
+    {
+        for (int i = 0; i < length; i++)
+            result[i] = x[i] - y[i];
+    }
+
+    @Override
+    public void multiply(double[] x, double[] y, double[] result, int length)
+    {
+        for (int i = 0; i < length; i++)
+            result[i] = x[i] * y[i];
+    }
+
+    @Override
+    public void scale(double alpha, double[] x, double[] result, int length)
+    {
+        for (int i = 0; i < length; i++)
+            result[i] = alpha * x[i];
+    }
+
+    @Override
+    public double sum(double[] x, int length)
+    {
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4)
+        {
+            sum0 += x[i];
+            sum1 += x[i + 1];
+            sum2 += x[i + 2];
+            sum3 += x[i + 3];
+        }
+        for (; i < length; i++)
+            sum0 += x[i];
+
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    @Override
+    public double max(double[] x, int length)
+    {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++)
+            max = Math.max(max, x[i]);
+
+        return max;
+    }
+
+    @Override
+    public double min(double[] x, int length)
+    {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < length; i++)
+            min = Math.min(min, x[i]);
+
+        return min;
+    }
+
+    @Override
+    public double squaredEuclideanDistance(double[] x, double[] y, int length)
+    {
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4)
+        {
+            double delta0 = x[i] - y[i];
+            double delta1 = x[i + 1] - y[i + 1];
+            double delta2 = x[i + 2] - y[i + 2];
+            double delta3 = x[i + 3] - y[i + 3];
+            sum0 += delta0 * delta0;
+            sum1 += delta1 * delta1;
+            sum2 += delta2 * delta2;
+            sum3 += delta3 * delta3;
+        }
+        for (; i < length; i++)
+        {
+            double delta = x[i] - y[i];
+            sum0 += delta * delta;
+        }
+
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    @Override
+    public double manhattanDistance(double[] x, double[] y, int length)
+    {
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4)
+        {
+            sum0 += Math.abs(x[i] - y[i]);
+            sum1 += Math.abs(x[i + 1] - y[i + 1]);
+            sum2 += Math.abs(x[i + 2] - y[i + 2]);
+            sum3 += Math.abs(x[i + 3] - y[i + 3]);
+        }
+        for (; i < length; i++)
+            sum0 += Math.abs(x[i] - y[i]);
+
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    @Override
+    public double chebyshevDistance(double[] x, double[] y, int length)
+    {
+        double max = 0;
+        for (int i = 0; i < length; i++)
+            max = Math.max(max, Math.abs(x[i] - y[i]));
+
+        return max;
+    }
+
+    @Override
+    public double minkowskiDistance(double[] x, double[] y, int length, double p)
+    {
+        double sum = 0;
+        for (int i = 0; i < length; i++)
+            sum += Math.pow(Math.abs(x[i] - y[i]), p);
+
+        return Math.pow(sum, 1 / p);
+    }
+}
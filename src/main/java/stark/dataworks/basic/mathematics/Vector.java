@@ -1,9 +1,11 @@
 package stark.dataworks.basic.mathematics;
 
+import stark.dataworks.basic.InvalidOperationException;
 import stark.dataworks.basic.collections.IReadOnlyCollection;
 import stark.dataworks.basic.mathematics.geometry.Point;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Iterator;
 
 public class Vector implements Serializable, Iterable<Double>
@@ -60,11 +62,7 @@ public class Vector implements Serializable, Iterable<Double>
 
     public double getLength()
     {
-        double sum = 0;
-        for (double v : vector)
-            sum += v * v;
-
-        return Math.sqrt(sum);
+        return Math.sqrt(VectorKernels.get().dot(vector, vector, vector.length));
     }
 
     public double get(int index)
@@ -87,8 +85,7 @@ public class Vector implements Serializable, Iterable<Double>
     public Vector add(double scalar)
     {
         Vector result = new Vector(this.count());
-        for (int i = 0; i < this.count(); i++)
-            result.set(i, this.get(i) + scalar);
+        VectorKernels.get().add(this.vector, scalar, result.vector, this.vector.length);
 
         return result;
     }
@@ -99,8 +96,7 @@ public class Vector implements Serializable, Iterable<Double>
         validateCount(vector);
 
         Vector result = new Vector(this.count());
-        for (int i = 0; i < this.count(); i++)
-            result.set(i, this.get(i) + vector.get(i));
+        VectorKernels.get().add(this.vector, vector.vector, result.vector, this.vector.length);
 
         return result;
     }
@@ -108,8 +104,7 @@ public class Vector implements Serializable, Iterable<Double>
     public Vector subtract(double scalar)
     {
         Vector result = new Vector(this.count());
-        for (int i = 0; i < this.count(); i++)
-            result.set(i, this.get(i) - scalar);
+        VectorKernels.get().add(this.vector, -scalar, result.vector, this.vector.length);
 
         return result;
     }
@@ -120,8 +115,7 @@ public class Vector implements Serializable, Iterable<Double>
         validateCount(vector);
 
         Vector result = new Vector(this.count());
-        for (int i = 0; i < this.count(); i++)
-            result.set(i, this.get(i) - vector.get(i));
+        VectorKernels.get().subtract(this.vector, vector.vector, result.vector, this.vector.length);
 
         return result;
     }
@@ -139,8 +133,7 @@ public class Vector implements Serializable, Iterable<Double>
     public Vector multiply(double scalar)
     {
         Vector result = new Vector(this.count());
-        for (int i = 0; i < result.count(); i++)
-            result.set(i, this.get(i) * scalar);
+        VectorKernels.get().scale(scalar, this.vector, result.vector, this.vector.length);
 
         return result;
     }
@@ -151,8 +144,7 @@ public class Vector implements Serializable, Iterable<Double>
         validateCount(vector);
 
         Vector result = new Vector(this.count());
-        for (int i = 0; i < result.count(); i++)
-            result.set(i, this.get(i) * vector.get(i));
+        VectorKernels.get().multiply(this.vector, vector.vector, result.vector, this.vector.length);
 
         return result;
     }
@@ -162,11 +154,64 @@ public class Vector implements Serializable, Iterable<Double>
         validateVector(vector);
         validateCount(vector);
 
-        double sum = 0;
-        for (int i = 0; i < this.count(); i++)
-            sum += this.get(i) * vector.get(i);
+        return VectorKernels.get().dot(this.vector, vector.vector, this.vector.length);
+    }
+
+    /**
+     * Returns the Euclidean distance between this Vector and the given Vector.
+     *
+     * @param vector The other Vector, which must have the same count as this Vector.
+     * @return The square root of the sum of squared differences.
+     */
+    public double euclideanDistance(Vector vector)
+    {
+        validateVector(vector);
+        validateCount(vector);
+
+        return Math.sqrt(VectorKernels.get().squaredEuclideanDistance(this.vector, vector.vector, this.vector.length));
+    }
+
+    /**
+     * Returns the Manhattan distance between this Vector and the given Vector.
+     *
+     * @param vector The other Vector, which must have the same count as this Vector.
+     * @return The sum of absolute differences.
+     */
+    public double manhattanDistance(Vector vector)
+    {
+        validateVector(vector);
+        validateCount(vector);
+
+        return VectorKernels.get().manhattanDistance(this.vector, vector.vector, this.vector.length);
+    }
+
+    /**
+     * Returns the Chebyshev distance between this Vector and the given Vector.
+     *
+     * @param vector The other Vector, which must have the same count as this Vector.
+     * @return The maximum absolute difference.
+     */
+    public double chebyshevDistance(Vector vector)
+    {
+        validateVector(vector);
+        validateCount(vector);
 
-        return sum;
+        return VectorKernels.get().chebyshevDistance(this.vector, vector.vector, this.vector.length);
+    }
+
+    /**
+     * Returns the Minkowski distance of order p between this Vector and the given Vector.
+     *
+     * @param vector The other Vector, which must have the same count as this Vector.
+     * @param p      The order of the distance.
+     * @return The p-th root of the sum of absolute differences raised to the power p.
+     */
+    public double minkowskiDistance(Vector vector, double p)
+    {
+        validateVector(vector);
+        validateCount(vector);
+
+        return VectorKernels.get().minkowskiDistance(this.vector, vector.vector, this.vector.length, p);
     }
 
     /**
@@ -207,6 +252,202 @@ public class Vector implements Serializable, Iterable<Double>
         return result;
     }
 
+    /**
+     * Adds the given Vector to this Vector, without allocating a new Vector.
+     *
+     * @param vector The Vector to add, which must have the same count as this Vector.
+     * @return This Vector.
+     */
+    public Vector addInPlace(Vector vector)
+    {
+        return addInto(vector, this);
+    }
+
+    /**
+     * Adds the given scalar to each entry of this Vector, without allocating a new Vector.
+     *
+     * @param scalar The scalar to add.
+     * @return This Vector.
+     */
+    public Vector addInPlace(double scalar)
+    {
+        return addInto(scalar, this);
+    }
+
+    /**
+     * Subtracts the given Vector from this Vector, without allocating a new Vector.
+     *
+     * @param vector The Vector to subtract, which must have the same count as this Vector.
+     * @return This Vector.
+     */
+    public Vector subtractInPlace(Vector vector)
+    {
+        return subtractInto(vector, this);
+    }
+
+    /**
+     * Multiplies each entry of this Vector by the given scalar, without allocating a new Vector.
+     *
+     * @param scalar The factor.
+     * @return This Vector.
+     */
+    public Vector scaleInPlace(double scalar)
+    {
+        return scaleInto(scalar, this);
+    }
+
+    /**
+     * Computes "ThisVector += alpha * x" in place.
+     *
+     * @param alpha The factor of x.
+     * @param x     The Vector to accumulate, which must have the same count as this Vector.
+     * @return This Vector.
+     */
+    public Vector axpy(double alpha, Vector x)
+    {
+        validateVector(x);
+        validateCount(x);
+
+        VectorKernels.get().axpy(alpha, x.vector, this.vector, this.vector.length);
+        return this;
+    }
+
+    /**
+     * Returns "alpha * ThisVector + scalar", computed in a single pass.
+     *
+     * @param alpha  The factor of this Vector.
+     * @param scalar The scalar added to each entry.
+     * @return A new Vector holding the result.
+     */
+    public Vector scaleAdd(double alpha, double scalar)
+    {
+        return scaleAddInto(alpha, scalar, new Vector(this.count()));
+    }
+
+    /**
+     * Writes "alpha * ThisVector + scalar" into the destination, computed in a single pass.
+     *
+     * @param alpha       The factor of this Vector.
+     * @param scalar      The scalar added to each entry.
+     * @param destination The Vector that receives the result, which may be this Vector.
+     * @return The destination.
+     */
+    public Vector scaleAddInto(double alpha, double scalar, Vector destination)
+    {
+        validateDestination(destination);
+
+        VectorKernels.get().scaleAdd(alpha, this.vector, scalar, destination.vector, this.vector.length);
+        return destination;
+    }
+
+    /**
+     * Writes "ThisVector + vector" into the destination.
+     *
+     * @param vector      The Vector to add, which must have the same count as this Vector.
+     * @param destination The Vector that receives the result, which may be this Vector or the operand.
+     * @return The destination.
+     */
+    public Vector addInto(Vector vector, Vector destination)
+    {
+        validateVector(vector);
+        validateCount(vector);
+        validateDestination(destination);
+
+        VectorKernels.get().add(this.vector, vector.vector, destination.vector, this.vector.length);
+        return destination;
+    }
+
+    /**
+     * Writes "ThisVector + scalar" into the destination.
+     *
+     * @param scalar      The scalar to add.
+     * @param destination The Vector that receives the result, which may be this Vector.
+     * @return The destination.
+     */
+    public Vector addInto(double scalar, Vector destination)
+    {
+        validateDestination(destination);
+
+        VectorKernels.get().add(this.vector, scalar, destination.vector, this.vector.length);
+        return destination;
+    }
+
+    /**
+     * Writes "ThisVector - vector" into the destination.
+     *
+     * @param vector      The Vector to subtract, which must have the same count as this Vector.
+     * @param destination The Vector that receives the result, which may be this Vector or the operand.
+     * @return The destination.
+     */
+    public Vector subtractInto(Vector vector, Vector destination)
+    {
+        validateVector(vector);
+        validateCount(vector);
+        validateDestination(destination);
+
+        VectorKernels.get().subtract(this.vector, vector.vector, destination.vector, this.vector.length);
+        return destination;
+    }
+
+    /**
+     * Writes "ThisVector * scalar" into the destination.
+     *
+     * @param scalar      The factor.
+     * @param destination The Vector that receives the result, which may be this Vector.
+     * @return The destination.
+     */
+    public Vector scaleInto(double scalar, Vector destination)
+    {
+        validateDestination(destination);
+
+        VectorKernels.get().scale(scalar, this.vector, destination.vector, this.vector.length);
+        return destination;
+    }
+
+    /**
+     * Writes the element-wise product of this Vector and the given Vector into the destination.
+     *
+     * @param vector      The other factor, which must have the same count as this Vector.
+     * @param destination The Vector that receives the result, which may be this Vector or the operand.
+     * @return The destination.
+     */
+    public Vector elementWiseMultiplyInto(Vector vector, Vector destination)
+    {
+        validateVector(vector);
+        validateCount(vector);
+        validateDestination(destination);
+
+        VectorKernels.get().multiply(this.vector, vector.vector, destination.vector, this.vector.length);
+        return destination;
+    }
+
+    /**
+     * Sets every entry of this Vector to the given value.
+     *
+     * @param value The value to assign.
+     */
+    public void fill(double value)
+    {
+        Arrays.fill(vector, value);
+    }
+
+    /**
+     * Returns the backing array of this Vector without copying it, for the kernels of this package.
+     */
+    double[] backingArray()
+    {
+        return vector;
+    }
+
+    private void validateDestination(Vector destination)
+    {
+        if (destination == null)
+            throw new NullPointerException("Argument \"destination\" cannot be null.");
+
+        if (this.count() != destination.count())
+            throw new IllegalArgumentException("Argument \"destination\" has different count with the object call this method.");
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -304,11 +545,37 @@ public class Vector implements Serializable, Iterable<Double>
 
     public double sum()
     {
-        double sumValue = 0;
-        for (double v : this)
-            sumValue += v;
+        return VectorKernels.get().sum(vector, vector.length);
+    }
 
-        return sumValue;
+    /**
+     * Returns the maximum entry of this Vector.
+     *
+     * @return The maximum entry of this Vector.
+     * @throws InvalidOperationException This Vector is empty.
+     */
+    public double max()
+    {
+        validateNotEmpty();
+        return VectorKernels.get().max(vector, vector.length);
+    }
+
+    /**
+     * Returns the minimum entry of this Vector.
+     *
+     * @return The minimum entry of this Vector.
+     * @throws InvalidOperationException This Vector is empty.
+     */
+    public double min()
+    {
+        validateNotEmpty();
+        return VectorKernels.get().min(vector, vector.length);
+    }
+
+    private void validateNotEmpty()
+    {
+        if (vector.length == 0)
+            throw new InvalidOperationException("The Vector is empty.");
     }
 
     public double mean()
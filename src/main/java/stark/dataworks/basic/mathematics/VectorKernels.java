@@ -0,0 +1,69 @@
+package stark.dataworks.basic.mathematics;
+
+/**
+ * Selects the {@link IVectorKernels} backend used by {@link Vector} and the distance metrics.
+ * <p>
+ * The SIMD backend is used when the JVM was started with {@code --add-modules jdk.incubator.vector}, unless the
+ * system property {@code stark.dataworks.basic.mathematics.simd} is set to {@code false}. Otherwise the portable
+ * scalar backend is used, so the module is never required.
+ */
+public final class VectorKernels
+{
+    /**
+     * The system property that disables the SIMD backend when set to {@code false}.
+     */
+    public static final String SIMD_PROPERTY = "stark.dataworks.basic.mathematics.simd";
+
+    private static final IVectorKernels SIMD = loadSimd();
+    private static final IVectorKernels DEFAULT = (SIMD != null) && !"false".equalsIgnoreCase(System.getProperty(SIMD_PROPERTY)) ? SIMD : ScalarVectorKernels.INSTANCE;
+
+    private VectorKernels()
+    {
+    }
+
+    /**
+     * Returns the backend in use: the SIMD backend when it is available and enabled, the scalar backend otherwise.
+     *
+     * @return The backend in use.
+     */
+    public static IVectorKernels get()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the portable scalar backend.
+     *
+     * @return The scalar backend.
+     */
+    public static IVectorKernels scalar()
+    {
+        return ScalarVectorKernels.INSTANCE;
+    }
+
+    /**
+     * Returns the SIMD backend regardless of {@link #SIMD_PROPERTY}.
+     *
+     * @return The SIMD backend, or null if {@code jdk.incubator.vector} is not available in this JVM.
+     */
+    public static IVectorKernels simd()
+    {
+        return SIMD;
+    }
+
+    private static IVectorKernels loadSimd()
+    {
+        // Probe the module first, so that SimdVectorKernels is never linked against a missing module.
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return null;
+
+        try
+        {
+            return SimdVectorKernels.INSTANCE;
+        }
+        catch (LinkageError e)
+        {
+            return null;
+        }
+    }
+}
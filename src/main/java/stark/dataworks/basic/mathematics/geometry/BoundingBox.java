@@ -39,12 +39,12 @@ public class BoundingBox implements IShape2D
 
             if (x < minX)
                 minX = x;
-            else if (x > maxX)
+            if (x > maxX)
                 maxX = x;
 
             if (y < minY)
                 minY = y;
-            else if (y > maxY)
+            if (y > maxY)
                 maxY = y;
         }
     }
@@ -69,12 +69,12 @@ public class BoundingBox implements IShape2D
 
             if (x < minX)
                 minX = x;
-            else if (x > maxX)
+            if (x > maxX)
                 maxX = x;
 
             if (y < minY)
                 minY = y;
-            else if (y > maxY)
+            if (y > maxY)
                 maxY = y;
         }
     }
@@ -1,6 +1,5 @@
 package stark.dataworks.basic.mathematics.geometry;
 
-import stark.dataworks.basic.mathematics.Mathematics;
 import stark.dataworks.basic.mathematics.*;
 
 /**
@@ -192,14 +191,29 @@ public class LineSegment extends Line
             return false;
     }
 
+    /**
+     * Returns the distance between the specified point and the nearest point of this line segment.
+     *
+     * @param x X-coordinate of the specified point.
+     * @param y Y-coordinate of the specified point.
+     * @return The distance between the specified point and the nearest point of this line segment.
+     */
     @Override
     public double distanceTo(double x, double y)
     {
-        double distanceToLine = super.distanceTo(x, y);
-        double distanceToEndPoint1 = endPoint1.distanceTo(x, y);
-        double distanceToEndPoint2 = endPoint2.distanceTo(x, y);
-
-        return Mathematics.min(distanceToLine, distanceToEndPoint1, distanceToEndPoint2);
+        double dx = endPoint2.getX() - endPoint1.getX();
+        double dy = endPoint2.getY() - endPoint1.getY();
+        double lengthSquare = dx * dx + dy * dy;
+        if (lengthSquare == 0)
+            return endPoint1.distanceTo(x, y);
+
+        // Project the point onto the line, and clamp the projection to the end points.
+        double t = ((x - endPoint1.getX()) * dx + (y - endPoint1.getY()) * dy) / lengthSquare;
+        t = Math.max(0, Math.min(1, t));
+
+        double deltaX = x - (endPoint1.getX() + t * dx);
+        double deltaY = y - (endPoint1.getY() + t * dy);
+        return Math.sqrt(deltaX * deltaX + deltaY * deltaY);
     }
 
     /**
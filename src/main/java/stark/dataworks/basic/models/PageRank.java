@@ -1,5 +1,9 @@
 package stark.dataworks.basic.models;
 
+import stark.dataworks.basic.graphs.directed.Digraph;
+import stark.dataworks.basic.mathematics.CooMatrix;
+import stark.dataworks.basic.mathematics.CsrMatrix;
+import stark.dataworks.basic.mathematics.ISparseMatrix;
 import stark.dataworks.basic.mathematics.Matrix;
 import stark.dataworks.basic.mathematics.Vector;
 import stark.dataworks.basic.models.distances.DistanceMetrics;
@@ -11,107 +15,146 @@ public class PageRank
 {
     private Vector rank;
     private final double beta;
-    private final Matrix graph;
+    private CsrMatrix links;
     private int pageCount;
     private int[] outDegrees;
     private int iterationCount;
 
+    /**
+     * Ranks the pages of a column-stochastic web page graph, where entry (j, i) is positive iff page i links to page j.
+     *
+     * @param graph The web page graph, whose entries are in [0, 1] and whose columns sum to 1.
+     * @param beta  The damping factor, in [0, 1].
+     */
     public PageRank(Matrix graph, double beta)
     {
-        this.graph = graph;
         this.beta = beta;
 
         validateBeta();
-        validateEntries();
-        validateGraph();
+        Objects.requireNonNull(graph, "The input graph can not be null.");
+        if (!graph.isSquareMatrix())
+            throw new IllegalArgumentException("The input graph must be a square matrix.");
 
-        initializePageCountAndOutDegrees();
+        initializeLinks(CsrMatrix.fromMatrix(graph));
         run();
     }
 
-    private void validateBeta()
+    /**
+     * Ranks the pages of a sparse column-stochastic web page graph, where entry (j, i) is positive iff page i links
+     * to page j. Each iteration costs O(nonZeroCount) rather than O(pageCount^2).
+     *
+     * @param graph The web page graph, whose entries are in [0, 1] and whose columns sum to 1.
+     * @param beta  The damping factor, in [0, 1].
+     */
+    public PageRank(ISparseMatrix graph, double beta)
     {
-        if (beta < 0 || beta > 1)
-            throw new IllegalArgumentException("Argument \"beta\" must be in range [0, 1].");
-    }
+        this.beta = beta;
 
-    private void validateGraph()
-    {
+        validateBeta();
         Objects.requireNonNull(graph, "The input graph can not be null.");
-
-        if (!graph.isSquareMatrix())
+        if (graph.getRowCount() != graph.getColumnCount())
             throw new IllegalArgumentException("The input graph must be a square matrix.");
 
-        validateColumns();
+        initializeLinks(graph);
+        run();
     }
 
-    private void validateEntries()
+    /**
+     * Ranks the vertices of a digraph, where the edge v->w is a link from page v to page w. Parallel edges count as
+     * several links.
+     *
+     * @param graph The digraph, in which every vertex has at least one outgoing edge.
+     * @param beta  The damping factor, in [0, 1].
+     */
+    public PageRank(Digraph graph, double beta)
     {
-        for (int i = 0; i < graph.getRowCount(); i++)
+        this.beta = beta;
+
+        validateBeta();
+        Objects.requireNonNull(graph, "The input graph can not be null.");
+
+        pageCount = graph.vCount();
+        outDegrees = new int[pageCount];
+        for (int v = 0; v < pageCount; v++)
         {
-            for (int j = 0; j < graph.getColumnCount(); j++)
-            {
-                if (!Mathematics.inRange(graph.get(i, j), 0, 1))
-                    throw new IllegalArgumentException("Each entry of the web page graph should be in range [0, 1], error position: (" + i + ", " + j + ")");
-            }
+            outDegrees[v] = graph.outDegree(v);
+            if (outDegrees[v] == 0)
+                throw new IllegalArgumentException("Each page must link to at least 1 page, error on vertex: " + v + " (0-based index).");
         }
+
+        links = CsrMatrix.fromDigraph(graph).transpose();
+        run();
     }
 
-    private void validateColumns()
+    private void validateBeta()
     {
-        for (int j = 0; j < graph.getColumnCount(); j++)
-        {
-            double sum = 0;
-            for (int i = 0; i < graph.getRowCount(); i++)
-                sum += graph.get(i, j);
-
-            if (!Mathematics.equals(1, sum, 0.001))
-                throw new IllegalArgumentException("Sum of each column of a web page graph must be 1, error on column: " + j + " (0-based index).");
-        }
+        if (beta < 0 || beta > 1)
+            throw new IllegalArgumentException("Argument \"beta\" must be in range [0, 1].");
     }
 
-    private void initializePageCountAndOutDegrees()
+    /**
+     * Validates the entries of the graph, and keeps a link of weight 1 for each positive one. The entries are read
+     * from the CSR form of the graph, so that entries stored several times at the same position (as a
+     * {@link CooMatrix} allows) are validated and linked once, by their sum.
+     */
+    private void initializeLinks(ISparseMatrix graph)
     {
-        pageCount = graph.getRowCount();
+        CsrMatrix merged = graph.toCsr();
+        pageCount = merged.getRowCount();
         outDegrees = new int[pageCount];
+        double[] columnSums = new double[pageCount];
+        CooMatrix pattern = new CooMatrix(pageCount, pageCount, merged.nonZeroCount());
 
-        for (int j = 0; j < graph.getColumnCount(); j++)
+        merged.forEachNonZero((i, j, value) ->
         {
-            int outDegree = 0;
-            for (int i = 0; i < graph.getRowCount(); i++)
+            if (!Mathematics.inRange(value, 0, 1))
+                throw new IllegalArgumentException("Each entry of the web page graph should be in range [0, 1], error position: (" + i + ", " + j + ")");
+
+            if (value > 0)
             {
-                if (!Mathematics.equals(0, graph.get(i, j)))
-                    outDegree++;
+                columnSums[j] += value;
+                outDegrees[j]++;
+                pattern.add(i, j, 1);
             }
-            outDegrees[j] = outDegree;
+        });
+
+        for (int j = 0; j < pageCount; j++)
+        {
+            if (!Mathematics.equals(1, columnSums[j], 0.001))
+                throw new IllegalArgumentException("Sum of each column of a web page graph must be 1, error on column: " + j + " (0-based index).");
         }
+
+        links = pattern.toCsr();
     }
 
     private void run()
     {
         Vector rank = new Vector(pageCount);
+        rank.fill((double) 1 / pageCount);
+
+        // The 2 rank buffers are swapped on each iteration, so that iterating allocates nothing.
+        Vector previousRank = new Vector(pageCount);
+
+        Vector inverseOutDegrees = new Vector(pageCount);
         for (int i = 0; i < pageCount; i++)
-            rank.set(i, (double) 1 / pageCount);
-        Vector previousRank;
+            inverseOutDegrees.set(i, (double) 1 / outDegrees[i]);
+        Vector contributions = new Vector(pageCount);
 
         iterationCount = 0;
         do
         {
             iterationCount++;
 
+            Vector swap = previousRank;
             previousRank = rank;
-            rank = new Vector(pageCount);
+            rank = swap;
 
-            for (int j = 0; j < pageCount; j++)
-            {
-                for (int i = 0; i < pageCount; i++)
-                {
-                    if (graph.get(j, i) > 0)
-                        rank.set(j, rank.get(j) + previousRank.get(i) / outDegrees[i]);
-                }
-            }
+            // rank[j] = sum of previousRank[i] / outDegrees[i] over the pages i linking to j, in O(nonZeroCount).
+            previousRank.elementWiseMultiplyInto(inverseOutDegrees, contributions);
+            links.multiplyInto(contributions, rank);
 
-            rank = rank.multiply(beta).add((1 - beta) / pageCount);
+            // rank = rank * beta + (1 - beta) / pageCount, fused into one in-place pass.
+            rank.scaleAddInto(beta, (1 - beta) / pageCount, rank);
 
             // We don't need this following implementation, because:
             // 1. for now, rank.sum() is always 1
@@ -120,8 +163,6 @@ public class PageRank
 //            rank = rank.multiply(beta);
 //            double rankSum = rank.sum();
 //            rank = rank.add((1 - rankSum) / pageCount);
-
-            System.out.println("Iteration count: " + iterationCount + ", rank vector: " + rank);
         }
         while (DistanceMetrics.EUCLIDEAN_DISTANCE.distanceBetween(previousRank, rank) > Mathematics.getEpsilon());
 
@@ -18,14 +18,6 @@ public class ChebyshevDistance extends SampleDistanceBase
     {
         validateParams(sample1, sample2);
 
-        double maxDelta = Double.MIN_VALUE;
-        for (int i = 0; i < sample1.count(); i++)
-        {
-            double delta = sample1.get(i) - sample2.get(i);
-            if (maxDelta < delta)
-                maxDelta = delta;
-        }
-
-        return maxDelta;
+        return sample1.chebyshevDistance(sample2);
     }
 }
@@ -20,12 +20,6 @@ public class EuclideanDistance extends SampleDistanceBase
     {
         validateParams(sample1, sample2);
 
-        double sum = 0;
-        for (int i = 0; i < sample1.count(); i++)
-        {
-            double delta = sample1.get(i) - sample2.get(i);
-            sum += delta * delta;
-        }
-        return Math.sqrt(sum);
+        return sample1.euclideanDistance(sample2);
     }
 }
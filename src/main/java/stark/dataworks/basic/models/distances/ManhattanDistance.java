@@ -18,10 +18,6 @@ public class ManhattanDistance extends SampleDistanceBase
     {
         SampleDistanceBase.validateParams(sample1, sample2);
 
-        double sum = 0;
-        for (int i = 0; i < sample1.count(); i++)
-            sum += Math.abs(sample1.get(i) - sample2.get(i));
-
-        return sum;
+        return sample1.manhattanDistance(sample2);
     }
 }
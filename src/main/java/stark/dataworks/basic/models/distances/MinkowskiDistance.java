@@ -23,13 +23,6 @@ public class MinkowskiDistance extends SampleDistanceBase
     {
         validateParams(sample1, sample2);
 
-        double sum = 0;
-        for (int i = 0; i < sample1.count(); i++)
-        {
-            double delta = sample1.get(i) - sample2.get(i);
-            sum += Math.pow(delta, p);
-        }
-
-        return Math.pow(sum, 1 / p);
+        return sample1.minkowskiDistance(sample2, p);
     }
 }
@@ -0,0 +1,145 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.collections.KeyValuePair;
+import stark.dataworks.basic.collections.SortedDictionary;
+import stark.dataworks.basic.indices.BPlusTree;
+import stark.dataworks.basic.indices.BTree;
+
+import java.util.Random;
+
+/**
+ * This class is only used for comparing {@link BPlusTree} with {@link BTree} and {@link SortedDictionary} on builds,
+ * point lookups and range scans.
+ * <p>
+ * Each structure holds 1M integer keys. Lookups probe keys in random order, and each range scan reads 1000 consecutive
+ * keys, which is where the linked leaves of the B+ tree should pay off against the in-order walks of the other two.
+ */
+public class BPlusTreeBenchmark
+{
+    private static final int ELEMENT_COUNT = 1_000_000;
+    private static final int FANOUT = 64;
+    private static final int LOOKUP_COUNT = 1_000_000;
+    private static final int RANGE_COUNT = 2_000;
+    private static final int RANGE_WIDTH = 1_000;
+
+    private BPlusTreeBenchmark(){}
+
+    public static void main(String[] args)
+    {
+        // Even keys in random order, so that half of the lookups miss.
+        Random random = new Random(42);
+        Integer[] keys = new Integer[ELEMENT_COUNT];
+        for (int i = 0; i < ELEMENT_COUNT; i++)
+            keys[i] = i * 2;
+        for (int i = ELEMENT_COUNT - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            Integer temp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = temp;
+        }
+
+        java.util.ArrayList<KeyValuePair<Integer, Integer>> sortedPairs = new java.util.ArrayList<>(ELEMENT_COUNT);
+        for (int i = 0; i < ELEMENT_COUNT; i++)
+            sortedPairs.add(new KeyValuePair<>(i * 2, i));
+
+        Integer[] lookups = new Integer[LOOKUP_COUNT];
+        for (int i = 0; i < LOOKUP_COUNT; i++)
+            lookups[i] = random.nextInt(ELEMENT_COUNT * 2);
+
+        Integer[] rangeStarts = new Integer[RANGE_COUNT];
+        for (int i = 0; i < RANGE_COUNT; i++)
+            rangeStarts[i] = random.nextInt(ELEMENT_COUNT * 2);
+
+        System.out.println("Elements: " + ELEMENT_COUNT + ", fanout: " + FANOUT);
+
+        System.out.println("\n== build ==");
+        Benchmarks.measure("BPlusTree bulk load (sorted)", () -> BPlusTree.bulkLoad(FANOUT, sortedPairs).count());
+        Benchmarks.measure("BPlusTree inserts (random)", () -> buildBPlusTree(keys).count());
+        Benchmarks.measure("BTree inserts (random)", () -> buildBTree(keys).count());
+        Benchmarks.measure("SortedDictionary inserts (random)", () -> buildSortedDictionary(keys).count());
+
+        BPlusTree<Integer, Integer> bPlusTree = BPlusTree.bulkLoad(FANOUT, sortedPairs);
+        BTree<Integer, Integer> bTree = buildBTree(keys);
+        SortedDictionary<Integer, Integer> sortedDictionary = buildSortedDictionary(keys);
+
+        System.out.println("\n== point lookups ==");
+        Benchmarks.measure("BPlusTree containsKey", () ->
+        {
+            long found = 0;
+            for (Integer key : lookups)
+                found += bPlusTree.containsKey(key) ? 1 : 0;
+            return found;
+        });
+        Benchmarks.measure("BTree containsKey", () ->
+        {
+            long found = 0;
+            for (Integer key : lookups)
+                found += bTree.containsKey(key) ? 1 : 0;
+            return found;
+        });
+        Benchmarks.measure("SortedDictionary containsKey", () ->
+        {
+            long found = 0;
+            for (Integer key : lookups)
+                found += sortedDictionary.containsKey(key) ? 1 : 0;
+            return found;
+        });
+
+        System.out.println("\n== range scans of " + RANGE_WIDTH + " keys ==");
+        Benchmarks.measure("BPlusTree entries(from, to)", () ->
+        {
+            long sum = 0;
+            for (Integer from : rangeStarts)
+            {
+                for (KeyValuePair<Integer, Integer> pair : bPlusTree.entries(from, from + RANGE_WIDTH * 2))
+                    sum += pair.getValue();
+            }
+            return sum;
+        });
+        Benchmarks.measure("BTree entries(from, to)", () ->
+        {
+            long sum = 0;
+            for (Integer from : rangeStarts)
+            {
+                for (KeyValuePair<Integer, Integer> pair : bTree.entries(from, from + RANGE_WIDTH * 2))
+                    sum += pair.getValue();
+            }
+            return sum;
+        });
+        Benchmarks.measure("SortedDictionary keys(lo, hi)", () ->
+        {
+            long sum = 0;
+            for (Integer from : rangeStarts)
+            {
+                for (Integer key : sortedDictionary.keys(from, from + RANGE_WIDTH * 2))
+                    sum += key;
+            }
+            return sum;
+        });
+    }
+
+    private static BPlusTree<Integer, Integer> buildBPlusTree(Integer[] keys)
+    {
+        BPlusTree<Integer, Integer> tree = new BPlusTree<>(FANOUT);
+        for (Integer key : keys)
+            tree.add(key, key);
+        return tree;
+    }
+
+    private static BTree<Integer, Integer> buildBTree(Integer[] keys)
+    {
+        BTree<Integer, Integer> tree = new BTree<>(FANOUT);
+        for (Integer key : keys)
+            tree.add(key, key);
+        return tree;
+    }
+
+    private static SortedDictionary<Integer, Integer> buildSortedDictionary(Integer[] keys)
+    {
+        SortedDictionary<Integer, Integer> dictionary = new SortedDictionary<>();
+        for (Integer key : keys)
+            dictionary.add(key, key);
+        return dictionary;
+    }
+}
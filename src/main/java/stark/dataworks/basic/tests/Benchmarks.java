@@ -0,0 +1,75 @@
+package stark.dataworks.basic.tests;
+
+/**
+ * Times the workloads of the benchmark harnesses in this package.
+ * <p>
+ * A workload is run a few times to let the JIT compile it, and then timed over several rounds, of which the best and
+ * the mean times are printed. The result of every run is added to a sink, so that the JIT cannot drop the work that
+ * produces it. The harnesses are plain main methods rather than JMH benchmarks, so run them with a fixed heap (e.g.
+ * -Xms4g -Xmx4g) and compare numbers from the same machine only.
+ */
+final class Benchmarks
+{
+    static final int DEFAULT_WARMUP_ROUNDS = 3;
+    static final int DEFAULT_MEASURE_ROUNDS = 5;
+
+    private static long sink;
+
+    private Benchmarks(){}
+
+    /**
+     * A timed piece of work, which returns a value that depends on all of its work.
+     */
+    interface IWorkload
+    {
+        long run();
+    }
+
+    /**
+     * Times the workload with {@link #DEFAULT_WARMUP_ROUNDS} and {@link #DEFAULT_MEASURE_ROUNDS}, and prints the result.
+     *
+     * @param name     Name of the workload to print.
+     * @param workload The workload.
+     */
+    static void measure(String name, IWorkload workload)
+    {
+        measure(name, DEFAULT_WARMUP_ROUNDS, DEFAULT_MEASURE_ROUNDS, workload);
+    }
+
+    /**
+     * Times the workload and prints the best and the mean time of the measured rounds.
+     *
+     * @param name          Name of the workload to print.
+     * @param warmupRounds  Number of untimed runs before the measured rounds.
+     * @param measureRounds Number of timed runs.
+     * @param workload      The workload.
+     */
+    static void measure(String name, int warmupRounds, int measureRounds, IWorkload workload)
+    {
+        for (int i = 0; i < warmupRounds; i++)
+            sink += workload.run();
+
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < measureRounds; i++)
+        {
+            long start = System.nanoTime();
+            sink += workload.run();
+            long elapsed = System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+            total += elapsed;
+        }
+
+        System.out.printf("%-40s best %8.2f ms, mean %8.2f ms%n", name, best / 1e6, total / 1e6 / measureRounds);
+    }
+
+    /**
+     * Adds a value to the sink, for results computed outside of {@link #measure(String, IWorkload)}.
+     *
+     * @param value The value to keep alive.
+     */
+    static void consume(long value)
+    {
+        sink += value;
+    }
+}
@@ -0,0 +1,78 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.indices.BinarySearch;
+import stark.dataworks.basic.indices.EytzingerArray;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class is only used for comparing the searches of sorted {@code long} arrays: the branching
+ * {@link BinarySearch#search(long[], long)}, {@link Arrays#binarySearch(long[], long)}, the branchless
+ * {@link BinarySearch#lowerBound(long[], long)}, the batched {@link BinarySearch#searchAll(long[], long[], int[])},
+ * and {@link EytzingerArray#search(long)}.
+ * <p>
+ * Each array size is probed with the same random targets, half of which miss. Arrays that fit in the L1/L2 caches show
+ * the cost of branch mispredictions, and the largest ones (16M values, 128 MB) show the cost of cache misses.
+ */
+public class BinarySearchBenchmark
+{
+    private static final int[] SIZES = {1 << 10, 1 << 16, 1 << 20, 1 << 24};
+    private static final int PROBE_COUNT = 1 << 22;
+
+    private BinarySearchBenchmark(){}
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(42);
+        for (int size : SIZES)
+        {
+            // Even timestamps with a fixed stride, probed by random even and odd targets.
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++)
+                values[i] = 1_600_000_000_000L + 2L * i;
+
+            long[] targets = new long[PROBE_COUNT];
+            for (int i = 0; i < PROBE_COUNT; i++)
+                targets[i] = values[0] + random.nextInt(2 * size);
+
+            EytzingerArray eytzinger = new EytzingerArray(values);
+            int[] results = new int[PROBE_COUNT];
+
+            System.out.println("\n== " + size + " elements, " + PROBE_COUNT + " probes ==");
+            Benchmarks.measure("BinarySearch.search", () ->
+            {
+                long sum = 0;
+                for (long target : targets)
+                    sum += BinarySearch.search(values, target);
+                return sum;
+            });
+            Benchmarks.measure("Arrays.binarySearch", () ->
+            {
+                long sum = 0;
+                for (long target : targets)
+                    sum += Arrays.binarySearch(values, target);
+                return sum;
+            });
+            Benchmarks.measure("BinarySearch.lowerBound", () ->
+            {
+                long sum = 0;
+                for (long target : targets)
+                    sum += BinarySearch.lowerBound(values, target);
+                return sum;
+            });
+            Benchmarks.measure("BinarySearch.searchAll", () ->
+            {
+                BinarySearch.searchAll(values, targets, results);
+                return results[PROBE_COUNT - 1];
+            });
+            Benchmarks.measure("EytzingerArray.search", () ->
+            {
+                long sum = 0;
+                for (long target : targets)
+                    sum += eytzinger.search(target);
+                return sum;
+            });
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.indices.BTree;
+import stark.dataworks.basic.indices.ConcurrentBTree;
+import stark.dataworks.basic.tests.MixedWorkload.IOperations;
+
+/**
+ * This class is only used for measuring how the throughput of a {@link ConcurrentBTree} scales with the number of
+ * threads, compared with a {@link BTree} guarded by one lock for both reads and writes.
+ * <p>
+ * Readers of the {@link ConcurrentBTree} never write shared memory, and writers lock only the leaves they change, so
+ * its throughput should grow with the number of cores, while the locked {@link BTree} stays flat.
+ */
+public class ConcurrentBTreeBenchmark
+{
+    private static final int KEY_RANGE = 1 << 20;
+    private static final int[] THREAD_COUNTS = {1, 8, 16, 32};
+    private static final int[] WRITE_PERCENTAGES = {5, 50};
+
+    private ConcurrentBTreeBenchmark(){}
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int processorCount = Runtime.getRuntime().availableProcessors();
+        for (int writePercentage : WRITE_PERCENTAGES)
+        {
+            System.out.println("== " + (100 - writePercentage) + "% reads, " + writePercentage + "% writes (Mops/s), " + processorCount + " processors ==");
+            System.out.printf("%8s %20s %20s%n", "threads", "ConcurrentBTree", "locked BTree");
+
+            for (int threadCount : THREAD_COUNTS)
+            {
+                double concurrent = MixedWorkload.run(threadCount, writePercentage, KEY_RANGE, newConcurrentBTree());
+                double locked = MixedWorkload.run(threadCount, writePercentage, KEY_RANGE, newLockedBTree());
+                System.out.printf("%8d %20.2f %20.2f%n", threadCount, concurrent, locked);
+            }
+        }
+    }
+
+    private static IOperations newConcurrentBTree()
+    {
+        ConcurrentBTree<Integer, Integer> tree = new ConcurrentBTree<>();
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            tree.add(key, key);
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                tree.getOrDefault(key, null);
+            }
+
+            @Override
+            public void write(int key)
+            {
+                if ((key & 1) == 0)
+                    tree.set(key, key);
+                else if (tree.tryRemove(key) == null)
+                    tree.tryAdd(key, key);
+            }
+        };
+    }
+
+    private static IOperations newLockedBTree()
+    {
+        BTree<Integer, Integer> tree = new BTree<>(ConcurrentBTree.DEFAULT_FANOUT);
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            tree.add(key, key);
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                synchronized (tree)
+                {
+                    tree.containsKey(key);
+                }
+            }
+
+            @Override
+            public void write(int key)
+            {
+                synchronized (tree)
+                {
+                    if ((key & 1) == 0)
+                        tree.set(key, key);
+                    else if (!tree.removeByKey(key))
+                        tree.add(key, key);
+                }
+            }
+        };
+    }
+}
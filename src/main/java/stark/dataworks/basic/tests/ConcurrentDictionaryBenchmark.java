@@ -0,0 +1,121 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.collections.ConcurrentDictionary;
+import stark.dataworks.basic.tests.MixedWorkload.IOperations;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is only used for measuring the throughput of {@link ConcurrentDictionary} under contention, compared with
+ * {@link ConcurrentHashMap} and a {@link HashMap} guarded by one external lock.
+ * <p>
+ * Every thread runs a random mix of reads and writes over a shared key range for a fixed time, and the total number of
+ * operations per second is reported for 1 to 64 threads.
+ */
+public class ConcurrentDictionaryBenchmark
+{
+    private static final int KEY_RANGE = 1 << 16;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int[] WRITE_PERCENTAGES = {10, 50};
+
+    private ConcurrentDictionaryBenchmark(){}
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        for (int writePercentage : WRITE_PERCENTAGES)
+        {
+            System.out.println("\n== " + (100 - writePercentage) + "% reads, " + writePercentage + "% writes (Mops/s) ==");
+            System.out.printf("%8s %22s %22s %22s%n", "threads", "ConcurrentDictionary", "ConcurrentHashMap", "locked HashMap");
+
+            for (int threadCount : THREAD_COUNTS)
+            {
+                double dictionary = MixedWorkload.run(threadCount, writePercentage, KEY_RANGE, newConcurrentDictionary());
+                double hashMap = MixedWorkload.run(threadCount, writePercentage, KEY_RANGE, newConcurrentHashMap());
+                double locked = MixedWorkload.run(threadCount, writePercentage, KEY_RANGE, newLockedHashMap());
+                System.out.printf("%8d %22.2f %22.2f %22.2f%n", threadCount, dictionary, hashMap, locked);
+            }
+        }
+    }
+
+    private static IOperations newConcurrentDictionary()
+    {
+        ConcurrentDictionary<Integer, Integer> dictionary = new ConcurrentDictionary<>();
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            dictionary.add(key, key);
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                dictionary.getOrDefault(key, null);
+            }
+
+            @Override
+            public void write(int key)
+            {
+                if ((key & 1) == 0)
+                    dictionary.put(key, key);
+                else
+                    dictionary.addOrUpdate(key, 1, (k, v) -> v + 1);
+            }
+        };
+    }
+
+    private static IOperations newConcurrentHashMap()
+    {
+        ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            map.put(key, key);
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                map.get(key);
+            }
+
+            @Override
+            public void write(int key)
+            {
+                if ((key & 1) == 0)
+                    map.put(key, key);
+                else
+                    map.merge(key, 1, Integer::sum);
+            }
+        };
+    }
+
+    private static IOperations newLockedHashMap()
+    {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            map.put(key, key);
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                synchronized (map)
+                {
+                    map.get(key);
+                }
+            }
+
+            @Override
+            public void write(int key)
+            {
+                synchronized (map)
+                {
+                    if ((key & 1) == 0)
+                        map.put(key, key);
+                    else
+                        map.merge(key, 1, Integer::sum);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.indices.ConcurrentGridIndex;
+import stark.dataworks.basic.indices.GridIndex;
+import stark.dataworks.basic.tests.MixedWorkload.IOperations;
+
+/**
+ * This class is only used for measuring how the throughput of a {@link ConcurrentGridIndex} scales with the number of
+ * threads, compared with a {@link GridIndex} guarded by one lock for both reads and writes.
+ * <p>
+ * Every key is mapped to a fixed point, a write adds or removes the element of its key, and a read gets the elements of
+ * the cells around the point. Readers of the {@link ConcurrentGridIndex} take no lock and writers lock one stripe, so
+ * its throughput should grow with the number of cores, while the locked {@link GridIndex} stays flat.
+ */
+public class ConcurrentGridIndexBenchmark
+{
+    private static final int KEY_RANGE = 1 << 16;
+    private static final int GRID_SIZE = 256;
+    private static final double EXTENT = 1000;
+    private static final int[] THREAD_COUNTS = {1, 8, 16, 32};
+    private static final int[] WRITE_PERCENTAGES = {5, 50, 95};
+
+    private ConcurrentGridIndexBenchmark(){}
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int processorCount = Runtime.getRuntime().availableProcessors();
+        for (int writePercentage : WRITE_PERCENTAGES)
+        {
+            System.out.println("== " + (100 - writePercentage) + "% reads, " + writePercentage + "% writes (Mops/s), " + processorCount + " processors ==");
+            System.out.printf("%8s %24s %20s%n", "threads", "ConcurrentGridIndex", "locked GridIndex");
+
+            for (int threadCount : THREAD_COUNTS)
+            {
+                double concurrent = MixedWorkload.run(threadCount, writePercentage, KEY_RANGE, newConcurrentGridIndex());
+                double locked = MixedWorkload.run(threadCount, writePercentage, KEY_RANGE, newLockedGridIndex());
+                System.out.printf("%8d %24.2f %20.2f%n", threadCount, concurrent, locked);
+            }
+        }
+    }
+
+    /**
+     * Returns the x-coordinate of the point of a key, scattered by a multiplicative hash.
+     */
+    private static double xOf(int key)
+    {
+        return ((key * 0x9E3779B1) >>> 16) * (EXTENT / 65536);
+    }
+
+    private static double yOf(int key)
+    {
+        return ((key * 0x85EBCA6B) >>> 16) * (EXTENT / 65536);
+    }
+
+    private static int cellOf(double coordinate)
+    {
+        return Math.min((int) (coordinate / (EXTENT / GRID_SIZE)), GRID_SIZE - 1);
+    }
+
+    private static IOperations newConcurrentGridIndex()
+    {
+        ConcurrentGridIndex<Integer> grid = new ConcurrentGridIndex<>(0, EXTENT, 0, EXTENT, GRID_SIZE, GRID_SIZE);
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            grid.add(xOf(key), yOf(key), key);
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                for (Integer element : grid.adjacent(xOf(key), yOf(key), 1, 1))
+                {
+                }
+            }
+
+            @Override
+            public void write(int key)
+            {
+                double x = xOf(key);
+                double y = yOf(key);
+                if (!grid.remove(cellOf(x), cellOf(y), key))
+                    grid.add(x, y, key);
+            }
+        };
+    }
+
+    private static IOperations newLockedGridIndex()
+    {
+        GridIndex<Integer> grid = new GridIndex<>(0, EXTENT, 0, EXTENT, GRID_SIZE, GRID_SIZE);
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            grid.add(xOf(key), yOf(key), key);
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                synchronized (grid)
+                {
+                    for (Integer element : grid.adjacent(xOf(key), yOf(key), 1, 1))
+                    {
+                    }
+                }
+            }
+
+            @Override
+            public void write(int key)
+            {
+                double x = xOf(key);
+                double y = yOf(key);
+                synchronized (grid)
+                {
+                    int before = grid.count();
+                    grid.remove(cellOf(x), cellOf(y), key);
+                    if (grid.count() == before)
+                        grid.add(x, y, key);
+                }
+            }
+        };
+    }
+}
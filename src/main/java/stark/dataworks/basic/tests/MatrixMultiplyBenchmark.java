@@ -0,0 +1,63 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.mathematics.Matrix;
+import stark.dataworks.basic.mathematics.Vector;
+
+import java.util.Random;
+
+/**
+ * This class is only used for comparing dense matrix products: the former row-by-column
+ * {@link Vector#dot(Vector)} product, the cache-blocked {@link Matrix#multiply(Matrix)}, and the transpose-free
+ * {@link Matrix#transposeMultiply(Matrix)} and {@link Matrix#multiplyTranspose(Matrix)}.
+ * <p>
+ * Square matrices of 256, 1024 and 2048 rows are multiplied, which fit in L2, overflow L3 and overflow L3 by far. The
+ * row-by-column reference is only run up to 1024 rows because it takes seconds per product at 2k x 2k.
+ */
+public class MatrixMultiplyBenchmark
+{
+    private static final int[] SIZES = {256, 1024, 2048};
+    private static final int REFERENCE_MAX_SIZE = 1024;
+
+    private MatrixMultiplyBenchmark(){}
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(42);
+        for (int size : SIZES)
+        {
+            Matrix left = randomMatrix(random, size);
+            Matrix right = randomMatrix(random, size);
+
+            System.out.println("\n== " + size + " x " + size + " ==");
+            if (size <= REFERENCE_MAX_SIZE)
+            {
+                Benchmarks.measure("row x column dot (reference)", () ->
+                {
+                    Vector[] rows = left.toRowVectors();
+                    Vector[] columns = right.toColumnVectors();
+                    Matrix result = Matrix.zeros(size, size);
+                    for (int i = 0; i < size; i++)
+                    {
+                        for (int j = 0; j < size; j++)
+                            result.set(i, j, rows[i].dot(columns[j]));
+                    }
+                    return (long) result.get(size - 1, size - 1);
+                });
+            }
+            Benchmarks.measure("Matrix.multiply", () -> (long) left.multiply(right).get(size - 1, size - 1));
+            Benchmarks.measure("Matrix.transposeMultiply", () -> (long) left.transposeMultiply(right).get(size - 1, size - 1));
+            Benchmarks.measure("Matrix.multiplyTranspose", () -> (long) left.multiplyTranspose(right).get(size - 1, size - 1));
+        }
+    }
+
+    private static Matrix randomMatrix(Random random, int size)
+    {
+        Matrix matrix = Matrix.zeros(size, size);
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+                matrix.set(i, j, random.nextDouble());
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,65 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.mathematics.Matrix;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class is only used for comparing the sequential {@link Matrix} operations with their fork/join overloads
+ * ({@link Matrix#add(Matrix, ForkJoinPool)}, {@link Matrix#multiply(Matrix, ForkJoinPool)},
+ * {@link Matrix#computeConvolution(Matrix, Matrix, int, int, ForkJoinPool)}, ...).
+ * <p>
+ * The parallelism of the pool is the first argument, and defaults to the number of available processors. Run it with
+ * 1, 2, 4, ... up to the core count to see how each operation scales. The element-wise operations are memory-bound on
+ * 4096 x 4096 matrices, while the product and the 5 x 5 convolutions on 2048 x 2048 matrices are compute-bound.
+ */
+public class MatrixParallelBenchmark
+{
+    private static final int ELEMENTWISE_SIZE = 4096;
+    private static final int MULTIPLY_SIZE = 2048;
+    private static final int CONVOLUTION_SIZE = 2048;
+    private static final int KERNEL_SIZE = 5;
+
+    private MatrixParallelBenchmark(){}
+
+    public static void main(String[] args)
+    {
+        int parallelism = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Random random = new Random(42);
+
+        Matrix a = randomMatrix(random, ELEMENTWISE_SIZE);
+        Matrix b = randomMatrix(random, ELEMENTWISE_SIZE);
+        Matrix left = randomMatrix(random, MULTIPLY_SIZE);
+        Matrix right = randomMatrix(random, MULTIPLY_SIZE);
+        Matrix image = randomMatrix(random, CONVOLUTION_SIZE);
+        Matrix kernel = randomMatrix(random, KERNEL_SIZE);
+        int padding = KERNEL_SIZE / 2;
+
+        System.out.println("== parallelism " + parallelism + " ==");
+        Benchmarks.measure("add sequential", () -> (long) a.add(b).get(0, 0));
+        Benchmarks.measure("add parallel", () -> (long) a.add(b, pool).get(0, 0));
+        Benchmarks.measure("subtract sequential", () -> (long) a.subtract(b).get(0, 0));
+        Benchmarks.measure("subtract parallel", () -> (long) a.subtract(b, pool).get(0, 0));
+        Benchmarks.measure("multiply sequential", () -> (long) left.multiply(right).get(0, 0));
+        Benchmarks.measure("multiply parallel", () -> (long) left.multiply(right, pool).get(0, 0));
+        Benchmarks.measure("convolution sequential", () -> (long) Matrix.computeConvolution(image, kernel, padding, 1).get(0, 0));
+        Benchmarks.measure("convolution parallel", () -> (long) Matrix.computeConvolution(image, kernel, padding, 1, pool).get(0, 0));
+        Benchmarks.measure("correlation sequential", () -> (long) Matrix.computeCorrelation(image, kernel, padding, 1).get(0, 0));
+        Benchmarks.measure("correlation parallel", () -> (long) Matrix.computeCorrelation(image, kernel, padding, 1, pool).get(0, 0));
+
+        pool.shutdown();
+    }
+
+    private static Matrix randomMatrix(Random random, int size)
+    {
+        Matrix matrix = Matrix.zeros(size, size);
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+                matrix.set(i, j, random.nextDouble());
+        }
+        return matrix;
+    }
+}
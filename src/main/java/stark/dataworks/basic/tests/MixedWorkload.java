@@ -0,0 +1,92 @@
+package stark.dataworks.basic.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class runs a random mix of reads and writes over a shared key range from several threads for a fixed time, and
+ * is shared by the throughput benchmarks of the concurrent collections.
+ */
+class MixedWorkload
+{
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1000;
+
+    private MixedWorkload(){}
+
+    interface IOperations
+    {
+        void read(int key);
+
+        void write(int key);
+    }
+
+    /**
+     * Runs the workload with the specified number of threads.
+     *
+     * @param threadCount     Number of threads.
+     * @param writePercentage Percentage of writes, in range [0, 100].
+     * @param keyRange        Keys are drawn uniformly from [0, keyRange).
+     * @param operations      The read and write operations of the collection under test.
+     * @return Throughput in millions of operations per second.
+     */
+    static double run(int threadCount, int writePercentage, int keyRange, IOperations operations) throws InterruptedException
+    {
+        LongAdder operationCount = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] window = new long[2];
+        Thread[] threads = new Thread[threadCount];
+
+        for (int t = 0; t < threadCount; t++)
+        {
+            threads[t] = new Thread(() ->
+            {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+
+                long n = 0;
+                boolean measuring = false;
+                while (true)
+                {
+                    // Check the clock only every 1024 operations.
+                    for (int i = 0; i < 1024; i++)
+                    {
+                        int key = random.nextInt(keyRange);
+                        if (random.nextInt(100) < writePercentage)
+                            operations.write(key);
+                        else
+                            operations.read(key);
+                    }
+
+                    long now = System.nanoTime();
+                    if (!measuring && (now >= window[0]))
+                        measuring = true;
+                    else if (measuring)
+                        n += 1024;
+
+                    if (now >= window[1])
+                        break;
+                }
+
+                operationCount.add(n);
+            });
+            threads[t].start();
+        }
+
+        window[0] = System.nanoTime() + WARMUP_MILLIS * 1_000_000;
+        window[1] = window[0] + MEASURE_MILLIS * 1_000_000;
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        return operationCount.sum() / (MEASURE_MILLIS * 1000.0);
+    }
+}
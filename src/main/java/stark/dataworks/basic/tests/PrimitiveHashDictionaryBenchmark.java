@@ -0,0 +1,167 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.collections.IntObjectHashDictionary;
+import stark.dataworks.basic.collections.LongLongHashDictionary;
+import stark.dataworks.basic.collections.ObjectIntHashDictionary;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * This class is only used for comparing the primitive hash dictionaries with {@link HashMap}.
+ * <p>
+ * Each dictionary is filled with 1M random or sequential keys and then probed for all of them, and a word count merges
+ * 1M words into about 250K distinct keys. These workloads are dominated by boxing and pointer chasing in
+ * {@link HashMap}. The retained heap of each structure is estimated from the used memory before and after filling it,
+ * so run it without other threads allocating. It runs more rounds than the other harnesses, because its timings are
+ * short and noisy.
+ */
+public class PrimitiveHashDictionaryBenchmark
+{
+    private static final int ELEMENT_COUNT = 1_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 10;
+
+    private PrimitiveHashDictionaryBenchmark(){}
+
+    public static void main(String[] args)
+    {
+        int[] randomKeys = new Random(42).ints(ELEMENT_COUNT).toArray();
+        int[] sequentialKeys = new int[ELEMENT_COUNT];
+        for (int i = 0; i < ELEMENT_COUNT; i++)
+            sequentialKeys[i] = i;
+
+        String[] words = new String[ELEMENT_COUNT];
+        Random random = new Random(7);
+        for (int i = 0; i < ELEMENT_COUNT; i++)
+            words[i] = "w" + random.nextInt(ELEMENT_COUNT / 4);
+
+        System.out.println("Elements: " + ELEMENT_COUNT);
+        runIntKeyed("random int keys", randomKeys);
+        runIntKeyed("sequential int keys", sequentialKeys);
+        runLongKeyed(randomKeys);
+        runWordCount(words);
+    }
+
+    private static void runIntKeyed(String name, int[] keys)
+    {
+        System.out.println("\n== " + name + " ==");
+        Benchmarks.measure("IntObjectHashDictionary put+get", WARMUP_ROUNDS, MEASURE_ROUNDS, () ->
+        {
+            IntObjectHashDictionary<Integer> dictionary = new IntObjectHashDictionary<>();
+            for (int key : keys)
+                dictionary.put(key, key);
+            long sum = 0;
+            for (int key : keys)
+                sum += dictionary.get(key);
+            return sum;
+        });
+        Benchmarks.measure("HashMap<Integer, Integer> put+get", WARMUP_ROUNDS, MEASURE_ROUNDS, () ->
+        {
+            HashMap<Integer, Integer> map = new HashMap<>();
+            for (int key : keys)
+                map.put(key, key);
+            long sum = 0;
+            for (int key : keys)
+                sum += map.get(key);
+            return sum;
+        });
+
+        footprint("IntObjectHashDictionary", () ->
+        {
+            IntObjectHashDictionary<Integer> dictionary = new IntObjectHashDictionary<>();
+            for (int key : keys)
+                dictionary.put(key, null);
+            return dictionary;
+        });
+        footprint("HashMap<Integer, Integer>", () ->
+        {
+            HashMap<Integer, Integer> map = new HashMap<>();
+            for (int key : keys)
+                map.put(key, null);
+            return map;
+        });
+    }
+
+    private static void runLongKeyed(int[] keys)
+    {
+        System.out.println("\n== long -> long ==");
+        Benchmarks.measure("LongLongHashDictionary put+get", WARMUP_ROUNDS, MEASURE_ROUNDS, () ->
+        {
+            LongLongHashDictionary dictionary = new LongLongHashDictionary();
+            for (int key : keys)
+                dictionary.put(key, key);
+            long sum = 0;
+            for (int key : keys)
+                sum += dictionary.get(key);
+            return sum;
+        });
+        Benchmarks.measure("HashMap<Long, Long> put+get", WARMUP_ROUNDS, MEASURE_ROUNDS, () ->
+        {
+            HashMap<Long, Long> map = new HashMap<>();
+            for (int key : keys)
+                map.put((long) key, (long) key);
+            long sum = 0;
+            for (int key : keys)
+                sum += map.get((long) key);
+            return sum;
+        });
+
+        footprint("LongLongHashDictionary", () ->
+        {
+            LongLongHashDictionary dictionary = new LongLongHashDictionary();
+            for (int key : keys)
+                dictionary.put(key, key);
+            return dictionary;
+        });
+        footprint("HashMap<Long, Long>", () ->
+        {
+            HashMap<Long, Long> map = new HashMap<>();
+            for (int key : keys)
+                map.put((long) key, (long) key);
+            return map;
+        });
+    }
+
+    private static void runWordCount(String[] words)
+    {
+        System.out.println("\n== word count ==");
+        Benchmarks.measure("ObjectIntHashDictionary addTo", WARMUP_ROUNDS, MEASURE_ROUNDS, () ->
+        {
+            ObjectIntHashDictionary<String> dictionary = new ObjectIntHashDictionary<>();
+            for (String word : words)
+                dictionary.addTo(word, 1);
+            return dictionary.count();
+        });
+        Benchmarks.measure("HashMap<String, Integer> merge", WARMUP_ROUNDS, MEASURE_ROUNDS, () ->
+        {
+            HashMap<String, Integer> map = new HashMap<>();
+            for (String word : words)
+                map.merge(word, 1, Integer::sum);
+            return map.size();
+        });
+    }
+
+    private interface IBuilder
+    {
+        Object build();
+    }
+
+    private static void footprint(String name, IBuilder builder)
+    {
+        long before = usedMemory();
+        Object structure = builder.build();
+        long after = usedMemory();
+
+        System.out.printf("%-40s ~%6.1f MB retained%n", name, (after - before) / (1024.0 * 1024.0));
+        Benchmarks.consume(structure.hashCode() & 1);
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,132 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.indices.GridIndex;
+import stark.dataworks.basic.indices.KdTree;
+import stark.dataworks.basic.indices.QuadTree;
+
+import java.util.Random;
+
+/**
+ * This class is only used for comparing the point indices on skewed data: the uniform {@link GridIndex}, the adaptive
+ * {@link QuadTree}, and the static {@link KdTree}.
+ * <p>
+ * Most points are drawn around a few narrow clusters, so most cells of the grid are empty while a few hold a large
+ * share of all points. Queries are centered near random points, which makes them hit the dense areas as often as real
+ * queries do. Each index holds 2M points, and answers 64K queries for the 10 nearest points and for the points within
+ * a radius of 2.
+ */
+public class SpatialIndexBenchmark
+{
+    private static final int POINT_COUNT = 1 << 21;
+    private static final int QUERY_COUNT = 1 << 16;
+    private static final double EXTENT = 10000;
+    private static final int GRID_SIZE = 256;
+    private static final int K = 10;
+    private static final double RADIUS = 2;
+
+    private SpatialIndexBenchmark(){}
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(42);
+        double[] xs = new double[POINT_COUNT];
+        double[] ys = new double[POINT_COUNT];
+        Integer[] elements = new Integer[POINT_COUNT];
+        double[] clusterXs = new double[8];
+        double[] clusterYs = new double[8];
+        for (int c = 0; c < clusterXs.length; c++)
+        {
+            clusterXs[c] = 1000 + random.nextDouble() * (EXTENT - 2000);
+            clusterYs[c] = 1000 + random.nextDouble() * (EXTENT - 2000);
+        }
+        for (int i = 0; i < POINT_COUNT; i++)
+        {
+            if (i % 20 == 0)
+            {
+                xs[i] = random.nextDouble() * EXTENT;
+                ys[i] = random.nextDouble() * EXTENT;
+            }
+            else
+            {
+                int c = random.nextInt(clusterXs.length);
+                xs[i] = clamp(clusterXs[c] + random.nextGaussian() * 20);
+                ys[i] = clamp(clusterYs[c] + random.nextGaussian() * 20);
+            }
+            elements[i] = i;
+        }
+
+        double[] queryXs = new double[QUERY_COUNT];
+        double[] queryYs = new double[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++)
+        {
+            int p = random.nextInt(POINT_COUNT);
+            queryXs[i] = clamp(xs[p] + random.nextGaussian());
+            queryYs[i] = clamp(ys[p] + random.nextGaussian());
+        }
+
+        System.out.println("== " + POINT_COUNT + " skewed points, " + QUERY_COUNT + " queries ==");
+        long start = System.nanoTime();
+        GridIndex<Integer> grid = new GridIndex<>(0, EXTENT, 0, EXTENT, GRID_SIZE, GRID_SIZE);
+        for (int i = 0; i < POINT_COUNT; i++)
+            grid.add(xs[i], ys[i], elements[i]);
+        System.out.printf("%-40s %8.2f ms%n", "GridIndex build", (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        QuadTree<Integer> quadTree = new QuadTree<>(0, EXTENT, 0, EXTENT);
+        for (int i = 0; i < POINT_COUNT; i++)
+            quadTree.add(xs[i], ys[i], elements[i]);
+        System.out.printf("%-40s %8.2f ms%n", "QuadTree build", (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        KdTree<Integer> kdTree = new KdTree<>(xs, ys, elements);
+        System.out.printf("%-40s %8.2f ms (%d processors)%n", "KdTree build", (System.nanoTime() - start) / 1e6, Runtime.getRuntime().availableProcessors());
+
+        Benchmarks.measure("GridIndex.kNearest", () ->
+        {
+            long sum = 0;
+            for (int i = 0; i < QUERY_COUNT; i++)
+                sum += grid.kNearest(queryXs[i], queryYs[i], K).iterator().next();
+            return sum;
+        });
+        Benchmarks.measure("QuadTree.kNearest", () ->
+        {
+            long sum = 0;
+            for (int i = 0; i < QUERY_COUNT; i++)
+                sum += quadTree.kNearest(queryXs[i], queryYs[i], K).iterator().next();
+            return sum;
+        });
+        Benchmarks.measure("KdTree.kNearest", () ->
+        {
+            long sum = 0;
+            for (int i = 0; i < QUERY_COUNT; i++)
+                sum += kdTree.kNearest(queryXs[i], queryYs[i], K).iterator().next();
+            return sum;
+        });
+
+        long[] counter = new long[1];
+        GridIndex.IElementVisitor<Integer> counting = (x, y, element) -> counter[0]++;
+        Benchmarks.measure("GridIndex.forEachWithinRadius", () ->
+        {
+            for (int i = 0; i < QUERY_COUNT; i++)
+                grid.forEachWithinRadius(queryXs[i], queryYs[i], RADIUS, GridIndex.EUCLIDEAN, counting);
+            return counter[0];
+        });
+        Benchmarks.measure("QuadTree.forEachWithinRadius", () ->
+        {
+            for (int i = 0; i < QUERY_COUNT; i++)
+                quadTree.forEachWithinRadius(queryXs[i], queryYs[i], RADIUS, GridIndex.EUCLIDEAN, counting);
+            return counter[0];
+        });
+        Benchmarks.measure("KdTree.forEachWithinRadius", () ->
+        {
+            for (int i = 0; i < QUERY_COUNT; i++)
+                kdTree.forEachWithinRadius(queryXs[i], queryYs[i], RADIUS, GridIndex.EUCLIDEAN, counting);
+            return counter[0];
+        });
+    }
+
+    private static double clamp(double coordinate)
+    {
+        return Math.min(Math.max(coordinate, 0), EXTENT);
+    }
+}
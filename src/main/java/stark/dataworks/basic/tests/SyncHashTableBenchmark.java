@@ -0,0 +1,141 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.collections.HashTable;
+import stark.dataworks.basic.tests.MixedWorkload.IOperations;
+
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class is only used for measuring how the read throughput of a synchronized {@link HashTable} scales with the
+ * number of threads at a 95/5 read/write mix, compared with a {@link HashTable} guarded by one lock for both reads and
+ * writes, and a {@link HashMap} guarded by a {@link ReentrantReadWriteLock}.
+ * <p>
+ * Readers of the synchronized {@link HashTable} never lock, so their throughput should grow with the number of cores,
+ * while the fully locked table stays flat and the read-write lock suffers from contention on its reader count.
+ */
+public class SyncHashTableBenchmark
+{
+    private static final int KEY_RANGE = 1 << 16;
+    private static final int WRITE_PERCENTAGE = 5;
+
+    private SyncHashTableBenchmark(){}
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int processorCount = Runtime.getRuntime().availableProcessors();
+        System.out.println("== 95% reads, 5% writes (Mops/s), " + processorCount + " processors ==");
+        System.out.printf("%8s %20s %20s %20s%n", "threads", "SyncHashTable", "locked HashTable", "RW-locked HashMap");
+
+        for (int threadCount = 1; threadCount <= Math.max(2 * processorCount, 8); threadCount *= 2)
+        {
+            double sync = MixedWorkload.run(threadCount, WRITE_PERCENTAGE, KEY_RANGE, newSyncHashTable());
+            double locked = MixedWorkload.run(threadCount, WRITE_PERCENTAGE, KEY_RANGE, newLockedHashTable());
+            double readWriteLocked = MixedWorkload.run(threadCount, WRITE_PERCENTAGE, KEY_RANGE, newReadWriteLockedHashMap());
+            System.out.printf("%8d %20.2f %20.2f %20.2f%n", threadCount, sync, locked, readWriteLocked);
+        }
+    }
+
+    private static HashTable newFilledHashTable()
+    {
+        HashTable table = new HashTable(KEY_RANGE);
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            table.add(key, key);
+
+        return table;
+    }
+
+    private static IOperations newSyncHashTable()
+    {
+        HashTable table = HashTable.synchronize(newFilledHashTable());
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                table.get(key);
+            }
+
+            @Override
+            public void write(int key)
+            {
+                if ((key & 1) == 0)
+                    table.set(key, key);
+                else if (!table.removeByKey(key))
+                    table.add(key, key);
+            }
+        };
+    }
+
+    private static IOperations newLockedHashTable()
+    {
+        HashTable table = newFilledHashTable();
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                synchronized (table)
+                {
+                    table.get(key);
+                }
+            }
+
+            @Override
+            public void write(int key)
+            {
+                synchronized (table)
+                {
+                    if ((key & 1) == 0)
+                        table.set(key, key);
+                    else if (!table.removeByKey(key))
+                        table.add(key, key);
+                }
+            }
+        };
+    }
+
+    private static IOperations newReadWriteLockedHashMap()
+    {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int key = 0; key < KEY_RANGE; key += 2)
+            map.put(key, key);
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        return new IOperations()
+        {
+            @Override
+            public void read(int key)
+            {
+                lock.readLock().lock();
+                try
+                {
+                    map.get(key);
+                }
+                finally
+                {
+                    lock.readLock().unlock();
+                }
+            }
+
+            @Override
+            public void write(int key)
+            {
+                lock.writeLock().lock();
+                try
+                {
+                    if ((key & 1) == 0)
+                        map.put(key, key);
+                    else if (map.remove(key) == null)
+                        map.put(key, key);
+                }
+                finally
+                {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package stark.dataworks.basic.tests;
+
+import stark.dataworks.basic.mathematics.IVectorKernels;
+import stark.dataworks.basic.mathematics.Vector;
+import stark.dataworks.basic.mathematics.VectorKernels;
+
+import java.util.Random;
+
+/**
+ * This class is only used for comparing the kernels behind {@link Vector}: the former element-by-element loops through
+ * {@link Vector#get(int)}, the unrolled {@link VectorKernels#scalar()} backend, and the {@link VectorKernels#simd()}
+ * backend.
+ * <p>
+ * Run with {@code --add-modules jdk.incubator.vector} to include the SIMD backend. Each size is processed so that
+ * every workload touches the same total number of elements: 1K elements stay in L1, and 1M elements (8 MB per array)
+ * stream from L3 or memory.
+ */
+public class VectorKernelsBenchmark
+{
+    private static final int[] SIZES = {1 << 10, 1 << 20};
+    private static final int ELEMENTS_PER_ROUND = 1 << 26;
+
+    private VectorKernelsBenchmark(){}
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(42);
+        IVectorKernels scalar = VectorKernels.scalar();
+        IVectorKernels simd = VectorKernels.simd();
+        if (simd == null)
+            System.out.println("jdk.incubator.vector is not available, skipping the SIMD backend.");
+
+        for (int size : SIZES)
+        {
+            double[] xs = new double[size];
+            double[] ys = new double[size];
+            for (int i = 0; i < size; i++)
+            {
+                xs[i] = random.nextDouble() * 2 - 1;
+                ys[i] = random.nextDouble() * 2 - 1;
+            }
+            Vector x = new Vector(xs);
+            Vector y = new Vector(ys);
+            double[] result = new double[size];
+            int repeats = ELEMENTS_PER_ROUND / size;
+
+            System.out.println("\n== " + size + " elements x " + repeats + " repeats ==");
+
+            Benchmarks.measure("dot former loop", () ->
+            {
+                double total = 0;
+                for (int r = 0; r < repeats; r++)
+                {
+                    double sum = 0;
+                    for (int i = 0; i < x.count(); i++)
+                        sum += x.get(i) * y.get(i);
+                    total += sum;
+                }
+                return (long) total;
+            });
+            Benchmarks.measure("dot scalar", () -> repeat(repeats, () -> scalar.dot(xs, ys, size)));
+            if (simd != null)
+                Benchmarks.measure("dot simd", () -> repeat(repeats, () -> simd.dot(xs, ys, size)));
+
+            Benchmarks.measure("axpy scalar", () -> repeat(repeats, () ->
+            {
+                scalar.axpy(1e-9, xs, result, size);
+                return result[0];
+            }));
+            if (simd != null)
+            {
+                Benchmarks.measure("axpy simd", () -> repeat(repeats, () ->
+                {
+                    simd.axpy(1e-9, xs, result, size);
+                    return result[0];
+                }));
+            }
+
+            Benchmarks.measure("add former loop", () ->
+            {
+                double total = 0;
+                for (int r = 0; r < repeats; r++)
+                {
+                    for (int i = 0; i < x.count(); i++)
+                        result[i] = x.get(i) + y.get(i);
+                    total += result[0];
+                }
+                return (long) total;
+            });
+            Benchmarks.measure("add scalar", () -> repeat(repeats, () ->
+            {
+                scalar.add(xs, ys, result, size);
+                return result[0];
+            }));
+            if (simd != null)
+            {
+                Benchmarks.measure("add simd", () -> repeat(repeats, () ->
+                {
+                    simd.add(xs, ys, result, size);
+                    return result[0];
+                }));
+            }
+
+            Benchmarks.measure("sum former loop", () ->
+            {
+                double total = 0;
+                for (int r = 0; r < repeats; r++)
+                {
+                    double sum = 0;
+                    for (double v : x)
+                        sum += v;
+                    total += sum;
+                }
+                return (long) total;
+            });
+            Benchmarks.measure("sum scalar", () -> repeat(repeats, () -> scalar.sum(xs, size)));
+            if (simd != null)
+                Benchmarks.measure("sum simd", () -> repeat(repeats, () -> simd.sum(xs, size)));
+
+            Benchmarks.measure("euclidean former loop", () ->
+            {
+                double total = 0;
+                for (int r = 0; r < repeats; r++)
+                {
+                    double sum = 0;
+                    for (int i = 0; i < x.count(); i++)
+                    {
+                        double delta = x.get(i) - y.get(i);
+                        sum += delta * delta;
+                    }
+                    total += Math.sqrt(sum);
+                }
+                return (long) total;
+            });
+            Benchmarks.measure("euclidean scalar", () -> repeat(repeats, () -> Math.sqrt(scalar.squaredEuclideanDistance(xs, ys, size))));
+            if (simd != null)
+                Benchmarks.measure("euclidean simd", () -> repeat(repeats, () -> Math.sqrt(simd.squaredEuclideanDistance(xs, ys, size))));
+
+            Benchmarks.measure("manhattan former loop", () ->
+            {
+                double total = 0;
+                for (int r = 0; r < repeats; r++)
+                {
+                    double sum = 0;
+                    for (int i = 0; i < x.count(); i++)
+                        sum += Math.abs(x.get(i) - y.get(i));
+                    total += sum;
+                }
+                return (long) total;
+            });
+            Benchmarks.measure("manhattan scalar", () -> repeat(repeats, () -> scalar.manhattanDistance(xs, ys, size)));
+            if (simd != null)
+                Benchmarks.measure("manhattan simd", () -> repeat(repeats, () -> simd.manhattanDistance(xs, ys, size)));
+
+            Benchmarks.measure("chebyshev scalar", () -> repeat(repeats, () -> scalar.chebyshevDistance(xs, ys, size)));
+            if (simd != null)
+                Benchmarks.measure("chebyshev simd", () -> repeat(repeats, () -> simd.chebyshevDistance(xs, ys, size)));
+
+            Benchmarks.measure("minkowski(3) scalar", () -> repeat(repeats, () -> scalar.minkowskiDistance(xs, ys, size, 3)));
+            if (simd != null)
+                Benchmarks.measure("minkowski(3) simd", () -> repeat(repeats, () -> simd.minkowskiDistance(xs, ys, size, 3)));
+        }
+    }
+
+    private interface IKernelCall
+    {
+        double call();
+    }
+
+    private static long repeat(int repeats, IKernelCall call)
+    {
+        double total = 0;
+        for (int r = 0; r < repeats; r++)
+            total += call.call();
+        return (long) total;
+    }
+}
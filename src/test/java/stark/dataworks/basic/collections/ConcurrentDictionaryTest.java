@@ -0,0 +1,141 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentDictionaryTest
+{
+    private static final int THREAD_COUNT = 8;
+
+    private static void runConcurrently(int threadCount, IThreadBody body) throws InterruptedException
+    {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        AtomicInteger failures = new AtomicInteger();
+        for (int t = 0; t < threadCount; t++)
+        {
+            int threadIndex = t;
+            threads[t] = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                    body.run(threadIndex);
+                }
+                catch (Throwable e)
+                {
+                    e.printStackTrace();
+                    failures.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(0, failures.get());
+    }
+
+    private interface IThreadBody
+    {
+        void run(int threadIndex) throws Exception;
+    }
+
+    @Test
+    public void concurrentAddsSurviveResizes() throws InterruptedException
+    {
+        // A tiny initial capacity forces many resizes while all threads are adding.
+        ConcurrentDictionary<Integer, Integer> dictionary = new ConcurrentDictionary<>(1);
+        int perThread = 50_000;
+
+        runConcurrently(THREAD_COUNT, t ->
+        {
+            for (int i = 0; i < perThread; i++)
+            {
+                int key = t * perThread + i;
+                assertTrue(dictionary.tryAdd(key, key));
+                assertEquals(Integer.valueOf(key), dictionary.get(key));
+            }
+        });
+
+        assertEquals(THREAD_COUNT * perThread, dictionary.count());
+        Set<Integer> keys = new HashSet<>();
+        for (KeyValuePair<Integer, Integer> kvp : dictionary)
+        {
+            assertEquals(kvp.getKey(), kvp.getValue());
+            assertTrue(keys.add(kvp.getKey()));
+        }
+        assertEquals(THREAD_COUNT * perThread, keys.size());
+    }
+
+    @Test
+    public void addOrUpdateIsAtomic() throws InterruptedException
+    {
+        ConcurrentDictionary<String, Integer> dictionary = new ConcurrentDictionary<>();
+        int perThread = 20_000;
+
+        runConcurrently(THREAD_COUNT, t ->
+        {
+            for (int i = 0; i < perThread; i++)
+                dictionary.addOrUpdate("k" + (i % 64), 1, (key, value) -> value + 1);
+        });
+
+        int total = 0;
+        for (int value : dictionary.values())
+            total += value;
+        assertEquals(THREAD_COUNT * perThread, total);
+        assertEquals(64, dictionary.count());
+    }
+
+    @Test
+    public void getOrAddCallsFactoryOncePerKey() throws InterruptedException
+    {
+        ConcurrentDictionary<Integer, Integer> dictionary = new ConcurrentDictionary<>();
+        AtomicInteger factoryCalls = new AtomicInteger();
+
+        runConcurrently(THREAD_COUNT, t ->
+        {
+            for (int key = 0; key < 10_000; key++)
+            {
+                int value = dictionary.getOrAdd(key, k ->
+                {
+                    factoryCalls.incrementAndGet();
+                    return k * 2;
+                });
+                assertEquals(key * 2, value);
+            }
+        });
+
+        assertEquals(10_000, factoryCalls.get());
+        assertEquals(10_000, dictionary.count());
+    }
+
+    @Test
+    public void tryRemoveRemovesEachElementOnce() throws InterruptedException
+    {
+        ConcurrentDictionary<Integer, Integer> dictionary = new ConcurrentDictionary<>();
+        for (int key = 0; key < 100_000; key++)
+            dictionary.add(key, key);
+
+        AtomicInteger removed = new AtomicInteger();
+        runConcurrently(THREAD_COUNT, t ->
+        {
+            for (int key = 0; key < 100_000; key++)
+            {
+                if (dictionary.tryRemove(key) != null)
+                    removed.incrementAndGet();
+            }
+        });
+
+        assertEquals(100_000, removed.get());
+        assertEquals(0, dictionary.count());
+        assertFalse(dictionary.iterator().hasNext());
+    }
+}
@@ -0,0 +1,163 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentQueueStackTest
+{
+    private static final int PRODUCER_COUNT = 4;
+    private static final int CONSUMER_COUNT = 4;
+    private static final int PER_PRODUCER = 50_000;
+
+    private interface IContainer
+    {
+        void put(int value);
+
+        Integer tryTake();
+    }
+
+    /**
+     * Runs producers and consumers concurrently, and checks that every element is taken exactly once.
+     */
+    private static void checkExactlyOnce(IContainer container) throws InterruptedException
+    {
+        int total = PRODUCER_COUNT * PER_PRODUCER;
+        AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[PRODUCER_COUNT + CONSUMER_COUNT];
+
+        for (int p = 0; p < PRODUCER_COUNT; p++)
+        {
+            int producer = p;
+            threads[p] = new Thread(() ->
+            {
+                awaitQuietly(start);
+                for (int i = 0; i < PER_PRODUCER; i++)
+                    container.put(producer * PER_PRODUCER + i);
+            });
+        }
+
+        for (int c = 0; c < CONSUMER_COUNT; c++)
+        {
+            threads[PRODUCER_COUNT + c] = new Thread(() ->
+            {
+                awaitQuietly(start);
+                while (taken.get() < total)
+                {
+                    Integer value = container.tryTake();
+                    if (value == null)
+                        continue;
+
+                    if (seen.getAndIncrement(value) != 0)
+                        failures.incrementAndGet();
+                    taken.incrementAndGet();
+                }
+            });
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, failures.get());
+        assertEquals(total, taken.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void queueHandsOutEachElementOnce() throws InterruptedException
+    {
+        ConcurrentQueue<Integer> queue = new ConcurrentQueue<>();
+        checkExactlyOnce(new IContainer()
+        {
+            @Override
+            public void put(int value)
+            {
+                queue.enqueue(value);
+            }
+
+            @Override
+            public Integer tryTake()
+            {
+                return queue.tryDequeue();
+            }
+        });
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void stackHandsOutEachElementOnce() throws InterruptedException
+    {
+        ConcurrentStack<Integer> stack = new ConcurrentStack<>();
+        checkExactlyOnce(new IContainer()
+        {
+            @Override
+            public void put(int value)
+            {
+                stack.push(value);
+            }
+
+            @Override
+            public Integer tryTake()
+            {
+                return stack.tryPop();
+            }
+        });
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void queueKeepsOrderAndSupportsRemove()
+    {
+        ConcurrentQueue<Integer> queue = new ConcurrentQueue<>();
+        queue.enqueueRange(java.util.List.of(1, 2, 3, 4, 5));
+
+        assertTrue(queue.remove(3));
+        assertFalse(queue.remove(3));
+        assertEquals(4, queue.count());
+        assertArrayEquals(new Object[]{1, 2, 4, 5}, queue.toArray());
+
+        assertEquals(Integer.valueOf(1), queue.tryPeek());
+        assertEquals(Integer.valueOf(1), queue.dequeue());
+        assertEquals(Integer.valueOf(2), queue.dequeue());
+        assertEquals(Integer.valueOf(4), queue.dequeue());
+        assertEquals(Integer.valueOf(5), queue.dequeue());
+        assertNull(queue.tryDequeue());
+    }
+
+    @Test
+    public void stackPushesAndPopsRanges()
+    {
+        ConcurrentStack<Integer> stack = new ConcurrentStack<>();
+        stack.pushRange(new Integer[]{1, 2, 3, 4, 5});
+        assertTrue(stack.remove(4));
+
+        Integer[] popped = new Integer[3];
+        assertEquals(3, stack.tryPopRange(popped));
+        assertArrayEquals(new Integer[]{5, 3, 2}, popped);
+
+        assertEquals(1, stack.count());
+        assertEquals(Integer.valueOf(1), stack.pop());
+        assertNull(stack.tryPeek());
+    }
+}
@@ -0,0 +1,88 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+import stark.dataworks.basic.DefaultComparer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DictionaryIndexTest
+{
+    @Test
+    public void indexedDictionaryMatchesLinkedRepresentation()
+    {
+        // Threshold 0 indexes from the first element, Integer.MAX_VALUE never indexes.
+        Dictionary<String, Integer> indexed = new Dictionary<>(new DefaultComparer<>(), 0);
+        Dictionary<String, Integer> linked = new Dictionary<>(new DefaultComparer<>(), Integer.MAX_VALUE);
+        Dictionary<String, Integer> mixed = new Dictionary<>();
+        LinkedHashMap<String, Integer> expected = new LinkedHashMap<>();
+        Random random = new Random(5);
+
+        for (int i = 0; i < 20_000; i++)
+        {
+            String key = "k" + random.nextInt(300);
+            int operation = random.nextInt(4);
+            for (Dictionary<String, Integer> dictionary : List.of(indexed, linked, mixed))
+            {
+                if (operation == 0)
+                    assertEquals(expected.containsKey(key), dictionary.removeByKey(key));
+                else if (operation == 1)
+                    assertEquals(expected.containsKey(key), dictionary.remove(new KeyValuePair<>(key, expected.get(key))));
+                else
+                    dictionary.add(key, i);
+            }
+
+            if (operation <= 1)
+                expected.remove(key);
+            else if (!expected.containsKey(key))
+                expected.put(key, i);
+            else
+                expected.replace(key, i);
+
+            // Empty the dictionaries now and then. clear() also drops the index, which is rebuilt later.
+            if (i % 5000 == 4999)
+            {
+                for (String k : new ArrayList<>(expected.keySet()))
+                {
+                    indexed.removeByKey(k);
+                    linked.removeByKey(k);
+                    mixed.removeByKey(k);
+                }
+                expected.clear();
+                mixed.clear();
+            }
+        }
+
+        // The most recently added element comes first.
+        List<String> expectedKeys = new ArrayList<>(expected.keySet());
+        java.util.Collections.reverse(expectedKeys);
+        for (Dictionary<String, Integer> dictionary : List.of(indexed, linked, mixed))
+        {
+            assertEquals(expected.size(), dictionary.count());
+
+            List<String> keys = new ArrayList<>();
+            for (String key : dictionary.keys())
+                keys.add(key);
+            assertEquals(expectedKeys, keys);
+
+            for (String key : expectedKeys)
+                assertEquals(expected.get(key), dictionary.get(key));
+            assertNull(dictionary.get("missing"));
+        }
+    }
+
+    @Test
+    public void addUpdatesExistingKey()
+    {
+        Dictionary<String, Integer> dictionary = new Dictionary<>();
+        dictionary.add("a", 1);
+        dictionary.add("a", 2);
+
+        assertEquals(1, dictionary.count());
+        assertEquals(Integer.valueOf(2), dictionary.get("a"));
+    }
+}
@@ -0,0 +1,161 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+import stark.dataworks.basic.IEqualityComparer;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HashTableTest
+{
+    /**
+     * Puts every key on the same probe sequence, which exercises collision bits and deleted buckets.
+     */
+    private static final IEqualityComparer CONSTANT_HASH = new IEqualityComparer()
+    {
+        @Override
+        public int getHashCode(Object o)
+        {
+            return 42;
+        }
+
+        @Override
+        public int compare(Object x, Object y)
+        {
+            return x.equals(y) ? 0 : 1;
+        }
+    };
+
+    @Test
+    public void addGetSetAndRemove()
+    {
+        HashTable table = new HashTable();
+        for (int i = 0; i < 10_000; i++)
+            table.add(i, "v" + i);
+
+        assertEquals(10_000, table.count());
+        assertEquals("v1234", table.get(1234));
+        assertNull(table.get(10_000));
+
+        table.set(1234, "w");
+        assertEquals("w", table.get(1234));
+        assertEquals(10_000, table.count());
+
+        for (int i = 0; i < 10_000; i += 2)
+            assertTrue(table.removeByKey(i));
+        assertFalse(table.removeByKey(0));
+        assertEquals(5_000, table.count());
+        assertFalse(table.containsKey(2));
+        assertTrue(table.containsKey(3));
+        assertTrue(table.containsValue("v3"));
+
+        try
+        {
+            table.add(3, "x");
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("v3", table.get(3));
+        }
+    }
+
+    @Test
+    public void collidingKeysSurviveRemovesAndReinserts()
+    {
+        HashTable table = new HashTable(CONSTANT_HASH);
+        for (int i = 0; i < 200; i++)
+            table.add(i, i);
+        for (int i = 0; i < 200; i += 3)
+            assertTrue(table.removeByKey(i));
+        for (int i = 0; i < 200; i += 3)
+            table.add(i, -i);
+
+        assertEquals(200, table.count());
+        for (int i = 0; i < 200; i++)
+            assertEquals((i % 3 == 0) ? -i : i, table.get(i));
+    }
+
+    @Test
+    public void iteratesAndCopiesEveryEntry()
+    {
+        HashTable table = new HashTable();
+        for (int i = 0; i < 100; i++)
+            table.add("k" + i, i);
+        table.removeByKey("k50");
+
+        Set<Object> keys = new HashSet<>();
+        for (KeyValuePair<Object, Object> kvp : table)
+        {
+            assertEquals("k" + kvp.getValue(), kvp.getKey());
+            assertTrue(keys.add(kvp.getKey()));
+        }
+        assertEquals(99, keys.size());
+
+        Object[] copiedKeys = new Object[99];
+        table.copyKeys(copiedKeys, 0);
+        assertEquals(keys, new HashSet<>(java.util.Arrays.asList(copiedKeys)));
+
+        assertTrue(table.contains(new KeyValuePair<>("k7", 7)));
+        assertFalse(table.contains(new KeyValuePair<>("k7", 8)));
+        assertTrue(table.remove(new KeyValuePair<>("k7", 7)));
+        assertEquals(98, table.count());
+    }
+
+    @Test
+    public void readersNeverSeeTornEntriesWhileWritersResize() throws InterruptedException
+    {
+        HashTable table = HashTable.synchronize(new HashTable());
+        int keyCount = 20_000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger failures = new AtomicInteger();
+
+        // Every value is the negated key, so a value read together with a wrong key is detected.
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++)
+        {
+            readers[r] = new Thread(() ->
+            {
+                while (!done.get())
+                {
+                    for (int key = 0; key < keyCount; key += 7)
+                    {
+                        Object value = table.get(key);
+                        if ((value != null) && ((Integer) value != -key))
+                            failures.incrementAndGet();
+                    }
+                }
+            });
+            readers[r].start();
+        }
+
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++)
+        {
+            int writer = w;
+            writers[w] = new Thread(() ->
+            {
+                for (int key = writer; key < keyCount; key += writers.length)
+                    table.add(key, -key);
+                for (int key = writer; key < keyCount; key += 2 * writers.length)
+                    table.removeByKey(key);
+            });
+            writers[w].start();
+        }
+
+        for (Thread writer : writers)
+            writer.join();
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+
+        assertEquals(0, failures.get());
+        assertEquals(keyCount / 2, table.count());
+        for (int key = 0; key < keyCount; key++)
+            assertEquals((key % 4 < 2) ? null : (Object) (-key), table.get(key));
+    }
+}
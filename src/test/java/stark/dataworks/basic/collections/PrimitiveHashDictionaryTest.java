@@ -0,0 +1,136 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+import stark.dataworks.basic.KeyNotFountException;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveHashDictionaryTest
+{
+    private static final int OPERATION_COUNT = 200_000;
+
+    @Test
+    public void intObjectMatchesHashMap()
+    {
+        IntObjectHashDictionary<String> dictionary = new IntObjectHashDictionary<>();
+        HashMap<Integer, String> expected = new HashMap<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < OPERATION_COUNT; i++)
+        {
+            // A small key range forces collisions, removals inside clusters and the free key 0.
+            int key = random.nextInt(2048) - 1024;
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(key) != null, dictionary.removeByKey(key));
+            else
+                assertEquals(expected.put(key, "v" + i), dictionary.put(key, "v" + i));
+        }
+
+        assertEquals(expected.size(), dictionary.count());
+        for (int key = -1024; key < 1024; key++)
+        {
+            assertEquals(expected.containsKey(key), dictionary.containsKey(key));
+            assertEquals(expected.get(key), dictionary.getOrDefault(key, null));
+        }
+
+        int visited = 0;
+        for (KeyValuePair<Integer, String> kvp : dictionary)
+        {
+            assertEquals(expected.get(kvp.getKey()), kvp.getValue());
+            visited++;
+        }
+        assertEquals(expected.size(), visited);
+    }
+
+    @Test
+    public void longLongMatchesHashMap()
+    {
+        LongLongHashDictionary dictionary = new LongLongHashDictionary(4);
+        HashMap<Long, Long> expected = new HashMap<>();
+        Random random = new Random(2);
+
+        for (int i = 0; i < OPERATION_COUNT; i++)
+        {
+            long key = (random.nextInt(4096) - 2048) * 0x1_0000_0000L;
+            switch (random.nextInt(3))
+            {
+                case 0:
+                    assertEquals(expected.remove(key) != null, dictionary.removeByKey(key));
+                    break;
+                case 1:
+                    assertEquals(expected.merge(key, 3L, Long::sum).longValue(), dictionary.addTo(key, 3));
+                    break;
+                default:
+                    assertEquals(!expected.containsKey(key), dictionary.put(key, i));
+                    expected.put(key, (long) i);
+                    break;
+            }
+        }
+
+        assertEquals(expected.size(), dictionary.count());
+        dictionary.forEach((key, value) -> assertEquals(expected.get(key).longValue(), value));
+        assertEquals(expected.size(), dictionary.keysToArray().length);
+    }
+
+    @Test
+    public void objectIntCountsWords()
+    {
+        ObjectIntHashDictionary<String> dictionary = new ObjectIntHashDictionary<>();
+        HashMap<String, Integer> expected = new HashMap<>();
+        Random random = new Random(3);
+
+        for (int i = 0; i < OPERATION_COUNT; i++)
+        {
+            String word = "w" + random.nextInt(1000);
+            if (random.nextInt(10) == 0)
+                assertEquals(expected.remove(word) != null, dictionary.removeByKey(word));
+            else
+                assertEquals(expected.merge(word, 1, Integer::sum).intValue(), dictionary.addTo(word, 1));
+        }
+
+        assertEquals(expected.size(), dictionary.count());
+        for (String word : dictionary.keys())
+            assertEquals(expected.get(word).intValue(), dictionary.getInt(word));
+    }
+
+    @Test
+    public void dictionaryContractIsKept()
+    {
+        IntObjectHashDictionary<String> dictionary = new IntObjectHashDictionary<>();
+        dictionary.add(0, null);
+        dictionary.add(1, "one");
+
+        assertTrue(dictionary.containsKey(0));
+        assertNull(dictionary.get(0));
+
+        try
+        {
+            dictionary.add(0, "zero");
+            fail();
+        }
+        catch (IllegalArgumentException ignored)
+        {
+        }
+
+        try
+        {
+            dictionary.get(2);
+            fail();
+        }
+        catch (KeyNotFountException ignored)
+        {
+        }
+
+        try
+        {
+            dictionary.set(2, "two");
+            fail();
+        }
+        catch (KeyNotFountException ignored)
+        {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class RingBufferTest
+{
+    private static final int PRODUCER_COUNT = 3;
+    private static final int CONSUMER_COUNT = 3;
+    private static final int PER_PRODUCER = 20_000;
+
+    @Test
+    public void roundsCapacityAndRejectsWhenFull()
+    {
+        RingBuffer<Integer> buffer = new RingBuffer<>(5);
+        assertEquals(8, buffer.capacity());
+
+        for (int i = 0; i < 8; i++)
+            assertTrue(buffer.offer(i));
+        assertFalse(buffer.offer(8));
+        assertEquals(8, buffer.count());
+
+        for (int i = 0; i < 8; i++)
+            assertEquals(Integer.valueOf(i), buffer.poll());
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void drainsInBatchesAcrossTheWrapAround()
+    {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        java.util.ArrayList<Integer> batch = new java.util.ArrayList<>();
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 10; round++)
+        {
+            while (buffer.offer(next))
+                next++;
+
+            batch.clear();
+            assertEquals(3, buffer.drainTo(batch, 3));
+            for (int value : batch)
+                assertEquals(expected++, value);
+        }
+
+        Integer[] array = new Integer[6];
+        int drained = buffer.drainTo(array, 1, 5);
+        assertEquals(next - expected, drained);
+        for (int i = 0; i < drained; i++)
+            assertEquals(Integer.valueOf(expected++), array[1 + i]);
+        assertEquals(0, buffer.drainTo(batch, 5));
+    }
+
+    @Test
+    public void handsOutEachElementOnceWithEveryWaitStrategy() throws InterruptedException
+    {
+        for (IWaitStrategy waitStrategy : new IWaitStrategy[]{IWaitStrategy.BUSY_SPIN, IWaitStrategy.YIELDING, IWaitStrategy.PARKING})
+            checkExactlyOnce(new RingBuffer<>(64, waitStrategy));
+    }
+
+    private static void checkExactlyOnce(RingBuffer<Integer> buffer) throws InterruptedException
+    {
+        int total = PRODUCER_COUNT * PER_PRODUCER;
+        AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[PRODUCER_COUNT + CONSUMER_COUNT];
+
+        for (int p = 0; p < PRODUCER_COUNT; p++)
+        {
+            int producer = p;
+            threads[p] = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                    for (int i = 0; i < PER_PRODUCER; i++)
+                        buffer.put(producer * PER_PRODUCER + i);
+                }
+                catch (InterruptedException e)
+                {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+
+        // Half of the consumers take one element at a time, the others drain batches.
+        for (int c = 0; c < CONSUMER_COUNT; c++)
+        {
+            boolean batched = (c % 2 == 1);
+            threads[PRODUCER_COUNT + c] = new Thread(() ->
+            {
+                Integer[] batch = new Integer[16];
+                try
+                {
+                    start.await();
+                    while (taken.get() < total)
+                    {
+                        int n = batched ? buffer.drainTo(batch, 0, batch.length) : 0;
+                        if (!batched)
+                        {
+                            Integer value = buffer.poll();
+                            if (value != null)
+                            {
+                                batch[0] = value;
+                                n = 1;
+                            }
+                        }
+
+                        if (n == 0)
+                        {
+                            Thread.yield();
+                            continue;
+                        }
+
+                        for (int i = 0; i < n; i++)
+                        {
+                            if (seen.getAndIncrement(batch[i]) != 0)
+                                failures.incrementAndGet();
+                        }
+                        taken.addAndGet(n);
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, failures.get());
+        assertEquals(total, taken.get());
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,89 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class SortedDictionaryTest
+{
+    private static SortedDictionary<Integer, String> randomDictionary(Random random, TreeMap<Integer, String> mirror)
+    {
+        SortedDictionary<Integer, String> dictionary = new SortedDictionary<>();
+        for (int i = 0; i < 3000; i++)
+        {
+            int key = random.nextInt(5000);
+            if (mirror.put(key, "v" + key) == null)
+                dictionary.add(key, "v" + key);
+        }
+
+        // Removals exercise the delete path that keeps the subtree counts.
+        for (int i = 0; i < 1000; i++)
+        {
+            int key = random.nextInt(5000);
+            assertEquals(mirror.remove(key) != null, dictionary.removeByKey(key));
+        }
+
+        return dictionary;
+    }
+
+    @Test
+    public void rankAndSelectAreInverse()
+    {
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        SortedDictionary<Integer, String> dictionary = randomDictionary(new Random(3), expected);
+
+        int index = 0;
+        for (int key : expected.keySet())
+        {
+            assertEquals(index, dictionary.rank(key));
+            assertEquals(Integer.valueOf(key), dictionary.select(index));
+            index++;
+        }
+
+        assertEquals(expected.headMap(2500).size(), dictionary.rank(2500));
+        assertEquals(0, dictionary.rank(-1));
+        assertEquals(expected.size(), dictionary.rank(99999));
+    }
+
+    @Test
+    public void floorCeilingAndRangesMatchTreeMap()
+    {
+        Random random = new Random(5);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        SortedDictionary<Integer, String> dictionary = randomDictionary(random, expected);
+
+        for (int i = 0; i < 2000; i++)
+        {
+            int lower = random.nextInt(5200) - 100;
+            int upper = lower + random.nextInt(300);
+
+            assertEquals(expected.floorKey(lower), dictionary.floor(lower));
+            assertEquals(expected.ceilingKey(lower), dictionary.ceiling(lower));
+            assertEquals(expected.subMap(lower, true, upper, true).size(), dictionary.rangeCount(lower, upper));
+
+            java.util.ArrayList<Integer> keys = new java.util.ArrayList<>();
+            for (int key : dictionary.keys(lower, upper))
+                keys.add(key);
+            assertEquals(new java.util.ArrayList<>(expected.subMap(lower, true, upper, true).keySet()), keys);
+        }
+
+        assertEquals(0, dictionary.rangeCount(10, 5));
+        assertFalse(dictionary.keys(10, 5).iterator().hasNext());
+    }
+
+    @Test
+    public void removingKeyValuePairKeepsCount()
+    {
+        SortedDictionary<Integer, String> dictionary = new SortedDictionary<>();
+        for (int i = 0; i < 10; i++)
+            dictionary.add(i, "v" + i);
+
+        assertFalse(dictionary.remove(new KeyValuePair<>(3, "x")));
+        assertTrue(dictionary.remove(new KeyValuePair<>(3, "v3")));
+        assertEquals(9, dictionary.count());
+        assertEquals(Integer.valueOf(4), dictionary.select(3));
+    }
+}
@@ -0,0 +1,224 @@
+package stark.dataworks.basic.collections;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class SortedSetTest
+{
+    private static void assertSameElements(Iterable<Integer> expected, SortedSet<Integer> actual)
+    {
+        java.util.ArrayList<Integer> expectedList = new java.util.ArrayList<>();
+        for (int item : expected)
+            expectedList.add(item);
+
+        java.util.ArrayList<Integer> actualList = new java.util.ArrayList<>();
+        for (int item : actual)
+            actualList.add(item);
+
+        assertEquals(expectedList, actualList);
+        assertEquals(expectedList.size(), actual.count());
+    }
+
+    private static SortedSet<Integer> randomSet(Random random, TreeSet<Integer> mirror, int size, int range)
+    {
+        SortedSet<Integer> set = new SortedSet<>();
+        for (int i = 0; i < size; i++)
+        {
+            int item = random.nextInt(range);
+            assertEquals(mirror.add(item), set.add(item));
+        }
+
+        return set;
+    }
+
+    @Test
+    public void addsAndRemovesLikeTreeSet()
+    {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        SortedSet<Integer> set = randomSet(random, expected, 5000, 3000);
+
+        for (int i = 0; i < 5000; i++)
+        {
+            int item = random.nextInt(3000);
+            assertEquals(expected.remove(item), set.remove(item));
+        }
+
+        assertSameElements(expected, set);
+        assertEquals(expected.first(), set.min());
+        assertEquals(expected.last(), set.max());
+
+        java.util.ArrayList<Integer> reversed = new java.util.ArrayList<>();
+        for (int item : set.reverse())
+            reversed.add(item);
+        assertEquals(new java.util.ArrayList<>(expected.descendingSet()), reversed);
+    }
+
+    @Test
+    public void setAlgebraMatchesTreeSet()
+    {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++)
+        {
+            TreeSet<Integer> a = new TreeSet<>();
+            TreeSet<Integer> b = new TreeSet<>();
+            SortedSet<Integer> sortedB = randomSet(random, b, random.nextInt(300), 500);
+            java.util.ArrayList<Integer> unsortedB = new java.util.ArrayList<>(b);
+            java.util.Collections.shuffle(unsortedB, random);
+
+            // Every operation is checked against both a sorted and an unsorted other collection.
+            for (Iterable<Integer> other : java.util.List.<Iterable<Integer>>of(sortedB, unsortedB))
+            {
+                a.clear();
+                SortedSet<Integer> set = randomSet(random, a, random.nextInt(300), 500);
+
+                TreeSet<Integer> union = new TreeSet<>(a);
+                union.addAll(b);
+                TreeSet<Integer> intersection = new TreeSet<>(a);
+                intersection.retainAll(b);
+                TreeSet<Integer> difference = new TreeSet<>(a);
+                difference.removeAll(b);
+                TreeSet<Integer> symmetric = new TreeSet<>(union);
+                symmetric.removeAll(intersection);
+
+                assertEquals(b.containsAll(a), set.isSubsetOf(other));
+                assertEquals(a.containsAll(b), set.isSupersetOf(other));
+                assertEquals(!intersection.isEmpty(), set.overlaps(other));
+                assertEquals(a.equals(b), set.setEquals(other));
+
+                SortedSet<Integer> copy = new SortedSet<>(set);
+                copy.unionWith(other);
+                assertSameElements(union, copy);
+                copy = new SortedSet<>(set);
+                copy.intersectWith(other);
+                assertSameElements(intersection, copy);
+                copy = new SortedSet<>(set);
+                copy.exceptWith(other);
+                assertSameElements(difference, copy);
+                copy.symmetricExceptWith(other);
+                assertSameElements(union.equals(difference) ? union : unionOf(difference, b), copy);
+                set.symmetricExceptWith(other);
+                assertSameElements(symmetric, set);
+
+                // The rebuilt tree must still be a valid red-black tree for later updates.
+                for (int i = 0; i < 200; i++)
+                {
+                    int item = random.nextInt(500);
+                    assertEquals(symmetric.add(item), set.add(item));
+                    item = random.nextInt(500);
+                    assertEquals(symmetric.remove(item), set.remove(item));
+                }
+                assertSameElements(symmetric, set);
+            }
+        }
+
+        // Like the other set operations, overlaps() rejects null elements of an unsorted collection.
+        SortedSet<Integer> set = new SortedSet<>(java.util.List.of(1));
+        try
+        {
+            set.overlaps(java.util.Arrays.asList(2, null));
+            fail();
+        }
+        catch (NullPointerException e)
+        {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void smallSetOperationsMatchTreeSet()
+    {
+        // Collections much smaller than the set are applied element by element rather than merged.
+        Random random = new Random(13);
+        for (int round = 0; round < 20; round++)
+        {
+            TreeSet<Integer> a = new TreeSet<>();
+            SortedSet<Integer> set = randomSet(random, a, 1000, 2000);
+
+            java.util.ArrayList<Integer> other = new java.util.ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                other.add(random.nextInt(2000));
+            other.add(other.get(0));
+            TreeSet<Integer> b = new TreeSet<>(other);
+
+            TreeSet<Integer> union = unionOf(a, b);
+            TreeSet<Integer> intersection = new TreeSet<>(a);
+            intersection.retainAll(b);
+            TreeSet<Integer> difference = new TreeSet<>(a);
+            difference.removeAll(b);
+            TreeSet<Integer> symmetric = new TreeSet<>(union);
+            symmetric.removeAll(intersection);
+
+            for (Iterable<Integer> collection : java.util.List.<Iterable<Integer>>of(other, new SortedSet<>(other)))
+            {
+                SortedSet<Integer> copy = new SortedSet<>(set);
+                copy.unionWith(collection);
+                assertSameElements(union, copy);
+                copy = new SortedSet<>(set);
+                copy.intersectWith(collection);
+                assertSameElements(intersection, copy);
+                copy = new SortedSet<>(set);
+                copy.exceptWith(collection);
+                assertSameElements(difference, copy);
+                copy = new SortedSet<>(set);
+                copy.symmetricExceptWith(collection);
+                assertSameElements(symmetric, copy);
+            }
+        }
+    }
+
+    private static TreeSet<Integer> unionOf(TreeSet<Integer> x, TreeSet<Integer> y)
+    {
+        TreeSet<Integer> union = new TreeSet<>(x);
+        union.addAll(y);
+        return union;
+    }
+
+    @Test
+    public void viewsAreLive()
+    {
+        SortedSet<Integer> set = new SortedSet<>(Comparator.<Integer>reverseOrder());
+        for (int i = 0; i < 100; i++)
+            set.add(i);
+
+        SortedSet<Integer> view = set.getViewBetween(60, 40);
+        assertEquals(21, view.count());
+        assertEquals(Integer.valueOf(60), view.min());
+        assertEquals(Integer.valueOf(40), view.max());
+
+        set.remove(50);
+        set.add(1000);
+        assertEquals(20, view.count());
+        assertFalse(view.contains(50));
+        assertFalse(view.contains(1000));
+
+        assertTrue(view.remove(45));
+        assertFalse(set.contains(45));
+        try
+        {
+            view.add(1001);
+            fail();
+        }
+        catch (stark.dataworks.basic.ArgumentOutOfRangeException e)
+        {
+            assertFalse(set.contains(1001));
+        }
+
+        SortedSet<Integer> inner = view.getViewBetween(55, 52);
+        assertArrayEquals(new Object[]{55, 54, 53, 52}, inner.toArray());
+
+        view.exceptWith(java.util.List.of(59, 58, 30));
+        assertEquals(17, view.count());
+        assertTrue(set.contains(30));
+
+        inner.clear();
+        assertEquals(0, inner.count());
+        assertEquals(13, view.count());
+        assertEquals(100 - 1 + 1 - 1 - 2 - 4, set.count());
+    }
+}
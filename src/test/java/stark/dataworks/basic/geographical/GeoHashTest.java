@@ -0,0 +1,36 @@
+package stark.dataworks.basic.geographical;
+
+import org.junit.Test;
+import stark.dataworks.basic.mathematics.geometry.BoundingBox;
+import stark.dataworks.basic.mathematics.geometry.Point;
+
+import static org.junit.Assert.*;
+
+public class GeoHashTest
+{
+    @Test
+    public void testEncodeAndDecode()
+    {
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+        assertEquals("ezs42", GeoHash.encode(new Point(-5.6, 42.6), 5));
+
+        BoundingBox cell = GeoHash.decode("ezs42");
+        assertTrue(cell.contains(-5.6, 42.6));
+        assertEquals(360.0 / (1 << 13), cell.getWidth(), 1e-12);
+        assertEquals(180.0 / (1 << 12), cell.getHeight(), 1e-12);
+
+        // A geohash is a prefix of the geohashes of the same location with more characters.
+        long bits = GeoHash.encodeBits(42.6, -5.6, 52);
+        assertEquals(GeoHash.encodeBits(42.6, -5.6, 25), bits >>> 27);
+        assertTrue(GeoHash.decodeBits(bits, 52).contains(-5.6, 42.6));
+
+        try
+        {
+            GeoHash.decode("ezs4a");
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+import stark.dataworks.basic.collections.KeyValuePair;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class BPlusTreeTest
+{
+    private static void assertSameContents(TreeMap<Integer, String> expected, BPlusTree<Integer, String> tree)
+    {
+        assertEquals(expected.size(), tree.count());
+        Iterator<Map.Entry<Integer, String>> expectedEntries = expected.entrySet().iterator();
+        for (KeyValuePair<Integer, String> pair : tree)
+        {
+            Map.Entry<Integer, String> entry = expectedEntries.next();
+            assertEquals(entry.getKey(), pair.getKey());
+            assertEquals(entry.getValue(), pair.getValue());
+        }
+        assertFalse(expectedEntries.hasNext());
+    }
+
+    @Test
+    public void testRandomOperations()
+    {
+        Random random = new Random(11);
+        for (int fanout : new int[]{3, 4, 7, 64})
+        {
+            TreeMap<Integer, String> mirror = new TreeMap<>();
+            BPlusTree<Integer, String> tree = new BPlusTree<>(fanout);
+            for (int i = 0; i < 20000; i++)
+            {
+                int key = random.nextInt(3000);
+                int operation = random.nextInt(3);
+                if (operation == 0)
+                {
+                    tree.set(key, "v" + i);
+                    mirror.put(key, "v" + i);
+                }
+                else if (operation == 1)
+                    assertEquals(mirror.remove(key) != null, tree.removeByKey(key));
+                else
+                {
+                    assertEquals(mirror.containsKey(key), tree.containsKey(key));
+                    if (mirror.containsKey(key))
+                        assertEquals(mirror.get(key), tree.get(key));
+                }
+            }
+
+            assertSameContents(mirror, tree);
+            for (Integer key : mirror.keySet().toArray(new Integer[0]))
+                assertTrue(tree.removeByKey(key));
+            assertEquals(0, tree.count());
+            assertEquals(0, tree.height());
+            assertFalse(tree.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testBulkLoad()
+    {
+        for (int n : new int[]{0, 1, 5, 64, 65, 97, 10000})
+        {
+            TreeMap<Integer, String> mirror = new TreeMap<>();
+            java.util.ArrayList<KeyValuePair<Integer, String>> pairs = new java.util.ArrayList<>();
+            for (int i = 0; i < n; i++)
+            {
+                mirror.put(i * 2, "v" + i);
+                pairs.add(new KeyValuePair<>(i * 2, "v" + i));
+            }
+
+            BPlusTree<Integer, String> tree = BPlusTree.bulkLoad(8, pairs);
+            assertSameContents(mirror, tree);
+            for (int i = 0; i < n; i++)
+                assertEquals("v" + i, tree.get(i * 2));
+
+            // The loaded tree must stay valid under later insertions and removals.
+            for (int i = 0; i < n; i += 3)
+            {
+                tree.add(i * 2 + 1, "odd");
+                mirror.put(i * 2 + 1, "odd");
+                assertTrue(tree.removeByKey(i * 2));
+                mirror.remove(i * 2);
+            }
+            assertSameContents(mirror, tree);
+        }
+
+        java.util.ArrayList<KeyValuePair<Integer, String>> unsorted = new java.util.ArrayList<>();
+        unsorted.add(new KeyValuePair<>(2, "a"));
+        unsorted.add(new KeyValuePair<>(1, "b"));
+        try
+        {
+            BPlusTree.bulkLoad(8, unsorted);
+            fail();
+        }
+        catch (IllegalArgumentException ignored)
+        {
+        }
+    }
+
+    @Test
+    public void testRangeEntries()
+    {
+        Random random = new Random(12);
+        TreeMap<Integer, String> mirror = new TreeMap<>();
+        BPlusTree<Integer, String> tree = new BPlusTree<>(5);
+        for (int i = 0; i < 4000; i++)
+        {
+            int key = random.nextInt(10000);
+            mirror.put(key, "v" + key);
+            tree.set(key, "v" + key);
+        }
+
+        for (int i = 0; i < 300; i++)
+        {
+            int from = random.nextInt(10200) - 100;
+            int to = from + random.nextInt(600);
+            Iterator<Integer> expected = mirror.subMap(from, true, to, true).keySet().iterator();
+            for (KeyValuePair<Integer, String> pair : tree.entries(from, to))
+                assertEquals(expected.next(), pair.getKey());
+            assertFalse(expected.hasNext());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.collections.KeyValuePair;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class BTreeTest
+{
+    private static BTree<Integer, String> randomTree(Random random, TreeMap<Integer, String> mirror)
+    {
+        BTree<Integer, String> tree = new BTree<>(4);
+        for (int i = 0; i < 3000; i++)
+        {
+            int key = random.nextInt(5000);
+            if (mirror.put(key, "v" + key) == null)
+                tree.add(key, "v" + key);
+        }
+
+        for (int i = 0; i < 500; i++)
+        {
+            int key = random.nextInt(5000);
+            if (mirror.remove(key) != null)
+                assertTrue(tree.removeByKey(key));
+        }
+
+        return tree;
+    }
+
+    @Test
+    public void testIterationMatchesTreeMap()
+    {
+        TreeMap<Integer, String> mirror = new TreeMap<>();
+        BTree<Integer, String> tree = randomTree(new Random(9), mirror);
+
+        Iterator<Integer> expectedKeys = mirror.keySet().iterator();
+        for (Integer key : tree.keys())
+            assertEquals(expectedKeys.next(), key);
+        assertFalse(expectedKeys.hasNext());
+
+        Iterator<String> expectedValues = mirror.values().iterator();
+        for (String value : tree.values())
+            assertEquals(expectedValues.next(), value);
+        assertFalse(expectedValues.hasNext());
+
+        Iterator<Map.Entry<Integer, String>> expectedEntries = mirror.entrySet().iterator();
+        for (KeyValuePair<Integer, String> pair : tree)
+        {
+            Map.Entry<Integer, String> expected = expectedEntries.next();
+            assertEquals(expected.getKey(), pair.getKey());
+            assertEquals(expected.getValue(), pair.getValue());
+        }
+        assertFalse(expectedEntries.hasNext());
+
+        tree.clear();
+        assertFalse(tree.keys().iterator().hasNext());
+        tree.add(1, "v1");
+        assertEquals(Integer.valueOf(1), tree.keys().iterator().next());
+    }
+
+    @Test
+    public void testRangeEntries()
+    {
+        Random random = new Random(10);
+        TreeMap<Integer, String> mirror = new TreeMap<>();
+        BTree<Integer, String> tree = randomTree(random, mirror);
+
+        for (int i = 0; i < 200; i++)
+        {
+            int from = random.nextInt(5200) - 100;
+            int to = from + random.nextInt(400) - 50;
+            Iterator<Integer> expected = (from <= to)
+                    ? mirror.subMap(from, true, to, true).keySet().iterator()
+                    : java.util.Collections.emptyIterator();
+            for (KeyValuePair<Integer, String> pair : tree.entries(from, to))
+                assertEquals(expected.next(), pair.getKey());
+            assertFalse(expected.hasNext());
+        }
+    }
+
+    @Test
+    public void testModificationDuringIteration()
+    {
+        BTree<Integer, String> tree = new BTree<>(4);
+        for (int i = 0; i < 100; i++)
+            tree.add(i, "v" + i);
+
+        try
+        {
+            for (Integer key : tree.keys())
+                tree.removeByKey(key);
+            fail();
+        }
+        catch (InvalidOperationException e)
+        {
+            assertEquals(99, tree.count());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BinarySearchTest
+{
+    private static int expectedLowerBound(long[] values, long target)
+    {
+        int i = 0;
+        while ((i < values.length) && (values[i] < target))
+            i++;
+        return i;
+    }
+
+    private static int expectedUpperBound(long[] values, long target)
+    {
+        int i = 0;
+        while ((i < values.length) && (values[i] <= target))
+            i++;
+        return i;
+    }
+
+    @Test
+    public void testBoundsAndBatchedSearch()
+    {
+        Random random = new Random(14);
+        for (int n = 0; n <= 70; n++)
+        {
+            // Duplicates and gaps, so that hits, misses and runs of equal values are all probed.
+            long[] values = new long[n];
+            for (int i = 0; i < n; i++)
+                values[i] = random.nextInt(3 * n + 1);
+            Arrays.sort(values);
+            int[] ints = new int[n];
+            double[] doubles = new double[n];
+            for (int i = 0; i < n; i++)
+            {
+                ints[i] = (int) values[i];
+                doubles[i] = values[i];
+            }
+
+            EytzingerArray eytzinger = new EytzingerArray(values);
+            long[] targets = new long[3 * n + 3];
+            for (int i = 0; i < targets.length; i++)
+                targets[i] = i - 1;
+            int[] results = new int[targets.length];
+            BinarySearch.searchAll(values, targets, results);
+
+            for (int i = 0; i < targets.length; i++)
+            {
+                long target = targets[i];
+                int lower = expectedLowerBound(values, target);
+                int upper = expectedUpperBound(values, target);
+                int expectedSearch = (lower < upper) ? lower : ~lower;
+
+                assertEquals(lower, BinarySearch.lowerBound(values, target));
+                assertEquals(upper, BinarySearch.upperBound(values, target));
+                assertEquals(lower, BinarySearch.lowerBound(ints, (int) target));
+                assertEquals(upper, BinarySearch.upperBound(ints, (int) target));
+                assertEquals(lower, BinarySearch.lowerBound(doubles, target));
+                assertEquals(upper, BinarySearch.upperBound(doubles, target));
+                assertEquals(lower, eytzinger.lowerBound(target));
+                assertEquals(upper, eytzinger.upperBound(target));
+                assertEquals(expectedSearch, eytzinger.search(target));
+                assertEquals(expectedSearch, results[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testExtremeValues()
+    {
+        long[] values = {Long.MIN_VALUE, -1, 0, Long.MAX_VALUE};
+        EytzingerArray eytzinger = new EytzingerArray(values);
+        assertEquals(0, BinarySearch.lowerBound(values, Long.MIN_VALUE));
+        assertEquals(0, eytzinger.lowerBound(Long.MIN_VALUE));
+        assertEquals(4, BinarySearch.upperBound(values, Long.MAX_VALUE));
+        assertEquals(4, eytzinger.upperBound(Long.MAX_VALUE));
+        assertEquals(3, eytzinger.search(Long.MAX_VALUE));
+        assertEquals(~3, eytzinger.search(5));
+
+        try
+        {
+            BinarySearch.searchAll(values, new long[3], new int[2]);
+            fail();
+        }
+        catch (IllegalArgumentException ignored)
+        {
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+import stark.dataworks.basic.ArgumentOutOfRangeException;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactGridIndexTest
+{
+    private static final double MIN_X = -50;
+    private static final double MAX_X = 150;
+    private static final double MIN_Y = 10;
+    private static final double MAX_Y = 60;
+    private static final int ROW_COUNT = 20;
+    private static final int COLUMN_COUNT = 10;
+
+    private static int rowOf(double x)
+    {
+        return Math.min((int) ((x - MIN_X) / 10), ROW_COUNT - 1);
+    }
+
+    private static int columnOf(double y)
+    {
+        return Math.min((int) ((y - MIN_Y) / 5), COLUMN_COUNT - 1);
+    }
+
+    @Test
+    public void testCellsAndPatches()
+    {
+        Random random = new Random(15);
+        int n = 5000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        Integer[] elements = new Integer[n];
+        for (int i = 0; i < n; i++)
+        {
+            xs[i] = MIN_X + random.nextDouble() * (MAX_X - MIN_X);
+            ys[i] = MIN_Y + random.nextDouble() * (MAX_Y - MIN_Y);
+            elements[i] = i;
+        }
+        xs[0] = MAX_X;
+        ys[0] = MAX_Y;
+
+        CompactGridIndex<Integer> grid = new CompactGridIndex<>(MIN_X, MAX_X, MIN_Y, MAX_Y, ROW_COUNT, COLUMN_COUNT, xs, ys, elements);
+        assertEquals(n, grid.count());
+
+        // Every cell holds exactly its elements, in input order.
+        int total = 0;
+        for (int row = 0; row < ROW_COUNT; row++)
+        {
+            for (int column = 0; column < COLUMN_COUNT; column++)
+            {
+                int previous = -1;
+                int cellCount = 0;
+                for (Integer element : grid.getElements(row, column))
+                {
+                    assertEquals(row, rowOf(xs[element]));
+                    assertEquals(column, columnOf(ys[element]));
+                    assertTrue(element > previous);
+                    previous = element;
+                    cellCount++;
+                }
+                assertEquals(grid.count(row, column), cellCount);
+                total += cellCount;
+            }
+        }
+        assertEquals(n, total);
+
+        for (int q = 0; q < 200; q++)
+        {
+            int minRow = random.nextInt(ROW_COUNT);
+            int maxRow = minRow + random.nextInt(ROW_COUNT - minRow);
+            int minColumn = random.nextInt(COLUMN_COUNT);
+            int maxColumn = minColumn + random.nextInt(COLUMN_COUNT - minColumn);
+
+            boolean[] expected = new boolean[n];
+            int expectedCount = 0;
+            for (int i = 0; i < n; i++)
+            {
+                int row = rowOf(xs[i]);
+                int column = columnOf(ys[i]);
+                expected[i] = (row >= minRow) && (row <= maxRow) && (column >= minColumn) && (column <= maxColumn);
+                expectedCount += expected[i] ? 1 : 0;
+            }
+
+            int[] visited = new int[1];
+            grid.forEachInPatch(minRow, maxRow, minColumn, maxColumn, (x, y, element) ->
+            {
+                assertTrue(expected[element]);
+                assertEquals(xs[element], x, 0);
+                assertEquals(ys[element], y, 0);
+                visited[0]++;
+            });
+            assertEquals(expectedCount, visited[0]);
+
+            int viewed = 0;
+            for (Integer element : grid.getPatch(minRow, maxRow, minColumn, maxColumn))
+            {
+                assertTrue(expected[element]);
+                viewed++;
+            }
+            assertEquals(expectedCount, viewed);
+        }
+    }
+
+    @Test
+    public void testAdjacent()
+    {
+        double[] xs = {-50, -45, 0, 100, 149};
+        double[] ys = {10, 12, 30, 59, 60};
+        String[] elements = {"a", "b", "c", "d", "e"};
+        CompactGridIndex<String> grid = new CompactGridIndex<>(MIN_X, MAX_X, MIN_Y, MAX_Y, ROW_COUNT, COLUMN_COUNT, xs, ys, elements);
+
+        StringBuilder found = new StringBuilder();
+        grid.forEachAdjacent(-60, 5, 12, (x, y, element) -> found.append(element));
+        assertEquals("ab", found.toString());
+
+        found.setLength(0);
+        for (String element : grid.adjacent(145, 58, 1))
+            found.append(element);
+        assertEquals("e", found.toString());
+
+        assertFalse(grid.adjacent(1000, 1000, 10).iterator().hasNext());
+
+        try
+        {
+            new CompactGridIndex<>(MIN_X, MAX_X, MIN_Y, MAX_Y, ROW_COUNT, COLUMN_COUNT, new double[]{151}, new double[]{20}, new String[]{"x"});
+            fail();
+        }
+        catch (ArgumentOutOfRangeException ignored)
+        {
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+import stark.dataworks.basic.collections.KeyValuePair;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentBTreeTest
+{
+    @Test
+    public void testRandomOperations()
+    {
+        Random random = new Random(21);
+        for (int fanout : new int[]{3, 4, 7, 64})
+        {
+            TreeMap<Integer, String> mirror = new TreeMap<>();
+            ConcurrentBTree<Integer, String> tree = new ConcurrentBTree<>(fanout);
+            for (int i = 0; i < 20000; i++)
+            {
+                int key = random.nextInt(3000);
+                int operation = random.nextInt(4);
+                if (operation == 0)
+                    assertEquals(mirror.put(key, "v" + i), tree.put(key, "v" + i));
+                else if (operation == 1)
+                    assertEquals(mirror.putIfAbsent(key, "a" + i) == null, tree.tryAdd(key, "a" + i));
+                else if (operation == 2)
+                    assertEquals(mirror.remove(key), tree.tryRemove(key));
+                else
+                    assertEquals(mirror.get(key), tree.getOrDefault(key, null));
+            }
+
+            assertEquals(mirror.size(), tree.count());
+            Iterator<Map.Entry<Integer, String>> expected = mirror.entrySet().iterator();
+            for (KeyValuePair<Integer, String> pair : tree)
+            {
+                Map.Entry<Integer, String> entry = expected.next();
+                assertEquals(entry.getKey(), pair.getKey());
+                assertEquals(entry.getValue(), pair.getValue());
+            }
+            assertFalse(expected.hasNext());
+
+            Iterator<Integer> expectedKeys = mirror.subMap(1000, true, 2000, true).keySet().iterator();
+            for (KeyValuePair<Integer, String> pair : tree.entries(1000, 2000))
+                assertEquals(expectedKeys.next(), pair.getKey());
+            assertFalse(expectedKeys.hasNext());
+
+            tree.clear();
+            assertEquals(0, tree.count());
+            assertFalse(tree.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testConcurrentWriters() throws InterruptedException
+    {
+        int threadCount = 4;
+        int keysPerThread = 20000;
+        ConcurrentBTree<Integer, Integer> tree = new ConcurrentBTree<>(8);
+        Thread[] threads = new Thread[threadCount];
+
+        // A failed assertion in a worker would only end that thread, so failures are checked on this thread.
+        AtomicInteger failedRemovals = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int t = 0; t < threadCount; t++)
+        {
+            int offset = t;
+            threads[t] = new Thread(() ->
+            {
+                // Interleaved keys, so that the threads split the same leaves.
+                for (int i = 0; i < keysPerThread; i++)
+                    tree.add(i * threadCount + offset, offset);
+                for (int i = 0; i < keysPerThread; i += 2)
+                {
+                    if (!Integer.valueOf(offset).equals(tree.tryRemove(i * threadCount + offset)))
+                        failedRemovals.incrementAndGet();
+                }
+            });
+            threads[t].setUncaughtExceptionHandler((thread, e) -> error.compareAndSet(null, e));
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+
+        // Readers must never see a torn node while the writers split.
+        int total = threadCount * keysPerThread;
+        boolean running = true;
+        while (running)
+        {
+            int previous = -1;
+            for (Integer key : tree.keys())
+            {
+                assertTrue(key > previous);
+                previous = key;
+            }
+
+            running = false;
+            for (Thread thread : threads)
+                running |= thread.isAlive();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertNull(error.get());
+        assertEquals(0, failedRemovals.get());
+        assertEquals(total / 2, tree.count());
+        for (int key = 0; key < total; key++)
+        {
+            boolean removed = ((key / threadCount) & 1) == 0;
+            assertEquals(!removed, tree.containsKey(key));
+            if (!removed)
+                assertEquals(Integer.valueOf(key % threadCount), tree.get(key));
+        }
+    }
+}
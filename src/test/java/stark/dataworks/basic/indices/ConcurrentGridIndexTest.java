@@ -0,0 +1,109 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentGridIndexTest
+{
+    @Test
+    public void testConcurrentAddAndRemove() throws InterruptedException
+    {
+        ConcurrentGridIndex<Integer> grid = new ConcurrentGridIndex<>(0, 100, 0, 100, 10, 10, 4);
+        int threadCount = 4;
+        int perThread = 5000;
+        Thread[] threads = new Thread[threadCount];
+
+        // A failed assertion in a worker would only end that thread, so failures are checked on this thread.
+        AtomicInteger failedRemovals = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int t = 0; t < threadCount; t++)
+        {
+            int offset = t * perThread;
+            threads[t] = new Thread(() ->
+            {
+                for (int i = 0; i < perThread; i++)
+                {
+                    int key = offset + i;
+                    grid.add(key % 100 + 0.5, (key / 100) % 100 + 0.5, key);
+                }
+
+                // Remove the odd keys again, while other threads are still adding to the same cells.
+                for (int i = 1; i < perThread; i += 2)
+                {
+                    int key = offset + i;
+                    if (!grid.remove((key % 100) / 10, ((key / 100) % 100) / 10, key))
+                        failedRemovals.incrementAndGet();
+                }
+            });
+            threads[t].setUncaughtExceptionHandler((thread, e) -> error.compareAndSet(null, e));
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertNull(error.get());
+        assertEquals(0, failedRemovals.get());
+
+        assertEquals(threadCount * perThread / 2, grid.count());
+        Set<Integer> keys = new HashSet<>();
+        for (Integer key : grid.getPatch(0, 9, 0, 9))
+        {
+            assertEquals(0, key % 2);
+            assertTrue(keys.add(key));
+        }
+        assertEquals(threadCount * perThread / 2, keys.size());
+
+        grid.clear();
+        assertEquals(0, grid.count());
+        assertFalse(grid.getElements(3, 3).iterator().hasNext());
+    }
+
+    @Test
+    public void testSnapshotsAndRadius()
+    {
+        ConcurrentGridIndex<String> grid = new ConcurrentGridIndex<>(-10, 10, -10, 10, 4, 4);
+        grid.add(0.5, 0.5, "a");
+        grid.add(1, 1, "b");
+        grid.add(9, 9, "c");
+
+        Iterable<String> snapshot = grid.getElements(2, 2);
+        grid.add(2, 2, "d");
+        assertTrue(grid.remove(2, 2, "a"));
+        assertFalse(grid.remove(2, 2, "a"));
+
+        StringBuilder before = new StringBuilder();
+        for (String element : snapshot)
+            before.append(element);
+        assertEquals("ab", before.toString());
+
+        StringBuilder after = new StringBuilder();
+        for (String element : grid.getElements(2, 2))
+            after.append(element);
+        assertEquals("bd", after.toString());
+
+        Set<String> near = new HashSet<>();
+        for (String element : grid.withinRadius(0, 0, 3, GridIndex.EUCLIDEAN))
+            near.add(element);
+        assertEquals(Set.of("b", "d"), near);
+
+        int adjacent = 0;
+        for (String element : grid.adjacent(9.0, 9.0, 0, 0))
+            adjacent++;
+        assertEquals(1, adjacent);
+
+        try
+        {
+            grid.getPatch(0, 4, 0, 0);
+            fail();
+        }
+        catch (stark.dataworks.basic.ArgumentOutOfRangeException e)
+        {
+        }
+    }
+}
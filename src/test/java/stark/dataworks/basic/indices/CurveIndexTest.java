@@ -0,0 +1,127 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CurveIndexTest
+{
+    @Test
+    public void testCodes()
+    {
+        Random random = new Random(20);
+        for (int i = 0; i < 10000; i++)
+        {
+            int x = i == 0 ? Integer.MAX_VALUE : random.nextInt(Integer.MAX_VALUE);
+            int y = i == 0 ? Integer.MAX_VALUE : random.nextInt(Integer.MAX_VALUE);
+
+            long morton = MortonCode.encode(x, y);
+            assertTrue(morton >= 0);
+            assertEquals(x, MortonCode.decodeX(morton));
+            assertEquals(y, MortonCode.decodeY(morton));
+
+            long hilbert = HilbertCode.encode(x, y);
+            assertTrue(hilbert >= 0);
+            assertArrayEquals(new int[]{x, y}, HilbertCode.decode(hilbert));
+
+            // Consecutive keys on the Hilbert curve are adjacent cells.
+            int[] next = HilbertCode.decode(hilbert + 1);
+            if (hilbert + 1 < (1L << 62))
+                assertEquals(1, Math.abs(next[0] - x) + Math.abs(next[1] - y));
+        }
+
+        assertEquals(0b1001, MortonCode.encode(1, 2));
+        try
+        {
+            MortonCode.encode(-1, 0);
+            fail();
+        }
+        catch (stark.dataworks.basic.ArgumentOutOfRangeException e)
+        {
+        }
+    }
+
+    @Test
+    public void testRangeQueries()
+    {
+        Random random = new Random(21);
+        int n = 20000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        Integer[] elements = new Integer[n];
+        for (int i = 0; i < n; i++)
+        {
+            xs[i] = -180 + random.nextDouble() * 360;
+            ys[i] = -90 + random.nextDouble() * 180;
+            elements[i] = i;
+        }
+
+        for (CurveIndex.Curve curve : CurveIndex.Curve.values())
+        {
+            CurveIndex<Integer> index = new CurveIndex<>(-180, 180, -90, 90, curve, xs, ys, elements);
+            assertEquals(n, index.count());
+
+            for (int q = 0; q < 100; q++)
+            {
+                double minX = -200 + random.nextDouble() * 400;
+                double minY = -100 + random.nextDouble() * 200;
+                double maxX = minX + random.nextDouble() * (q % 2 == 0 ? 5 : 100);
+                double maxY = minY + random.nextDouble() * (q % 2 == 0 ? 5 : 100);
+
+                Set<Integer> expected = new HashSet<>();
+                for (int i = 0; i < n; i++)
+                {
+                    if ((xs[i] >= minX) && (xs[i] <= maxX) && (ys[i] >= minY) && (ys[i] <= maxY))
+                        expected.add(i);
+                }
+
+                Set<Integer> actual = new HashSet<>();
+                for (Integer element : index.range(minX, maxX, minY, maxY))
+                    actual.add(element);
+                assertEquals(expected, actual);
+
+                long[] ranges = index.keyRanges(minX, maxX, minY, maxY);
+                assertTrue(ranges.length <= 2 * 4 * 4 * (8 + 2) * (8 + 2));
+                for (int r = 2; r < ranges.length; r += 2)
+                    assertTrue(ranges[r] > ranges[r - 1] + 1);
+                for (Integer element : expected)
+                {
+                    long key = index.keyOf(xs[element], ys[element]);
+                    boolean covered = false;
+                    for (int r = 0; r < ranges.length; r += 2)
+                        covered |= (key >= ranges[r]) && (key <= ranges[r + 1]);
+                    assertTrue(covered);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPointsOutsideBounds()
+    {
+        double[] xs = { -190, 0, 185, 185 };
+        double[] ys = { 0, 95, -95, 10 };
+        Integer[] elements = { 0, 1, 2, 3 };
+        for (CurveIndex.Curve curve : CurveIndex.Curve.values())
+        {
+            CurveIndex<Integer> index = new CurveIndex<>(-180, 180, -90, 90, curve, xs, ys, elements);
+            for (int i = 0; i < xs.length; i++)
+            {
+                Set<Integer> actual = new HashSet<>();
+                for (Integer element : index.range(xs[i] - 1, xs[i] + 1, ys[i] - 1, ys[i] + 1))
+                    actual.add(element);
+                assertEquals(Collections.singleton(i), actual);
+            }
+
+            Set<Integer> all = new HashSet<>();
+            for (Integer element : index.range(-200, 200, -100, 100))
+                all.add(element);
+            assertEquals(4, all.size());
+        }
+    }
+}
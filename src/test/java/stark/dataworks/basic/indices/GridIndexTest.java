@@ -0,0 +1,105 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GridIndexTest
+{
+    @Test
+    public void testWithinRadiusAndKNearest()
+    {
+        Random random = new Random(16);
+        int n = 3000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        GridIndex<Integer> grid = new GridIndex<>(-50, 150, 10, 60, 20, 10);
+        for (int i = 0; i < n; i++)
+        {
+            xs[i] = -50 + random.nextDouble() * 200;
+            ys[i] = 10 + random.nextDouble() * 50;
+            grid.add(xs[i], ys[i], i);
+        }
+        assertEquals(n, grid.count());
+
+        for (int q = 0; q < 50; q++)
+        {
+            double x = -70 + random.nextDouble() * 240;
+            double y = random.nextDouble() * 70;
+            double radius = random.nextDouble() * 30;
+
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < n; i++)
+            {
+                if (Math.hypot(xs[i] - x, ys[i] - y) <= radius)
+                    expected.add(i);
+            }
+            Set<Integer> actual = new HashSet<>();
+            for (Integer element : grid.withinRadius(x, y, radius))
+                actual.add(element);
+            assertEquals(expected, actual);
+
+            int k = 1 + random.nextInt(20);
+            double[] distances = new double[n];
+            for (int i = 0; i < n; i++)
+                distances[i] = Math.hypot(xs[i] - x, ys[i] - y);
+            double[] sorted = distances.clone();
+            Arrays.sort(sorted);
+
+            int found = 0;
+            double previous = 0;
+            for (Integer element : grid.kNearest(x, y, k))
+            {
+                assertEquals(sorted[found], distances[element], 1e-9);
+                assertTrue(distances[element] >= previous);
+                previous = distances[element];
+                found++;
+            }
+            assertEquals(k, found);
+        }
+
+        CompactGridIndex<Integer> compact = grid.compact();
+        assertEquals(n, compact.count());
+    }
+
+    @Test
+    public void testAddRemoveAndClear()
+    {
+        GridIndex<String> grid = new GridIndex<>(10, 20, 0, 10, 10, 10);
+        grid.add(10.5, 0.5, "a");
+        grid.add(20.0, 10.0, "b");
+        grid.add(15, 5, "c");
+        assertEquals(3, grid.count());
+        assertEquals("a", grid.getElements(0, 0).iterator().next());
+        assertEquals("b", grid.getElements(9, 9).iterator().next());
+        assertEquals("c", grid.getElements(5, 5).iterator().next());
+
+        grid.remove(0, 0, "a");
+        grid.remove(0, 0, "a");
+        assertEquals(2, grid.count());
+        assertFalse(grid.getElements(0, 0).iterator().hasNext());
+
+        int found = 0;
+        for (String element : grid.kNearest(0, 0, 5))
+            found++;
+        assertEquals(2, found);
+
+        grid.clear();
+        assertEquals(0, grid.count());
+        assertFalse(grid.kNearest(15, 5, 1).iterator().hasNext());
+
+        try
+        {
+            grid.kNearest(15, 5, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class KdTreeTest
+{
+    /**
+     * Points clustered around a few centers, with many duplicates, like GPS points of a city.
+     */
+    static void skewedPoints(Random random, double[] xs, double[] ys)
+    {
+        for (int i = 0; i < xs.length; i++)
+        {
+            if (i % 10 == 0)
+            {
+                xs[i] = random.nextDouble() * 1000;
+                ys[i] = random.nextDouble() * 1000;
+            }
+            else if (i % 10 == 1)
+            {
+                xs[i] = 123.0;
+                ys[i] = 456.0;
+            }
+            else
+            {
+                int cluster = random.nextInt(3);
+                xs[i] = Math.min(Math.max(200 + 300 * cluster + random.nextGaussian() * 5, 0), 1000);
+                ys[i] = Math.min(Math.max(300 + 200 * cluster + random.nextGaussian() * 5, 0), 1000);
+            }
+        }
+    }
+
+    @Test
+    public void testQueries()
+    {
+        Random random = new Random(19);
+        int n = 20000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        Integer[] elements = new Integer[n];
+        skewedPoints(random, xs, ys);
+        for (int i = 0; i < n; i++)
+            elements[i] = i;
+
+        // Large enough to be built in parallel.
+        KdTree<Integer> tree = new KdTree<>(xs, ys, elements);
+        assertEquals(n, tree.count());
+
+        for (int q = 0; q < 50; q++)
+        {
+            int center = random.nextInt(n);
+            double x = xs[center] + random.nextGaussian() * 3;
+            double y = ys[center] + random.nextGaussian() * 3;
+            double radius = random.nextDouble() * 10;
+
+            Set<Integer> expectedInRange = new HashSet<>();
+            Set<Integer> expectedInRadius = new HashSet<>();
+            double[] distances = new double[n];
+            for (int i = 0; i < n; i++)
+            {
+                if ((xs[i] >= x - radius) && (xs[i] <= x + radius) && (ys[i] >= y) && (ys[i] <= y + radius))
+                    expectedInRange.add(i);
+                distances[i] = Math.hypot(xs[i] - x, ys[i] - y);
+                if (distances[i] <= radius)
+                    expectedInRadius.add(i);
+            }
+
+            Set<Integer> actual = new HashSet<>();
+            for (Integer element : tree.range(x - radius, x + radius, y, y + radius))
+                actual.add(element);
+            assertEquals(expectedInRange, actual);
+
+            actual.clear();
+            for (Integer element : tree.withinRadius(x, y, radius))
+                actual.add(element);
+            assertEquals(expectedInRadius, actual);
+
+            double[] sorted = distances.clone();
+            Arrays.sort(sorted);
+            int k = 1 + random.nextInt(30);
+            int found = 0;
+            for (Integer element : tree.kNearest(x, y, k))
+                assertEquals(sorted[found++], distances[element], 1e-9);
+            assertEquals(k, found);
+        }
+    }
+
+    @Test
+    public void testSmallTrees()
+    {
+        KdTree<String> empty = new KdTree<>(new double[0], new double[0], new String[0]);
+        assertFalse(empty.kNearest(0, 0, 3).iterator().hasNext());
+        assertFalse(empty.withinRadius(0, 0, 10).iterator().hasNext());
+
+        KdTree<String> tree = new KdTree<>(new double[]{0, 1, 2}, new double[]{0, 1, 2}, new String[]{"a", "b", "c"});
+        StringBuilder nearest = new StringBuilder();
+        for (String element : tree.kNearest(2.2, 2.2, 5))
+            nearest.append(element);
+        assertEquals("cba", nearest.toString());
+
+        try
+        {
+            new KdTree<>(new double[1], new double[2], new String[1]);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+}
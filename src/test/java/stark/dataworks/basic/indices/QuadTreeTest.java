@@ -0,0 +1,105 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class QuadTreeTest
+{
+    @Test
+    public void testQueriesAfterAddAndRemove()
+    {
+        Random random = new Random(20);
+        int n = 10000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        KdTreeTest.skewedPoints(random, xs, ys);
+
+        QuadTree<Integer> tree = new QuadTree<>(0, 1000, 0, 1000, 8);
+        for (int i = 0; i < n; i++)
+            tree.add(xs[i], ys[i], i);
+        assertEquals(n, tree.count());
+
+        // Remove every other point, which merges many subtrees back into leaves.
+        boolean[] present = new boolean[n];
+        for (int i = 0; i < n; i++)
+        {
+            present[i] = i % 2 == 0;
+            if (!present[i])
+                assertTrue(tree.remove(xs[i], ys[i], i));
+        }
+        assertFalse(tree.remove(xs[1], ys[1], 1));
+        assertEquals(n / 2, tree.count());
+
+        for (int q = 0; q < 50; q++)
+        {
+            int center = random.nextInt(n);
+            double x = xs[center] + random.nextGaussian() * 3;
+            double y = ys[center] + random.nextGaussian() * 3;
+            double radius = random.nextDouble() * 10;
+
+            Set<Integer> expected = new HashSet<>();
+            double[] distances = new double[n];
+            int m = 0;
+            double[] sorted = new double[n / 2];
+            for (int i = 0; i < n; i++)
+            {
+                distances[i] = Math.hypot(xs[i] - x, ys[i] - y);
+                if (!present[i])
+                    continue;
+
+                sorted[m++] = distances[i];
+                if (distances[i] <= radius)
+                    expected.add(i);
+            }
+            Arrays.sort(sorted);
+
+            Set<Integer> actual = new HashSet<>();
+            for (Integer element : tree.withinRadius(x, y, radius))
+                actual.add(element);
+            assertEquals(expected, actual);
+
+            int k = 1 + random.nextInt(30);
+            int found = 0;
+            for (Integer element : tree.kNearest(x, y, k))
+            {
+                assertTrue(present[element]);
+                assertEquals(sorted[found++], distances[element], 1e-9);
+            }
+            assertEquals(k, found);
+        }
+    }
+
+    @Test
+    public void testRangeAndBounds()
+    {
+        QuadTree<String> tree = new QuadTree<>(0, 10, 0, 10, 1);
+        tree.add(0, 0, "a");
+        tree.add(10, 10, "b");
+        tree.add(5, 5, "c");
+        tree.add(5, 5, "d");
+
+        Set<String> found = new HashSet<>();
+        for (String element : tree.range(4, 10, 4, 10))
+            found.add(element);
+        assertEquals(Set.of("b", "c", "d"), found);
+
+        try
+        {
+            tree.add(10.5, 0, "e");
+            fail();
+        }
+        catch (stark.dataworks.basic.ArgumentOutOfRangeException e)
+        {
+        }
+
+        tree.clear();
+        assertEquals(0, tree.count());
+        assertFalse(tree.kNearest(1, 1, 1).iterator().hasNext());
+    }
+}
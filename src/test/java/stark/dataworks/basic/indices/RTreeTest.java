@@ -0,0 +1,208 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+import stark.dataworks.basic.mathematics.geometry.BoundingBox;
+import stark.dataworks.basic.mathematics.geometry.Circle;
+import stark.dataworks.basic.mathematics.geometry.IShape2D;
+import stark.dataworks.basic.mathematics.geometry.LineSegment;
+import stark.dataworks.basic.mathematics.geometry.Point;
+import stark.dataworks.basic.mathematics.geometry.Polygon;
+import stark.dataworks.basic.mathematics.geometry.Polyline;
+import stark.dataworks.basic.mathematics.geometry.Rectangle;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RTreeTest
+{
+    private static IShape2D[] randomShapes(Random random, int n)
+    {
+        IShape2D[] shapes = new IShape2D[n];
+        for (int i = 0; i < n; i++)
+        {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            double size = 1 + random.nextDouble() * 20;
+            shapes[i] = (i % 2 == 0) ? new Circle(x, y, size) : new BoundingBox(x, y, x + size, y + size / 2);
+        }
+
+        return shapes;
+    }
+
+    private static void assertQueries(RTree<IShape2D> tree, Set<IShape2D> shapes, Random random)
+    {
+        assertEquals(shapes.size(), tree.count());
+        for (int q = 0; q < 100; q++)
+        {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+
+            Set<IShape2D> expected = new HashSet<>();
+            IShape2D nearest = null;
+            for (IShape2D shape : shapes)
+            {
+                if (shape.contains(x, y))
+                    expected.add(shape);
+                if ((nearest == null) || (shape.distanceTo(x, y) < nearest.distanceTo(x, y)))
+                    nearest = shape;
+            }
+
+            Set<IShape2D> actual = new HashSet<>();
+            for (IShape2D shape : tree.containing(x, y))
+                actual.add(shape);
+            assertEquals(expected, actual);
+            assertEquals(!expected.isEmpty(), tree.contains(x, y));
+            assertEquals(nearest.distanceTo(x, y), tree.nearest(x, y).distanceTo(x, y), 1e-9);
+
+            BoundingBox window = new BoundingBox(x, y, x + 50, y + 50);
+            int expectedCount = 0;
+            for (IShape2D shape : shapes)
+            {
+                BoundingBox box = RTree.boundsOf(shape);
+                if ((box.getMinX() <= x + 50) && (box.getMaxX() >= x) && (box.getMinY() <= y + 50) && (box.getMaxY() >= y))
+                    expectedCount++;
+            }
+            int actualCount = 0;
+            for (IShape2D shape : tree.intersecting(window))
+                actualCount++;
+            assertEquals(expectedCount, actualCount);
+        }
+    }
+
+    @Test
+    public void testBulkLoad()
+    {
+        Random random = new Random(18);
+        IShape2D[] shapes = randomShapes(random, 5000);
+        RTree<IShape2D> tree = new RTree<>(shapes, 16);
+        assertEquals(4, tree.height());
+
+        Set<IShape2D> set = new HashSet<>();
+        for (IShape2D shape : shapes)
+            set.add(shape);
+        assertQueries(tree, set, random);
+
+        double previous = 0;
+        int found = 0;
+        for (IShape2D shape : tree.nearest(500, 500, 10))
+        {
+            assertTrue(shape.distanceTo(500, 500) >= previous);
+            previous = shape.distanceTo(500, 500);
+            found++;
+        }
+        assertEquals(10, found);
+    }
+
+    @Test
+    public void testAddAndRemove()
+    {
+        Random random = new Random(19);
+        IShape2D[] shapes = randomShapes(random, 3000);
+        RTree<IShape2D> tree = new RTree<>(4);
+        Set<IShape2D> set = new HashSet<>();
+        for (IShape2D shape : shapes)
+        {
+            tree.add(shape);
+            set.add(shape);
+        }
+        assertQueries(tree, set, random);
+
+        for (int i = 0; i < shapes.length; i += 3)
+        {
+            assertTrue(tree.remove(shapes[i]));
+            assertFalse(tree.remove(shapes[i]));
+            set.remove(shapes[i]);
+        }
+        assertQueries(tree, set, random);
+
+        for (IShape2D shape : set)
+            assertTrue(tree.remove(shape));
+        assertEquals(0, tree.count());
+        assertEquals(1, tree.height());
+        assertFalse(tree.contains(500, 500));
+    }
+
+    private static double boxDistance(BoundingBox box, double x, double y)
+    {
+        double dx = Math.max(Math.max(box.getMinX() - x, x - box.getMaxX()), 0);
+        double dy = Math.max(Math.max(box.getMinY() - y, y - box.getMaxY()), 0);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Test
+    public void testNearestWithLineLikeAndAreaShapes()
+    {
+        // The line through this segment passes through the origin, but the segment itself is 1000 away.
+        LineSegment far = new LineSegment(new Point(1000, 0), new Point(1001, 0));
+        assertEquals(1000, far.distanceTo(0, 0), 1e-9);
+        RTree<IShape2D> small = new RTree<>(4);
+        small.add(far);
+        small.add(new Point(50, 50));
+        assertTrue(small.nearest(0, 0) instanceof Point);
+
+        Random random = new Random(180);
+        int n = 600;
+        BoundingBox[] boxes = new BoundingBox[n];
+        IShape2D[] shapes = new IShape2D[n];
+        for (int i = 0; i < n; i++)
+        {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            double size = 1 + random.nextDouble() * 40;
+            switch (i % 5)
+            {
+                case 0:
+                    shapes[i] = new LineSegment(new Point(x, y), new Point(x + size, y + random.nextDouble() * size - size / 2));
+                    break;
+                case 1:
+                    Polyline polyline = new Polyline();
+                    polyline.addEnd(x, y);
+                    polyline.addEnd(x + size, y + size);
+                    polyline.addEnd(x + 2 * size, y);
+                    shapes[i] = polyline;
+                    break;
+                case 2:
+                    Polygon polygon = new Polygon();
+                    polygon.add(x, y);
+                    polygon.add(x + size, y);
+                    polygon.add(x + size / 2, y + size);
+                    shapes[i] = polygon;
+                    boxes[i] = new BoundingBox(x, y, x + size, y + size);
+                    break;
+                case 3:
+                    shapes[i] = new Rectangle(new Point(x, y), new Point(x + size, y), new Point(x + size, y + size), new Point(x, y + size));
+                    break;
+                default:
+                    shapes[i] = new Point(x, y);
+                    break;
+            }
+            if (boxes[i] == null)
+                boxes[i] = RTree.boundsOf(shapes[i]);
+        }
+        RTree<IShape2D> tree = new RTree<>(boxes, shapes, 8);
+
+        for (int q = 0; q < 50; q++)
+        {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+
+            double[] expected = new double[n];
+            for (int i = 0; i < n; i++)
+                expected[i] = Math.max(shapes[i].distanceTo(x, y), boxDistance(boxes[i], x, y));
+            Arrays.sort(expected);
+
+            int rank = 0;
+            for (IShape2D shape : tree.nearest(x, y, 10))
+            {
+                BoundingBox box = (shape instanceof Polygon) ? boxes[Arrays.asList(shapes).indexOf(shape)] : RTree.boundsOf(shape);
+                assertEquals(expected[rank], Math.max(shape.distanceTo(x, y), boxDistance(box, x, y)), 1e-9);
+                rank++;
+            }
+            assertEquals(10, rank);
+        }
+    }
+}
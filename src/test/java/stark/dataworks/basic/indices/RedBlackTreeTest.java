@@ -0,0 +1,107 @@
+package stark.dataworks.basic.indices;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class RedBlackTreeTest
+{
+    private static void assertSameContents(TreeMap<Long, String> expected, RedBlackTree<String> tree)
+    {
+        assertEquals(expected.size(), tree.count());
+        long[] keys = tree.keysToArray();
+        int i = 0;
+        for (Map.Entry<Long, String> entry : expected.entrySet())
+        {
+            assertEquals(entry.getKey().longValue(), keys[i++]);
+            assertEquals(entry.getValue(), tree.get(entry.getKey()));
+        }
+
+        // A red-black tree with n nodes is at most 2 * log2(n + 1) high.
+        assertTrue(tree.height() <= 2 * (32 - Integer.numberOfLeadingZeros(tree.count() + 1)));
+    }
+
+    @Test
+    public void testRandomOperations()
+    {
+        Random random = new Random(13);
+        TreeMap<Long, String> mirror = new TreeMap<>();
+        RedBlackTree<String> tree = new RedBlackTree<>(0);
+        for (int i = 0; i < 50000; i++)
+        {
+            long key = random.nextInt(5000) - 2500;
+            int operation = random.nextInt(3);
+            if (operation == 0)
+                assertEquals(mirror.put(key, "v" + i), tree.put(key, "v" + i));
+            else if (operation == 1)
+                assertEquals(mirror.remove(key) != null, tree.removeByKey(key));
+            else
+            {
+                Long floor = mirror.floorKey(key);
+                Long ceiling = mirror.ceilingKey(key);
+                if (floor != null)
+                    assertEquals(floor.longValue(), tree.floorKey(key));
+                if (ceiling != null)
+                    assertEquals(ceiling.longValue(), tree.ceilingKey(key));
+            }
+
+            if (i % 10000 == 0)
+                assertSameContents(mirror, tree);
+        }
+
+        assertSameContents(mirror, tree);
+        assertEquals(mirror.firstKey().longValue(), tree.minKey());
+        assertEquals(mirror.lastKey().longValue(), tree.maxKey());
+
+        StringBuilder expected = new StringBuilder();
+        mirror.subMap(-100L, true, 100L, true).forEach((key, value) -> expected.append(key).append(value));
+        StringBuilder actual = new StringBuilder();
+        tree.forEachInRange(-100, 100, (key, value) -> actual.append(key).append(value));
+        assertEquals(expected.toString(), actual.toString());
+
+        tree.compact();
+        assertSameContents(mirror, tree);
+        for (int i = 0; i < 2000; i++)
+        {
+            long key = random.nextInt(5000) - 2500;
+            assertEquals(mirror.put(key, "c" + i), tree.put(key, "c" + i));
+            key = random.nextInt(5000) - 2500;
+            assertEquals(mirror.remove(key) != null, tree.removeByKey(key));
+        }
+        assertSameContents(mirror, tree);
+
+        for (Long key : mirror.keySet())
+            assertTrue(tree.removeByKey(key));
+        assertEquals(0, tree.count());
+        assertEquals(0, tree.height());
+    }
+
+    @Test
+    public void testDoubleKeys()
+    {
+        double[] keys = {3.5, -0.0, 0.0, -2.25, Double.NEGATIVE_INFINITY, 1e-300, -1e300, Double.NaN, Double.POSITIVE_INFINITY};
+        DoubleRedBlackTree<Integer> tree = new DoubleRedBlackTree<>();
+        for (int i = 0; i < keys.length; i++)
+            tree.add(keys[i], i);
+
+        double[] sorted = keys.clone();
+        java.util.Arrays.sort(sorted);
+        double[] actual = tree.keysToArray();
+        for (int i = 0; i < sorted.length; i++)
+            assertEquals(0, Double.compare(sorted[i], actual[i]));
+
+        assertEquals(Integer.valueOf(3), tree.get(-2.25));
+        assertEquals(0, Double.compare(-2.25, tree.floorKey(-1.0)));
+        assertEquals(0, Double.compare(1e-300, tree.ceilingKey(Double.MIN_VALUE)));
+        assertEquals(0, Double.compare(Double.NEGATIVE_INFINITY, tree.minKey()));
+        assertTrue(Double.isNaN(tree.maxKey()));
+
+        int[] visited = new int[1];
+        tree.forEachInRange(-3.0, 0.0, (key, value) -> visited[0]++);
+        assertEquals(3, visited[0]);
+    }
+}
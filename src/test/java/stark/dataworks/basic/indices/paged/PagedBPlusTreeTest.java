@@ -0,0 +1,212 @@
+package stark.dataworks.basic.indices.paged;
+
+import org.junit.Test;
+import stark.dataworks.basic.collections.KeyValuePair;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class PagedBPlusTreeTest
+{
+    private static final int PAGE_SIZE = 256;
+
+    private static PagedBPlusTree<Integer, Long> open(Path path) throws IOException
+    {
+        // A tiny cache, so that pages are evicted all the time.
+        return new PagedBPlusTree<>(path, IFixedWidthCodec.INT32, IFixedWidthCodec.INT64, PAGE_SIZE, 8);
+    }
+
+    private static void assertSameContents(TreeMap<Integer, Long> expected, PagedBPlusTree<Integer, Long> tree)
+    {
+        assertEquals(expected.size(), tree.count());
+        Iterator<Map.Entry<Integer, Long>> expectedEntries = expected.entrySet().iterator();
+        for (KeyValuePair<Integer, Long> pair : tree)
+        {
+            Map.Entry<Integer, Long> entry = expectedEntries.next();
+            assertEquals(entry.getKey(), pair.getKey());
+            assertEquals(entry.getValue(), pair.getValue());
+        }
+        assertFalse(expectedEntries.hasNext());
+    }
+
+    @Test
+    public void testRandomOperationsAndReopen() throws IOException
+    {
+        Path path = Files.createTempFile("paged-b-plus-tree", ".db");
+        try
+        {
+            Random random = new Random(13);
+            TreeMap<Integer, Long> mirror = new TreeMap<>();
+            try (PagedBPlusTree<Integer, Long> tree = open(path))
+            {
+                for (int i = 0; i < 10000; i++)
+                {
+                    int key = random.nextInt(3000);
+                    if (random.nextInt(3) > 0)
+                    {
+                        tree.set(key, (long) i);
+                        mirror.put(key, (long) i);
+                    }
+                    else
+                        assertEquals(mirror.remove(key) != null, tree.removeByKey(key));
+
+                    if (i % 1000 == 0)
+                        tree.commit();
+                }
+
+                assertTrue(tree.height() > 1);
+                assertSameContents(mirror, tree);
+            }
+
+            try (PagedBPlusTree<Integer, Long> tree = open(path))
+            {
+                assertSameContents(mirror, tree);
+                for (int i = 0; i < 200; i++)
+                {
+                    int from = random.nextInt(3200) - 100;
+                    int to = from + random.nextInt(300);
+                    Iterator<Integer> expected = mirror.subMap(from, true, to, true).keySet().iterator();
+                    for (KeyValuePair<Integer, Long> pair : tree.entries(from, to))
+                        assertEquals(expected.next(), pair.getKey());
+                    assertFalse(expected.hasNext());
+                }
+
+                // Pages freed by earlier transactions are reused instead of growing the file.
+                long size = Files.size(path);
+                for (int i = 0; i < 3; i++)
+                {
+                    for (Integer key : mirror.keySet())
+                        tree.set(key, -1L);
+                    tree.commit();
+                }
+                assertTrue(Files.size(path) <= size * 3);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testRollback() throws IOException
+    {
+        Path path = Files.createTempFile("paged-b-plus-tree", ".db");
+        try (PagedBPlusTree<Integer, Long> tree = open(path))
+        {
+            TreeMap<Integer, Long> mirror = new TreeMap<>();
+            for (int i = 0; i < 2000; i++)
+            {
+                tree.add(i, (long) i);
+                mirror.put(i, (long) i);
+            }
+            tree.commit();
+
+            for (int i = 0; i < 2000; i += 2)
+                tree.removeByKey(i);
+            for (int i = 2000; i < 3000; i++)
+                tree.add(i, (long) i);
+            tree.rollback();
+            assertSameContents(mirror, tree);
+
+            tree.add(5000, 5L);
+            mirror.put(5000, 5L);
+            assertSameContents(mirror, tree);
+        }
+        finally
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testTornMetaPageFallsBackToPreviousCommit() throws IOException
+    {
+        Path path = Files.createTempFile("paged-b-plus-tree", ".db");
+        Files.delete(path);
+        try
+        {
+            // Creating the file commits transaction 1 into meta page 1.
+            TreeMap<Integer, Long> mirror = new TreeMap<>();
+            try (PagedBPlusTree<Integer, Long> tree = open(path))
+            {
+                // Transaction 2 goes to meta page 0.
+                for (int i = 0; i < 1000; i++)
+                {
+                    tree.add(i, (long) i);
+                    mirror.put(i, (long) i);
+                }
+                tree.commit();
+
+                // Transaction 3 goes to meta page 1 on closing, reusing pages freed by transaction 2.
+                for (int i = 0; i < 1000; i += 3)
+                    tree.removeByKey(i);
+                for (int i = 1000; i < 2000; i++)
+                    tree.add(i, (long) -i);
+            }
+
+            // Tear the meta page of transaction 3.
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw"))
+            {
+                file.seek(PAGE_SIZE + 30);
+                file.write(0x5A);
+            }
+
+            try (PagedBPlusTree<Integer, Long> tree = open(path))
+            {
+                assertSameContents(mirror, tree);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testFailedEncodingLeavesTreeUnchanged() throws IOException
+    {
+        Path path = Files.createTempFile("paged-b-plus-tree", ".db");
+        try (PagedBPlusTree<String, String> tree = new PagedBPlusTree<>(path, IFixedWidthCodec.utf8(8), IFixedWidthCodec.utf8(8)))
+        {
+            tree.add("b", "1");
+            tree.add("c", "2");
+            tree.add("d", "3");
+
+            String[][] failures = { { "a", "123456789" }, { "b", "123456789" }, { "123456789", "4" } };
+            for (String[] pair : failures)
+            {
+                try
+                {
+                    if (pair[0].equals("b"))
+                        tree.set(pair[0], pair[1]);
+                    else
+                        tree.add(pair[0], pair[1]);
+                    fail("A string longer than the codec allows must be rejected.");
+                }
+                catch (IllegalArgumentException e)
+                {
+                    // Expected.
+                }
+            }
+
+            assertEquals(3, tree.count());
+            assertFalse(tree.containsKey("a"));
+            assertEquals("1", tree.get("b"));
+            assertEquals("2", tree.get("c"));
+            assertEquals("3", tree.get("d"));
+        }
+        finally
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package stark.dataworks.basic.mathematics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InPlaceOperationsTest
+{
+    @Test
+    public void testVectorInPlaceAndDestinationOperations()
+    {
+        Vector x = new Vector(1, 2, 3);
+        Vector y = new Vector(4, 5, 6);
+
+        assertSame(x, x.addInPlace(y));
+        assertEquals(new Vector(5, 7, 9), x);
+        assertSame(x, x.subtractInPlace(y));
+        assertEquals(new Vector(1, 2, 3), x);
+        assertSame(x, x.scaleInPlace(2));
+        assertEquals(new Vector(2, 4, 6), x);
+        assertSame(x, x.addInPlace(-1));
+        assertEquals(new Vector(1, 3, 5), x);
+        assertSame(x, x.axpy(0.5, y));
+        assertEquals(new Vector(3, 5.5, 8), x);
+
+        // Fused scale-and-shift, both into a new Vector and in place.
+        Vector z = new Vector(1, 2, 3);
+        assertEquals(new Vector(2.5, 4.5, 6.5), z.scaleAdd(2, 0.5));
+        assertEquals(new Vector(1, 2, 3), z);
+        assertSame(z, z.scaleAddInto(2, 0.5, z));
+        assertEquals(new Vector(2.5, 4.5, 6.5), z);
+
+        Vector destination = new Vector(3);
+        assertSame(destination, new Vector(1, 2, 3).addInto(y, destination));
+        assertEquals(new Vector(5, 7, 9), destination);
+        new Vector(1, 2, 3).subtractInto(y, destination);
+        assertEquals(new Vector(-3, -3, -3), destination);
+        new Vector(1, 2, 3).elementWiseMultiplyInto(y, destination);
+        assertEquals(new Vector(4, 10, 18), destination);
+        new Vector(1, 2, 3).scaleInto(3, destination);
+        assertEquals(new Vector(3, 6, 9), destination);
+        destination.fill(7);
+        assertEquals(new Vector(7, 7, 7), destination);
+
+        try
+        {
+            y.addInto(y, new Vector(2));
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
+    @Test
+    public void testMatrixInPlaceAndDestinationOperations()
+    {
+        Matrix a = new Matrix(new double[][]{{1, 2}, {3, 4}});
+        Matrix b = new Matrix(new double[][]{{5, 6}, {7, 8}});
+
+        assertSame(a, a.addInPlace(b));
+        assertArrayEquals(new double[]{6, 8, 10, 12}, a.toRowMajorArray(), 0);
+        assertSame(a, a.subtractInPlace(b));
+        assertArrayEquals(new double[]{1, 2, 3, 4}, a.toRowMajorArray(), 0);
+        assertSame(a, a.scaleInPlace(2));
+        assertArrayEquals(new double[]{2, 4, 6, 8}, a.toRowMajorArray(), 0);
+        assertSame(a, a.addInPlace(-1));
+        assertArrayEquals(new double[]{1, 3, 5, 7}, a.toRowMajorArray(), 0);
+        assertSame(a, a.axpy(-1, b));
+        assertArrayEquals(new double[]{-4, -3, -2, -1}, a.toRowMajorArray(), 0);
+
+        // Scalar operations no longer modify or copy the source.
+        assertArrayEquals(new double[]{10, 12, 14, 16}, b.multiply(2).toRowMajorArray(), 0);
+        assertArrayEquals(new double[]{2.5, 3, 3.5, 4}, b.divide(2).toRowMajorArray(), 0);
+        assertArrayEquals(new double[]{4, 5, 6, 7}, b.subtract(1).toRowMajorArray(), 0);
+        assertArrayEquals(new double[]{5, 6, 7, 8}, b.toRowMajorArray(), 0);
+
+        Matrix destination = Matrix.ones(2, 2);
+        assertSame(destination, b.multiplyInto(Matrix.ones(2, 2), destination));
+        assertArrayEquals(new double[]{11, 11, 15, 15}, destination.toRowMajorArray(), 0);
+        b.addInto(b, destination);
+        assertArrayEquals(new double[]{10, 12, 14, 16}, destination.toRowMajorArray(), 0);
+        b.subtractInto(Matrix.ones(2, 2), destination);
+        assertArrayEquals(new double[]{4, 5, 6, 7}, destination.toRowMajorArray(), 0);
+        b.scaleInto(0.5, destination);
+        assertArrayEquals(new double[]{2.5, 3, 3.5, 4}, destination.toRowMajorArray(), 0);
+
+        Vector product = new Vector(2);
+        assertSame(product, b.multiplyInto(new Vector(1, -1), product));
+        assertEquals(new Vector(-1, -1), product);
+
+        try
+        {
+            b.multiplyInto(destination, destination);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package stark.dataworks.basic.mathematics;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static stark.dataworks.basic.mathematics.MatrixTestHelpers.*;
+
+public class MatrixParallelTest
+{
+    @Test
+    public void testParallelOperationsMatchSequential()
+    {
+        java.util.Random random = new java.util.Random(22);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            // Large enough to be split into many tiles, with ragged edges.
+            Matrix a = randomMatrix(random, 301, 257);
+            Matrix b = randomMatrix(random, 301, 257);
+            Matrix c = randomMatrix(random, 257, 199);
+            Matrix tall = randomMatrix(random, 530, 300);
+            Matrix wide = randomMatrix(random, 300, 520);
+            Matrix kernel = randomMatrix(random, 5, 3);
+
+            assertMatrixEquals(a.add(b), a.add(b, pool), 0);
+            assertMatrixEquals(a.subtract(b), a.subtract(b, pool), 0);
+            assertMatrixEquals(a.multiply(c), a.multiply(c, pool), 1e-9);
+            assertMatrixEquals(tall.multiply(wide), tall.multiply(wide, pool), 1e-9);
+            assertMatrixEquals(Matrix.computeConvolution(a, kernel, 2, 1), Matrix.computeConvolution(a, kernel, 2, 1, pool), 0);
+            assertMatrixEquals(Matrix.computeCorrelation(a, kernel, 1, 1), Matrix.computeCorrelation(a, kernel, 1, 1, pool), 0);
+
+            // Small inputs stay on the calling thread and still give the same results.
+            Matrix small = randomMatrix(random, 3, 4);
+            assertMatrixEquals(small.add(small), small.add(small, ForkJoinPool.commonPool()), 0);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        try
+        {
+            Matrix.ones(2, 2).add(Matrix.ones(2, 2), null);
+            fail();
+        }
+        catch (NullPointerException e)
+        {
+        }
+    }
+
+    @Test
+    public void testConvolutionAndCorrelationValues()
+    {
+        Matrix input = new Matrix(new double[][]{{1, 2, 3}, {4, 5, 6}, {7, 8, 9}});
+        Matrix kernel = new Matrix(new double[][]{{1, 0}, {0, -1}});
+
+        // Correlation slides the kernel as is, convolution slides the kernel rotated by 180 degrees.
+        Matrix correlation = Matrix.computeCorrelation(input, kernel, 0, 1, ForkJoinPool.commonPool());
+        assertMatrixEquals(new Matrix(new double[][]{{-4, -4}, {-4, -4}}), correlation, 0);
+
+        Matrix convolution = Matrix.computeConvolution(input, kernel, 0, 1);
+        assertMatrixEquals(new Matrix(new double[][]{{4, 4}, {4, 4}}), convolution, 0);
+
+        Matrix padded = Matrix.computeCorrelation(input, kernel, 1, 3);
+        assertMatrixEquals(new Matrix(new double[][]{{-1, 0}, {0, 9}}), padded, 0);
+
+        Matrix difference = input.subtract(new Matrix(new double[][]{{1, 1, 1}, {1, 1, 1}, {1, 1, 1}}));
+        assertEquals(8, difference.get(2, 2), 0);
+    }
+}
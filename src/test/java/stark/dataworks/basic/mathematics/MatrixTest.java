@@ -0,0 +1,74 @@
+package stark.dataworks.basic.mathematics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static stark.dataworks.basic.mathematics.MatrixTestHelpers.*;
+
+public class MatrixTest
+{
+    private static Matrix naiveMultiply(Matrix left, Matrix right)
+    {
+        Matrix result = Matrix.zeros(left.getRowCount(), right.getColumnCount());
+        for (int i = 0; i < left.getRowCount(); i++)
+        {
+            for (int j = 0; j < right.getColumnCount(); j++)
+            {
+                double sum = 0;
+                for (int k = 0; k < left.getColumnCount(); k++)
+                    sum += left.get(i, k) * right.get(k, j);
+                result.set(i, j, sum);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testBlockedMultiplyAndTransposedVariants()
+    {
+        java.util.Random random = new java.util.Random(21);
+
+        // Sizes straddle the tile and block edges so that padded panels are exercised.
+        int[][] shapes = {{1, 1, 1}, {3, 5, 7}, {70, 300, 9}, {13, 517, 530}};
+        for (int[] shape : shapes)
+        {
+            Matrix a = randomMatrix(random, shape[0], shape[1]);
+            Matrix b = randomMatrix(random, shape[1], shape[2]);
+            Matrix expected = naiveMultiply(a, b);
+
+            assertMatrixEquals(expected, a.multiply(b), 1e-9);
+            assertMatrixEquals(expected, a.transpose().transposeMultiply(b), 1e-9);
+            assertMatrixEquals(expected, a.multiplyTranspose(b.transpose()), 1e-9);
+        }
+
+        try
+        {
+            Matrix.ones(2, 3).transposeMultiply(Matrix.ones(3, 2));
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+        }
+    }
+
+    @Test
+    public void testContiguousStorageRoundTrips()
+    {
+        double[][] rows = {{1, 2, 3}, {4, 5, 6}};
+        Matrix matrix = new Matrix(rows);
+        assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6}, matrix.toRowMajorArray(), 0);
+        assertArrayEquals(new double[]{1, 4, 2, 5, 3, 6}, matrix.toColumnMajorArray(), 0);
+        assertEquals(new Vector(4, 5, 6), matrix.getRow(1));
+        assertEquals(new Vector(5, 6), matrix.getSubRow(1, 1, 2));
+        assertEquals(new Vector(3, 6), matrix.getColumn(2));
+        assertEquals(new Vector(14, 32), matrix.multiply(new Vector(1, 2, 3)));
+
+        Matrix fromColumns = new Matrix(new Vector[]{new Vector(1, 4), new Vector(2, 5), new Vector(3, 6)}, false);
+        assertMatrixEquals(matrix, fromColumns, 1e-9);
+
+        Matrix copy = matrix.clone();
+        copy.set(0, 0, 10);
+        assertEquals(1, matrix.get(0, 0), 0);
+        assertEquals(new Vector(5, 7, 9), matrix.sum(0));
+    }
+}
@@ -0,0 +1,74 @@
+package stark.dataworks.basic.mathematics;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Random inputs and entry-wise assertions shared by the matrix tests of this package.
+ */
+final class MatrixTestHelpers
+{
+    private MatrixTestHelpers(){}
+
+    /**
+     * Returns a Matrix whose entries are uniformly distributed in [-1, 1).
+     */
+    static Matrix randomMatrix(Random random, int rowCount, int columnCount)
+    {
+        Matrix matrix = Matrix.zeros(rowCount, columnCount);
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int j = 0; j < columnCount; j++)
+                matrix.set(i, j, random.nextDouble() * 2 - 1);
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns a Matrix in which each entry is non-zero with the given probability, and then uniformly distributed in
+     * [-1, 1).
+     */
+    static Matrix randomSparseMatrix(Random random, int rowCount, int columnCount, double density)
+    {
+        Matrix matrix = Matrix.zeros(rowCount, columnCount);
+        for (int i = 0; i < rowCount; i++)
+        {
+            for (int j = 0; j < columnCount; j++)
+            {
+                if (random.nextDouble() < density)
+                    matrix.set(i, j, random.nextDouble() * 2 - 1);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns a Vector whose entries are uniformly distributed in [-1, 1).
+     */
+    static Vector randomVector(Random random, int count)
+    {
+        Vector vector = new Vector(count);
+        for (int i = 0; i < count; i++)
+            vector.set(i, random.nextDouble() * 2 - 1);
+        return vector;
+    }
+
+    static void assertMatrixEquals(Matrix expected, Matrix actual, double delta)
+    {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getColumnCount(), actual.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++)
+        {
+            for (int j = 0; j < expected.getColumnCount(); j++)
+                assertEquals(expected.get(i, j), actual.get(i, j), delta);
+        }
+    }
+
+    static void assertVectorEquals(Vector expected, Vector actual, double delta)
+    {
+        assertEquals(expected.count(), actual.count());
+        for (int i = 0; i < expected.count(); i++)
+            assertEquals(expected.get(i), actual.get(i), delta);
+    }
+}
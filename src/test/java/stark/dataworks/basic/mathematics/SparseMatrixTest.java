@@ -0,0 +1,113 @@
+package stark.dataworks.basic.mathematics;
+
+import org.junit.Test;
+import stark.dataworks.basic.graphs.directed.Digraph;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static stark.dataworks.basic.mathematics.MatrixTestHelpers.*;
+
+public class SparseMatrixTest
+{
+    @Test
+    public void testFormatsMatchDenseMatrix()
+    {
+        Random random = new Random(25);
+        Matrix dense = randomSparseMatrix(random, 37, 23, 0.1);
+        Matrix right = randomSparseMatrix(random, 23, 11, 0.5);
+        Vector x = randomVector(random, 23);
+        Vector y = randomVector(random, 37);
+
+        CsrMatrix csr = CsrMatrix.fromMatrix(dense);
+        ISparseMatrix[] formats = { csr, csr.toCsc(), csr.toCoo(), CscMatrix.fromMatrix(dense), CooMatrix.fromMatrix(dense) };
+        for (ISparseMatrix sparse : formats)
+        {
+            assertEquals(csr.nonZeroCount(), sparse.nonZeroCount());
+            assertMatrixEquals(dense, sparse.toMatrix(), 0);
+            assertMatrixEquals(dense, sparse.toCsr().toMatrix(), 0);
+            assertMatrixEquals(dense.transpose(), sparse.transpose().toMatrix(), 0);
+            assertEquals(dense.get(3, 5), sparse.get(3, 5), 0);
+            assertVectorEquals(dense.multiply(x), sparse.multiply(x), 1e-12);
+            assertMatrixEquals(dense.multiply(right), sparse.multiply(right), 1e-12);
+        }
+
+        assertVectorEquals(dense.transpose().multiply(y), csr.transposeMultiply(y), 1e-12);
+        assertMatrixEquals(dense.transpose().multiply(dense), csr.transposeMultiply(dense), 1e-12);
+        assertMatrixEquals(dense.multiply(right), csr.multiply(CsrMatrix.fromMatrix(right)).toMatrix(), 1e-12);
+
+        // COO sums duplicates when converting.
+        CooMatrix coo = new CooMatrix(2, 3);
+        coo.add(1, 2, 1.5);
+        coo.add(0, 1, 2);
+        coo.add(1, 2, 0.5);
+        coo.add(1, 0, -1);
+        CsrMatrix merged = coo.toCsr();
+        assertEquals(3, merged.nonZeroCount());
+        assertEquals(2, merged.get(1, 2), 0);
+        assertEquals(2, coo.get(1, 2), 0);
+        assertMatrixEquals(new Matrix(new double[][] { { 0, 2, 0 }, { -1, 0, 2 } }), merged.toMatrix(), 0);
+
+        try
+        {
+            new CsrMatrix(2, 2, new int[] { 0, 2, 2 }, new int[] { 1, 0 }, new double[] { 1, 1 });
+            fail("Unsorted columns must be rejected.");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testParallelMultiplyAndDigraphConversion()
+    {
+        // A random matrix with a few dense rows, so that the rows are split by non-zeros rather than by count.
+        Random random = new Random(250);
+        int n = 20000;
+        CooMatrix coo = new CooMatrix(n, n);
+        for (int i = 0; i < n; i++)
+        {
+            int rowNonZeroCount = (i % 1000 == 0) ? 2000 : 8;
+            for (int k = 0; k < rowNonZeroCount; k++)
+                coo.add(i, random.nextInt(n), random.nextDouble());
+        }
+        CsrMatrix csr = coo.toCsr();
+        Vector x = randomVector(random, n);
+
+        Vector expected = csr.multiply(x);
+        Vector actual = new Vector(n);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            csr.multiplyInto(x, actual, pool);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        assertVectorEquals(expected, actual, 0);
+        assertVectorEquals(coo.multiply(x), expected, 1e-9);
+
+        Digraph digraph = new Digraph(4);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(0, 3);
+        digraph.addEdge(2, 0);
+        digraph.addEdge(0, 1);
+        CsrMatrix adjacency = CsrMatrix.fromDigraph(digraph);
+        assertEquals(3, adjacency.nonZeroCount());
+        assertEquals(2, adjacency.get(0, 1), 0);
+        assertEquals(1, adjacency.get(0, 3), 0);
+        assertEquals(1, adjacency.get(2, 0), 0);
+        assertEquals(0, adjacency.get(1, 0), 0);
+
+        Digraph roundTrip = adjacency.toDigraph();
+        assertEquals(4, roundTrip.vCount());
+        assertEquals(3, roundTrip.eCount());
+        StringBuilder targets = new StringBuilder();
+        for (int w : roundTrip.adjacent(0))
+            targets.append(w);
+        assertEquals("13", targets.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package stark.dataworks.basic.mathematics;
+
+import org.junit.Test;
+import stark.dataworks.basic.InvalidOperationException;
+import stark.dataworks.basic.models.distances.DistanceMetrics;
+import stark.dataworks.basic.models.distances.MinkowskiDistance;
+
+import static org.junit.Assert.*;
+
+public class VectorKernelsTest
+{
+    private static double[] randomArray(java.util.Random random, int length)
+    {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++)
+            array[i] = random.nextDouble() * 20 - 10;
+        return array;
+    }
+
+    @Test
+    public void testBackendsMatchNaiveLoops()
+    {
+        java.util.Random random = new java.util.Random(23);
+        IVectorKernels[] backends = VectorKernels.simd() == null
+            ? new IVectorKernels[]{VectorKernels.scalar()}
+            : new IVectorKernels[]{VectorKernels.scalar(), VectorKernels.simd()};
+
+        // Lengths around the lane counts exercise both the vector loop and the scalar tail.
+        int[] lengths = {0, 1, 3, 4, 7, 8, 9, 17, 31, 1000};
+        for (IVectorKernels kernels : backends)
+        {
+            for (int length : lengths)
+            {
+                double[] x = randomArray(random, length);
+                double[] y = randomArray(random, length);
+
+                double dot = 0, sum = 0, squared = 0, manhattan = 0, chebyshev = 0, cubes = 0;
+                double max = Double.NEGATIVE_INFINITY, min = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < length; i++)
+                {
+                    double delta = Math.abs(x[i] - y[i]);
+                    dot += x[i] * y[i];
+                    sum += x[i];
+                    squared += delta * delta;
+                    manhattan += delta;
+                    chebyshev = Math.max(chebyshev, delta);
+                    cubes += delta * delta * delta;
+                    max = Math.max(max, x[i]);
+                    min = Math.min(min, x[i]);
+                }
+
+                assertEquals(dot, kernels.dot(x, y, length), 1e-9);
+                assertEquals(sum, kernels.sum(x, length), 1e-9);
+                assertEquals(max, kernels.max(x, length), 0);
+                assertEquals(min, kernels.min(x, length), 0);
+                assertEquals(squared, kernels.squaredEuclideanDistance(x, y, length), 1e-9);
+                assertEquals(manhattan, kernels.manhattanDistance(x, y, length), 1e-9);
+                assertEquals(chebyshev, kernels.chebyshevDistance(x, y, length), 0);
+                assertEquals(Math.cbrt(cubes), kernels.minkowskiDistance(x, y, length, 3), 1e-9);
+
+                double[] result = new double[length];
+                kernels.add(x, y, result, length);
+                for (int i = 0; i < length; i++)
+                    assertEquals(x[i] + y[i], result[i], 0);
+                kernels.subtract(x, y, result, length);
+                for (int i = 0; i < length; i++)
+                    assertEquals(x[i] - y[i], result[i], 0);
+                kernels.multiply(x, y, result, length);
+                for (int i = 0; i < length; i++)
+                    assertEquals(x[i] * y[i], result[i], 0);
+                kernels.add(x, 2.5, result, length);
+                for (int i = 0; i < length; i++)
+                    assertEquals(x[i] + 2.5, result[i], 0);
+                kernels.scale(-3, x, result, length);
+                for (int i = 0; i < length; i++)
+                    assertEquals(-3 * x[i], result[i], 0);
+
+                // In-place AXPY: y += 0.5 * x.
+                double[] expected = y.clone();
+                for (int i = 0; i < length; i++)
+                    expected[i] += 0.5 * x[i];
+                kernels.axpy(0.5, x, y, length);
+                assertArrayEquals(expected, y, 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testVectorOperationsAndDistances()
+    {
+        Vector x = new Vector(1, -2, 3);
+        Vector y = new Vector(4, 2, 3);
+
+        assertEquals(new Vector(5, 0, 6), x.add(y));
+        assertEquals(new Vector(-3, -4, 0), x.subtract(y));
+        assertEquals(new Vector(4, -4, 9), x.elementWiseMultiply(y));
+        assertEquals(new Vector(2, -4, 6), x.multiply(2));
+        assertEquals(new Vector(0, -3, 2), x.subtract(1));
+        assertEquals(9, x.dot(y), 0);
+        assertEquals(2, x.sum(), 0);
+        assertEquals(3, x.max(), 0);
+        assertEquals(-2, x.min(), 0);
+        assertEquals(5, new Vector(3, 4).getLength(), 1e-12);
+
+        Vector empty = new Vector(new double[0]);
+        try
+        {
+            empty.max();
+            fail("The maximum of an empty Vector must be rejected.");
+        }
+        catch (InvalidOperationException e)
+        {
+            // Expected.
+        }
+        try
+        {
+            empty.min();
+            fail("The minimum of an empty Vector must be rejected.");
+        }
+        catch (InvalidOperationException e)
+        {
+            // Expected.
+        }
+
+        // Deltas are (-3, -4, 0): distances must use their absolute values.
+        assertEquals(5, DistanceMetrics.EUCLIDEAN_DISTANCE.distanceBetween(x, y), 1e-12);
+        assertEquals(7, DistanceMetrics.MANHATTAN_DISTANCE.distanceBetween(x, y), 1e-12);
+        assertEquals(4, DistanceMetrics.CHEBYSHEV_DISTANCE.distanceBetween(x, y), 0);
+        assertEquals(Math.cbrt(91), new MinkowskiDistance(3).distanceBetween(x, y), 1e-12);
+        assertEquals(7, new MinkowskiDistance(1).distanceBetween(x, y), 1e-12);
+    }
+}
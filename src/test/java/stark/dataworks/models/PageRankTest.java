@@ -1,7 +1,11 @@
 package stark.dataworks.models;
 
+import stark.dataworks.basic.graphs.directed.Digraph;
+import stark.dataworks.basic.mathematics.CooMatrix;
+import stark.dataworks.basic.mathematics.CsrMatrix;
 import stark.dataworks.basic.mathematics.Matrix;
 import stark.dataworks.basic.mathematics.Vector;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import stark.dataworks.basic.models.PageRank;
@@ -30,4 +34,49 @@ public class PageRankTest
         Vector rank = pageRank.getRank();
         System.out.println(rank);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getRankOfSparseGraphs()
+    {
+        Vector expected = new PageRank(graph, 0.8).getRank();
+
+        // Page 0 links to pages 0 and 1, page 1 to pages 0 and 2, page 2 to itself.
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 0);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(1, 0);
+        digraph.addEdge(1, 2);
+        digraph.addEdge(2, 2);
+
+        Vector[] ranks = { new PageRank(CsrMatrix.fromMatrix(graph), 0.8).getRank(), new PageRank(digraph, 0.8).getRank() };
+        for (Vector rank : ranks)
+        {
+            for (int i = 0; i < expected.count(); i++)
+                Assert.assertEquals(expected.get(i), rank.get(i), 1e-12);
+        }
+    }
+
+    @Test
+    public void getRankOfGraphsWithDuplicateEntries()
+    {
+        // Page 0 links to pages 1 and 2, pages 1 and 2 link to page 0.
+        Vector[] vectors = new Vector[3];
+        vectors[0] = new Vector(0, 1, 1);
+        vectors[1] = new Vector(0.5, 0, 0);
+        vectors[2] = new Vector(0.5, 0, 0);
+        Vector expected = new PageRank(new Matrix(vectors, true), 0.8).getRank();
+
+        // The same graph, with the link 0->1 stored as 2 entries that sum to its weight.
+        CooMatrix coo = new CooMatrix(3, 3);
+        coo.add(1, 0, 0.3);
+        coo.add(1, 0, 0.2);
+        coo.add(2, 0, 0.5);
+        coo.add(0, 1, 1);
+        coo.add(0, 2, 1);
+
+        Vector rank = new PageRank(coo, 0.8).getRank();
+        for (int i = 0; i < expected.count(); i++)
+            Assert.assertEquals(expected.get(i), rank.get(i), 1e-12);
+        Assert.assertEquals(rank.get(1), rank.get(2), 1e-12);
+    }
+}